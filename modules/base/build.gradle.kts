@@ -30,6 +30,7 @@
 plugins {
     `java-library`
     id("org.gradle.java.experimental-jigsaw").version("0.1.1")
+    id("me.champeau.gradle.jmh").version("0.4.4")
 }
 
 javaModule.setName(osmerion("base"))
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the cost of enabled and disabled log statements to the cost of an empty method.
+ *
+ * <p>The benchmarked logger has a listener that discards all messages. Thus, {@code INFO} is enabled and {@code DEBUG} is disabled (by severity). Enabled
+ * statements measure the cost of handing a message over to the dispatcher.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggerEnablementBenchmark {
+
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+    private static final LogLevel DEBUG = new LogLevel("DEBUG", 4);
+
+    private static final Logger LOGGER;
+    private static final MethodHandle INFO_ENABLED;
+    private static final MethodHandle DEBUG_ENABLED;
+
+    static {
+        Logger.Builder builder = new Logger.Builder();
+        builder.getLogLevels().add(INFO);
+        builder.getLogLevels().add(DEBUG);
+        builder.setSeverity(INFO.getSeverity());
+
+        LOGGER = builder.build().getLogger();
+        LOGGER.addListener(message -> {});
+
+        INFO_ENABLED = LOGGER.getEnabledGuard(INFO);
+        DEBUG_ENABLED = LOGGER.getEnabledGuard(DEBUG);
+    }
+
+    private int value = 42;
+
+    @Benchmark
+    public void emptyMethod() {}
+
+    @Benchmark
+    public boolean isEnabledDisabled() {
+        return LOGGER.isEnabled(DEBUG);
+    }
+
+    @Benchmark
+    public boolean isEnabledEnabled() {
+        return LOGGER.isEnabled(INFO);
+    }
+
+    @Benchmark
+    public void disabledLog() {
+        LOGGER.log(DEBUG, "value: {}", this.value);
+    }
+
+    @Benchmark
+    public void disabledLogWithGuard() throws Throwable {
+        if ((boolean) DEBUG_ENABLED.invokeExact()) LOGGER.log(DEBUG, "value: {}", this.value);
+    }
+
+    @Benchmark
+    public void enabledLog() {
+        LOGGER.log(INFO, "value: {}", this.value);
+    }
+
+    @Benchmark
+    public void enabledLogWithGuard() throws Throwable {
+        if ((boolean) INFO_ENABLED.invokeExact()) LOGGER.log(INFO, "value: {}", this.value);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import static com.github.themrmilchmann.osmerion.logging.BinaryLogFormat.*;
+
+/**
+ * A streaming decoder for binary logs written by a {@link BinaryLogEncoder}.
+ *
+ * <p>The decoder is a cursor over the message records of a binary log. Calling {@link #next()} advances the cursor to the next message. The properties of
+ * the current message can be queried using the respective getters. Definition records are processed transparently.</p>
+ *
+ * <p>A truncated record at the end of the log (as left behind if the writing process crashed) is treated as the end of the log. A record with an invalid
+ * checksum causes an {@code IOException}.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @see BinaryLogEncoder
+ * @see BinaryLogReader
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class BinaryLogDecoder implements AutoCloseable {
+
+    private final ReadableByteChannel channel;
+    private final CRC32C crc = new CRC32C();
+
+    private ByteBuffer buffer;
+    private boolean eof;
+
+    private final String[] levelNames = new String[MAX_LEVEL_IDS];
+    private final int[] levelSeverities = new int[MAX_LEVEL_IDS];
+    private final List<String> templates = new ArrayList<>();
+    private final Map<Long, String[][]> throwables = new HashMap<>();
+
+    private int level;
+    private long timestampNanos;
+    private long sequence;
+    private int loggerId;
+    private String message;
+    private long fingerprint;
+    private String[] throwableHeaders = new String[0];
+    private String[] throwableSuppressed = new String[0];
+    private String throwable;
+    private final List<String> fieldKeys = new ArrayList<>();
+    private final List<Object> fieldValues = new ArrayList<>();
+
+    /**
+     * Creates a new decoder that reads from the given channel.
+     *
+     * <p>The header of the binary log is read and validated immediately.</p>
+     *
+     * @param channel the channel to read from
+     *
+     * @throws IOException if an I/O error occurs or the channel does not contain a binary log of a supported version
+     * @throws NullPointerException if the given {@code channel} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public BinaryLogDecoder(ReadableByteChannel channel) throws IOException {
+        if (channel == null) throw new NullPointerException();
+
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(64 * 1024);
+        this.buffer.flip();
+
+        if (!this.fill(HEADER_SIZE) || this.buffer.getInt() != MAGIC) throw new IOException("Not a binary log");
+        if (this.buffer.getShort() != VERSION) throw new IOException("Unsupported binary log version");
+    }
+
+    /*
+     * Creates a new decoder that reads the records in the given heap buffer. The records must not be preceded by a header.
+     */
+    BinaryLogDecoder(ByteBuffer records) {
+        this.channel = null;
+        this.buffer = records;
+        this.eof = true;
+    }
+
+    /**
+     * Advances this decoder to the next message.
+     *
+     * @return {@code true} if the decoder has been advanced to the next message, or {@code false} if the end of the log has been reached
+     *
+     * @throws IOException if an I/O error occurs or the log is corrupt
+     *
+     * @since 1.0.0.0
+     */
+    public boolean next() throws IOException {
+        while (this.fill(RECORD_HEADER_SIZE)) {
+            int length = this.buffer.getInt(this.buffer.position());
+            int checksum = this.buffer.getInt(this.buffer.position() + 4);
+
+            if (length < 1) throw new IOException("Corrupt record");
+            if (!this.fill(RECORD_HEADER_SIZE + length)) return false;
+
+            int payloadStart = this.buffer.position() + RECORD_HEADER_SIZE;
+            this.crc.reset();
+            this.crc.update(this.buffer.array(), this.buffer.arrayOffset() + payloadStart, length);
+            if ((int) this.crc.getValue() != checksum) throw new IOException("Checksum mismatch");
+
+            this.buffer.position(payloadStart);
+            ByteBuffer record = this.buffer.slice();
+            record.limit(length);
+            this.buffer.position(payloadStart + length);
+
+            if (this.decode(record)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the name of the level of the current message.
+     *
+     * @return the name of the level of the current message
+     *
+     * @since 1.0.0.0
+     */
+    public String getLevelName() {
+        return this.levelNames[this.level];
+    }
+
+    /**
+     * Returns the numerical severity of the level of the current message.
+     *
+     * @return the numerical severity of the level of the current message
+     *
+     * @since 1.0.0.0
+     */
+    public int getLevelSeverity() {
+        return this.levelSeverities[this.level];
+    }
+
+    /**
+     * Returns the construction time of the current message in milliseconds since the epoch.
+     *
+     * @return the construction time of the current message
+     *
+     * @see LogMessage#getConstructionTime()
+     *
+     * @since 1.0.0.0
+     */
+    public long getTimestamp() {
+        return Math.floorDiv(this.timestampNanos, 1_000_000L);
+    }
+
+    /**
+     * Returns the construction time of the current message in nanoseconds since the epoch.
+     *
+     * @return the construction time of the current message in nanoseconds
+     *
+     * @see LogMessage#getConstructionTimeNanos()
+     *
+     * @since 1.0.0.0
+     */
+    public long getTimestampNanos() {
+        return this.timestampNanos;
+    }
+
+    /**
+     * Returns the sequence number of the current message.
+     *
+     * @return the sequence number of the current message
+     *
+     * @see LogMessage#getSequence()
+     *
+     * @since 1.0.0.0
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * Returns the ID of the logger that created the current message, or {@code -1} if the message has not been created by a {@link Logger}.
+     *
+     * @return the ID of the logger that created the current message, or {@code -1}
+     *
+     * @see Logger#getId()
+     *
+     * @since 1.0.0.0
+     */
+    public int getLoggerId() {
+        return this.loggerId;
+    }
+
+    /**
+     * Returns the (formatted) message component of the current message or {@code null} if no message has been attached.
+     *
+     * @return the message component of the current message or {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public String getMessage() {
+        return this.message;
+    }
+
+    /**
+     * Returns the fingerprint of the throwable attached to the current message, or {@code 0} if no throwable has been attached.
+     *
+     * @return the fingerprint of the throwable attached to the current message, or {@code 0}
+     *
+     * @since 1.0.0.0
+     */
+    public long getThrowableFingerprint() {
+        return this.fingerprint;
+    }
+
+    /**
+     * Returns the rendered stack trace of the throwable attached to the current message, or {@code null} if no throwable has been attached.
+     *
+     * @return the rendered stack trace of the throwable attached to the current message, or {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public String getThrowable() {
+        if (this.fingerprint == 0L) return null;
+
+        if (this.throwable == null) {
+            String[][] frames = this.throwables.getOrDefault(this.fingerprint, new String[0][]);
+            this.throwable = Throwables.render(this.throwableHeaders, this.throwableSuppressed, frames);
+        }
+
+        return this.throwable;
+    }
+
+    /**
+     * Returns the number of structured fields of the current message.
+     *
+     * @return the number of structured fields of the current message
+     *
+     * @see LogMessage#getFieldCount()
+     *
+     * @since 1.0.0.0
+     */
+    public int getFieldCount() {
+        return this.fieldKeys.size();
+    }
+
+    /**
+     * Returns the key of the field at the given index of the current message.
+     *
+     * @param index the index of the field
+     *
+     * @return the key of the field at the given index
+     *
+     * @throws IndexOutOfBoundsException if the given {@code index} is out of range
+     *
+     * @since 1.0.0.0
+     */
+    public String getFieldKey(int index) {
+        return this.fieldKeys.get(index);
+    }
+
+    /**
+     * Returns the value of the field at the given index of the current message.
+     *
+     * <p>The value is either a {@code Long}, a {@code Double}, or the {@code String} representation of a reference value (or {@code null}).</p>
+     *
+     * @param index the index of the field
+     *
+     * @return the value of the field at the given index
+     *
+     * @throws IndexOutOfBoundsException if the given {@code index} is out of range
+     *
+     * @since 1.0.0.0
+     */
+    public Object getFieldValue(int index) {
+        return this.fieldValues.get(index);
+    }
+
+    /**
+     * Closes this decoder and the underlying channel.
+     *
+     * @throws IOException if an I/O error occurs
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.channel != null) this.channel.close();
+    }
+
+    private boolean decode(ByteBuffer record) throws IOException {
+        switch (record.get()) {
+            case RECORD_LEVEL: {
+                int index = record.get() & 0xFF;
+                this.levelSeverities[index] = record.getInt();
+                this.levelNames[index] = getString(record);
+                return false;
+            }
+            case RECORD_TEMPLATE: {
+                int id = record.getInt();
+                String template = getString(record);
+
+                while (this.templates.size() <= id) this.templates.add(null);
+                this.templates.set(id, template);
+                return false;
+            }
+            case RECORD_THROWABLE: {
+                long fingerprint = record.getLong();
+                String[][] frames = new String[record.getInt()][];
+
+                for (int i = 0; i < frames.length; i++) {
+                    frames[i] = new String[record.getInt()];
+                    for (int j = 0; j < frames[i].length; j++) frames[i][j] = getString(record);
+                }
+
+                this.throwables.put(fingerprint, frames);
+                return false;
+            }
+            case RECORD_MESSAGE: {
+                byte flags = record.get();
+
+                this.level = record.get() & 0xFF;
+                this.timestampNanos = record.getLong();
+                this.sequence = record.getLong();
+                this.loggerId = record.getInt();
+                this.message = null;
+                this.fingerprint = 0L;
+                this.throwable = null;
+                this.fieldKeys.clear();
+                this.fieldValues.clear();
+
+                if ((flags & FLAG_TEMPLATE) != 0) {
+                    String template = this.templates.get(record.getInt());
+                    Object[] args = new Object[record.getInt()];
+
+                    for (int i = 0; i < args.length; i++) args[i] = getValue(record);
+
+                    LogMessage logMessage = new LogMessage(false);
+                    logMessage.setArguments(template, args);
+                    this.message = logMessage.getMessage();
+                }
+
+                if ((flags & FLAG_MESSAGE) != 0) this.message = getString(record);
+                if ((flags & FLAG_THROWABLE) != 0) {
+                    this.fingerprint = record.getLong();
+                    this.throwableHeaders = new String[record.getInt()];
+                    this.throwableSuppressed = new String[this.throwableHeaders.length];
+
+                    for (int i = 0; i < this.throwableHeaders.length; i++) {
+                        this.throwableHeaders[i] = getString(record);
+                        this.throwableSuppressed[i] = getString(record);
+                    }
+                }
+
+                if ((flags & FLAG_FIELDS) != 0) {
+                    for (int i = 0, count = record.getInt(); i < count; i++) {
+                        this.fieldKeys.add(getString(record));
+                        this.fieldValues.add(getValue(record));
+                    }
+                }
+
+                return true;
+            }
+            default:
+                /* Skip unknown records for forward compatibility. */
+                return false;
+        }
+    }
+
+    private static Object getValue(ByteBuffer record) throws IOException {
+        switch (record.get()) {
+            case ARG_LONG: return record.getLong();
+            case ARG_DOUBLE: return record.getDouble();
+            case ARG_STRING: return getString(record);
+            default: throw new IOException("Corrupt record");
+        }
+    }
+
+    private static String getString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) return null;
+
+        String value = new String(record.array(), record.arrayOffset() + record.position(), length, StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+
+        return value;
+    }
+
+    /*
+     * Ensures that at least the given number of bytes is available in the buffer. Returns false if the end of the channel has been reached before.
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (this.buffer.remaining() >= bytes) return true;
+        if (this.eof) return false;
+
+        if (this.buffer.capacity() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(this.buffer.capacity() * 2, bytes));
+            grown.put(this.buffer);
+            this.buffer = grown;
+        } else {
+            this.buffer.compact();
+        }
+
+        while (this.buffer.position() < bytes) {
+            if (this.channel.read(this.buffer) < 0) {
+                this.eof = true;
+                break;
+            }
+        }
+
+        this.buffer.flip();
+        return this.buffer.remaining() >= bytes;
+    }
+
+}
\ No newline at end of file
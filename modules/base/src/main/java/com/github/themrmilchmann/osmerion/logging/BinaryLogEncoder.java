@@ -0,0 +1,464 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import static com.github.themrmilchmann.osmerion.logging.BinaryLogFormat.*;
+
+/**
+ * An {@link ILogListener} that encodes {@link LogMessage}s in a compact binary format.
+ *
+ * <p>Instead of formatting messages, the encoder writes the index of the level, the timestamp, the ID of the logger, the ID of the message template and the
+ * typed template arguments. Templates, levels and stack frames are written only once per stream and referred to by their IDs (or fingerprints)
+ * afterwards. (The messages of throwables are written with every message since they are not covered by the fingerprint.) Every record is length-prefixed
+ * and protected by a CRC-32C checksum. Formatting is thus deferred until the log is read using a {@link BinaryLogDecoder}.</p>
+ *
+ * <p>Arguments that are neither {@code long} nor {@code double} are converted to {@code String}s when they are encoded.</p>
+ *
+ * <p>Records are collected in a buffer that is written to the underlying channel once per batch of messages.</p>
+ *
+ * <p>This listener is thread-safe.</p>
+ *
+ * @see BinaryLogDecoder
+ * @see BinaryLogReader
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class BinaryLogEncoder implements ILogListener, AutoCloseable {
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    /*
+     * The maximum number of templates and stack traces that are remembered as defined. Once exceeded, the definitions are forgotten and written again when
+     * they are used the next time. This bounds the memory used for dynamically created templates (and by the decoder).
+     */
+    private static final int MAX_DEFINITIONS = 4096;
+
+    private final WritableByteChannel channel;
+    private final CRC32C crc = new CRC32C();
+
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    private long definedLevels;
+    private final Map<LogLevel, Integer> unindexedLevelIds = new HashMap<>();
+    private final Map<String, Integer> templateIds = new IdentityHashMap<>();
+    private long[] definedThrowables = new long[64];
+    private int definedThrowableCount;
+
+    private boolean closed;
+
+    /**
+     * Creates a new encoder that writes to the given channel.
+     *
+     * <p>The header of the binary log is written immediately.</p>
+     *
+     * @param channel the channel to write to
+     *
+     * @throws IOException if an I/O error occurs
+     * @throws NullPointerException if the given {@code channel} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public BinaryLogEncoder(WritableByteChannel channel) throws IOException {
+        if (channel == null) throw new NullPointerException();
+
+        this.channel = channel;
+
+        this.buffer.putInt(MAGIC);
+        this.buffer.putShort(VERSION);
+        this.flush();
+    }
+
+    /*
+     * Creates a new encoder that is not backed by a channel. Such an encoder is only used to encode standalone records (see #encodeStandalone).
+     */
+    BinaryLogEncoder() {
+        this.channel = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws IllegalStateException if this encoder has been closed
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public synchronized void onLogged(LogMessage logMessage) {
+        this.encode(logMessage);
+
+        try {
+            this.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws IllegalStateException if this encoder has been closed
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public synchronized void onLoggedBatch(List<LogMessage> logMessages) {
+        for (int i = 0, size = logMessages.size(); i < size; i++) this.encode(logMessages.get(i));
+
+        try {
+            this.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes this encoder and the underlying channel.
+     *
+     * <p>Calling this method on a closed encoder has no effect.</p>
+     *
+     * @throws IOException if an I/O error occurs
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) return;
+
+        this.closed = true;
+        this.channel.close();
+    }
+
+    /*
+     * Encodes the given message into a sequence of records that does not refer to definitions written before. (That is, all definitions the message refers
+     * to are written again.) The returned buffer is reused by subsequent calls.
+     */
+    ByteBuffer encodeStandalone(LogMessage logMessage) {
+        this.definedLevels = 0L;
+        this.unindexedLevelIds.clear();
+        this.templateIds.clear();
+
+        if (this.definedThrowableCount > 0) {
+            Arrays.fill(this.definedThrowables, 0L);
+            this.definedThrowableCount = 0;
+        }
+
+        this.buffer.clear();
+        this.encode(logMessage);
+        this.buffer.flip();
+
+        return this.buffer;
+    }
+
+    private void encode(LogMessage logMessage) {
+        if (this.closed) throw new IllegalStateException();
+
+        LogLevel level = logMessage.getLevel();
+        String template = logMessage.getTemplate();
+        Throwable throwable = logMessage.getThrowable();
+
+        int levelId = this.defineLevel(level);
+
+        int templateId = -1;
+
+        if (template != null) {
+            Integer id = this.templateIds.get(template);
+
+            if (id == null) {
+                if (this.templateIds.size() == MAX_DEFINITIONS) this.templateIds.clear();
+
+                templateId = this.templateIds.size();
+                this.templateIds.put(template, templateId);
+
+                int start = this.beginRecord(RECORD_TEMPLATE);
+                this.buffer.putInt(templateId);
+                this.putString(template);
+                this.endRecord(start);
+            } else {
+                templateId = id;
+            }
+        }
+
+        long fingerprint = 0L;
+
+        if (throwable != null) {
+            fingerprint = logMessage.getThrowableFingerprint();
+
+            if (this.defineThrowable(fingerprint)) {
+                int start = this.beginRecord(RECORD_THROWABLE);
+                int depth = Throwables.depth(throwable);
+
+                this.buffer.putLong(fingerprint);
+                this.buffer.putInt(depth);
+
+                Throwable t = throwable;
+
+                for (int i = 0; i < depth; i++, t = t.getCause()) {
+                    StackTraceElement[] trace = t.getStackTrace();
+
+                    this.ensureCapacity(4);
+                    this.buffer.putInt(trace.length);
+                    for (StackTraceElement element : trace) this.putString(element.toString());
+                }
+
+                this.endRecord(start);
+            }
+        }
+
+        byte flags = 0;
+        if (template != null) flags |= FLAG_TEMPLATE;
+        if (template == null && logMessage.getMessage() != null) flags |= FLAG_MESSAGE;
+        if (throwable != null) flags |= FLAG_THROWABLE;
+        if (logMessage.getFieldCount() > 0) flags |= FLAG_FIELDS;
+
+        int start = this.beginRecord(RECORD_MESSAGE);
+        this.buffer.put(flags);
+        this.buffer.put((byte) levelId);
+        this.buffer.putLong(logMessage.getConstructionTimeNanos());
+        this.buffer.putLong(logMessage.getSequence());
+        this.buffer.putInt(logMessage.getLogger() instanceof Logger ? ((Logger) logMessage.getLogger()).getId() : -1);
+
+        if (template != null) {
+            int argCount = logMessage.getArgumentCount();
+
+            this.buffer.putInt(templateId);
+            this.buffer.putInt(argCount);
+
+            for (int i = 0; i < argCount; i++) {
+                switch (logMessage.getArgumentType(i)) {
+                    case LogMessage.ARG_LONG:
+                        this.ensureCapacity(9);
+                        this.buffer.put(ARG_LONG);
+                        this.buffer.putLong(logMessage.getLongArgument(i));
+                        break;
+                    case LogMessage.ARG_DOUBLE:
+                        this.ensureCapacity(9);
+                        this.buffer.put(ARG_DOUBLE);
+                        this.buffer.putDouble(logMessage.getDoubleArgument(i));
+                        break;
+                    case LogMessage.ARG_CHAR:
+                        this.putObject(String.valueOf(logMessage.getCharArgument(i)));
+                        break;
+                    case LogMessage.ARG_FLOAT:
+                        this.putObject(String.valueOf(logMessage.getFloatArgument(i)));
+                        break;
+                    default:
+                        this.putObject(logMessage.getObjectArgument(i));
+                }
+            }
+        } else if (logMessage.getMessage() != null) {
+            this.putString(logMessage.getMessage());
+        }
+
+        if (throwable != null) {
+            int depth = Throwables.depth(throwable);
+
+            this.ensureCapacity(12);
+            this.buffer.putLong(fingerprint);
+            this.buffer.putInt(depth);
+
+            Throwable t = throwable;
+
+            for (int i = 0; i < depth; i++, t = t.getCause()) {
+                this.putString(t.toString());
+                this.putString(Throwables.renderSuppressed(t));
+            }
+        }
+
+        int fieldCount = logMessage.getFieldCount();
+
+        if (fieldCount > 0) {
+            this.ensureCapacity(4);
+            this.buffer.putInt(fieldCount);
+
+            for (int i = 0; i < fieldCount; i++) {
+                this.putString(logMessage.getFieldKey(i));
+
+                switch (logMessage.getFieldType(i)) {
+                    case LONG:
+                        this.ensureCapacity(9);
+                        this.buffer.put(ARG_LONG);
+                        this.buffer.putLong(logMessage.getLongField(i));
+                        break;
+                    case DOUBLE:
+                        this.ensureCapacity(9);
+                        this.buffer.put(ARG_DOUBLE);
+                        this.buffer.putDouble(logMessage.getDoubleField(i));
+                        break;
+                    default:
+                        this.putObject(logMessage.getObjectField(i));
+                }
+            }
+        }
+
+        this.endRecord(start);
+    }
+
+    private void putObject(Object value) {
+        this.ensureCapacity(1);
+        this.buffer.put(ARG_STRING);
+        this.putString(value != null ? value.toString() : null);
+    }
+
+    /*
+     * Returns the ID of the given level in this stream and writes its definition if necessary. Levels that have been assigned an index use the index as ID.
+     * Other levels are assigned IDs in the range [MAX_LEVELS, MAX_LEVEL_IDS) on a slower path.
+     */
+    private int defineLevel(LogLevel level) {
+        int levelId = level.getIndex();
+
+        if (levelId >= 0) {
+            if ((this.definedLevels & level.getMask()) != 0) return levelId;
+
+            this.definedLevels |= level.getMask();
+        } else {
+            Integer id = this.unindexedLevelIds.get(level);
+            if (id != null) return id;
+
+            if (this.unindexedLevelIds.size() == MAX_LEVEL_IDS - LogLevel.MAX_LEVELS) this.unindexedLevelIds.clear();
+
+            levelId = LogLevel.MAX_LEVELS + this.unindexedLevelIds.size();
+            this.unindexedLevelIds.put(level, levelId);
+        }
+
+        int start = this.beginRecord(RECORD_LEVEL);
+        this.buffer.put((byte) levelId);
+        this.buffer.putInt(level.getSeverity());
+        this.putString(level.getName());
+        this.endRecord(start);
+
+        return levelId;
+    }
+
+    private boolean defineThrowable(long fingerprint) {
+        long[] table = this.definedThrowables;
+        int mask = table.length - 1;
+        int index = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+
+        while (table[index] != 0) {
+            if (table[index] == fingerprint) return false;
+            index = (index + 1) & mask;
+        }
+
+        if (this.definedThrowableCount == MAX_DEFINITIONS) {
+            Arrays.fill(table, 0L);
+            this.definedThrowableCount = 0;
+
+            index = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+        }
+
+        table[index] = fingerprint;
+
+        if (++this.definedThrowableCount * 2 > table.length) {
+            long[] grown = new long[table.length * 2];
+            int grownMask = grown.length - 1;
+
+            for (long value : table) {
+                if (value == 0) continue;
+
+                int i = (int) (value ^ (value >>> 32)) & grownMask;
+                while (grown[i] != 0) i = (i + 1) & grownMask;
+                grown[i] = value;
+            }
+
+            this.definedThrowables = grown;
+        }
+
+        return true;
+    }
+
+    private int beginRecord(byte type) {
+        this.ensureCapacity(RECORD_HEADER_SIZE + 32);
+
+        int start = this.buffer.position();
+        this.buffer.position(start + RECORD_HEADER_SIZE);
+        this.buffer.put(type);
+
+        return start;
+    }
+
+    private void endRecord(int start) {
+        int payloadStart = start + RECORD_HEADER_SIZE;
+        int length = this.buffer.position() - payloadStart;
+
+        this.crc.reset();
+        this.crc.update(this.buffer.array(), this.buffer.arrayOffset() + payloadStart, length);
+
+        this.buffer.putInt(start, length);
+        this.buffer.putInt(start + 4, (int) this.crc.getValue());
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            this.ensureCapacity(4);
+            this.buffer.putInt(-1);
+            return;
+        }
+
+        this.ensureCapacity(4 + value.length() * Utf8.MAX_BYTES_PER_CHAR);
+
+        int lengthPos = this.buffer.position();
+        int offset = this.buffer.arrayOffset() + lengthPos + 4;
+        int end = Utf8.encode(value, 0, value.length(), this.buffer.array(), offset);
+
+        this.buffer.putInt(lengthPos, end - offset);
+        this.buffer.position(lengthPos + 4 + (end - offset));
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (this.buffer.remaining() >= bytes) return;
+
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(this.buffer.capacity() * 2, this.buffer.position() + bytes));
+        this.buffer.flip();
+        grown.put(this.buffer);
+
+        this.buffer = grown;
+    }
+
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) this.channel.write(this.buffer);
+        this.buffer.clear();
+    }
+
+}
\ No newline at end of file
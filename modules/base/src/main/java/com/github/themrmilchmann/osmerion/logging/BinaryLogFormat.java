@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+/**
+ * Constants describing the binary log format written by {@link BinaryLogEncoder} and read by {@link BinaryLogDecoder}.
+ *
+ * <p>A binary log starts with a header consisting of the {@link #MAGIC magic number} and the {@link #VERSION format version}. The header is followed by a
+ * stream of records. Each record consists of:</p>
+ * <ul>
+ *     <li>the length of the payload ({@code int}),</li>
+ *     <li>the CRC-32C checksum of the payload ({@code int}), and</li>
+ *     <li>the payload, starting with the type of the record ({@code byte}).</li>
+ * </ul>
+ *
+ * <p>Definition records assign IDs to log levels, templates and stack frames. They precede the first message record that refers to them. A definition
+ * may be written again (with the same or a different ID) to bound the number of definitions a reader has to retain. Strings are
+ * encoded as the length of their UTF-8 representation ({@code int}, {@code -1} for {@code null}) followed by the UTF-8 bytes. All values are big-endian.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+final class BinaryLogFormat {
+
+    static final int MAGIC = 0x4F534D4C; // "OSML"
+    static final short VERSION = 2;
+
+    static final int HEADER_SIZE = 6;
+
+    /* The number of distinct level IDs (which are written as unsigned bytes). */
+    static final int MAX_LEVEL_IDS = 256;
+    static final int RECORD_HEADER_SIZE = 8;
+
+    /* level ID (unsigned byte), severity (int), name (string) */
+    static final byte RECORD_LEVEL = 1;
+
+    /* template ID (int), template (string) */
+    static final byte RECORD_TEMPLATE = 2;
+
+    /*
+     * fingerprint (long), throwable count (int),
+     * per throwable of the cause chain: frame count (int), frames (string)
+     */
+    static final byte RECORD_THROWABLE = 3;
+
+    /*
+     * flags (byte), level ID (unsigned byte), timestamp in nanoseconds (long), sequence (long), logger ID (int),
+     * if FLAG_TEMPLATE: template ID (int), argument count (int), arguments (tag (byte) + value),
+     * if FLAG_MESSAGE: message (string),
+     * if FLAG_THROWABLE: fingerprint (long), throwable count (int), per throwable of the cause chain: toString() (string), rendered suppressed throwables
+     *                    (string),
+     * if FLAG_FIELDS: field count (int), fields (key (string), tag (byte) + value)
+     */
+    static final byte RECORD_MESSAGE = 4;
+
+    static final byte FLAG_TEMPLATE = 0x01;
+    static final byte FLAG_MESSAGE = 0x02;
+    static final byte FLAG_THROWABLE = 0x04;
+    static final byte FLAG_FIELDS = 0x08;
+
+    static final byte ARG_LONG = 0;
+    static final byte ARG_DOUBLE = 1;
+    static final byte ARG_STRING = 2;
+
+    private BinaryLogFormat() {}
+
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * An offline reader that renders binary logs as human-readable text.
+ *
+ * <p>The reader may be used programmatically via {@link #render(Path, Appendable)} or from the command line:</p>
+ *
+ * <pre>java com.github.themrmilchmann.osmerion.logging.BinaryLogReader &lt;file&gt;...</pre>
+ *
+ * @see BinaryLogDecoder
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class BinaryLogReader {
+
+    /**
+     * Renders all binary logs specified as arguments to the standard output.
+     *
+     * @param args the paths of the binary logs to render
+     *
+     * @throws IOException if an I/O error occurs or a log is corrupt
+     *
+     * @since 1.0.0.0
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: BinaryLogReader <file>...");
+            System.exit(1);
+        }
+
+        PrintStream out = System.out;
+        for (String arg : args) render(Paths.get(arg), out);
+
+        out.flush();
+    }
+
+    /**
+     * Renders the binary log at the given path to the given {@code Appendable}.
+     *
+     * @param path  the path of the binary log
+     * @param out   the {@code Appendable} to render to
+     *
+     * @throws IOException if an I/O error occurs or the log is corrupt
+     * @throws NullPointerException if any of the given parameters is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public static void render(Path path, Appendable out) throws IOException {
+        if (path == null || out == null) throw new NullPointerException();
+
+        try (BinaryLogDecoder decoder = new BinaryLogDecoder(FileChannel.open(path, StandardOpenOption.READ))) {
+            render(decoder, out);
+        }
+    }
+
+    /**
+     * Renders all remaining messages of the given decoder to the given {@code Appendable}.
+     *
+     * <p>Each message is rendered on a separate line as {@code <ISO-8601 timestamp> [<level>] <message> {<fields>}} followed by the stack trace of the attached
+     * throwable, if any.</p>
+     *
+     * @param decoder   the decoder to read from
+     * @param out       the {@code Appendable} to render to
+     *
+     * @throws IOException if an I/O error occurs or the log is corrupt
+     * @throws NullPointerException if any of the given parameters is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public static void render(BinaryLogDecoder decoder, Appendable out) throws IOException {
+        if (decoder == null || out == null) throw new NullPointerException();
+
+        StringBuilder sb = new StringBuilder(256);
+
+        while (decoder.next()) {
+            sb.setLength(0);
+            sb.append(Instant.ofEpochMilli(decoder.getTimestamp()))
+                .append(" [")
+                .append(decoder.getLevelName())
+                .append(']');
+
+            String message = decoder.getMessage();
+            if (message != null) sb.append(' ').append(message);
+
+            for (int i = 0, count = decoder.getFieldCount(); i < count; i++) {
+                sb.append(i == 0 ? " {" : ", ").append(decoder.getFieldKey(i)).append('=').append(decoder.getFieldValue(i));
+                if (i == count - 1) sb.append('}');
+            }
+
+            String throwable = decoder.getThrowable();
+            if (throwable != null) sb.append('\n').append(throwable);
+            else sb.append('\n');
+
+            out.append(sb);
+        }
+    }
+
+    private BinaryLogReader() {}
+
+}
\ No newline at end of file
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * An {@link ILogListener} that writes formatted {@link LogMessage}s to the standard output or standard error stream of the process.
+ *
+ * <p>Unlike {@link System#out}, this listener bypasses the {@link java.io.PrintStream} and its intermediate buffers. Messages are rendered by a
+ * {@link Builder#setLayout(PatternLayout) configurable layout} into a reusable buffer, encoded as UTF-8 in chunks, copied into a direct {@link ByteBuffer}, and written to
+ * the underlying file descriptor using a {@link FileChannel}. The buffer is written once per batch (or whenever it fills up). Thus, writing a message
+ * usually does not allocate and a single system call is issued for an entire batch of messages.</p>
+ *
+ * <p>Since the file descriptor is written to directly, the output of this listener is not synchronized with output written through {@code System.out} or
+ * {@code System.err}. Closing this listener does not close the file descriptor.</p>
+ *
+ * <p>This listener is thread-safe.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class ConsoleLogListener implements ILogListener, AutoCloseable {
+
+    /* The maximum number of bytes that are encoded at once before they are copied into the buffer. */
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final boolean standardError;
+    private final PatternLayout layout;
+
+    /* The stack traces that have already been written (and may thus be referred to by the layout). */
+    private final StackTraceCache stackTraces = new StackTraceCache();
+
+    private final StringBuilder stringBuilder = new StringBuilder(256);
+    private final byte[] bytes;
+    private final FileOutputStream stream;
+    private final FileChannel channel;
+
+    private ByteBuffer buffer;
+
+    private ConsoleLogListener(Builder builder) {
+        this.standardError = builder.standardError;
+        this.layout = builder.layout;
+
+        this.stream = new FileOutputStream(this.standardError ? FileDescriptor.err : FileDescriptor.out);
+        this.channel = this.stream.getChannel();
+        this.buffer = ByteBuffer.allocateDirect(builder.bufferSize);
+        this.bytes = new byte[Math.min(builder.bufferSize, CHUNK_SIZE)];
+    }
+
+    /**
+     * Returns whether this listener writes to the standard error stream instead of the standard output stream.
+     *
+     * @return whether this listener writes to the standard error stream
+     *
+     * @since 1.0.0.0
+     */
+    public boolean isStandardError() {
+        return this.standardError;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The message is written to the file descriptor before this method returns.</p>
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws IllegalStateException if this listener has been closed
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public synchronized void onLogged(LogMessage logMessage) {
+        this.write(logMessage);
+        this.drain();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The messages are written to the file descriptor before this method returns.</p>
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws IllegalStateException if this listener has been closed
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public synchronized void onLoggedBatch(List<LogMessage> logMessages) {
+        for (int i = 0, size = logMessages.size(); i < size; i++) this.write(logMessages.get(i));
+        this.drain();
+    }
+
+    /**
+     * Closes this listener.
+     *
+     * <p>The underlying file descriptor is not closed. Calling this method on a closed listener has no effect.</p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public synchronized void close() {
+        this.buffer = null;
+    }
+
+    private void write(LogMessage logMessage) {
+        ByteBuffer buffer = this.buffer;
+        if (buffer == null) throw new IllegalStateException();
+
+        StringBuilder stringBuilder = this.stringBuilder;
+        stringBuilder.setLength(0);
+        this.layout.formatTo(logMessage, stringBuilder, this.stackTraces);
+
+        byte[] bytes = this.bytes;
+        int start = 0, length = stringBuilder.length();
+
+        while (start < length) {
+            if (buffer.remaining() < Utf8.MAX_BYTES_PER_CHAR * 2) this.drain();
+
+            /* Messages are encoded in chunks that fit into the buffer. Chunks are never split between the characters of a surrogate pair. */
+            int end = Math.min(length, start + Math.min(buffer.remaining(), bytes.length) / Utf8.MAX_BYTES_PER_CHAR);
+            if (end < length && Character.isHighSurrogate(stringBuilder.charAt(end - 1))) end--;
+
+            buffer.put(bytes, 0, Utf8.encode(stringBuilder, start, end, bytes, 0));
+            start = end;
+        }
+    }
+
+    private void drain() {
+        ByteBuffer buffer = this.buffer;
+        if (buffer.position() == 0) return;
+
+        buffer.flip();
+
+        try {
+            while (buffer.hasRemaining()) this.channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * A factory class for {@link ConsoleLogListener}s.
+     *
+     * @since 1.0.0.0
+     */
+    public static final class Builder {
+
+        private boolean standardError;
+        private int bufferSize = 64 * 1024;
+        private PatternLayout layout = PatternLayout.getDefault();
+
+        /**
+         * Creates a new {@link ConsoleLogListener}.
+         *
+         * <p>This function may be called multiple times to create multiple listeners with the same configuration.</p>
+         *
+         * @return the newly initialized {@code ConsoleLogListener}
+         *
+         * @since 1.0.0.0
+         */
+        public ConsoleLogListener build() {
+            return new ConsoleLogListener(this);
+        }
+
+        // #####################################################################################################################################################
+        // # Configuration #####################################################################################################################################
+        // #####################################################################################################################################################
+
+        /**
+         * Configures whether messages are written to the standard error stream instead of the standard output stream.
+         *
+         * <p>By default, messages are written to the standard output stream.</p>
+         *
+         * @param value whether messages are written to the standard error stream
+         *
+         * @since 1.0.0.0
+         */
+        public void setStandardError(boolean value) {
+            this.standardError = value;
+        }
+
+        /**
+         * Configures the size of the buffer into which messages are encoded before they are written.
+         *
+         * <p>Messages that do not fit into the buffer are written in multiple chunks. The default buffer size is 64 KiB.</p>
+         *
+         * @param value the new buffer size in bytes
+         *
+         * @throws IllegalArgumentException if the given {@code value} is less than {@code 16}
+         *
+         * @since 1.0.0.0
+         */
+        public void setBufferSize(int value) {
+            if (value < 16) throw new IllegalArgumentException();
+
+            this.bufferSize = value;
+        }
+
+        /**
+         * Configures the layout used to render messages.
+         *
+         * <p>The layout is responsible for terminating each message with a line separator (e.g. by using {@code %n}). By default, the
+         * {@link PatternLayout#getDefault() default layout} is used.</p>
+         *
+         * @param value the layout
+         *
+         * @throws NullPointerException if the given {@code value} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public void setLayout(PatternLayout value) {
+            if (value == null) throw new NullPointerException();
+
+            this.layout = value;
+        }
+
+    }
+
+}
\ No newline at end of file
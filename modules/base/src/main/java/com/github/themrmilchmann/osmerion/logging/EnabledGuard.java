@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.invoke.SwitchPoint;
+import java.util.List;
+
+/**
+ * A call site that evaluates to whether a {@link LogLevel} is enabled for a {@link Logger}.
+ *
+ * <p>The target of the call site is a constant guarded by the {@link SwitchPoint SwitchPoints} of the current configuration of the logger (and of the
+ * ancestors whose config it uses). Once that configuration changes, a switch point is invalidated and the call site is relinked upon its next invocation. Thus, as long as the configuration is stable, the JIT
+ * compiler may treat the result of an invocation of a {@link #getInvoker() constant invoker} as constant.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+final class EnabledGuard extends MutableCallSite {
+
+    private static final MethodType TYPE = MethodType.methodType(boolean.class);
+    private static final MethodHandle RELINK;
+
+    static {
+        try {
+            RELINK = MethodHandles.lookup().findVirtual(EnabledGuard.class, "relink", TYPE);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Logger logger;
+    private final LogLevel level;
+    private final MethodHandle invoker;
+
+    EnabledGuard(Logger logger, LogLevel level) {
+        super(TYPE);
+
+        this.logger = logger;
+        this.level = level;
+        this.invoker = this.dynamicInvoker();
+
+        this.relink();
+    }
+
+    /**
+     * Returns a {@code MethodHandle} of type {@code ()boolean} that invokes this call site.
+     *
+     * @return a {@code MethodHandle} that invokes this call site
+     */
+    MethodHandle getInvoker() {
+        return this.invoker;
+    }
+
+    @SuppressWarnings("unused")
+    private boolean relink() {
+        /* The switch points must be obtained before the configuration is read to ensure that a concurrent modification causes another relink. */
+        List<SwitchPoint> switchPoints = this.logger.getConfigSwitchPoints();
+        boolean enabled = this.logger.isEnabled(this.level);
+
+        MethodHandle target = MethodHandles.constant(boolean.class, enabled);
+        for (SwitchPoint switchPoint : switchPoints) target = switchPoint.guardWithTest(target, RELINK.bindTo(this));
+
+        this.setTarget(target);
+        return enabled;
+    }
+
+}
\ No newline at end of file
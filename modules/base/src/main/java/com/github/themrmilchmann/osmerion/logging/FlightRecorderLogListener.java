@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link ILogListener} that records the most recent {@link LogMessage}s in memory and passes them to another listener when triggered.
+ *
+ * <p>A flight recorder keeps the last {@code N} messages in a fixed-size ring of preallocated messages. Recording a message copies it into a slot of the
+ * ring and neither allocates nor contends with other recording threads. Thus, detailed messages can be recorded cheaply and are only written out if they
+ * are actually needed. The recorded messages are queued for the target listener (oldest first) and removed from the ring when the recorder is dumped. A
+ * dump is triggered:</p>
+ *
+ * <ul>
+ * <li>when a message at or above a {@link Builder#setTriggerLevel(LogLevel) configured severity} is recorded (the triggering message is included in the
+ * dump),</li>
+ * <li>when {@link #dump()} is called, or</li>
+ * <li>when the JVM shuts down, if {@link Builder#setDumpOnShutdown(boolean) configured}.</li>
+ * </ul>
+ *
+ * <p>A flight recorder is usually registered as {@link Logger#addCaptureListener(ILogListener) capture listener} to record messages at levels that are
+ * filtered out otherwise.</p>
+ *
+ * <p>Dumped messages are passed to the target listener by an {@link IsolatedLogListener} owned by the recorder. Thus, the target listener is invoked on a
+ * dedicated thread (and never concurrently), and a slow target listener neither stalls the thread that triggered the dump nor the recording of further
+ * messages. If the target listener falls behind by more than the capacity of the recorder, dumped messages are discarded (see
+ * {@link #getDroppedMessageCount()}).</p>
+ *
+ * <p>This listener is thread-safe.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class FlightRecorderLogListener implements ILogListener, AutoCloseable {
+
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+
+    /* The position up to which messages have been dumped (or discarded). Guarded by this recorder. */
+    private long dumpedPosition;
+
+    private final IsolatedLogListener delivery;
+    private final int triggerSeverity;
+    private final Thread shutdownHook;
+
+    private FlightRecorderLogListener(Builder builder) {
+        this.ring = new Slot[builder.capacity];
+        for (int i = 0; i < this.ring.length; i++) this.ring[i] = new Slot();
+
+        this.mask = builder.capacity - 1;
+        this.triggerSeverity = builder.triggerLevel != null ? builder.triggerLevel.getSeverity() : Integer.MIN_VALUE;
+
+        /* Leave room for a second dump while the target listener is still processing the previous one. */
+        IsolatedLogListener.Builder deliveryBuilder = new IsolatedLogListener.Builder(builder.target);
+        deliveryBuilder.setBufferSize(Math.max(2, builder.capacity * 2));
+        deliveryBuilder.setMaxBatchSize(builder.capacity);
+        this.delivery = deliveryBuilder.build();
+
+        if (builder.dumpOnShutdown) {
+            this.shutdownHook = new Thread(this::dumpOnShutdown, "Osmerion Flight Recorder Dump");
+            Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+        } else {
+            this.shutdownHook = null;
+        }
+    }
+
+    /**
+     * Returns the maximum number of messages retained by this recorder.
+     *
+     * @return the maximum number of messages retained by this recorder
+     *
+     * @since 1.0.0.0
+     */
+    public int getCapacity() {
+        return this.ring.length;
+    }
+
+    /**
+     * Returns the number of dumped messages that have been discarded because the target listener has fallen behind.
+     *
+     * @return the number of dumped messages that have been discarded
+     *
+     * @since 1.0.0.0
+     */
+    public long getDroppedMessageCount() {
+        return this.delivery.getDroppedMessageCount();
+    }
+
+    /**
+     * Records the given message.
+     *
+     * <p>If the message triggers a dump, the recorded messages are queued for the target listener by the calling thread.</p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void onLogged(LogMessage logMessage) {
+        this.record(logMessage);
+        if (logMessage.getLevel().getSeverity() <= this.triggerSeverity) this.dump();
+    }
+
+    /**
+     * Records the given messages.
+     *
+     * <p>If any of the messages triggers a dump, the recorded messages are queued for the target listener by the calling thread once all messages have been
+     * recorded.</p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void onLoggedBatch(List<LogMessage> logMessages) {
+        boolean triggered = false;
+
+        for (int i = 0, size = logMessages.size(); i < size; i++) {
+            LogMessage logMessage = logMessages.get(i);
+
+            this.record(logMessage);
+            triggered |= logMessage.getLevel().getSeverity() <= this.triggerSeverity;
+        }
+
+        if (triggered) this.dump();
+    }
+
+    private void record(LogMessage logMessage) {
+        long pos = this.cursor.getAndIncrement();
+        Slot slot = this.ring[(int) pos & this.mask];
+
+        /* The lock is only contended if the recorder wraps around while a slot is being written or dumped. */
+        synchronized (slot) {
+            if (pos > slot.pos) {
+                slot.message.set(logMessage, logMessage.getSequence());
+                slot.pos = pos;
+            }
+        }
+    }
+
+    /**
+     * Queues all recorded messages for the target listener and removes them from this recorder.
+     *
+     * <p>This method does not wait for the target listener to process the messages. Messages that are recorded concurrently may or may not be included in the
+     * dump.</p>
+     *
+     * @since 1.0.0.0
+     */
+    public synchronized void dump() {
+        long end = this.cursor.get();
+
+        for (long pos = Math.max(end - this.ring.length, this.dumpedPosition); pos < end; pos++) {
+            Slot slot = this.ring[(int) pos & this.mask];
+
+            synchronized (slot) {
+                if (slot.pos == pos) this.delivery.onLogged(slot.message);
+            }
+        }
+
+        this.dumpedPosition = Math.max(this.dumpedPosition, end);
+    }
+
+    private void dumpOnShutdown() {
+        this.dump();
+
+        try {
+            this.delivery.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Unregisters the shutdown hook of this recorder (if any) and blocks until all dumped messages have been passed to the target listener.
+     *
+     * <p>Recorded messages are discarded. Call {@link #dump()} before closing the recorder to retain them.</p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void close() {
+        if (this.shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+            } catch (IllegalStateException e) {
+                /* The JVM is already shutting down. */
+            }
+        }
+
+        synchronized (this) {
+            this.dumpedPosition = Math.max(this.dumpedPosition, this.cursor.get());
+        }
+
+        this.delivery.close();
+    }
+
+    /*
+     * A preallocated slot of the ring. The position of the message in the slot is used to detect whether the slot has been overwritten.
+     */
+    private static final class Slot {
+
+        final LogMessage message = new LogMessage(true);
+        long pos = -1L;
+
+    }
+
+    /**
+     * A factory class for {@link FlightRecorderLogListener}s.
+     *
+     * @since 1.0.0.0
+     */
+    public static final class Builder {
+
+        private final ILogListener target;
+
+        private int capacity = 1024;
+        private LogLevel triggerLevel;
+        private boolean dumpOnShutdown;
+
+        /**
+         * Creates a new builder for recorders that dump messages to the given listener.
+         *
+         * @param target the listener to which recorded messages are passed when the recorder is dumped
+         *
+         * @throws NullPointerException if the given {@code target} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public Builder(ILogListener target) {
+            if (target == null) throw new NullPointerException();
+
+            this.target = target;
+        }
+
+        /**
+         * Creates a new {@link FlightRecorderLogListener}.
+         *
+         * @return the newly initialized {@code FlightRecorderLogListener}
+         *
+         * @since 1.0.0.0
+         */
+        public FlightRecorderLogListener build() {
+            return new FlightRecorderLogListener(this);
+        }
+
+        // #####################################################################################################################################################
+        // # Configuration #####################################################################################################################################
+        // #####################################################################################################################################################
+
+        /**
+         * Configures the number of messages retained by the recorder.
+         *
+         * <p>The default capacity is {@code 1024}.</p>
+         *
+         * @param value the new capacity (must be a power of two)
+         *
+         * @throws IllegalArgumentException if the given {@code value} is not a positive power of two
+         *
+         * @since 1.0.0.0
+         */
+        public void setCapacity(int value) {
+            if (value < 1 || Integer.bitCount(value) != 1) throw new IllegalArgumentException();
+
+            this.capacity = value;
+        }
+
+        /**
+         * Configures the level that triggers a dump.
+         *
+         * <p>Recording a message at a level whose numerical severity is less than or equal to the severity of the given level triggers a dump. By default,
+         * dumps are not triggered by messages.</p>
+         *
+         * @param value the trigger level, or {@code null} to disable triggering dumps by messages
+         *
+         * @since 1.0.0.0
+         */
+        public void setTriggerLevel(LogLevel value) {
+            this.triggerLevel = value;
+        }
+
+        /**
+         * Configures whether the recorder is dumped when the JVM shuts down.
+         *
+         * <p>The default value is {@code false}.</p>
+         *
+         * @param value whether the recorder is dumped when the JVM shuts down
+         *
+         * @since 1.0.0.0
+         */
+        public void setDumpOnShutdown(boolean value) {
+            this.dumpOnShutdown = value;
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+/**
+ * A visitor for the structured fields of a {@link LogMessage}.
+ *
+ * <p>Primitive field values are passed to the visitor without boxing.</p>
+ *
+ * @see LogMessage#forEachField(ILogFieldVisitor)
+ * @see LogEventBuilder
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public interface ILogFieldVisitor {
+
+    /**
+     * Visits a field with a {@code long} value.
+     *
+     * @param key   the key of the field
+     * @param value the value of the field
+     *
+     * @since 1.0.0.0
+     */
+    void visit(String key, long value);
+
+    /**
+     * Visits a field with a {@code double} value.
+     *
+     * @param key   the key of the field
+     * @param value the value of the field
+     *
+     * @since 1.0.0.0
+     */
+    void visit(String key, double value);
+
+    /**
+     * Visits a field with a reference value.
+     *
+     * @param key   the key of the field
+     * @param value the value of the field (may be {@code null})
+     *
+     * @since 1.0.0.0
+     */
+    void visit(String key, Object value);
+
+}
\ No newline at end of file
@@ -29,6 +29,8 @@
  */
 package com.github.themrmilchmann.osmerion.logging;
 
+import java.util.List;
+
 /**
  * A listener that can be attached to {@link ILogger}s to handle {@link LogMessage}s.
  *
@@ -44,10 +46,32 @@ public interface ILogListener {
      * <p>Information about the thread-safety of this method should be available in the documentation of the logger for which this listener has been registered.
      * </p>
      *
+     * <p>The given {@code LogMessage} is only guaranteed to be valid for the duration of this callback. If the message is {@link LogMessage#isPooled() pooled},
+     * it is recycled once all listeners have processed it. Listeners that need to retain the message beyond the callback must retain a
+     * {@link LogMessage#copy() copy} of it instead.</p>
+     *
      * @param logMessage the {@code LogMessage} to be processed
      *
      * @since 1.0.0.0
      */
     void onLogged(LogMessage logMessage);
 
+    /**
+     * Processes a batch of {@link LogMessage}s.
+     *
+     * <p>Loggers that deliver messages in batches call this method instead of {@link #onLogged(LogMessage)}. Listeners may override this method to amortize
+     * expensive operations (such as system calls) over all messages in a batch. The default implementation calls {@code onLogged} for every message in the
+     * batch.</p>
+     *
+     * <p>The given {@code List} is unmodifiable, supports fast random access, and is only valid for the duration of this callback. The same restrictions as
+     * for {@code onLogged} apply to the messages in the batch.</p>
+     *
+     * @param logMessages the {@code LogMessage}s to be processed
+     *
+     * @since 1.0.0.0
+     */
+    default void onLoggedBatch(List<LogMessage> logMessages) {
+        for (int i = 0, size = logMessages.size(); i < size; i++) this.onLogged(logMessages.get(i));
+    }
+
 }
\ No newline at end of file
@@ -29,6 +29,7 @@
  */
 package com.github.themrmilchmann.osmerion.logging;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -115,6 +116,294 @@ public interface ILogProxy extends ILogger {
         this.getLogger().log(level, messageSupplier, t);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, Object arg) {
+        this.getLogger().log(level, template, arg);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, long arg) {
+        this.getLogger().log(level, template, arg);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, double arg) {
+        this.getLogger().log(level, template, arg);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, char arg) {
+        this.getLogger().log(level, template, arg);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, float arg) {
+        this.getLogger().log(level, template, arg);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, Object arg0, Object arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, long arg0, long arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, long arg0, double arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, long arg0, char arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, long arg0, float arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, double arg0, long arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, double arg0, double arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, double arg0, char arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, double arg0, float arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, char arg0, long arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, char arg0, double arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, char arg0, char arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, char arg0, float arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, float arg0, long arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, float arg0, double arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, float arg0, char arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, float arg0, float arg1) {
+        this.getLogger().log(level, template, arg0, arg1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void log(LogLevel level, String template, Object... args) {
+        this.getLogger().log(level, template, args);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default LogEventBuilder at(LogLevel level) {
+        return this.getLogger().at(level);
+    }
+
     // #########################################################################################################################################################
     // # Configuration #########################################################################################################################################
     // #########################################################################################################################################################
@@ -158,6 +447,30 @@ public interface ILogProxy extends ILogger {
         this.getLogger().addListener(listener);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void addListener(ILogListener listener, Collection<LogLevel> levels) {
+        this.getLogger().addListener(listener, levels);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p><b>Note: The call is redirected to the underlying logger.</b></p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    default void addListener(ILogListener listener, int severity) {
+        this.getLogger().addListener(listener, severity);
+    }
+
     /**
      * {@inheritDoc}
      *
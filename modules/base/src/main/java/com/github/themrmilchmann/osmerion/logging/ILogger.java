@@ -29,6 +29,7 @@
  */
 package com.github.themrmilchmann.osmerion.logging;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -119,6 +120,394 @@ public interface ILogger {
      */
     void log(LogLevel level, Supplier<String> messageSupplier, Throwable t);
 
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg the argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, Object arg);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg the argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, long arg);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg the argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, double arg);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg the argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, char arg);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg the argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, float arg);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, Object arg0, Object arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, long arg0, long arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, long arg0, double arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, long arg0, char arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, long arg0, float arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, double arg0, long arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, double arg0, double arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, double arg0, char arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, double arg0, float arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, char arg0, long arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, char arg0, double arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, char arg0, char arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, char arg0, float arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, float arg0, long arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, float arg0, double arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, float arg0, char arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>See {@link #log(LogLevel, String, Object...)} for more information about templates.</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param arg0 the first argument to be formatted
+     * @param arg1 the second argument to be formatted
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, float arg0, float arg1);
+
+    /**
+     * Logs a message using a template.
+     *
+     * <p>Every occurrence of {@code {}} in the template is a placeholder that is replaced by the respective argument. A placeholder may be escaped by
+     * preceding it with a backslash ({@code \{}}). Placeholders for which no argument has been provided are rendered as is. If the last argument is a
+     * {@link Throwable} that is not consumed by a placeholder, it is attached to the message as if it had been passed to
+     * {@link #log(LogLevel, String, Throwable)}.</p>
+     *
+     * <p>The message is only constructed if the {@code ILogger} is currently accepting messages from the given {@code LogLevel}. Implementations may defer
+     * formatting the message until it is first requested by a listener. Thus, mutable arguments must not be modified after they have been passed to this
+     * method. To avoid boxing, overloads accepting up to two primitive arguments are provided. ({@code char} and {@code float} arguments are formatted as
+     * characters and {@code float}s respectively, instead of being widened.) Since an overload for every combination of primitive and reference arguments
+     * would render calls with mixed arguments ambiguous, two arguments are only passed without boxing if both of them are primitives. (A call that mixes a
+     * primitive argument with a wrapper object, such as {@code (Integer, int)}, matches both kinds of overloads and must cast one of its arguments.)</p>
+     *
+     * @param level the level to be logged at
+     * @param template the template of the message to be logged
+     * @param args the arguments to be formatted (a {@code null} array is treated like an empty array)
+     *
+     * @see LogLevel
+     *
+     * @since 1.0.0.0
+     */
+    void log(LogLevel level, String template, Object... args);
+
+    /**
+     * Returns a builder for a structured message logged at the given level.
+     *
+     * <p>If the {@code ILogger} is not currently accepting messages from the given {@code LogLevel}, a builder that ignores all fields and does not log
+     * anything is returned.</p>
+     *
+     * @param level the level to be logged at
+     *
+     * @return a builder for a structured message
+     *
+     * @see LogEventBuilder
+     *
+     * @since 1.0.0.0
+     */
+    LogEventBuilder at(LogLevel level);
+
     // #########################################################################################################################################################
     // # Configuration #########################################################################################################################################
     // #########################################################################################################################################################
@@ -167,6 +556,41 @@ public interface ILogger {
      */
     void addListener(ILogListener listener);
 
+    /**
+     * Adds an {@link ILogListener} that is only interested in messages logged at the given {@link LogLevel}s.
+     *
+     * <p>Loggers may use the declared interest of their listeners to avoid constructing messages that no listener is interested in.</p>
+     *
+     * @param listener the listener to be added
+     * @param levels the levels the listener is interested in
+     *
+     * @throws NullPointerException if any of the given parameters is {@code null}
+     * @throws IllegalArgumentException if the given {@code listener} has already been added to this logger
+     *
+     * @see #removeListener(ILogListener)
+     *
+     * @since 1.0.0.0
+     */
+    void addListener(ILogListener listener, Collection<LogLevel> levels);
+
+    /**
+     * Adds an {@link ILogListener} that is only interested in messages logged at levels with a numerical severity less than or equal to the given
+     * severity.
+     *
+     * <p>Loggers may use the declared interest of their listeners to avoid constructing messages that no listener is interested in.</p>
+     *
+     * @param listener the listener to be added
+     * @param severity the least severe (numerically greatest) severity the listener is interested in
+     *
+     * @throws NullPointerException if the given {@code listener} is {@code null}
+     * @throws IllegalArgumentException if the given {@code listener} has already been added to this logger
+     *
+     * @see #removeListener(ILogListener)
+     *
+     * @since 1.0.0.0
+     */
+    void addListener(ILogListener listener, int severity);
+
     /**
      * Removes a previously added {@link ILogListener}.
      *
@@ -0,0 +1,437 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An {@link ILogListener} that decouples another listener from the thread that delivers messages to it.
+ *
+ * <p>Messages passed to an {@code IsolatedLogListener} are copied into a bounded queue that is drained by a dedicated daemon thread which passes them on to
+ * the target listener in batches. Thus, a slow target listener (for example, one that writes to a network socket) does not stall the thread that delivers
+ * messages and, in turn, the other listeners of the same logger. Every isolated listener has its own queue, its own {@link OverflowPolicy}, and its own
+ * metrics.</p>
+ *
+ * <p>The queue is preallocated. Messages are copied into pooled messages that are recycled once the target listener processed them. Thus, the same
+ * restrictions as for messages delivered by a garbage-free {@link LogDispatcher} apply to the target listener.</p>
+ *
+ * <p>An isolated listener must be {@link #close() closed} once it is no longer used to terminate its thread. Messages passed to the listener after it has
+ * been closed are discarded.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class IsolatedLogListener implements ILogListener, AutoCloseable {
+
+    private static final long POLL_NANOS = 100_000L;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final ILogListener target;
+    private final OverflowPolicy overflowPolicy;
+
+    private final RingBuffer buffer;
+    private final MessageBatch batch;
+    private final int maxBatchSize;
+    private final Thread thread;
+
+    private final LatencyHistogram lag = new LatencyHistogram();
+    private final LongAdder droppedMessages = new LongAdder();
+
+    private IsolatedLogListener(Builder builder) {
+        this.target = builder.target;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.buffer = new RingBuffer(builder.bufferSize, builder.waitStrategy, true);
+        this.batch = new MessageBatch(this.buffer);
+        this.maxBatchSize = Math.min(builder.maxBatchSize, builder.bufferSize);
+
+        this.thread = new Thread(this::run, "Osmerion Isolated Listener #" + THREAD_COUNTER.getAndIncrement());
+        this.thread.setDaemon(true);
+
+        this.buffer.setConsumer(this.thread);
+        this.thread.start();
+    }
+
+    /**
+     * Returns the listener to which this listener passes messages.
+     *
+     * @return the target listener
+     *
+     * @since 1.0.0.0
+     */
+    public ILogListener getTarget() {
+        return this.target;
+    }
+
+    /**
+     * Queues a copy of the given message for the target listener.
+     *
+     * <p>If the message cannot be queued, the behaviour of this method is determined by this listener's {@link OverflowPolicy}.</p>
+     *
+     * @param logMessage the {@code LogMessage} to be queued
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void onLogged(LogMessage logMessage) {
+        long pos = this.buffer.claim(this.overflowPolicy.isBlocking(logMessage.getLevel()));
+
+        if (pos < 0) {
+            this.droppedMessages.increment();
+            return;
+        }
+
+        RingBuffer.Slot slot = this.buffer.slot(pos);
+        slot.pooled.set(logMessage, logMessage.getSequence());
+        slot.enqueueTime = System.nanoTime();
+
+        this.buffer.publish(pos);
+    }
+
+    /**
+     * Queues copies of the given messages for the target listener.
+     *
+     * <p>If a message cannot be queued, the behaviour of this method is determined by this listener's {@link OverflowPolicy}.</p>
+     *
+     * @param logMessages the {@code LogMessage}s to be queued
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void onLoggedBatch(List<LogMessage> logMessages) {
+        for (int i = 0, size = logMessages.size(); i < size; i++) this.onLogged(logMessages.get(i));
+    }
+
+    // #########################################################################################################################################################
+    // # Metrics ###############################################################################################################################################
+    // #########################################################################################################################################################
+
+    /**
+     * Returns the number of messages that are currently queued for the target listener.
+     *
+     * @return the number of messages that are currently queued
+     *
+     * @since 1.0.0.0
+     */
+    public int getQueueDepth() {
+        return (int) Math.max(0L, this.buffer.producerPosition() - this.buffer.consumerPosition());
+    }
+
+    /**
+     * Returns a histogram of the time messages have spent in the queue of this listener before they have been passed to the target listener.
+     *
+     * <p>The returned histogram is a snapshot taken at the time this method is called.</p>
+     *
+     * @return a histogram of the time messages have spent in the queue
+     *
+     * @since 1.0.0.0
+     */
+    public LatencyHistogram getLag() {
+        return this.lag.snapshot();
+    }
+
+    /**
+     * Returns the number of messages that have been discarded by this listener.
+     *
+     * <p>Messages are discarded if they cannot be queued due to the listener's {@link OverflowPolicy} or because the listener has been closed.</p>
+     *
+     * @return the number of discarded messages
+     *
+     * @since 1.0.0.0
+     */
+    public long getDroppedMessageCount() {
+        return this.droppedMessages.sum();
+    }
+
+    // #########################################################################################################################################################
+    // # Lifecycle #############################################################################################################################################
+    // #########################################################################################################################################################
+
+    /**
+     * Blocks until all messages that have been queued before this method was called have been passed to the target listener.
+     *
+     * <p>This method must not be called by the target listener since the listener's thread cannot pass messages while it is waiting.</p>
+     *
+     * @throws IllegalStateException if the current thread is the thread of this listener
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     *
+     * @since 1.0.0.0
+     */
+    public void flush() throws InterruptedException {
+        this.flush(Long.MAX_VALUE);
+    }
+
+    /**
+     * Blocks until all messages that have been queued before this method was called have been passed to the target listener, or the timeout expires.
+     *
+     * <p>This method must not be called by the target listener since the listener's thread cannot pass messages while it is waiting.</p>
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the {@code timeout}
+     * @return {@code true} if all messages have been passed to the target listener, or {@code false} if the timeout expired
+     *
+     * @throws IllegalStateException if the current thread is the thread of this listener
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     * @throws NullPointerException if the given {@code unit} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.flush(LogDispatcher.deadline(timeout, unit));
+    }
+
+    private boolean flush(long deadline) throws InterruptedException {
+        /* The listener's thread would wait for itself. */
+        if (Thread.currentThread() == this.thread) throw new IllegalStateException();
+
+        long target = this.buffer.producerPosition();
+
+        while (this.buffer.consumerPosition() < target) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            if (!this.thread.isAlive()) return false;
+            if (deadline != Long.MAX_VALUE && deadline - System.nanoTime() <= 0) return false;
+
+            LockSupport.parkNanos(this, POLL_NANOS);
+        }
+
+        return true;
+    }
+
+    /**
+     * Closes this listener and blocks until all messages that are still queued have been passed to the target listener.
+     *
+     * <p>Messages passed to this listener after this method has been called are discarded. The target listener is not closed. Calling this method on a closed
+     * listener has no effect.</p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void close() {
+        this.close(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Closes this listener and blocks until all messages that are still queued have been passed to the target listener, or the timeout expires.
+     *
+     * <p>Messages passed to this listener after this method has been called are discarded. If the timeout expires, the listener's thread continues to pass
+     * the remaining messages to the target listener in the background.</p>
+     *
+     * <p>If the current thread is interrupted while waiting, this method returns {@code false} and the interrupt status of the thread is preserved.</p>
+     *
+     * <p>If this method is called by the target listener, it does not wait. The remaining messages are passed to the target listener after the callback
+     * returns, and this method returns {@code false}.</p>
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the {@code timeout}
+     * @return {@code true} if all messages have been passed to the target listener, or {@code false} if the timeout expired
+     *
+     * @throws NullPointerException if the given {@code unit} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public boolean close(long timeout, TimeUnit unit) {
+        long deadline = LogDispatcher.deadline(timeout, unit);
+        this.buffer.close();
+
+        if (Thread.currentThread() == this.thread) return false;
+
+        try {
+            if (deadline == Long.MAX_VALUE) {
+                this.thread.join();
+            } else {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) return false;
+
+                TimeUnit.NANOSECONDS.timedJoin(this.thread, remaining);
+                if (this.thread.isAlive()) return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns whether this listener has been closed.
+     *
+     * @return whether this listener has been closed
+     *
+     * @since 1.0.0.0
+     */
+    public boolean isClosed() {
+        return this.buffer.isClosed();
+    }
+
+    private void run() {
+        while (this.buffer.await() != null) {
+            int size = 1;
+            while (size < this.maxBatchSize && this.buffer.peek(size) != null) size++;
+
+            long now = System.nanoTime();
+            for (int i = 0; i < size; i++) this.lag.recordSingleWriter(now - this.buffer.peek(i).enqueueTime);
+
+            try {
+                this.batch.reset(0, size);
+                this.target.onLoggedBatch(this.batch);
+            } catch (RuntimeException e) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            } finally {
+                for (int i = 0; i < size; i++) this.buffer.release(this.buffer.peek());
+            }
+        }
+    }
+
+    /**
+     * A builder for an {@link IsolatedLogListener}.
+     *
+     * @since 1.0.0.0
+     */
+    public static final class Builder {
+
+        private final ILogListener target;
+
+        private int bufferSize = 1024;
+        private WaitStrategy waitStrategy = WaitStrategy.PARK;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.dropNewest();
+        private int maxBatchSize = 256;
+
+        /**
+         * Creates a new builder for an {@link IsolatedLogListener} that passes messages to the given listener.
+         *
+         * @param target the listener to which messages are passed
+         *
+         * @throws NullPointerException if the given {@code target} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public Builder(ILogListener target) {
+            if (target == null) throw new NullPointerException();
+
+            this.target = target;
+        }
+
+        /**
+         * Creates a new {@link IsolatedLogListener} and starts its thread.
+         *
+         * <p>This function may be called multiple times to create multiple listeners with the same configuration.</p>
+         *
+         * @return the newly initialized {@code IsolatedLogListener}
+         *
+         * @since 1.0.0.0
+         */
+        public IsolatedLogListener build() {
+            return new IsolatedLogListener(this);
+        }
+
+        // #####################################################################################################################################################
+        // # Configuration #####################################################################################################################################
+        // #####################################################################################################################################################
+
+        /**
+         * Configures the number of messages that may be queued for the target listener.
+         *
+         * <p>The queue is preallocated when a listener is built. The default size is {@code 1024}.</p>
+         *
+         * @param value the new buffer size
+         *
+         * @throws IllegalArgumentException if the given {@code value} is not a power of two or less than {@code 2}
+         *
+         * @since 1.0.0.0
+         */
+        public void setBufferSize(int value) {
+            if (value < 2 || Integer.bitCount(value) != 1) throw new IllegalArgumentException();
+
+            this.bufferSize = value;
+        }
+
+        /**
+         * Configures the {@link WaitStrategy} used by the listener's thread.
+         *
+         * <p>The default strategy is {@link WaitStrategy#PARK}.</p>
+         *
+         * @param value the new wait strategy
+         *
+         * @throws NullPointerException if the given {@code value} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public void setWaitStrategy(WaitStrategy value) {
+            if (value == null) throw new NullPointerException();
+
+            this.waitStrategy = value;
+        }
+
+        /**
+         * Configures the {@link OverflowPolicy} that is applied when a message cannot be queued for the target listener.
+         *
+         * <p>The default policy is {@link OverflowPolicy#dropNewest()}, so that a slow target listener never stalls the thread that delivers messages. If
+         * another policy is used, the delivering thread (and thus all other listeners it serves) may be blocked until the target listener catches up.</p>
+         *
+         * @param value the new overflow policy
+         *
+         * @throws NullPointerException if the given {@code value} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public void setOverflowPolicy(OverflowPolicy value) {
+            if (value == null) throw new NullPointerException();
+
+            this.overflowPolicy = value;
+        }
+
+        /**
+         * Configures the maximum number of messages passed to the target listener in a single batch.
+         *
+         * <p>The default maximum batch size is {@code 256}.</p>
+         *
+         * @param value the new maximum batch size
+         *
+         * @throws IllegalArgumentException if the given {@code value} is not positive
+         *
+         * @since 1.0.0.0
+         */
+        public void setMaxBatchSize(int value) {
+            if (value < 1) throw new IllegalArgumentException();
+
+            this.maxBatchSize = value;
+        }
+
+    }
+
+}
\ No newline at end of file
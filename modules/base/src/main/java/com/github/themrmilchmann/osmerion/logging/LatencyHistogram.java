@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations with a fixed relative precision.
+ *
+ * <p>Recorded values are counted in log-linear buckets: Every power-of-two range is split into {@value #SUB_BUCKETS} equally sized buckets. Thus, the
+ * relative error of a reported value is at most {@code 1/16} (6.25%) and the histogram covers the entire range of non-negative {@code long} values with a
+ * fixed amount of memory. Recording a value is lock-free and does not allocate. It costs two atomic additions (to the bucket and to the total) and a read
+ * of the maximum, which is only updated (using a CAS) if the value is a new maximum.</p>
+ *
+ * <p>Values are read without a consistent snapshot. If values are recorded concurrently, statistics may be slightly inconsistent with each other.</p>
+ *
+ * <p>The histograms exposed by the library (e.g. {@link LogMetrics#getDispatchLatency()}) are snapshots. The live histograms are only written by a single
+ * thread each (e.g. the dispatching thread of a stripe) and are updated without atomic read-modify-write operations.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The number of buckets per power-of-two range.
+     *
+     * @since 1.0.0.0
+     */
+    public static final int SUB_BUCKETS = 16;
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Creates a new empty histogram.
+     *
+     * @since 1.0.0.0
+     */
+    public LatencyHistogram() {}
+
+    /*
+     * Returns the index of the bucket for the given (non-negative) value. Values below SUB_BUCKETS are counted exactly. For larger values, the bucket is
+     * determined by the position of the highest bit and the SUB_BUCKET_BITS bits below it.
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - SUB_BUCKET_BITS));
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa - SUB_BUCKETS;
+    }
+
+    /*
+     * Returns the highest value counted in the bucket with the given index.
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+
+        return shift == 63 - SUB_BUCKET_BITS ? Long.MAX_VALUE : ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * Records a duration.
+     *
+     * <p>Negative values are recorded as {@code 0}.</p>
+     *
+     * @param nanos the duration in nanoseconds
+     *
+     * @since 1.0.0.0
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0L);
+
+        this.counts.getAndIncrement(indexOf(value));
+        this.total.getAndAdd(value);
+
+        long max;
+        while (value > (max = this.max.get()) && !this.max.compareAndSet(max, value));
+    }
+
+    /*
+     * Records a duration using plain reads and release writes instead of atomic read-modify-write operations. This is only correct if the histogram is
+     * written by a single thread (and neither recorded to nor reset by other threads). Such histograms must only be exposed as snapshots.
+     */
+    void recordSingleWriter(long nanos) {
+        long value = Math.max(nanos, 0L);
+        int index = indexOf(value);
+
+        this.counts.setRelease(index, this.counts.getPlain(index) + 1);
+        this.total.setRelease(this.total.getPlain() + value);
+        if (value > this.max.getPlain()) this.max.setRelease(value);
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return the number of recorded durations
+     *
+     * @since 1.0.0.0
+     */
+    public long getCount() {
+        long count = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) count += this.counts.get(i);
+
+        return count;
+    }
+
+    /**
+     * Returns the largest recorded duration in the given unit, or {@code 0} if no duration has been recorded.
+     *
+     * @param unit the unit of the returned value
+     *
+     * @return the largest recorded duration
+     *
+     * @throws NullPointerException if the given {@code unit} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public long getMax(TimeUnit unit) {
+        return unit.convert(this.max.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the mean of the recorded durations in nanoseconds, or {@code 0} if no duration has been recorded.
+     *
+     * @return the mean of the recorded durations in nanoseconds
+     *
+     * @since 1.0.0.0
+     */
+    public double getMeanNanos() {
+        long count = this.getCount();
+        return count != 0 ? (double) this.total.get() / count : 0.0D;
+    }
+
+    /**
+     * Returns the sum of the recorded durations in the given unit.
+     *
+     * @param unit the unit of the returned value
+     *
+     * @return the sum of the recorded durations
+     *
+     * @throws NullPointerException if the given {@code unit} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public long getTotal(TimeUnit unit) {
+        return unit.convert(this.total.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the duration (in the given unit) below which the given percentage of recorded durations falls.
+     *
+     * <p>The returned value is the upper bound of the bucket containing the requested percentile (but at most the largest recorded duration).</p>
+     *
+     * @param percentile    the percentile (between {@code 0} and {@code 100})
+     * @param unit          the unit of the returned value
+     *
+     * @return the duration below which the given percentage of recorded durations falls, or {@code 0} if no duration has been recorded
+     *
+     * @throws IllegalArgumentException if the given {@code percentile} is not between {@code 0} and {@code 100}
+     * @throws NullPointerException if the given {@code unit} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public long getValueAtPercentile(double percentile, TimeUnit unit) {
+        if (!(percentile >= 0.0D && percentile <= 100.0D)) throw new IllegalArgumentException();
+
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0L;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) count += (counts[i] = this.counts.get(i));
+        if (count == 0L) return 0L;
+
+        long target = Math.max((long) Math.ceil(percentile / 100.0D * count), 1L);
+        long seen = 0L;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) return unit.convert(Math.min(highestValueOf(i), this.max.get()), TimeUnit.NANOSECONDS);
+        }
+
+        return unit.convert(this.max.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Adds all durations recorded by this histogram to the given histogram.
+     *
+     * @param other the histogram to add to
+     */
+    void addTo(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = this.counts.get(i);
+            if (count != 0L) other.counts.getAndAdd(i, count);
+        }
+
+        other.total.getAndAdd(this.total.get());
+
+        long value = this.max.get(), max;
+        while (value > (max = other.max.get()) && !other.max.compareAndSet(max, value));
+    }
+
+    /*
+     * Returns a copy of this histogram.
+     */
+    LatencyHistogram snapshot() {
+        LatencyHistogram snapshot = new LatencyHistogram();
+        this.addTo(snapshot);
+
+        return snapshot;
+    }
+
+    /**
+     * Removes all recorded durations from this histogram.
+     *
+     * <p>Durations that are recorded concurrently may be lost.</p>
+     *
+     * @since 1.0.0.0
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) this.counts.set(i, 0L);
+
+        this.total.set(0L);
+        this.max.set(0L);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A set of per-level message counters.
+ *
+ * <p>Counters are created lazily since most loggers only use a few levels. Levels that have been assigned an index are counted in an array. Other levels
+ * are counted in a map on a slower path.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+final class LevelCounters {
+
+    private final AtomicReferenceArray<LongAdder> counters = new AtomicReferenceArray<>(LogLevel.MAX_LEVELS);
+    private final ConcurrentMap<LogLevel, LongAdder> unindexedCounters = new ConcurrentHashMap<>();
+
+    void increment(LogLevel level) {
+        int index = level.getIndex();
+
+        if (index < 0) {
+            this.unindexedCounters.computeIfAbsent(level, it -> new LongAdder()).increment();
+            return;
+        }
+
+        LongAdder counter = this.counters.get(index);
+
+        if (counter == null) {
+            this.counters.compareAndSet(index, null, new LongAdder());
+            counter = this.counters.get(index);
+        }
+
+        counter.increment();
+    }
+
+    long sum(LogLevel level) {
+        int index = level.getIndex();
+        LongAdder counter = (index >= 0) ? this.counters.get(index) : this.unindexedCounters.get(level);
+
+        return counter != null ? counter.sum() : 0L;
+    }
+
+    long sum() {
+        long count = 0L;
+
+        for (int i = 0; i < LogLevel.MAX_LEVELS; i++) {
+            LongAdder counter = this.counters.get(i);
+            if (counter != null) count += counter.sum();
+        }
+
+        for (LongAdder counter : this.unindexedCounters.values()) count += counter.sum();
+
+        return count;
+    }
+
+}
\ No newline at end of file
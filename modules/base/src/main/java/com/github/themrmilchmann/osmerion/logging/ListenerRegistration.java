@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The registration of an {@link ILogListener} with a {@link Logger}.
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+final class ListenerRegistration {
+
+    final ILogListener listener;
+
+    /* Whether the listener receives all captured messages regardless of the severity filter. */
+    final boolean capture;
+
+    /*
+     * The levels the listener is interested in. A listener is interested in a level if the level is contained in the mask (or in the list of levels that have
+     * not been assigned an index), or if its numerical severity is less than or equal to the given severity.
+     */
+    final long levelMask;
+    final List<LogLevel> unindexedLevels;
+    final int severity;
+
+    /* The time spent in the callbacks of the listener (per batch). */
+    final LatencyHistogram callbackTime = new LatencyHistogram();
+
+    ListenerRegistration(ILogListener listener, boolean capture, long levelMask, List<LogLevel> unindexedLevels, int severity) {
+        this.listener = listener;
+        this.capture = capture;
+        this.levelMask = levelMask;
+        this.unindexedLevels = unindexedLevels;
+        this.severity = severity;
+    }
+
+    ListenerRegistration(ILogListener listener, boolean capture, long levelMask, int severity) {
+        this(listener, capture, levelMask, Collections.emptyList(), severity);
+    }
+
+    boolean isInterested(LogLevel level) {
+        long mask = level.getMask();
+        if (mask == 0L) return this.unindexedLevels.contains(level) || level.getSeverity() <= this.severity;
+
+        return (this.levelMask & mask) != 0 || level.getSeverity() <= this.severity;
+    }
+
+    /*
+     * Returns whether the listener is interested in the levels with the given index and severity.
+     */
+    boolean isInterested(int index, int severity) {
+        return (this.levelMask & (1L << index)) != 0 || severity <= this.severity;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+/**
+ * A source of timestamps for {@link LogMessage}s.
+ *
+ * <p>The clock is queried once for every message that is logged. Thus, the cost of reading the clock directly contributes to the cost of logging. This
+ * interface provides the following implementations:</p>
+ *
+ * <ul>
+ * <li>The {@link #system() system clock} reads {@link System#currentTimeMillis()} for every message.</li>
+ * <li>The {@link #cached() cached clock} reads a timestamp that is updated by a background thread once every millisecond. Reading the clock is as cheap
+ * as reading a volatile field, but consecutive messages frequently share the same timestamp.</li>
+ * <li>The {@link #monotonic() monotonic clock} combines {@link System#nanoTime()} with a wall clock time captured once. It provides nanosecond precision
+ * and never goes backwards, but it does not follow adjustments of the system time.</li>
+ * <li>A {@link TestLogClock} is controlled explicitly and intended for testing.</li>
+ * </ul>
+ *
+ * <p>Implementations must be thread-safe.</p>
+ *
+ * @see Logger.Builder#setClock(LogClock)
+ * @see LogMessage#getConstructionTime()
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+@FunctionalInterface
+public interface LogClock {
+
+    /**
+     * Returns a clock that reads {@link System#currentTimeMillis()} for every message.
+     *
+     * <p>This is the default clock.</p>
+     *
+     * @return a clock that reads the system time for every message
+     *
+     * @since 1.0.0.0
+     */
+    static LogClock system() {
+        return LogClocks.SYSTEM;
+    }
+
+    /**
+     * Returns a clock that reads a cached timestamp which is updated by a background thread once every millisecond.
+     *
+     * <p>The background thread is a daemon thread that is started once this method is first called.</p>
+     *
+     * @return a clock that reads a cached timestamp
+     *
+     * @since 1.0.0.0
+     */
+    static LogClock cached() {
+        return LogClocks.CachedClock.INSTANCE;
+    }
+
+    /**
+     * Returns a monotonic clock with nanosecond precision that is anchored to the wall clock time at which this method has first been called.
+     *
+     * @return a monotonic clock with nanosecond precision
+     *
+     * @since 1.0.0.0
+     */
+    static LogClock monotonic() {
+        return LogClocks.MonotonicClock.INSTANCE;
+    }
+
+    /**
+     * Returns the current time in milliseconds since the epoch ({@code 1970-01-01T00:00:00Z}).
+     *
+     * @return the current time in milliseconds since the epoch
+     *
+     * @since 1.0.0.0
+     */
+    long currentTimeMillis();
+
+    /**
+     * Returns the current time in nanoseconds since the epoch ({@code 1970-01-01T00:00:00Z}).
+     *
+     * <p>The precision of the returned value depends on the implementation. The default implementation converts the value returned by
+     * {@link #currentTimeMillis()}.</p>
+     *
+     * @return the current time in nanoseconds since the epoch
+     *
+     * @since 1.0.0.0
+     */
+    default long currentTimeNanos() {
+        return this.currentTimeMillis() * 1_000_000L;
+    }
+
+}
\ No newline at end of file
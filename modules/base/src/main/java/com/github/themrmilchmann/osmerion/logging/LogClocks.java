@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The built-in {@link LogClock} implementations.
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+final class LogClocks {
+
+    static final LogClock SYSTEM = System::currentTimeMillis;
+
+    private LogClocks() {}
+
+    /*
+     * The cached clock is initialized lazily (using the holder idiom) to avoid starting the ticker thread unless the clock is actually used.
+     */
+    static final class CachedClock implements LogClock, Runnable {
+
+        static final CachedClock INSTANCE = new CachedClock();
+
+        private static final long TICK_NANOS = 1_000_000L;
+
+        private volatile long millis = System.currentTimeMillis();
+
+        private CachedClock() {
+            Thread thread = new Thread(this, "osmerion-logging-clock");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return this.millis;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                LockSupport.parkNanos(TICK_NANOS);
+                this.millis = System.currentTimeMillis();
+            }
+        }
+
+    }
+
+    static final class MonotonicClock implements LogClock {
+
+        static final MonotonicClock INSTANCE = new MonotonicClock();
+
+        private final long originNanoTime = System.nanoTime();
+        private final long originTimeNanos = System.currentTimeMillis() * 1_000_000L;
+
+        private MonotonicClock() {}
+
+        @Override
+        public long currentTimeMillis() {
+            return Math.floorDiv(this.currentTimeNanos(), 1_000_000L);
+        }
+
+        @Override
+        public long currentTimeNanos() {
+            return this.originTimeNanos + (System.nanoTime() - this.originNanoTime);
+        }
+
+    }
+
+}
\ No newline at end of file
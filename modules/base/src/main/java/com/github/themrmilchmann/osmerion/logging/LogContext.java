@@ -0,0 +1,577 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.concurrent.Callable;
+
+/**
+ * An immutable map of key/value pairs that describes the context in which {@link LogMessage}s are logged (e.g. a trace ID or a tenant).
+ *
+ * <p>Every thread has a {@link #current() current context} which is captured into each message logged by the thread and is available to listeners via
+ * {@link LogMessage#getContext()}. Since contexts are immutable, capturing the context is a single reference copy. Modifying a context creates a new context
+ * instead. Contexts are meant to be small. Thus, entries are stored in parallel primitive and reference arrays that are copied on write. Primitive values
+ * are never boxed.</p>
+ *
+ * <p>The preferred way to attach entries to the current context is to bind a context for the duration of a task:</p>
+ *
+ * <pre>
+ * LogContext.where("tenant", tenant)
+ *     .with("traceId", traceId)
+ *     .run(() -&gt; handle(request));</pre>
+ *
+ * <p>Once the task completes, the previous context is restored. A context may be passed on to other threads by capturing the current context and binding
+ * it on the other thread (e.g. {@code LogContext context = LogContext.current(); executor.execute(() -> context.run(task));}). For code that cannot be
+ * structured this way, the entries of the current context may also be modified directly using {@link #put(String, Object)}, {@link #remove(String)} and
+ * {@link #clear()}.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @see LogMessage#getContext()
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class LogContext {
+
+    private static final LogContext EMPTY = new LogContext(new String[0], new byte[0], new long[0], new Object[0]);
+
+    private static final ThreadLocal<LogContext> CURRENT = ThreadLocal.withInitial(() -> EMPTY);
+
+    /**
+     * Returns the empty context.
+     *
+     * @return the empty context
+     *
+     * @since 1.0.0.0
+     */
+    public static LogContext empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the current context of the current thread.
+     *
+     * <p>Unless a context has been bound, the current context is the {@link #empty() empty context}.</p>
+     *
+     * @return the current context of the current thread
+     *
+     * @since 1.0.0.0
+     */
+    public static LogContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns a context that contains the entries of the current context and an entry with a {@code long} value.
+     *
+     * <p>The returned context is not bound to the current thread. (See {@link #run(Runnable)}.)</p>
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry
+     *
+     * @return a context with the given entry
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public static LogContext where(String key, long value) {
+        return current().with(key, value);
+    }
+
+    /**
+     * Returns a context that contains the entries of the current context and an entry with a {@code double} value.
+     *
+     * <p>The returned context is not bound to the current thread. (See {@link #run(Runnable)}.)</p>
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry
+     *
+     * @return a context with the given entry
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public static LogContext where(String key, double value) {
+        return current().with(key, value);
+    }
+
+    /**
+     * Returns a context that contains the entries of the current context and an entry with a reference value.
+     *
+     * <p>The returned context is not bound to the current thread. (See {@link #run(Runnable)}.)</p>
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry (may be {@code null})
+     *
+     * @return a context with the given entry
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public static LogContext where(String key, Object value) {
+        return current().with(key, value);
+    }
+
+    /**
+     * Adds an entry with a {@code long} value to the current context of the current thread, replacing any entry with the same key.
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public static void put(String key, long value) {
+        CURRENT.set(current().with(key, value));
+    }
+
+    /**
+     * Adds an entry with a {@code double} value to the current context of the current thread, replacing any entry with the same key.
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public static void put(String key, double value) {
+        CURRENT.set(current().with(key, value));
+    }
+
+    /**
+     * Adds an entry with a reference value to the current context of the current thread, replacing any entry with the same key.
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry (may be {@code null})
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public static void put(String key, Object value) {
+        CURRENT.set(current().with(key, value));
+    }
+
+    /**
+     * Removes the entry with the given key from the current context of the current thread, if any.
+     *
+     * @param key the key of the entry
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public static void remove(String key) {
+        CURRENT.set(current().without(key));
+    }
+
+    /**
+     * Resets the current context of the current thread to the {@link #empty() empty context}.
+     *
+     * @since 1.0.0.0
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    private final String[] keys;
+    private final byte[] types;
+    private final long[] prims;
+    private final Object[] refs;
+
+    private LogContext(String[] keys, byte[] types, long[] prims, Object[] refs) {
+        this.keys = keys;
+        this.types = types;
+        this.prims = prims;
+        this.refs = refs;
+    }
+
+    /**
+     * Returns a context that contains the entries of this context and an entry with a {@code long} value, replacing any entry with the same key.
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry
+     *
+     * @return a context with the given entry
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public LogContext with(String key, long value) {
+        return this.with(key, LogMessage.ARG_LONG, value, null);
+    }
+
+    /**
+     * Returns a context that contains the entries of this context and an entry with a {@code double} value, replacing any entry with the same key.
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry
+     *
+     * @return a context with the given entry
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public LogContext with(String key, double value) {
+        return this.with(key, LogMessage.ARG_DOUBLE, Double.doubleToRawLongBits(value), null);
+    }
+
+    /**
+     * Returns a context that contains the entries of this context and an entry with a reference value, replacing any entry with the same key.
+     *
+     * <p>The value is not converted to a {@code String} when a message is logged. Thus, mutable values must not be modified once they have been added to a
+     * context.</p>
+     *
+     * @param key   the key of the entry
+     * @param value the value of the entry (may be {@code null})
+     *
+     * @return a context with the given entry
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public LogContext with(String key, Object value) {
+        return this.with(key, LogMessage.ARG_OBJECT, 0L, value);
+    }
+
+    /**
+     * Returns a context that contains the entries of this context except for the entry with the given key.
+     *
+     * @param key the key of the entry
+     *
+     * @return a context without the given entry, or this context if it does not contain such an entry
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public LogContext without(String key) {
+        int index = this.indexOf(key);
+        if (index < 0) return this;
+
+        int size = this.keys.length - 1;
+        if (size == 0) return EMPTY;
+
+        String[] keys = new String[size];
+        byte[] types = new byte[size];
+        long[] prims = new long[size];
+        Object[] refs = new Object[size];
+
+        System.arraycopy(this.keys, 0, keys, 0, index);
+        System.arraycopy(this.types, 0, types, 0, index);
+        System.arraycopy(this.prims, 0, prims, 0, index);
+        System.arraycopy(this.refs, 0, refs, 0, index);
+
+        System.arraycopy(this.keys, index + 1, keys, index, size - index);
+        System.arraycopy(this.types, index + 1, types, index, size - index);
+        System.arraycopy(this.prims, index + 1, prims, index, size - index);
+        System.arraycopy(this.refs, index + 1, refs, index, size - index);
+
+        return new LogContext(keys, types, prims, refs);
+    }
+
+    /**
+     * Binds this context as current context of the current thread and runs the given task. Once the task completes, the previous context is restored.
+     *
+     * @param task the task to be run
+     *
+     * @throws NullPointerException if the given {@code task} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public void run(Runnable task) {
+        if (task == null) throw new NullPointerException();
+
+        LogContext previous = CURRENT.get();
+        CURRENT.set(this);
+
+        try {
+            task.run();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Binds this context as current context of the current thread and calls the given task. Once the task completes, the previous context is restored.
+     *
+     * @param <T>   the type of the result of the task
+     * @param task  the task to be called
+     *
+     * @return the result of the task
+     *
+     * @throws Exception if the task throws an exception
+     * @throws NullPointerException if the given {@code task} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        if (task == null) throw new NullPointerException();
+
+        LogContext previous = CURRENT.get();
+        CURRENT.set(this);
+
+        try {
+            return task.call();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    // #########################################################################################################################################################
+    // # Entries ###############################################################################################################################################
+    // #########################################################################################################################################################
+
+    /**
+     * Returns whether this context does not contain any entries.
+     *
+     * @return whether this context is empty
+     *
+     * @since 1.0.0.0
+     */
+    public boolean isEmpty() {
+        return this.keys.length == 0;
+    }
+
+    /**
+     * Returns the number of entries in this context.
+     *
+     * <p>Entries may be accessed by index (from {@code 0} to {@code getFieldCount() - 1}) or visited using {@link #forEachField(ILogFieldVisitor)}. Neither
+     * method copies the entries or boxes primitive values.</p>
+     *
+     * @return the number of entries in this context
+     *
+     * @since 1.0.0.0
+     */
+    public int getFieldCount() {
+        return this.keys.length;
+    }
+
+    /**
+     * Returns the index of the entry with the given key, or {@code -1} if this context does not contain such an entry.
+     *
+     * @param key the key of the entry
+     *
+     * @return the index of the entry with the given key, or {@code -1}
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public int indexOf(String key) {
+        if (key == null) throw new NullPointerException();
+
+        for (int i = 0; i < this.keys.length; i++) {
+            if (key.equals(this.keys[i])) return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the key of the entry at the given index.
+     *
+     * @param index the index of the entry
+     *
+     * @return the key of the entry at the given index
+     *
+     * @throws IndexOutOfBoundsException if the given {@code index} is out of range
+     *
+     * @since 1.0.0.0
+     */
+    public String getFieldKey(int index) {
+        return this.keys[index];
+    }
+
+    /**
+     * Returns the type of the value of the entry at the given index.
+     *
+     * @param index the index of the entry
+     *
+     * @return the type of the value of the entry at the given index
+     *
+     * @throws IndexOutOfBoundsException if the given {@code index} is out of range
+     *
+     * @since 1.0.0.0
+     */
+    public LogMessage.FieldType getFieldType(int index) {
+        switch (this.types[index]) {
+            case LogMessage.ARG_LONG: return LogMessage.FieldType.LONG;
+            case LogMessage.ARG_DOUBLE: return LogMessage.FieldType.DOUBLE;
+            default: return LogMessage.FieldType.OBJECT;
+        }
+    }
+
+    /**
+     * Returns the {@code long} value of the entry at the given index.
+     *
+     * @param index the index of the entry
+     *
+     * @return the value of the entry at the given index
+     *
+     * @throws IllegalStateException if the entry does not have a {@code long} value
+     * @throws IndexOutOfBoundsException if the given {@code index} is out of range
+     *
+     * @since 1.0.0.0
+     */
+    public long getLongField(int index) {
+        if (this.types[index] != LogMessage.ARG_LONG) throw new IllegalStateException();
+
+        return this.prims[index];
+    }
+
+    /**
+     * Returns the {@code double} value of the entry at the given index.
+     *
+     * @param index the index of the entry
+     *
+     * @return the value of the entry at the given index
+     *
+     * @throws IllegalStateException if the entry does not have a {@code double} value
+     * @throws IndexOutOfBoundsException if the given {@code index} is out of range
+     *
+     * @since 1.0.0.0
+     */
+    public double getDoubleField(int index) {
+        if (this.types[index] != LogMessage.ARG_DOUBLE) throw new IllegalStateException();
+
+        return Double.longBitsToDouble(this.prims[index]);
+    }
+
+    /**
+     * Returns the reference value of the entry at the given index.
+     *
+     * @param index the index of the entry
+     *
+     * @return the value of the entry at the given index (may be {@code null})
+     *
+     * @throws IllegalStateException if the entry does not have a reference value
+     * @throws IndexOutOfBoundsException if the given {@code index} is out of range
+     *
+     * @since 1.0.0.0
+     */
+    public Object getObjectField(int index) {
+        if (this.types[index] != LogMessage.ARG_OBJECT) throw new IllegalStateException();
+
+        return this.refs[index];
+    }
+
+    /**
+     * Passes all entries of this context to the given visitor in order.
+     *
+     * @param visitor the visitor
+     *
+     * @throws NullPointerException if the given {@code visitor} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public void forEachField(ILogFieldVisitor visitor) {
+        if (visitor == null) throw new NullPointerException();
+
+        for (int i = 0; i < this.keys.length; i++) {
+            switch (this.types[i]) {
+                case LogMessage.ARG_LONG: visitor.visit(this.keys[i], this.prims[i]); break;
+                case LogMessage.ARG_DOUBLE: visitor.visit(this.keys[i], Double.longBitsToDouble(this.prims[i])); break;
+                default: visitor.visit(this.keys[i], this.refs[i]);
+            }
+        }
+    }
+
+    /*
+     * Appends the value of the entry at the given index to the given StringBuilder.
+     */
+    void appendField(StringBuilder sb, int index) {
+        switch (this.types[index]) {
+            case LogMessage.ARG_LONG: sb.append(this.prims[index]); break;
+            case LogMessage.ARG_DOUBLE: sb.append(Double.longBitsToDouble(this.prims[index])); break;
+            default: sb.append(this.refs[index]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append('{');
+
+        for (int i = 0; i < this.keys.length; i++) {
+            if (i > 0) sb.append(", ");
+
+            sb.append(this.keys[i]).append('=');
+            this.appendField(sb, i);
+        }
+
+        return sb.append('}').toString();
+    }
+
+    private LogContext with(String key, byte type, long prim, Object ref) {
+        int index = this.indexOf(key);
+        int size = this.keys.length;
+
+        String[] keys;
+        byte[] types;
+        long[] prims;
+        Object[] refs;
+
+        if (index >= 0) {
+            keys = this.keys;
+            types = this.types.clone();
+            prims = this.prims.clone();
+            refs = this.refs.clone();
+        } else {
+            index = size;
+
+            keys = new String[size + 1];
+            types = new byte[size + 1];
+            prims = new long[size + 1];
+            refs = new Object[size + 1];
+
+            System.arraycopy(this.keys, 0, keys, 0, size);
+            System.arraycopy(this.types, 0, types, 0, size);
+            System.arraycopy(this.prims, 0, prims, 0, size);
+            System.arraycopy(this.refs, 0, refs, 0, size);
+
+            keys[index] = key;
+        }
+
+        types[index] = type;
+        prims[index] = prim;
+        refs[index] = ref;
+
+        return new LogContext(keys, types, prims, refs);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,1348 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@code LogDispatcher} delivers the {@link LogMessage}s of one or more {@link Logger}s to their {@link ILogListener}s.
+ *
+ * <p>A dispatcher consists of a fixed number of stripes. Each stripe owns a preallocated lock-free ring buffer and a single dispatching thread. Every logger
+ * is assigned to exactly one stripe when it is created. Thus, the messages of a logger are always delivered in the order in which they have been queued,
+ * while the dispatching threads are shared between all loggers using the dispatcher.</p>
+ *
+ * <p>A dispatching thread delivers messages in batches. A batch consists of all messages that have become available since the last batch has been delivered,
+ * but at most {@link Builder#setMaxBatchSize(int) a configured number of messages}. Optionally, the dispatching thread may
+ * {@link Builder#setMaxLinger(long, TimeUnit) linger} to wait for additional messages before a batch is delivered. Consecutive messages of a logger in a batch
+ * are passed to the logger's listeners using {@link ILogListener#onLoggedBatch(List)}.</p>
+ *
+ * <p>Unless configured otherwise, loggers use the {@link #getDefault() default dispatcher}.</p>
+ *
+ * <p>A dispatcher must be {@link #close() closed} once it is no longer needed to stop its dispatching threads. Messages that are queued for a closed
+ * dispatcher are discarded.</p>
+ *
+ * <p>A dispatcher may be configured to operate in {@link Builder#setGarbageFree(boolean) garbage-free mode}. In this mode, the {@code LogMessage} instances
+ * passed to listeners are recycled once all listeners have processed them.</p>
+ *
+ * @see Logger.Builder#setDispatcher(LogDispatcher)
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class LogDispatcher implements AutoCloseable {
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 1000L;
+    private static final long POLL_NANOS = 100_000L;
+
+    private static volatile LogDispatcher defaultDispatcher;
+
+    /**
+     * Returns the default {@code LogDispatcher}.
+     *
+     * <p>The default dispatcher is created using the default configuration of a {@link Builder} upon first use. Before the JVM shuts down, the default
+     * dispatcher attempts to deliver all messages that are still queued.</p>
+     *
+     * @return the default {@code LogDispatcher}
+     *
+     * @since 1.0.0.0
+     */
+    public static LogDispatcher getDefault() {
+        LogDispatcher dispatcher = defaultDispatcher;
+
+        if (dispatcher == null) {
+            synchronized (LogDispatcher.class) {
+                dispatcher = defaultDispatcher;
+
+                if (dispatcher == null) {
+                    LogDispatcher instance = dispatcher = defaultDispatcher = new Builder().build();
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> instance.close(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)));
+                }
+            }
+        }
+
+        return dispatcher;
+    }
+
+    private final Stripe[] stripes;
+    private final OverflowPolicy overflowPolicy;
+
+    private final LongAdder droppedMessages = new LongAdder();
+
+    private LogDispatcher(Builder builder) {
+        this.overflowPolicy = builder.overflowPolicy;
+        this.stripes = new Stripe[builder.stripes];
+
+        for (int i = 0; i < this.stripes.length; i++) this.stripes[i] = new Stripe(this, i, builder);
+    }
+
+    /**
+     * Returns the stripe the logger with the given ID is assigned to.
+     *
+     * @param id the ID of the logger
+     * @return the stripe of the logger
+     */
+    Stripe stripeFor(int id) {
+        int h = id * 0x9E3779B9;
+        return this.stripes[Math.floorMod(h ^ (h >>> 16), this.stripes.length)];
+    }
+
+    /**
+     * Returns the number of messages that are currently queued for dispatch.
+     *
+     * @return the number of messages that are currently queued for dispatch
+     *
+     * @since 1.0.0.0
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Stripe stripe : this.stripes) depth += stripe.getQueueDepth();
+
+        return depth;
+    }
+
+    /**
+     * Returns a histogram of the time messages have spent in the queue before they have been dispatched.
+     *
+     * <p>The returned histogram is a copy that combines the histograms of all stripes of this dispatcher at the time this method is called.</p>
+     *
+     * @return a histogram of the time messages have spent in the queue
+     *
+     * @see LogMetrics#getDispatchLatency()
+     *
+     * @since 1.0.0.0
+     */
+    public LatencyHistogram getDispatchLatency() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (Stripe stripe : this.stripes) stripe.dispatchLatency.addTo(histogram);
+
+        return histogram;
+    }
+
+    /**
+     * Returns the number of stripes of this dispatcher.
+     *
+     * @return the number of stripes of this dispatcher
+     *
+     * @since 1.0.0.0
+     */
+    public int getStripeCount() {
+        return this.stripes.length;
+    }
+
+    /**
+     * Returns the number of messages that have been discarded by this dispatcher.
+     *
+     * <p>Messages are discarded if they cannot be queued due to the dispatcher's {@link OverflowPolicy} or because the dispatcher has been closed.</p>
+     *
+     * @return the number of discarded messages
+     *
+     * @since 1.0.0.0
+     */
+    public long getDroppedMessageCount() {
+        return this.droppedMessages.sum();
+    }
+
+    // #########################################################################################################################################################
+    // # Lifecycle #############################################################################################################################################
+    // #########################################################################################################################################################
+
+    /**
+     * Blocks until all messages that have been queued before this method was called have been delivered.
+     *
+     * <p>This method must not be called by a dispatching thread of this dispatcher (i.e. from a listener callback) since that thread cannot deliver messages
+     * while it is waiting.</p>
+     *
+     * @throws IllegalStateException if the current thread is a dispatching thread of this dispatcher
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     *
+     * @since 1.0.0.0
+     */
+    public void flush() throws InterruptedException {
+        for (Stripe stripe : this.stripes) stripe.flush(Long.MAX_VALUE);
+    }
+
+    /**
+     * Blocks until all messages that have been queued before this method was called have been delivered, or the timeout expires.
+     *
+     * <p>This method must not be called by a dispatching thread of this dispatcher (i.e. from a listener callback) since that thread cannot deliver messages
+     * while it is waiting.</p>
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the {@code timeout}
+     * @return {@code true} if all messages have been delivered, or {@code false} if the timeout expired
+     *
+     * @throws IllegalStateException if the current thread is a dispatching thread of this dispatcher
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     * @throws NullPointerException if the given {@code unit} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = deadline(timeout, unit);
+
+        for (Stripe stripe : this.stripes) {
+            if (!stripe.flush(deadline)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Closes this dispatcher and blocks until all messages that are still queued have been delivered.
+     *
+     * <p>Messages queued after this method has been called are discarded. Calling this method on a closed dispatcher has no effect.</p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void close() {
+        this.close(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Closes this dispatcher and blocks until all messages that are still queued have been delivered, or the timeout expires.
+     *
+     * <p>Messages queued after this method has been called are discarded. If the timeout expires, the dispatching threads continue to deliver the remaining
+     * messages in the background.</p>
+     *
+     * <p>If the current thread is interrupted while waiting, this method returns {@code false} and the interrupt status of the thread is preserved.</p>
+     *
+     * <p>If this method is called by a dispatching thread of this dispatcher (i.e. from a listener callback), it does not wait for that thread. The messages
+     * that are still queued in its stripe are delivered after the callback returns, and this method returns {@code false}.</p>
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the {@code timeout}
+     * @return {@code true} if all messages have been delivered, or {@code false} if the timeout expired
+     *
+     * @throws NullPointerException if the given {@code unit} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public boolean close(long timeout, TimeUnit unit) {
+        long deadline = deadline(timeout, unit);
+
+        for (Stripe stripe : this.stripes) {
+            stripe.flushLocalBuffers();
+            stripe.buffer.close();
+        }
+
+        Thread current = Thread.currentThread();
+        boolean delivered = true;
+
+        try {
+            for (Stripe stripe : this.stripes) {
+                if (stripe.thread == current) {
+                    delivered = false;
+                } else if (deadline == Long.MAX_VALUE) {
+                    stripe.thread.join();
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) return false;
+
+                    TimeUnit.NANOSECONDS.timedJoin(stripe.thread, remaining);
+                    if (stripe.thread.isAlive()) return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            current.interrupt();
+            return false;
+        }
+
+        return delivered;
+    }
+
+    /**
+     * Returns whether this dispatcher has been closed.
+     *
+     * @return whether this dispatcher has been closed
+     *
+     * @since 1.0.0.0
+     */
+    public boolean isClosed() {
+        return this.stripes[0].buffer.isClosed();
+    }
+
+    /**
+     * Computes a deadline in terms of {@link System#nanoTime()} for the given timeout.
+     *
+     * @param timeout the timeout
+     * @param unit the unit of the {@code timeout}
+     * @return the deadline, or {@link Long#MAX_VALUE} if the timeout is effectively infinite
+     */
+    static long deadline(long timeout, TimeUnit unit) {
+        long timeoutNanos = unit.toNanos(timeout);
+        if (timeoutNanos == Long.MAX_VALUE) return Long.MAX_VALUE;
+
+        long deadline = System.nanoTime() + timeoutNanos;
+        return deadline == Long.MAX_VALUE ? deadline - 1 : deadline;
+    }
+
+    /**
+     * A single stripe of a {@link LogDispatcher}.
+     *
+     * @since 1.0.0.0
+     */
+    static final class Stripe {
+
+        /**
+         * The position returned by {@link #claim(Logger, LogLevel)} for messages that are staged.
+         */
+        static final long STAGED = Long.MAX_VALUE;
+
+        final LogDispatcher dispatcher;
+        final RingBuffer buffer;
+        final Thread thread;
+
+        final LatencyHistogram dispatchLatency = new LatencyHistogram();
+
+        private final MessageBatch batch;
+        private final int maxBatchSize;
+        private final long maxLingerNanos;
+
+        /* The loggers of this stripe that have a pending summary of coalesced messages. Only accessed by the dispatching thread. */
+        private final List<Logger> coalescingLoggers = new ArrayList<>();
+
+        /* The thread-local buffers of the producers of this stripe, or null if thread-local buffering is disabled. */
+        private final ThreadLocal<LocalBuffer> localBuffer;
+        private final List<LocalBuffer> localBuffers = new CopyOnWriteArrayList<>();
+        private final int localBufferSize;
+        private final long localFlushIntervalNanos;
+        private final int localFlushSeverity;
+
+        /* The messages of loggers with a journal that are currently being logged by a thread. */
+        private final ThreadLocal<Staging> staging;
+
+        /* Scratch space used to merge the runs of a batch by timestamp. Only accessed by the dispatching thread. */
+        private final int[] order, runPositions, runEnds, runHeap;
+
+        private Stripe(LogDispatcher dispatcher, int index, Builder builder) {
+            this.dispatcher = dispatcher;
+            this.buffer = new RingBuffer(builder.bufferSize, builder.waitStrategy, builder.garbageFree);
+            this.batch = new MessageBatch(this.buffer);
+            this.maxBatchSize = Math.min(builder.maxBatchSize, builder.bufferSize);
+            this.maxLingerNanos = builder.maxLingerNanos;
+
+            if (builder.localBufferSize > 0) {
+                this.localBufferSize = Math.min(builder.localBufferSize, builder.bufferSize);
+                this.localBuffer = ThreadLocal.withInitial(this::registerLocalBuffer);
+                this.order = new int[this.maxBatchSize];
+                this.runPositions = new int[this.maxBatchSize];
+                this.runEnds = new int[this.maxBatchSize];
+                this.runHeap = new int[this.maxBatchSize];
+            } else {
+                this.localBufferSize = 0;
+                this.localBuffer = null;
+                this.order = this.runPositions = this.runEnds = this.runHeap = null;
+            }
+
+            this.localFlushIntervalNanos = builder.localFlushIntervalNanos;
+            this.localFlushSeverity = builder.localFlushSeverity;
+
+            boolean garbageFree = builder.garbageFree;
+            this.staging = ThreadLocal.withInitial(() -> new Staging(garbageFree));
+
+            this.thread = new Thread(this::run, "Osmerion Log Dispatcher #" + index);
+            this.thread.setDaemon(true);
+
+            this.buffer.setConsumer(this.thread);
+            this.thread.start();
+        }
+
+        /**
+         * Queues a message for dispatch.
+         *
+         * <p>If the message cannot be queued, the behaviour of this method is determined by the dispatcher's {@link OverflowPolicy}.</p>
+         *
+         * @param logger the logger that created the message
+         * @param level the level of the message
+         * @param message the message component of the message
+         * @param t the throwable attached to the message
+         */
+        void dispatch(Logger logger, LogLevel level, String message, Throwable t) {
+            long pos = this.claim(logger, level);
+            if (pos < 0) return;
+
+            this.prepare(pos, logger, level, message, t);
+            this.publish(pos);
+        }
+
+        /**
+         * Claims a slot for a message logged at the given level.
+         *
+         * <p>If no slot can be claimed, the behaviour of this method is determined by the dispatcher's {@link OverflowPolicy}. Once a slot has been claimed,
+         * the message must be {@link #prepare(long, Logger, LogLevel, String, Throwable) prepared} and {@link #publish(long) published}. If the message cannot
+         * be prepared, the slot must be {@link #cancel(long) cancelled} instead.</p>
+         *
+         * <p>If the logger captures locations at the given level, the location is captured before the slot is claimed to keep the time between claiming and
+         * publishing the slot short.</p>
+         *
+         * <p>If the logger has a {@link LogJournal}, no slot is claimed. Instead, the message is staged and {@link #STAGED} is returned. A slot is claimed
+         * once the message has been appended to the journal when it is published. (Appending a message to the journal encodes it which may call user code
+         * that logs again. Since the consumer processes slots in order, such code must never run while a slot is claimed.)</p>
+         *
+         * @param logger the logger that creates the message
+         * @param level the level of the message
+         * @return the claimed position, {@link #STAGED}, or {@code -1} if the message has been discarded
+         */
+        long claim(Logger logger, LogLevel level) {
+            LogLocation location = logger.capturesLocation(level) ? LogLocation.capture() : null;
+
+            LocalBuffer localBuffer = null;
+
+            if (this.localBuffer != null) {
+                localBuffer = this.localBuffer.get();
+
+                if (!localBuffer.isHeldByOwner()) {
+                    localBuffer.lock();
+                    localBuffer.location = location;
+
+                    return localBuffer.size;
+                }
+
+                /* The message is logged while the current thread flushes its buffer (for example, by a toString() method). It bypasses the buffer. */
+                localBuffer.bypassing++;
+            }
+
+            if (logger.journal != null) {
+                this.staging.get().push(logger, location);
+                return STAGED;
+            }
+
+            long pos = this.buffer.claim(this.dispatcher.overflowPolicy.isBlocking(level));
+
+            if (pos < 0) {
+                this.dispatcher.droppedMessages.increment();
+                if (localBuffer != null) localBuffer.bypassing--;
+            } else if (location != null) {
+                this.buffer.slot(pos).location = location;
+            }
+
+            return pos;
+        }
+
+        /**
+         * Initializes the message of the slot at the given claimed position.
+         *
+         * @param pos the claimed position
+         * @param logger the logger that created the message
+         * @param level the level of the message
+         * @param message the message component of the message
+         * @param t the throwable attached to the message
+         * @return the initialized message
+         */
+        LogMessage prepare(long pos, Logger logger, LogLevel level, String message, Throwable t) {
+            if (pos == STAGED) {
+                Staging staging = this.staging.get();
+                int index = staging.depth - 1;
+
+                /* The sequence number is assigned once the message is published to the ring buffer. */
+                LogMessage logMessage = staging.messages[index];
+                logMessage.set(logger, level, message, t, logger.clock.currentTimeNanos(), -1L);
+                logMessage.setLocation(staging.locations[index]);
+                logMessage.setContext(LogContext.current());
+                staging.enqueueTimes[index] = System.nanoTime();
+
+                logger.enqueuedMessages.increment(level);
+
+                return logMessage;
+            }
+
+            LocalBuffer localBuffer = (this.localBuffer != null) ? this.localBuffer.get() : null;
+
+            if (localBuffer != null && localBuffer.bypassing == 0) {
+                int index = (int) pos;
+
+                /* The sequence number is assigned once the message is published to the ring buffer. */
+                LogMessage logMessage = localBuffer.messages[index];
+                logMessage.set(logger, level, message, t, logger.clock.currentTimeNanos(), -1L);
+                logMessage.setLocation(localBuffer.location);
+                logMessage.setContext(LogContext.current());
+                localBuffer.loggers[index] = logger;
+                localBuffer.enqueueTimes[index] = System.nanoTime();
+
+                logger.enqueuedMessages.increment(level);
+
+                return logMessage;
+            }
+
+            RingBuffer.Slot slot = this.buffer.slot(pos);
+            LogMessage logMessage = (slot.pooled != null) ? slot.pooled : (slot.message = new LogMessage(false));
+            logMessage.set(logger, level, message, t, logger.clock.currentTimeNanos(), pos);
+            logMessage.setLocation(slot.location);
+            logMessage.setContext(LogContext.current());
+            slot.logger = logger;
+            slot.enqueueTime = System.nanoTime();
+            slot.runStart = true;
+
+            logger.enqueuedMessages.increment(level);
+
+            return logMessage;
+        }
+
+        /**
+         * Publishes the message at the given claimed position.
+         *
+         * <p>If thread-local buffering is enabled, the message is committed to the thread-local buffer of the current thread. The buffer is flushed if it is
+         * full, if the level of the message is severe enough, or if the oldest message in the buffer has exceeded the flush interval. If the logger has a
+         * {@link LogJournal}, the message is appended to the journal before it is committed to the buffer. Thus, buffered messages are journaled on the
+         * logging thread and are never encoded by the thread that flushes the buffer.</p>
+         *
+         * @param pos the claimed position
+         */
+        void publish(long pos) {
+            LocalBuffer localBuffer = (this.localBuffer != null) ? this.localBuffer.get() : null;
+
+            if (localBuffer == null || localBuffer.bypassing > 0) {
+                if (pos == STAGED) {
+                    this.publishStaged();
+                } else {
+                    this.buffer.publish(pos);
+                }
+
+                if (localBuffer != null) localBuffer.bypassing--;
+
+                return;
+            }
+
+            try {
+                int index = (int) pos;
+
+                /* Encoding the message may log again. Such messages bypass the buffer. */
+                LogJournal journal = localBuffer.loggers[index].journal;
+                if (journal != null) localBuffer.journalPositions[index] = journal.append(localBuffer.messages[index]);
+
+                int size = localBuffer.size = index + 1;
+
+                if (size == this.localBufferSize
+                    || localBuffer.messages[(int) pos].getLevel().getSeverity() <= this.localFlushSeverity
+                    || localBuffer.enqueueTimes[(int) pos] - localBuffer.enqueueTimes[0] >= this.localFlushIntervalNanos) {
+                    this.flushLocalBuffer(localBuffer, true);
+                }
+            } finally {
+                localBuffer.unlock();
+            }
+        }
+
+        /**
+         * Abandons the message at the given claimed position.
+         *
+         * <p>This method is called instead of {@link #publish(long)} if preparing the message failed (for example, because user code threw an exception).
+         * Since the consumer processes slots in order, a claimed slot must never be left unpublished. Thus, the slot is published without a logger and is
+         * released by the consumer without being delivered.</p>
+         *
+         * @param pos the claimed position
+         */
+        void cancel(long pos) {
+            LocalBuffer localBuffer = (this.localBuffer != null) ? this.localBuffer.get() : null;
+
+            if (localBuffer == null || localBuffer.bypassing > 0) {
+                if (pos == STAGED) {
+                    Staging staging = this.staging.get();
+                    staging.messages[staging.depth - 1].clear();
+                    staging.pop();
+                } else {
+                    RingBuffer.Slot slot = this.buffer.slot(pos);
+
+                    if (slot.pooled != null) {
+                        slot.pooled.clear();
+                    } else if (slot.message == null) {
+                        slot.message = new LogMessage(false);
+                    }
+
+                    slot.logger = null;
+                    slot.enqueueTime = System.nanoTime();
+                    slot.runStart = true;
+
+                    this.buffer.publish(pos);
+                }
+
+                if (localBuffer != null) localBuffer.bypassing--;
+
+                return;
+            }
+
+            /* The message has not been committed to the thread-local buffer. Its index is reused by the next message. */
+            int index = (int) pos;
+            localBuffer.messages[index].clear();
+            localBuffer.loggers[index] = null;
+            localBuffer.unlock();
+        }
+
+        /*
+         * Appends the message that has been staged last by the current thread to the journal of its logger, and then claims a slot for it and publishes it.
+         *
+         * If no slot can be claimed, the behaviour of this method is determined by the dispatcher's overflow policy. A discarded message is marked as consumed
+         * in the journal.
+         */
+        private void publishStaged() {
+            Staging staging = this.staging.get();
+            int index = staging.depth - 1;
+
+            LogMessage logMessage = staging.messages[index];
+            Logger logger = staging.loggers[index];
+
+            try {
+                long journalPosition = logger.journal.append(logMessage);
+                long pos = this.buffer.claim(this.dispatcher.overflowPolicy.isBlocking(logMessage.getLevel()));
+
+                if (pos < 0) {
+                    this.dispatcher.droppedMessages.increment();
+                    if (journalPosition >= 0) logger.journal.consume(journalPosition);
+
+                    return;
+                }
+
+                RingBuffer.Slot slot = this.buffer.slot(pos);
+
+                if (slot.pooled != null) {
+                    slot.pooled.set(logMessage, pos);
+                } else {
+                    /* Outside of garbage-free mode, the message is handed over and replaced. */
+                    logMessage.setSequence(pos);
+                    slot.message = logMessage;
+                    staging.messages[index] = new LogMessage(false);
+                }
+
+                slot.logger = logger;
+                slot.enqueueTime = staging.enqueueTimes[index];
+                slot.journalPosition = journalPosition;
+                slot.runStart = true;
+
+                this.buffer.publish(pos);
+            } finally {
+                if (staging.messages[index] == logMessage) logMessage.clear();
+                staging.pop();
+            }
+        }
+
+        private LocalBuffer registerLocalBuffer() {
+            LocalBuffer localBuffer = new LocalBuffer(Thread.currentThread(), this.localBufferSize, this.buffer.isGarbageFree());
+            this.localBuffers.add(localBuffer);
+
+            return localBuffer;
+        }
+
+        /*
+         * Publishes the messages of the given thread-local buffer to the ring buffer. The buffer must be locked by the current thread.
+         *
+         * The messages are published as a single run using one claim. If the ring buffer does not have enough space and the current thread is allowed to
+         * block, the messages are published one by one according to the overflow policy. Otherwise, the messages remain in the buffer and false is returned.
+         */
+        private boolean flushLocalBuffer(LocalBuffer localBuffer, boolean block) {
+            int size = localBuffer.size;
+            if (size == 0) return true;
+
+            long pos = this.buffer.claim(size, false);
+
+            if (pos >= 0) {
+                for (int i = 0; i < size; i++) this.transfer(localBuffer, i, pos + i, i == 0);
+            } else if (block) {
+                for (int i = 0; i < size; i++) {
+                    LogMessage logMessage = localBuffer.messages[i];
+                    long p = this.buffer.claim(this.dispatcher.overflowPolicy.isBlocking(logMessage.getLevel()));
+
+                    if (p < 0) {
+                        this.dispatcher.droppedMessages.increment();
+                        if (logMessage.isPooled()) logMessage.clear();
+
+                        long journalPosition = localBuffer.journalPositions[i];
+                        if (journalPosition >= 0) localBuffer.loggers[i].journal.consume(journalPosition);
+
+                        localBuffer.loggers[i] = null;
+                        localBuffer.journalPositions[i] = -1L;
+                    } else {
+                        /* Other messages may be published in between. Thus, every message starts a new run. */
+                        this.transfer(localBuffer, i, p, true);
+                    }
+                }
+            } else {
+                return false;
+            }
+
+            localBuffer.size = 0;
+            return true;
+        }
+
+        private void transfer(LocalBuffer localBuffer, int index, long pos, boolean runStart) {
+            RingBuffer.Slot slot = this.buffer.slot(pos);
+            LogMessage source = localBuffer.messages[index];
+
+            if (slot.pooled != null) {
+                slot.pooled.set(source, pos);
+                source.clear();
+            } else {
+                /* Outside of garbage-free mode, the message is handed over and replaced. */
+                source.setSequence(pos);
+                slot.message = source;
+                localBuffer.messages[index] = new LogMessage(false);
+            }
+
+            slot.logger = localBuffer.loggers[index];
+            slot.enqueueTime = localBuffer.enqueueTimes[index];
+            slot.journalPosition = localBuffer.journalPositions[index];
+            slot.runStart = runStart;
+
+            localBuffer.loggers[index] = null;
+            localBuffer.journalPositions[index] = -1L;
+
+            this.buffer.publish(pos);
+        }
+
+        /*
+         * Flushes the thread-local buffers of all threads. If called by the dispatching thread, buffers that are currently in use are skipped and messages
+         * remain buffered if the ring buffer is full.
+         */
+        private void flushLocalBuffers() {
+            if (this.localBuffer == null) return;
+
+            boolean consumer = (Thread.currentThread() == this.thread);
+
+            for (LocalBuffer localBuffer : this.localBuffers) {
+                if (consumer) {
+                    if (!localBuffer.tryLock()) continue;
+                } else {
+                    localBuffer.lock();
+                }
+
+                try {
+                    this.flushLocalBuffer(localBuffer, !consumer);
+                } finally {
+                    localBuffer.unlock();
+                }
+            }
+        }
+
+        /*
+         * Flushes the thread-local buffers whose oldest message has exceeded the flush interval and unregisters the empty buffers of terminated threads.
+         * Returns the time at which the next buffer needs to be flushed, or Long.MAX_VALUE if thread-local buffering is disabled. This method must only be
+         * called by the dispatching thread.
+         */
+        private long flushStaleLocalBuffers() {
+            if (this.localBuffer == null) return Long.MAX_VALUE;
+
+            long now = System.nanoTime();
+            long deadline = now + this.localFlushIntervalNanos;
+
+            for (LocalBuffer localBuffer : this.localBuffers) {
+                if (localBuffer.size == 0) {
+                    if (!localBuffer.owner.isAlive()) this.localBuffers.remove(localBuffer);
+                    continue;
+                }
+
+                if (!localBuffer.tryLock()) continue;
+
+                try {
+                    if (localBuffer.size > 0) {
+                        long expiry = localBuffer.enqueueTimes[0] + this.localFlushIntervalNanos;
+
+                        if (now - expiry < 0) {
+                            if (expiry - deadline < 0) deadline = expiry;
+                        } else {
+                            this.flushLocalBuffer(localBuffer, false);
+                        }
+                    }
+                } finally {
+                    localBuffer.unlock();
+                }
+            }
+
+            return deadline;
+        }
+
+        /**
+         * Returns the number of messages that are currently queued in this stripe.
+         *
+         * @return the number of messages that are currently queued
+         */
+        int getQueueDepth() {
+            return (int) Math.max(this.buffer.producerPosition() - this.buffer.consumerPosition(), 0L);
+        }
+
+        /**
+         * Blocks until all messages that have been queued before this method was called have been delivered, or the deadline has passed.
+         *
+         * @param deadline the deadline in terms of {@link System#nanoTime()}, or {@link Long#MAX_VALUE} to wait indefinitely
+         * @return {@code true} if all messages have been delivered, or {@code false} if the deadline has passed
+         *
+         * @throws IllegalStateException if the current thread is the dispatching thread of this stripe
+         * @throws InterruptedException if the current thread is interrupted while waiting
+         */
+        boolean flush(long deadline) throws InterruptedException {
+            /* The dispatching thread would wait for itself. */
+            if (Thread.currentThread() == this.thread) throw new IllegalStateException();
+
+            this.flushLocalBuffers();
+
+            long target = this.buffer.producerPosition();
+
+            while (this.buffer.consumerPosition() < target) {
+                if (Thread.interrupted()) throw new InterruptedException();
+                if (!this.thread.isAlive()) return false;
+                if (deadline != Long.MAX_VALUE && deadline - System.nanoTime() <= 0) return false;
+
+                LockSupport.parkNanos(this, POLL_NANOS);
+            }
+
+            return true;
+        }
+
+        /**
+         * Schedules the expiry of the coalescing window of the given logger.
+         *
+         * <p>This method must only be called by the dispatching thread.</p>
+         *
+         * @param logger the logger with a pending summary
+         */
+        void scheduleExpiry(Logger logger) {
+            if (!this.coalescingLoggers.contains(logger)) this.coalescingLoggers.add(logger);
+        }
+
+        /*
+         * Closes the expired coalescing windows (or all windows if force is set) and returns the time at which the next window closes, or Long.MAX_VALUE.
+         */
+        private long expireCoalescedMessages(boolean force) {
+            if (this.coalescingLoggers.isEmpty()) return Long.MAX_VALUE;
+
+            long now = System.nanoTime();
+            long deadline = Long.MAX_VALUE;
+
+            for (Iterator<Logger> itr = this.coalescingLoggers.iterator(); itr.hasNext(); ) {
+                long next = itr.next().expireCoalescedMessages(now, force);
+
+                if (next == Long.MAX_VALUE) {
+                    itr.remove();
+                } else if (deadline == Long.MAX_VALUE || next - deadline < 0) {
+                    deadline = next;
+                }
+            }
+
+            return deadline;
+        }
+
+        private void run() {
+            while (true) {
+                long deadline = this.expireCoalescedMessages(false);
+
+                long flushDeadline = this.flushStaleLocalBuffers();
+                if (flushDeadline - deadline < 0) deadline = flushDeadline;
+
+                if (this.buffer.await(0, deadline) == null) {
+                    /* The buffer has been closed unless a coalescing window has expired or a thread-local buffer needs to be flushed. */
+                    if (deadline == Long.MAX_VALUE || deadline - System.nanoTime() > 0) break;
+                    continue;
+                }
+
+                int size = this.collect();
+                long now = System.nanoTime();
+
+                for (int i = 0; i < size; i++) this.dispatchLatency.recordSingleWriter(now - this.buffer.peek(i).enqueueTime);
+
+                int[] order = (this.localBuffer != null) ? this.merge(size) : null;
+
+                if (order != null) {
+                    /* The messages are renumbered in merged order. Thus, sequence numbers remain strictly increasing in the order of delivery. */
+                    long sequence = this.buffer.consumerPosition();
+                    for (int i = 0; i < size; i++) this.buffer.peek(order[i]).message.setSequence(sequence + i);
+                }
+
+                try {
+                    int start = 0;
+                    Logger logger = this.buffer.peek(order != null ? order[0] : 0).logger;
+
+                    for (int i = 1; i <= size; i++) {
+                        Logger next = (i < size) ? this.buffer.peek(order != null ? order[i] : i).logger : null;
+
+                        if (next != logger) {
+                            /* Cancelled slots do not have a logger and are not delivered. */
+                            if (logger != null) {
+                                this.batch.reset(order, start, i - start);
+                                logger.deliver(this.batch);
+                            }
+
+                            start = i;
+                            logger = next;
+                        }
+                    }
+                } finally {
+                    for (int i = 0; i < size; i++) {
+                        RingBuffer.Slot slot = this.buffer.peek();
+                        if (slot.journalPosition >= 0) slot.logger.journal.consume(slot.journalPosition);
+
+                        this.buffer.release(slot);
+                    }
+                }
+            }
+
+            /* Pass the pending summaries to the listeners before the thread terminates. */
+            this.expireCoalescedMessages(true);
+        }
+
+        /*
+         * Merges the runs of the next batch of the given size by the construction time of their messages. Messages within a run retain their order. Returns
+         * the offsets of the slots in merged order, or null if the batch consists of a single run.
+         */
+        private int[] merge(int size) {
+            int runs = 0;
+
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || this.buffer.peek(i).runStart) {
+                    if (runs > 0) this.runEnds[runs - 1] = i;
+                    this.runPositions[runs++] = i;
+                }
+            }
+
+            if (runs == 1) return null;
+            this.runEnds[runs - 1] = size;
+
+            /* A binary min-heap of runs ordered by the timestamp of their next message (and by their position to break ties). */
+            int[] heap = this.runHeap;
+            for (int i = 0; i < runs; i++) heap[i] = i;
+            for (int i = runs / 2 - 1; i >= 0; i--) this.siftDown(heap, i, runs);
+
+            int heapSize = runs;
+
+            for (int i = 0; i < size; i++) {
+                int run = heap[0];
+                this.order[i] = this.runPositions[run]++;
+
+                if (this.runPositions[run] == this.runEnds[run]) heap[0] = heap[--heapSize];
+                this.siftDown(heap, 0, heapSize);
+            }
+
+            return this.order;
+        }
+
+        private void siftDown(int[] heap, int index, int size) {
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) return;
+
+                if (child + 1 < size && this.precedes(heap[child + 1], heap[child])) child++;
+                if (!this.precedes(heap[child], heap[index])) return;
+
+                int tmp = heap[index];
+                heap[index] = heap[child];
+                heap[child] = tmp;
+
+                index = child;
+            }
+        }
+
+        private boolean precedes(int run, int other) {
+            long time = this.buffer.peek(this.runPositions[run]).message.getConstructionTimeNanos();
+            long otherTime = this.buffer.peek(this.runPositions[other]).message.getConstructionTimeNanos();
+
+            return time < otherTime || (time == otherTime && this.runPositions[run] < this.runPositions[other]);
+        }
+
+        /*
+         * Determines the size of the next batch. The first slot must already be available.
+         */
+        private int collect() {
+            long deadline = 0L;
+            int size = 1;
+
+            while (size < this.maxBatchSize) {
+                if (this.buffer.peek(size) != null) {
+                    size++;
+                    continue;
+                }
+
+                if (this.maxLingerNanos <= 0) break;
+                if (deadline == 0L) deadline = LogDispatcher.deadline(this.maxLingerNanos, TimeUnit.NANOSECONDS);
+
+                if (this.buffer.await(size, deadline) == null) break;
+                size++;
+            }
+
+            return size;
+        }
+
+    }
+
+    /**
+     * A thread-local buffer of a {@link Stripe}.
+     *
+     * <p>A buffer is filled by its owner thread. It is locked by its owner while a message is logged, and by other threads while they flush the buffer.</p>
+     *
+     * @since 1.0.0.0
+     */
+    static final class LocalBuffer {
+
+        private static final VarHandle STATE;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(LocalBuffer.class, "state", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private static final int UNLOCKED = 0, LOCKED_BY_OWNER = 1, LOCKED = 2;
+
+        final Thread owner;
+
+        final LogMessage[] messages;
+        final Logger[] loggers;
+        final long[] enqueueTimes;
+
+        /* The positions of the buffered messages in the journals of their loggers, or -1. */
+        final long[] journalPositions;
+
+        /* The number of buffered messages. Written while the buffer is locked. */
+        volatile int size;
+
+        /* The location of the message that is currently being logged by the owner, or null. */
+        LogLocation location;
+
+        /* The number of messages that are currently logged by the owner while it holds the lock. Only accessed by the owner. */
+        int bypassing;
+
+        /* Package-private for VarHandle access. */
+        volatile int state;
+
+        LocalBuffer(Thread owner, int capacity, boolean garbageFree) {
+            this.owner = owner;
+            this.messages = new LogMessage[capacity];
+            this.loggers = new Logger[capacity];
+            this.enqueueTimes = new long[capacity];
+            this.journalPositions = new long[capacity];
+
+            Arrays.fill(this.journalPositions, -1L);
+            for (int i = 0; i < capacity; i++) this.messages[i] = new LogMessage(garbageFree);
+        }
+
+        void lock() {
+            while (!this.tryLock()) Thread.onSpinWait();
+        }
+
+        boolean tryLock() {
+            return STATE.compareAndSet(this, UNLOCKED, (Thread.currentThread() == this.owner) ? LOCKED_BY_OWNER : LOCKED);
+        }
+
+        void unlock() {
+            STATE.setRelease(this, UNLOCKED);
+        }
+
+        /*
+         * Returns whether the buffer is locked by its owner. Must only be called by the owner.
+         */
+        boolean isHeldByOwner() {
+            return (int) STATE.getVolatile(this) == LOCKED_BY_OWNER;
+        }
+
+    }
+
+    /**
+     * The messages of loggers with a {@link LogJournal} that are currently being logged by a thread.
+     *
+     * <p>Such messages are prepared outside of the ring buffer and appended to the journal before a slot is claimed for them. Since appending a message to the
+     * journal may call user code that logs again, staged messages form a stack.</p>
+     *
+     * @since 1.0.0.0
+     */
+    static final class Staging {
+
+        private final boolean garbageFree;
+
+        LogMessage[] messages = new LogMessage[0];
+        Logger[] loggers = new Logger[0];
+        LogLocation[] locations = new LogLocation[0];
+        long[] enqueueTimes = new long[0];
+
+        /* The number of staged messages. */
+        int depth;
+
+        Staging(boolean garbageFree) {
+            this.garbageFree = garbageFree;
+        }
+
+        void push(Logger logger, LogLocation location) {
+            int index = this.depth;
+
+            if (index == this.messages.length) {
+                int capacity = Math.max(2, index * 2);
+
+                this.messages = Arrays.copyOf(this.messages, capacity);
+                this.loggers = Arrays.copyOf(this.loggers, capacity);
+                this.locations = Arrays.copyOf(this.locations, capacity);
+                this.enqueueTimes = Arrays.copyOf(this.enqueueTimes, capacity);
+
+                for (int i = index; i < capacity; i++) this.messages[i] = new LogMessage(this.garbageFree);
+            }
+
+            this.loggers[index] = logger;
+            this.locations[index] = location;
+            this.depth = index + 1;
+        }
+
+        void pop() {
+            int index = --this.depth;
+
+            this.loggers[index] = null;
+            this.locations[index] = null;
+        }
+
+    }
+
+    /**
+     * A factory class for dispatchers.
+     *
+     * @since 1.0.0.0
+     */
+    public static final class Builder {
+
+        private int stripes = Math.min(Runtime.getRuntime().availableProcessors(), 4);
+        private int bufferSize = 4096;
+        private WaitStrategy waitStrategy = WaitStrategy.PARK;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.block();
+        private boolean garbageFree;
+        private int maxBatchSize = 256;
+        private long maxLingerNanos;
+        private int localBufferSize;
+        private long localFlushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        private int localFlushSeverity = Integer.MIN_VALUE;
+
+        /**
+         * Creates a new {@link LogDispatcher} and starts its dispatching threads.
+         *
+         * <p>This function may be called multiple times to create multiple dispatchers with the same configuration.</p>
+         *
+         * @return the newly initialized {@code LogDispatcher}
+         *
+         * @since 1.0.0.0
+         */
+        public LogDispatcher build() {
+            return new LogDispatcher(this);
+        }
+
+        // #####################################################################################################################################################
+        // # Configuration #####################################################################################################################################
+        // #####################################################################################################################################################
+
+        /**
+         * Configures the number of stripes (and thus dispatching threads).
+         *
+         * <p>The default number of stripes is the number of available processors, but at most {@code 4}.</p>
+         *
+         * @param value the new number of stripes
+         *
+         * @throws IllegalArgumentException if the given {@code value} is not positive
+         *
+         * @since 1.0.0.0
+         */
+        public void setStripes(int value) {
+            if (value < 1) throw new IllegalArgumentException();
+
+            this.stripes = value;
+        }
+
+        /**
+         * Configures the number of messages that may be queued per stripe.
+         *
+         * <p>The buffers are preallocated when a dispatcher is built. The default size is {@code 4096}.</p>
+         *
+         * @param value the new buffer size
+         *
+         * @throws IllegalArgumentException if the given {@code value} is not a power of two or less than {@code 2}
+         *
+         * @since 1.0.0.0
+         */
+        public void setBufferSize(int value) {
+            if (value < 2 || Integer.bitCount(value) != 1) throw new IllegalArgumentException();
+
+            this.bufferSize = value;
+        }
+
+        /**
+         * Configures the {@link WaitStrategy} used by the dispatching threads (and by logging threads that wait for space in a full buffer).
+         *
+         * <p>The default strategy is {@link WaitStrategy#PARK}.</p>
+         *
+         * @param value the new wait strategy
+         *
+         * @throws NullPointerException if the given {@code value} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public void setWaitStrategy(WaitStrategy value) {
+            if (value == null) throw new NullPointerException();
+
+            this.waitStrategy = value;
+        }
+
+        /**
+         * Configures the {@link OverflowPolicy} that is applied when a message cannot be queued for dispatch.
+         *
+         * <p>The default policy is {@link OverflowPolicy#block()}.</p>
+         *
+         * @param value the new overflow policy
+         *
+         * @throws NullPointerException if the given {@code value} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public void setOverflowPolicy(OverflowPolicy value) {
+            if (value == null) throw new NullPointerException();
+
+            this.overflowPolicy = value;
+        }
+
+        /**
+         * Configures whether the dispatcher operates in garbage-free mode.
+         *
+         * <p>In garbage-free mode, a {@link LogMessage} is preallocated for every slot of the dispatcher's buffers. These messages are reinitialized when a
+         * message is logged and recycled once all listeners have processed them. Thus, a {@code LogMessage} is only valid for the duration of the
+         * {@link ILogListener#onLogged(LogMessage)} callback it has been passed to. Listeners that need to retain a message must create a
+         * {@link LogMessage#copy() copy} of it.</p>
+         *
+         * <p>Garbage-free mode is disabled by default.</p>
+         *
+         * @param value whether the dispatcher operates in garbage-free mode
+         *
+         * @since 1.0.0.0
+         */
+        public void setGarbageFree(boolean value) {
+            this.garbageFree = value;
+        }
+
+        /**
+         * Configures the maximum number of messages that are delivered in a single batch.
+         *
+         * <p>The effective maximum batch size is limited by the {@link #setBufferSize(int) buffer size}. The default maximum batch size is {@code 256}.</p>
+         *
+         * @param value the new maximum batch size
+         *
+         * @throws IllegalArgumentException if the given {@code value} is not positive
+         *
+         * @since 1.0.0.0
+         */
+        public void setMaxBatchSize(int value) {
+            if (value < 1) throw new IllegalArgumentException();
+
+            this.maxBatchSize = value;
+        }
+
+        /**
+         * Configures the maximum time a dispatching thread waits for additional messages before a batch is delivered.
+         *
+         * <p>Lingering reduces the number of batches at the cost of increased latency. By default, dispatching threads do not linger.</p>
+         *
+         * @param value the maximum time to linger
+         * @param unit the unit of the {@code value}
+         *
+         * @throws IllegalArgumentException if the given {@code value} is negative
+         * @throws NullPointerException if the given {@code unit} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public void setMaxLinger(long value, TimeUnit unit) {
+            if (value < 0) throw new IllegalArgumentException();
+
+            this.maxLingerNanos = unit.toNanos(value);
+        }
+
+        /**
+         * Configures the size of the thread-local buffers in which messages are collected before they are queued for dispatch.
+         *
+         * <p>If thread-local buffering is enabled, every thread collects its messages in a buffer of its own and queues them in batches. Thus, the threads
+         * contend far less on the shared queues. The messages of a thread are queued in order once the buffer is full, once a message is logged at a
+         * {@link #setThreadLocalFlushSeverity(int) severe level}, or once the oldest message has been buffered for the
+         * {@link #setThreadLocalFlushInterval(long, TimeUnit) flush interval}. Before a batch of messages is delivered, the messages that have been queued
+         * by different threads are merged by timestamp to approximate their global order. Messages logged by the same thread are never reordered.</p>
+         *
+         * <p>Since timestamps are taken from the {@link Logger#getClock() clocks} of the loggers, the order in which the messages of different threads are
+         * delivered is only as accurate as these clocks. Messages of different threads that are queued in different batches are delivered in the order in
+         * which they have been queued regardless of their timestamps. (See {@link LogMessage#getSequence()}.)</p>
+         *
+         * <p>The effective size is limited by the {@link #setBufferSize(int) buffer size}. By default, thread-local buffering is disabled.</p>
+         *
+         * @param value the size of the thread-local buffers, or {@code 0} to disable thread-local buffering
+         *
+         * @throws IllegalArgumentException if the given {@code value} is negative
+         *
+         * @since 1.0.0.0
+         */
+        public void setThreadLocalBufferSize(int value) {
+            if (value < 0) throw new IllegalArgumentException();
+
+            this.localBufferSize = value;
+        }
+
+        /**
+         * Configures the maximum time a message remains in a thread-local buffer before it is queued for dispatch.
+         *
+         * <p>Buffers of threads that stopped logging are flushed by the dispatching threads. The default interval is 10 milliseconds.</p>
+         *
+         * @param value the flush interval
+         * @param unit the unit of the {@code value}
+         *
+         * @throws IllegalArgumentException if the given {@code value} is not positive
+         * @throws NullPointerException if the given {@code unit} is {@code null}
+         *
+         * @see #setThreadLocalBufferSize(int)
+         *
+         * @since 1.0.0.0
+         */
+        public void setThreadLocalFlushInterval(long value, TimeUnit unit) {
+            if (value < 1) throw new IllegalArgumentException();
+
+            this.localFlushIntervalNanos = unit.toNanos(value);
+        }
+
+        /**
+         * Configures the severity at or above which messages bypass the thread-local buffers.
+         *
+         * <p>A message logged at a level whose severity is less than or equal to the given value (that is, a level that is at least as severe) causes the
+         * thread-local buffer of the logging thread to be flushed immediately. By default, no level causes an immediate flush.</p>
+         *
+         * @param value the severity
+         *
+         * @see #setThreadLocalBufferSize(int)
+         *
+         * @since 1.0.0.0
+         */
+        public void setThreadLocalFlushSeverity(int value) {
+            this.localFlushSeverity = value;
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.Arrays;
+
+/**
+ * A builder for structured {@link LogMessage}s.
+ *
+ * <p>A {@code LogEventBuilder} is obtained from {@link ILogger#at(LogLevel)} and is used to attach typed key/value fields to a message before it is logged:
+ * </p>
+ *
+ * <pre>
+ * logger.at(INFO)
+ *     .with("userId", userId)
+ *     .with("latencyMs", latencyMs)
+ *     .log("Request completed");</pre>
+ *
+ * <p>Fields are stored in parallel primitive and reference arrays. Primitive values are never boxed. If the level is not enabled, a shared no-op builder is
+ * returned and all fields are ignored.</p>
+ *
+ * <p>Builders are reused per thread. Thus, a builder must not be retained or shared with other threads, and every chain should be terminated by calling one
+ * of the {@code log} methods exactly once. (Starting a chain while another chain of the same thread has not been terminated is supported, but causes the
+ * thread's builder to be replaced.)</p>
+ *
+ * @see LogMessage#getFieldCount()
+ * @see LogMessage#forEachField(ILogFieldVisitor)
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class LogEventBuilder {
+
+    /* A builder that ignores all fields. Returned if the level is not enabled. */
+    static final LogEventBuilder DISABLED = new LogEventBuilder();
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    /* The logger that created this builder, or null if this builder is not in use. */
+    Logger logger;
+    LogLevel level;
+
+    int fieldCount;
+    String[] fieldKeys = new String[INITIAL_CAPACITY];
+    byte[] fieldTypes = new byte[INITIAL_CAPACITY];
+    long[] fieldPrims = new long[INITIAL_CAPACITY];
+    Object[] fieldRefs = new Object[INITIAL_CAPACITY];
+
+    LogEventBuilder() {}
+
+    /**
+     * Adds a field with a {@code long} value.
+     *
+     * @param key   the key of the field
+     * @param value the value of the field
+     *
+     * @return this builder
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public LogEventBuilder with(String key, long value) {
+        if (this.logger != null) this.add(key, LogMessage.ARG_LONG, value, null);
+        return this;
+    }
+
+    /**
+     * Adds a field with a {@code double} value.
+     *
+     * @param key   the key of the field
+     * @param value the value of the field
+     *
+     * @return this builder
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public LogEventBuilder with(String key, double value) {
+        if (this.logger != null) this.add(key, LogMessage.ARG_DOUBLE, Double.doubleToRawLongBits(value), null);
+        return this;
+    }
+
+    /**
+     * Adds a field with a {@code char} value.
+     *
+     * <p>The value is boxed so that it is rendered as a character (rather than being widened to {@code long}).</p>
+     *
+     * @param key   the key of the field
+     * @param value the value of the field
+     *
+     * @return this builder
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public LogEventBuilder with(String key, char value) {
+        return this.with(key, (Object) value);
+    }
+
+    /**
+     * Adds a field with a {@code float} value.
+     *
+     * <p>The value is boxed so that it is rendered as a {@code float} (rather than being widened to {@code double}).</p>
+     *
+     * @param key   the key of the field
+     * @param value the value of the field
+     *
+     * @return this builder
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public LogEventBuilder with(String key, float value) {
+        return this.with(key, (Object) value);
+    }
+
+    /**
+     * Adds a field with a reference value.
+     *
+     * <p>The value is not converted to a {@code String} on the logging thread. Thus, mutable values must not be modified after they have been passed to this
+     * method.</p>
+     *
+     * @param key   the key of the field
+     * @param value the value of the field (may be {@code null})
+     *
+     * @return this builder
+     *
+     * @throws NullPointerException if the given {@code key} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public LogEventBuilder with(String key, Object value) {
+        if (this.logger != null) this.add(key, LogMessage.ARG_OBJECT, 0L, value);
+        return this;
+    }
+
+    /**
+     * Logs a message without a message component that only consists of the fields attached to this builder.
+     *
+     * @since 1.0.0.0
+     */
+    public void log() {
+        this.log(null, null);
+    }
+
+    /**
+     * Logs a message with the fields attached to this builder.
+     *
+     * @param message the message to be logged
+     *
+     * @since 1.0.0.0
+     */
+    public void log(String message) {
+        this.log(message, null);
+    }
+
+    /**
+     * Logs a message and a {@link Throwable} with the fields attached to this builder.
+     *
+     * @param message   the message to be logged
+     * @param t         the throwable to be logged
+     *
+     * @since 1.0.0.0
+     */
+    public void log(String message, Throwable t) {
+        Logger logger = this.logger;
+        if (logger == null) return;
+
+        try {
+            logger.logEvent(this, message, t);
+        } finally {
+            this.reset();
+        }
+    }
+
+    private void add(String key, byte type, long prim, Object ref) {
+        if (key == null) throw new NullPointerException();
+
+        int index = this.fieldCount;
+
+        if (index == this.fieldKeys.length) {
+            int capacity = index * 2;
+
+            this.fieldKeys = Arrays.copyOf(this.fieldKeys, capacity);
+            this.fieldTypes = Arrays.copyOf(this.fieldTypes, capacity);
+            this.fieldPrims = Arrays.copyOf(this.fieldPrims, capacity);
+            this.fieldRefs = Arrays.copyOf(this.fieldRefs, capacity);
+        }
+
+        this.fieldKeys[index] = key;
+        this.fieldTypes[index] = type;
+        this.fieldPrims[index] = prim;
+        this.fieldRefs[index] = ref;
+        this.fieldCount = index + 1;
+    }
+
+    private void reset() {
+        Arrays.fill(this.fieldKeys, 0, this.fieldCount, null);
+        Arrays.fill(this.fieldRefs, 0, this.fieldCount, null);
+
+        this.fieldCount = 0;
+        this.logger = null;
+        this.level = null;
+    }
+
+}
\ No newline at end of file
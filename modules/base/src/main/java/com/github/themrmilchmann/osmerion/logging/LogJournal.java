@@ -0,0 +1,602 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * A crash-durable journal of {@link LogMessage}s that is backed by a memory-mapped file.
+ *
+ * <p>A {@link Logger} that has been {@link Logger.Builder#setJournal(LogJournal) configured} to use a journal appends every message to the journal on the
+ * logging thread before the message is queued for dispatch. Once the message has been passed to the listeners, the dispatching thread marks it as consumed.
+ * Thus, the journal contains all messages that have been logged but not yet delivered. Since the journal is mapped into memory, its contents are owned by
+ * the operating system and survive a crash of the JVM. When the journal is opened again, messages that have not been consumed may be
+ * {@link #recover(ILogListener) recovered}.</p>
+ *
+ * <p>Messages are encoded using the format of the {@link BinaryLogEncoder}. Appending a message claims space in the journal by atomically advancing the
+ * write position that is stored in the mapped file itself. Thus, appending a message neither requires a lock nor a system call. The journal is a circular
+ * buffer. The space occupied by a message is reused once the message and all messages before it have been consumed. If the journal is full, messages are
+ * still delivered but not journaled (see {@link #getSkippedMessageCount()}).</p>
+ *
+ * <p>The journal does not force its contents to the storage device. Thus, messages do not necessarily survive a crash of the operating system.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @see Logger.Builder#setJournal(LogJournal)
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class LogJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x4F534D4A; // "OSMJ"
+    private static final short VERSION = 2;
+
+    /*
+     * The layout of the header of the journal file: magic (int), version (short), padding, capacity of the data region (int), write position (long),
+     * reclaim position (long). The positions are absolute and increase monotonically. The data region follows the header.
+     */
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int HEAD_OFFSET = 16;
+    private static final int TAIL_OFFSET = 24;
+    private static final int HEADER_SIZE = 64;
+
+    /*
+     * The layout of the header of a record: length of the payload (int), status (int), CRC-32C checksum of the payload (int), padding. Records are aligned to
+     * RECORD_ALIGNMENT bytes and never wrap around the end of the data region. Instead, the remaining space is filled with a padding record.
+     */
+    private static final int RECORD_HEADER_SIZE = 16;
+    private static final int RECORD_ALIGNMENT = 16;
+
+    private static final int STATUS_FREE = 0;
+    private static final int STATUS_COMMITTED = 1;
+    private static final int STATUS_CONSUMED = 2;
+    private static final int STATUS_PADDING = 3;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final ThreadLocal<Encoder> ENCODERS = ThreadLocal.withInitial(Encoder::new);
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    /* The end of the records that have been written before the journal has been opened. */
+    private final long recoverablePosition;
+
+    private final LongAdder skippedMessages = new LongAdder();
+
+    private volatile boolean closed;
+
+    private LogJournal(Builder builder) throws IOException {
+        this.file = builder.file;
+        this.channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            boolean exists = false;
+            int capacity = builder.capacity;
+
+            if (this.channel.size() >= HEADER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                while (header.hasRemaining()) {
+                    if (this.channel.read(header, header.position()) < 0) break;
+                }
+                header.flip();
+
+                if (header.getInt(0) == MAGIC) {
+                    if (header.getShort(4) != VERSION) throw new IOException("Unsupported journal version");
+
+                    capacity = header.getInt(CAPACITY_OFFSET);
+                    if (capacity < RECORD_ALIGNMENT || capacity % RECORD_ALIGNMENT != 0) throw new IOException("Corrupt journal");
+
+                    exists = true;
+                }
+            }
+
+            this.capacity = capacity;
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity);
+
+            if (exists) {
+                this.recoverablePosition = this.repair();
+            } else {
+                this.buffer.putInt(0, MAGIC);
+                this.buffer.putShort(4, VERSION);
+                this.buffer.putInt(CAPACITY_OFFSET, capacity);
+                this.buffer.putLong(HEAD_OFFSET, 0L);
+                this.buffer.putLong(TAIL_OFFSET, 0L);
+                this.clear(0L, capacity);
+
+                this.recoverablePosition = 0L;
+            }
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the path of the journal file.
+     *
+     * @return the path of the journal file
+     *
+     * @since 1.0.0.0
+     */
+    public Path getFile() {
+        return this.file;
+    }
+
+    /**
+     * Returns the size of the data region of this journal in bytes.
+     *
+     * @return the size of the data region of this journal in bytes
+     *
+     * @since 1.0.0.0
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns the number of messages that have not been journaled because the journal was full, closed, or the message could not be encoded.
+     *
+     * @return the number of messages that have not been journaled
+     *
+     * @since 1.0.0.0
+     */
+    public long getSkippedMessageCount() {
+        return this.skippedMessages.sum();
+    }
+
+    /**
+     * Replays the messages that have been written to this journal before it has been opened, but have not been consumed.
+     *
+     * <p>The messages are passed to the given listener as a single batch in the order in which they have been appended to the journal and are marked as
+     * consumed afterwards. Thus, calling this method again does not replay the same messages. Until the messages have been recovered, the space occupied by
+     * them cannot be reused.</p>
+     *
+     * <p>Recovered messages are not associated with a logger (that is, {@link LogMessage#getLogger()} returns {@code null}). For each distinct name and
+     * severity, a new level is created. (Levels with the same name and severity share their index and are thus treated alike by loggers and listeners, but
+     * the recovered levels are not identical to the original instances.) Throwables are only available in
+     * their rendered form. Thus, the {@code Throwable} attached to a recovered message reproduces the original stack trace when it is printed, but does not
+     * have the type or stack frames of the original throwable. Since messages are appended to the journal before they are assigned a sequence number,
+     * recovered messages are numbered in the order in which they have been appended (starting at {@code 0}).</p>
+     *
+     * @param listener the listener to pass the recovered messages to
+     *
+     * @return the number of recovered messages
+     *
+     * @throws IOException if a message cannot be decoded
+     * @throws IllegalStateException if this journal has been closed
+     * @throws NullPointerException if the given {@code listener} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public synchronized int recover(ILogListener listener) throws IOException {
+        if (listener == null) throw new NullPointerException();
+        if (this.closed) throw new IllegalStateException();
+
+        List<LogMessage> messages = new ArrayList<>();
+        List<Long> positions = new ArrayList<>();
+        List<LogLevel> levels = new ArrayList<>();
+
+        for (long pos = (long) LONG.getVolatile(this.buffer, TAIL_OFFSET); pos < this.recoverablePosition; pos += this.sizeAt(pos)) {
+            int offset = this.offset(pos);
+            if ((int) INT.getAcquire(this.buffer, offset + 4) != STATUS_COMMITTED) continue;
+
+            byte[] payload = new byte[this.buffer.getInt(offset)];
+            ByteBuffer view = this.buffer.duplicate();
+            view.position(offset + RECORD_HEADER_SIZE);
+            view.get(payload);
+
+            BinaryLogDecoder decoder = new BinaryLogDecoder(ByteBuffer.wrap(payload));
+            while (decoder.next()) messages.add(toMessage(decoder, levels, messages.size()));
+
+            positions.add(pos);
+        }
+
+        if (!messages.isEmpty()) listener.onLoggedBatch(Collections.unmodifiableList(messages));
+
+        for (Long pos : positions) this.consume(pos);
+
+        return messages.size();
+    }
+
+    /**
+     * Closes this journal.
+     *
+     * <p>Messages that are logged after the journal has been closed are not journaled. Calling this method on a closed journal has no effect.</p>
+     *
+     * @throws IOException if an I/O error occurs
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) return;
+
+        this.closed = true;
+        this.channel.close();
+    }
+
+    /**
+     * Appends the given message to this journal.
+     *
+     * <p>This method is called on the logging thread before a slot is claimed for the message. It must not throw.</p>
+     *
+     * @param logMessage the message to be appended
+     *
+     * @return the position of the message in the journal, or {@code -1} if the message has not been journaled
+     */
+    long append(LogMessage logMessage) {
+        if (this.closed) {
+            this.skippedMessages.increment();
+            return -1L;
+        }
+
+        Encoder encoder = ENCODERS.get();
+
+        /* Encoding a message may call toString() on its arguments which may log again. */
+        if (encoder.inUse) encoder = new Encoder();
+        encoder.inUse = true;
+
+        try {
+            ByteBuffer payload;
+
+            try {
+                payload = encoder.encoder.encodeStandalone(logMessage);
+            } catch (RuntimeException e) {
+                this.skippedMessages.increment();
+                return -1L;
+            }
+
+            int length = payload.remaining();
+            int size = align(RECORD_HEADER_SIZE + length);
+
+            long head, pos, next;
+
+            do {
+                head = (long) LONG.getVolatile(this.buffer, HEAD_OFFSET);
+
+                int remaining = this.capacity - this.offset(head) + HEADER_SIZE;
+                pos = (remaining < size) ? head + remaining : head;
+                next = pos + size;
+
+                if (next - (long) LONG.getVolatile(this.buffer, TAIL_OFFSET) > this.capacity) {
+                    this.skippedMessages.increment();
+                    return -1L;
+                }
+            } while (!LONG.compareAndSet(this.buffer, HEAD_OFFSET, head, next));
+
+            if (pos != head) {
+                int offset = this.offset(head);
+                this.buffer.putInt(offset, (int) (pos - head) - RECORD_HEADER_SIZE);
+                INT.setRelease(this.buffer, offset + 4, STATUS_PADDING);
+            }
+
+            int offset = this.offset(pos);
+            this.buffer.putInt(offset, length);
+
+            encoder.crc.reset();
+            encoder.crc.update(payload.array(), payload.arrayOffset(), length);
+            this.buffer.putInt(offset + 8, (int) encoder.crc.getValue());
+
+            int dst = offset + RECORD_HEADER_SIZE, i = 0;
+            for (; i + 8 <= length; i += 8) this.buffer.putLong(dst + i, payload.getLong(i));
+            for (; i < length; i++) this.buffer.put(dst + i, payload.get(i));
+
+            INT.setRelease(this.buffer, offset + 4, STATUS_COMMITTED);
+            return pos;
+        } finally {
+            encoder.inUse = false;
+        }
+    }
+
+    /**
+     * Marks the message at the given position as consumed and reclaims the space occupied by consumed messages at the start of the journal.
+     *
+     * <p>This method is called on the dispatching threads.</p>
+     *
+     * @param pos the position of the message
+     */
+    void consume(long pos) {
+        INT.setRelease(this.buffer, this.offset(pos) + 4, STATUS_CONSUMED);
+        this.reclaim();
+    }
+
+    private synchronized void reclaim() {
+        long tail = (long) LONG.getVolatile(this.buffer, TAIL_OFFSET);
+        long head = (long) LONG.getVolatile(this.buffer, HEAD_OFFSET);
+        long pos = tail;
+
+        while (pos < head) {
+            int status = (int) INT.getAcquire(this.buffer, this.offset(pos) + 4);
+            if (status != STATUS_CONSUMED && status != STATUS_PADDING) break;
+
+            pos += this.sizeAt(pos);
+        }
+
+        if (pos == tail) return;
+
+        /* Free space is zeroed so that a record that has been claimed, but not yet written, can be recognized by its status. */
+        this.clear(tail, pos);
+        LONG.setRelease(this.buffer, TAIL_OFFSET, pos);
+    }
+
+    /*
+     * Repairs the journal after it has been opened. Records that have been claimed but not completely written are discarded and the write position is reset
+     * to the end of the last intact record. Returns the end of the intact records.
+     */
+    private long repair() {
+        long tail = this.buffer.getLong(TAIL_OFFSET);
+        long head = this.buffer.getLong(HEAD_OFFSET);
+        long pos = tail;
+
+        CRC32C crc = new CRC32C();
+
+        while (pos < head) {
+            int offset = this.offset(pos);
+            int length = this.buffer.getInt(offset);
+            int status = this.buffer.getInt(offset + 4);
+
+            /* A record that has been claimed before its length has been written cannot be skipped. */
+            if (status == STATUS_FREE && length == 0) break;
+            if (length < 0 || align(RECORD_HEADER_SIZE + length) > this.capacity - offset + HEADER_SIZE) break;
+
+            if (status == STATUS_COMMITTED) {
+                byte[] payload = new byte[length];
+                ByteBuffer view = this.buffer.duplicate();
+                view.position(offset + RECORD_HEADER_SIZE);
+                view.get(payload);
+
+                crc.reset();
+                crc.update(payload, 0, length);
+
+                if ((int) crc.getValue() != this.buffer.getInt(offset + 8)) this.buffer.putInt(offset + 4, STATUS_PADDING);
+            } else if (status != STATUS_CONSUMED && status != STATUS_PADDING) {
+                this.buffer.putInt(offset + 4, STATUS_PADDING);
+            }
+
+            pos += align(RECORD_HEADER_SIZE + length);
+        }
+
+        if (pos < head) {
+            this.clear(pos, Math.min(head, tail + this.capacity));
+            this.buffer.putLong(HEAD_OFFSET, pos);
+        }
+
+        return pos;
+    }
+
+    /*
+     * Zeroes the data region between the given absolute positions.
+     */
+    private void clear(long from, long to) {
+        for (long pos = from; pos < to; ) {
+            int offset = this.offset(pos);
+            int end = (int) Math.min(to - pos, this.capacity - offset + HEADER_SIZE) + offset;
+
+            for (int i = offset; i < end; i += 8) this.buffer.putLong(i, 0L);
+            pos += end - offset;
+        }
+    }
+
+    private int offset(long pos) {
+        return HEADER_SIZE + (int) (pos % this.capacity);
+    }
+
+    private int sizeAt(long pos) {
+        return align(RECORD_HEADER_SIZE + this.buffer.getInt(this.offset(pos)));
+    }
+
+    private static int align(int size) {
+        return (size + RECORD_ALIGNMENT - 1) & -RECORD_ALIGNMENT;
+    }
+
+    private static LogMessage toMessage(BinaryLogDecoder decoder, List<LogLevel> levels, long sequence) {
+        String stackTrace = decoder.getThrowable();
+
+        LogMessage logMessage = new LogMessage(false);
+        logMessage.set(null, resolveLevel(levels, decoder.getLevelName(), decoder.getLevelSeverity()), decoder.getMessage(),
+            stackTrace != null ? new RecoveredThrowable(stackTrace) : null, decoder.getTimestampNanos(), sequence);
+
+        if (stackTrace != null) logMessage.setThrowableFingerprint(decoder.getThrowableFingerprint());
+
+        int fieldCount = decoder.getFieldCount();
+
+        if (fieldCount > 0) {
+            String[] keys = new String[fieldCount];
+            byte[] types = new byte[fieldCount];
+            long[] prims = new long[fieldCount];
+            Object[] refs = new Object[fieldCount];
+
+            for (int i = 0; i < fieldCount; i++) {
+                Object value = decoder.getFieldValue(i);
+                keys[i] = decoder.getFieldKey(i);
+
+                if (value instanceof Long) {
+                    types[i] = LogMessage.ARG_LONG;
+                    prims[i] = (Long) value;
+                } else if (value instanceof Double) {
+                    types[i] = LogMessage.ARG_DOUBLE;
+                    prims[i] = Double.doubleToRawLongBits((Double) value);
+                } else {
+                    types[i] = LogMessage.ARG_OBJECT;
+                    refs[i] = value;
+                }
+            }
+
+            logMessage.setFields(keys, types, prims, refs, fieldCount);
+        }
+
+        return logMessage;
+    }
+
+    /*
+     * Returns the level with the given name and severity among the given levels. If no such level exists, a new level is created and added.
+     */
+    private static LogLevel resolveLevel(List<LogLevel> levels, String name, int severity) {
+        for (LogLevel level : levels) {
+            if (level.getSeverity() == severity && Objects.equals(level.getName(), name)) return level;
+        }
+
+        LogLevel level = new LogLevel(name, severity);
+        levels.add(level);
+
+        return level;
+    }
+
+    /*
+     * The per-thread state used to encode messages.
+     */
+    private static final class Encoder {
+
+        final BinaryLogEncoder encoder = new BinaryLogEncoder();
+        final CRC32C crc = new CRC32C();
+
+        boolean inUse;
+
+    }
+
+    /*
+     * A throwable that reproduces a stack trace that has been recovered in its rendered form.
+     */
+    private static final class RecoveredThrowable extends Throwable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String stackTrace;
+
+        RecoveredThrowable(String stackTrace) {
+            super(null, null, false, false);
+            this.stackTrace = stackTrace;
+        }
+
+        @Override
+        public void printStackTrace(PrintStream s) {
+            s.print(this.stackTrace);
+        }
+
+        @Override
+        public void printStackTrace(PrintWriter s) {
+            s.print(this.stackTrace);
+        }
+
+        @Override
+        public String toString() {
+            int end = this.stackTrace.indexOf(System.lineSeparator());
+            return (end < 0) ? this.stackTrace : this.stackTrace.substring(0, end);
+        }
+
+    }
+
+    /**
+     * A factory class for journals.
+     *
+     * @since 1.0.0.0
+     */
+    public static final class Builder {
+
+        private final Path file;
+
+        private int capacity = 16 * 1024 * 1024;
+
+        /**
+         * Creates a new builder for journals backed by the given file.
+         *
+         * @param file the path of the journal file
+         *
+         * @throws NullPointerException if the given {@code file} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public Builder(Path file) {
+            if (file == null) throw new NullPointerException();
+
+            this.file = file;
+        }
+
+        /**
+         * Creates a new {@link LogJournal} and opens its file.
+         *
+         * <p>If the file already contains a journal, the journal is opened with its original capacity and messages that have not been consumed may be
+         * {@link LogJournal#recover(ILogListener) recovered}. Messages that have not been completely written are discarded.</p>
+         *
+         * @return the newly initialized {@code LogJournal}
+         *
+         * @throws IOException if an I/O error occurs or the file contains a corrupt journal
+         *
+         * @since 1.0.0.0
+         */
+        public LogJournal build() throws IOException {
+            return new LogJournal(this);
+        }
+
+        // #####################################################################################################################################################
+        // # Configuration #####################################################################################################################################
+        // #####################################################################################################################################################
+
+        /**
+         * Configures the size of the data region of the journal.
+         *
+         * <p>The capacity is rounded up to a multiple of 16 bytes and is ignored if the file already contains a journal. The default capacity is 16 MiB.</p>
+         *
+         * @param value the new capacity in bytes
+         *
+         * @throws IllegalArgumentException if the given {@code value} is not positive or too large
+         *
+         * @since 1.0.0.0
+         */
+        public void setCapacity(int value) {
+            if (value < 1 || value > Integer.MAX_VALUE - HEADER_SIZE - RECORD_ALIGNMENT) throw new IllegalArgumentException();
+
+            this.capacity = align(value);
+        }
+
+    }
+
+}
\ No newline at end of file
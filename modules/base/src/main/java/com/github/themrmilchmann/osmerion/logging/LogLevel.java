@@ -29,6 +29,8 @@
  */
 package com.github.themrmilchmann.osmerion.logging;
 
+import java.util.Objects;
+
 /**
  * A {@code LogLevel} that can be logged at.
  *
@@ -37,6 +39,13 @@ package com.github.themrmilchmann.osmerion.logging;
  *
  * <p>An {@link ILogger} must be configured to accept a {@code LogLevel}.</p>
  *
+ * <p>Levels are identified by their name and severity. That is, two levels with the same name and severity are {@link #equals(Object) equal} and are
+ * treated alike by loggers and listeners (regardless of their type), even if they are distinct instances.</p>
+ *
+ * <p>Every {@code LogLevel} is assigned an index in a global registry when it is created. This allows loggers to represent sets of levels as bitmasks.
+ * Equal levels share their index. Only the first {@value #MAX_LEVELS} distinct combinations of name and severity are assigned an index. Levels beyond
+ * this limit are fully supported, but are checked on a slower path.</p>
+ *
  * @see ILogger#getLogLevels()
  * @see ILogger#isEnabled(LogLevel)
  *
@@ -45,8 +54,47 @@ package com.github.themrmilchmann.osmerion.logging;
  */
 public class LogLevel {
 
+    /**
+     * The maximum number of distinct combinations of name and severity that are assigned an index (and are thus represented in bitmasks).
+     *
+     * @since 1.0.0.0
+     */
+    public static final int MAX_LEVELS = 64;
+
+    /*
+     * The names and severities that have been assigned an index. The levels themselves are not retained so that they may be garbage collected.
+     */
+    private static final String[] REGISTERED_NAMES = new String[MAX_LEVELS];
+    private static final int[] REGISTERED_SEVERITIES = new int[MAX_LEVELS];
+    private static int registered;
+
+    /*
+     * Returns the severity of the levels with the given index.
+     */
+    static synchronized int getRegisteredSeverity(int index) {
+        if (index < 0 || index >= registered) throw new IndexOutOfBoundsException();
+
+        return REGISTERED_SEVERITIES[index];
+    }
+
+    /*
+     * Returns the index for levels with the given name and severity, or -1 if all indices have been assigned.
+     */
+    private static synchronized int indexOf(String name, int severity) {
+        for (int i = 0; i < registered; i++) {
+            if (REGISTERED_SEVERITIES[i] == severity && Objects.equals(REGISTERED_NAMES[i], name)) return i;
+        }
+
+        if (registered == MAX_LEVELS) return -1;
+
+        REGISTERED_NAMES[registered] = name;
+        REGISTERED_SEVERITIES[registered] = severity;
+        return registered++;
+    }
+
     private final String name;
     private final int severity;
+    private final int index;
 
     /**
      * Creates a new {@link LogLevel} with the given name and properties.
@@ -59,6 +107,7 @@ public class LogLevel {
     public LogLevel(String name, int severity) {
         this.name = name;
         this.severity = severity;
+        this.index = indexOf(name, severity);
     }
 
     /**
@@ -70,21 +119,30 @@ public class LogLevel {
      * @since 1.0.0.0
      */
     String format(LogMessage logMessage) {
-        StringBuilder stringBuilder = new StringBuilder("[")
+        StringBuilder stringBuilder = new StringBuilder();
+        this.formatTo(logMessage, stringBuilder);
+
+        return stringBuilder.toString();
+    }
+
+    /*
+     * Appends the formatted message to the given StringBuilder. This allows listeners to format messages into a reusable StringBuilder without materializing
+     * the intermediate Strings.
+     */
+    void formatTo(LogMessage logMessage, StringBuilder stringBuilder) {
+        stringBuilder.append("[")
             .append(logMessage.getLevel().getName())
             .append("]");
 
-        if (logMessage.getMessage() != null) {
+        if (logMessage.hasMessage()) {
             stringBuilder.append(" ");
-            stringBuilder.append(logMessage.getMessage());
+            logMessage.appendMessage(stringBuilder);
         }
 
         if (logMessage.getThrowable() != null) {
             stringBuilder.append("\n");
             stringBuilder.append(logMessage.getThrowable());
         }
-
-        return stringBuilder.toString();
     }
 
     /**
@@ -109,4 +167,47 @@ public class LogLevel {
         return this.severity;
     }
 
+    /**
+     * Returns whether the given object is a {@link LogLevel} with the same name and severity as this level.
+     *
+     * @param obj the object to be compared with this level
+     *
+     * @return whether the given object is a {@code LogLevel} equal to this level
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public final boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof LogLevel)) return false;
+
+        LogLevel other = (LogLevel) obj;
+        return this.severity == other.severity && Objects.equals(this.name, other.name);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public final int hashCode() {
+        return 31 * Objects.hashCode(this.name) + this.severity;
+    }
+
+    /*
+     * Returns the index of this level in the registry. The index is in the range [0, MAX_LEVELS), or -1 if this level has not been assigned an index.
+     */
+    int getIndex() {
+        return this.index;
+    }
+
+    /*
+     * Returns the bit representing this level in a bitmask of levels, or 0 if this level has not been assigned an index. (Levels without an index must be
+     * checked on a slow path.)
+     */
+    long getMask() {
+        return this.index >= 0 ? 1L << this.index : 0L;
+    }
+
 }
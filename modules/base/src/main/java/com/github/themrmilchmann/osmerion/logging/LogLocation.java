@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * The source location from which a {@link LogMessage} has been logged.
+ *
+ * <p>Locations are only captured for messages logged at the {@link Logger.Builder#getLocationLevels() location levels} of a logger. The location is
+ * determined by walking the stack of the logging thread using a {@link StackWalker}. Frames of classes implementing {@link ILogger} (such as loggers and
+ * {@link ILogProxy proxies}) and frames of this library are skipped. Thus, the location is the first frame above the logging API.</p>
+ *
+ * <p>Resolving the source file and line number of a stack frame is considerably more expensive than walking the stack. Hence, resolved locations are cached
+ * per call site (that is, per method and bytecode index) and shared by all messages logged from the same call site.</p>
+ *
+ * @see LogMessage#getLocation()
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class LogLocation {
+
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    private static final String PACKAGE_NAME = LogLocation.class.getPackageName();
+
+    private static final Function<Stream<StackWalker.StackFrame>, Optional<StackWalker.StackFrame>> CALLER =
+        frames -> frames.dropWhile(LogLocation::isInternal).findFirst();
+
+    private static final ClassValue<CallSites> CALL_SITES = new ClassValue<CallSites>() {
+
+        @Override
+        protected CallSites computeValue(Class<?> type) {
+            return new CallSites(type);
+        }
+
+    };
+
+    private final String className;
+    private final String methodName;
+    private final String fileName;
+    private final int lineNumber;
+
+    /* The bytecode index of the call site. */
+    private final int bci;
+
+    /* The cached string representation. Racy initialization is benign since strings are immutable. */
+    private String string;
+
+    private LogLocation(StackTraceElement element, int bci) {
+        this.className = element.getClassName();
+        this.methodName = element.getMethodName();
+        this.fileName = element.getFileName();
+        this.lineNumber = element.getLineNumber();
+        this.bci = bci;
+    }
+
+    /**
+     * Returns the location of the caller of the logging API on the current thread, or {@code null} if the location cannot be determined.
+     *
+     * @return the location of the caller, or {@code null}
+     */
+    static LogLocation capture() {
+        StackWalker.StackFrame frame = WALKER.walk(CALLER).orElse(null);
+        if (frame == null) return null;
+
+        return CALL_SITES.get(frame.getDeclaringClass()).get(frame);
+    }
+
+    private static boolean isInternal(StackWalker.StackFrame frame) {
+        Class<?> type = frame.getDeclaringClass();
+        return ILogger.class.isAssignableFrom(type) || type.getPackageName().equals(PACKAGE_NAME);
+    }
+
+    /**
+     * Returns the fully qualified name of the class of this location.
+     *
+     * @return the fully qualified name of the class of this location
+     *
+     * @since 1.0.0.0
+     */
+    public String getClassName() {
+        return this.className;
+    }
+
+    /**
+     * Returns the name of the method of this location.
+     *
+     * @return the name of the method of this location
+     *
+     * @since 1.0.0.0
+     */
+    public String getMethodName() {
+        return this.methodName;
+    }
+
+    /**
+     * Returns the name of the source file of this location, or {@code null} if it is not available.
+     *
+     * @return the name of the source file of this location, or {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public String getFileName() {
+        return this.fileName;
+    }
+
+    /**
+     * Returns the line number of this location, or a negative number if it is not available.
+     *
+     * @return the line number of this location, or a negative number
+     *
+     * @since 1.0.0.0
+     */
+    public int getLineNumber() {
+        return this.lineNumber;
+    }
+
+    /**
+     * Returns a string representation of this location in the format used by {@link StackTraceElement#toString()} (for example,
+     * {@code com.example.Foo.bar(Foo.java:42)}).
+     *
+     * @return a string representation of this location
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public String toString() {
+        String string = this.string;
+        if (string != null) return string;
+
+        StringBuilder sb = new StringBuilder(this.className.length() + this.methodName.length() + 24)
+            .append(this.className)
+            .append('.')
+            .append(this.methodName)
+            .append('(');
+
+        if (this.fileName == null) {
+            sb.append("Unknown Source");
+        } else {
+            sb.append(this.fileName);
+            if (this.lineNumber >= 0) sb.append(':').append(this.lineNumber);
+        }
+
+        return this.string = sb.append(')').toString();
+    }
+
+    /*
+     * The resolved call sites of a class.
+     *
+     * Call sites are identified by the name of the method and the bytecode index. Since stack frames do not expose the signature of their method, call sites
+     * in overloaded methods are ambiguous and are never cached.
+     */
+    private static final class CallSites {
+
+        private final Set<String> overloadedMethods = new HashSet<>();
+
+        /* An open-addressing hash table of resolved locations. The table is replaced when it grows. */
+        private volatile LogLocation[] table = new LogLocation[16];
+        private int size;
+
+        CallSites(Class<?> type) {
+            Set<String> methodNames = new HashSet<>();
+
+            try {
+                for (Method method : type.getDeclaredMethods()) {
+                    if (!methodNames.add(method.getName())) this.overloadedMethods.add(method.getName());
+                }
+
+                Constructor<?>[] constructors = type.getDeclaredConstructors();
+                if (constructors.length > 1) this.overloadedMethods.add("<init>");
+            } catch (LinkageError | SecurityException e) {
+                /* The methods cannot be inspected. Thus, no call site is cached. */
+                this.table = null;
+            }
+        }
+
+        LogLocation get(StackWalker.StackFrame frame) {
+            String methodName = frame.getMethodName();
+            int bci = frame.getByteCodeIndex();
+
+            LogLocation[] table = this.table;
+            if (table == null || this.overloadedMethods.contains(methodName)) return new LogLocation(frame.toStackTraceElement(), bci);
+
+            int mask = table.length - 1;
+
+            for (int i = hash(methodName, bci) & mask; table[i] != null; i = (i + 1) & mask) {
+                LogLocation location = table[i];
+                if (location.bci == bci && location.methodName.equals(methodName)) return location;
+            }
+
+            LogLocation location = new LogLocation(frame.toStackTraceElement(), bci);
+            this.put(location);
+
+            return location;
+        }
+
+        private synchronized void put(LogLocation location) {
+            LogLocation[] table = this.table;
+            if (!insert(table, location)) return;
+
+            if (++this.size * 2 > table.length) {
+                LogLocation[] grown = new LogLocation[table.length * 2];
+                for (LogLocation value : table) if (value != null) insert(grown, value);
+
+                this.table = grown;
+            } else {
+                /* Publish the insertion. */
+                this.table = table;
+            }
+        }
+
+        /*
+         * Inserts the given location into the given table. Returns false if the table already contains a location for the same call site.
+         */
+        private static boolean insert(LogLocation[] table, LogLocation location) {
+            int mask = table.length - 1;
+            int i = hash(location.methodName, location.bci) & mask;
+
+            for (; table[i] != null; i = (i + 1) & mask) {
+                if (table[i].bci == location.bci && table[i].methodName.equals(location.methodName)) return false;
+            }
+
+            table[i] = location;
+            return true;
+        }
+
+        private static int hash(String methodName, int bci) {
+            int h = methodName.hashCode() * 31 + bci;
+            return h ^ (h >>> 16);
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -29,11 +29,18 @@
  */
 package com.github.themrmilchmann.osmerion.logging;
 
+import java.util.Arrays;
+
 /**
- * An immutable data class used to hold various information about a logged message.
+ * A data class used to hold various information about a logged message.
  *
  * <p>A {@code LogMessage} is created by an {@link ILogger} {@code log(...)} method and passed to the loggers {@link ILogListener}s.</p>
  *
+ * <p>Usually, a {@code LogMessage} is immutable. However, if the message has been logged by a {@link Logger} using a {@link LogDispatcher} in
+ * {@link LogDispatcher.Builder#setGarbageFree(boolean) garbage-free mode}, the message is recycled once it has been passed to all listeners. Such a message
+ * is only valid for the duration of the {@link ILogListener#onLogged(LogMessage)} callback. To retain a message beyond the callback, {@link #copy()} must be
+ * used.</p>
+ *
  * @see ILogger
  * @see ILogListener
  *
@@ -42,33 +49,293 @@ package com.github.themrmilchmann.osmerion.logging;
  */
 public final class LogMessage {
 
+    static final byte ARG_LONG = 0;
+    static final byte ARG_DOUBLE = 1;
+    static final byte ARG_OBJECT = 2;
+
+    /* Only used for template arguments. */
+    static final byte ARG_CHAR = 3;
+    static final byte ARG_FLOAT = 4;
+
+    private final boolean pooled;
+
     private ILogger logger;
     private LogLevel level;
     private String message;
     private Throwable throwable;
 
-    private final long constructionTime;
+    private long throwableFingerprint;
+
+    private long constructionTimeNanos;
+    private long sequence;
 
-    LogMessage(ILogger logger, LogLevel level, String message, Throwable throwable) {
+    private LogLocation location;
+    private LogContext context = LogContext.empty();
+
+    /*
+     * The arguments of a message that has been logged using a template. Up to two arguments are stored inline to avoid boxing and allocations. Additional
+     * arguments are passed as varargs array.
+     */
+    private String template;
+    private int argCount;
+    private byte argType0, argType1;
+    private long argPrim0, argPrim1;
+    private Object argRef0, argRef1;
+    private Object[] args;
+
+    /*
+     * The structured fields of this message stored in parallel arrays. Pooled messages reuse (and grow) their arrays.
+     */
+    private int fieldCount;
+    private String[] fieldKeys;
+    private byte[] fieldTypes;
+    private long[] fieldPrims;
+    private Object[] fieldRefs;
+
+    LogMessage(boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    /*
+     * Initializes this message.
+     *
+     * This method is called exactly once for regular messages and each time a pooled message is reused. The message is safely published to the dispatching
+     * thread by the ring buffer.
+     */
+    void set(ILogger logger, LogLevel level, String message, Throwable throwable, long constructionTimeNanos, long sequence) {
         this.logger = logger;
         this.level = level;
         this.message = message;
         this.throwable = throwable;
+        this.throwableFingerprint = 0L;
+
+        this.template = null;
+        this.argCount = 0;
+        this.fieldCount = 0;
+
+        this.constructionTimeNanos = constructionTimeNanos;
+        this.sequence = sequence;
+        this.location = null;
+        this.context = LogContext.empty();
+    }
+
+    /*
+     * Initializes this message with the information held by the given message and the given sequence number.
+     */
+    void set(LogMessage other, long sequence) {
+        this.logger = other.logger;
+        this.level = other.level;
+        this.message = other.message;
+        this.throwable = other.throwable;
+        this.throwableFingerprint = other.throwableFingerprint;
+        this.constructionTimeNanos = other.constructionTimeNanos;
+        this.sequence = sequence;
+        this.location = other.location;
+        this.context = other.context;
+
+        this.template = other.template;
+        this.argCount = other.argCount;
+        this.argType0 = other.argType0;
+        this.argPrim0 = other.argPrim0;
+        this.argRef0 = other.argRef0;
+        this.argType1 = other.argType1;
+        this.argPrim1 = other.argPrim1;
+        this.argRef1 = other.argRef1;
+        this.args = other.args;
+
+        if (other.fieldCount > 0) {
+            this.setFields(other.fieldKeys, other.fieldTypes, other.fieldPrims, other.fieldRefs, other.fieldCount);
+        } else {
+            this.fieldCount = 0;
+        }
+    }
+
+    /*
+     * Assigns the sequence number of this message. This is used for messages that are assigned a position in the ring buffer after they have been
+     * initialized, and for messages that are renumbered in the order in which they are delivered.
+     */
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /*
+     * Attaches the location from which this message has been logged.
+     */
+    void setLocation(LogLocation location) {
+        this.location = location;
+    }
+
+    /*
+     * Attaches the context in which this message has been logged.
+     */
+    void setContext(LogContext context) {
+        this.context = context;
+    }
+
+    /*
+     * Attaches up to two inline arguments to be formatted using the given template. Primitive arguments are passed as (raw) long bits.
+     */
+    void setArguments(String template, int argCount, byte argType0, long argPrim0, Object argRef0, byte argType1, long argPrim1, Object argRef1) {
+        this.template = template;
+        this.argCount = argCount;
+        this.argType0 = argType0;
+        this.argPrim0 = argPrim0;
+        this.argRef0 = argRef0;
+        this.argType1 = argType1;
+        this.argPrim1 = argPrim1;
+        this.argRef1 = argRef1;
+        this.args = null;
+    }
+
+    /*
+     * Attaches an arbitrary number of arguments to be formatted using the given template.
+     */
+    void setArguments(String template, Object[] args) {
+        this.template = template;
+        this.argCount = args.length;
+        this.argRef0 = null;
+        this.argRef1 = null;
+        this.args = args;
+    }
+
+    /*
+     * Copies the fields of the given builder into this message.
+     */
+    void setFields(LogEventBuilder builder) {
+        this.setFields(builder.fieldKeys, builder.fieldTypes, builder.fieldPrims, builder.fieldRefs, builder.fieldCount);
+    }
+
+    /*
+     * Copies the given fields into this message.
+     */
+    void setFields(String[] keys, byte[] types, long[] prims, Object[] refs, int count) {
+        if (this.fieldKeys == null || this.fieldKeys.length < count) {
+            int capacity = this.pooled ? Math.max(count, 8) : count;
+
+            this.fieldKeys = new String[capacity];
+            this.fieldTypes = new byte[capacity];
+            this.fieldPrims = new long[capacity];
+            this.fieldRefs = new Object[capacity];
+        }
+
+        System.arraycopy(keys, 0, this.fieldKeys, 0, count);
+        System.arraycopy(types, 0, this.fieldTypes, 0, count);
+        System.arraycopy(prims, 0, this.fieldPrims, 0, count);
+        System.arraycopy(refs, 0, this.fieldRefs, 0, count);
+        this.fieldCount = count;
+    }
+
+    /*
+     * Overrides the fingerprint of the attached throwable. This is used for messages whose throwable is only available in its rendered form.
+     */
+    void setThrowableFingerprint(long fingerprint) {
+        this.throwableFingerprint = fingerprint;
+    }
+
+    /*
+     * Releases the references held by a pooled message.
+     */
+    void clear() {
+        this.logger = null;
+        this.level = null;
+        this.message = null;
+        this.throwable = null;
+        this.location = null;
+        this.context = LogContext.empty();
+
+        this.template = null;
+        this.argRef0 = null;
+        this.argRef1 = null;
+        this.args = null;
+
+        if (this.fieldCount > 0) {
+            Arrays.fill(this.fieldKeys, 0, this.fieldCount, null);
+            Arrays.fill(this.fieldRefs, 0, this.fieldCount, null);
+            this.fieldCount = 0;
+        }
+    }
+
+    /**
+     * Returns a {@code LogMessage} holding the same information as this message that may be retained beyond the lifetime of this message.
+     *
+     * <p>If this message is immutable, this message is returned. Otherwise, a new immutable message is created. (See {@link LogMessage} for more
+     * information.)</p>
+     *
+     * @return an immutable {@code LogMessage} holding the same information as this message
+     *
+     * @since 1.0.0.0
+     */
+    public LogMessage copy() {
+        if (!this.pooled) return this;
 
-        this.constructionTime = System.currentTimeMillis();
+        LogMessage copy = new LogMessage(false);
+        copy.set(this, this.sequence);
+
+        return copy;
     }
 
     /**
-     * Returns the time at which this {@code LogMessage} has been constructed.
+     * Returns whether this message is recycled once it has been passed to all listeners.
+     *
+     * @return whether this message is recycled once it has been passed to all listeners
      *
-     * <p>Capturing the construction time is the last thing happening during the construction of a {@code LogMessage}.</p>
+     * @see #copy()
+     *
+     * @since 1.0.0.0
+     */
+    public boolean isPooled() {
+        return this.pooled;
+    }
+
+    /**
+     * Returns the time at which this {@code LogMessage} has been constructed in milliseconds since the epoch.
+     *
+     * <p>Capturing the construction time is the last thing happening during the construction of a {@code LogMessage}. The time is read from the
+     * {@link LogClock} of the logger.</p>
      *
      * @return the time at which this {@code LogMessage} has been constructed.
      *
+     * @see Logger#getClock()
+     *
      * @since 1.0.0.0
      */
     public long getConstructionTime() {
-        return this.constructionTime;
+        return Math.floorDiv(this.constructionTimeNanos, 1_000_000L);
+    }
+
+    /**
+     * Returns the time at which this {@code LogMessage} has been constructed in nanoseconds since the epoch.
+     *
+     * <p>The precision of this value depends on the {@link LogClock} of the logger.</p>
+     *
+     * @return the time at which this {@code LogMessage} has been constructed in nanoseconds
+     *
+     * @since 1.0.0.0
+     */
+    public long getConstructionTimeNanos() {
+        return this.constructionTimeNanos;
+    }
+
+    /**
+     * Returns the sequence number of this {@code LogMessage}.
+     *
+     * <p>Sequence numbers are assigned when a message is queued for dispatch and are strictly increasing in the order in which messages are delivered to
+     * the listeners of the same {@link Logger}. (More precisely, sequence numbers are strictly increasing in the order of delivery among all loggers that
+     * share the same {@link LogDispatcher} stripe.) Messages that have been logged by the same thread are assigned increasing sequence numbers in the order
+     * in which they have been logged. Thus, messages of a logger may be ordered by their sequence numbers even if multiple messages share the same
+     * timestamp. Sequence numbers of messages logged by different loggers are not comparable.</p>
+     *
+     * <p>Unless {@link LogDispatcher.Builder#setThreadLocalBufferSize(int) thread-local buffering} is enabled, messages logged by different threads are
+     * assigned sequence numbers in the order in which they have been logged. Otherwise, the messages of a thread are only queued when its buffer is
+     * flushed, and the messages of different threads that are queued together are ordered by their timestamps. Thus, a message may be assigned a greater
+     * sequence number than a message that has been logged later by another thread.</p>
+     *
+     * @return the sequence number of this {@code LogMessage}
+     *
+     * @since 1.0.0.0
+     */
+    public long getSequence() {
+        return this.sequence;
     }
 
     /**
@@ -83,9 +350,10 @@ public final class LogMessage {
     }
 
     /**
-     * Returns the {@link ILogger} that constructed this {@code LogMessage}.
+     * Returns the {@link ILogger} that constructed this {@code LogMessage}, or {@code null} if this message has been
+     * {@link LogJournal#recover(ILogListener) recovered} from a journal.
      *
-     * @return the {@code ILogger} that constructed this {@code LogMessage}
+     * @return the {@code ILogger} that constructed this {@code LogMessage}, or {@code null}
      *
      * @since 1.0.0.0
      */
@@ -96,23 +364,342 @@ public final class LogMessage {
     /**
      * Returns the {@code String} message component of this {@code LogMessage} or {@code null} if no {@code message} has been attached.
      *
+     * <p>If this message has been logged using a template, the template is formatted once this method is called for the first time.</p>
+     *
      * @return the {@code String} message component of this {@code LogMessage} or {@code null}
      *
      * @since 1.0.0.0
      */
     public String getMessage() {
-        return this.message;
+        String message = this.message;
+
+        if (message == null && this.template != null) {
+            StringBuilder sb = new StringBuilder(this.template.length() + 16 * this.argCount);
+            MessageTemplate.of(this.template).formatTo(sb, this);
+
+            this.message = message = sb.toString();
+        }
+
+        return message;
+    }
+
+    /*
+     * Returns whether a message component is attached to this message.
+     */
+    boolean hasMessage() {
+        return this.message != null || this.template != null;
+    }
+
+    /*
+     * Appends the message component to the given StringBuilder without materializing the formatted message.
+     */
+    void appendMessage(StringBuilder sb) {
+        if (this.message != null) {
+            sb.append(this.message);
+        } else if (this.template != null) {
+            MessageTemplate.of(this.template).formatTo(sb, this);
+        }
     }
 
     /**
      * Returns the {@link Throwable} attached to this {@code LogMessage} or {@code null} if no {@code Throwable} has been attached.
      *
+     * <p>If this message has been logged using a template, and the last argument is a {@code Throwable} that is not consumed by a placeholder, that argument
+     * is considered to be attached to this message.</p>
+     *
      * @return the {@code Throwable} attached to this {@code LogMessage} or {@code null}
      *
      * @since 1.0.0.0
      */
     public Throwable getThrowable() {
-        return this.throwable;
+        Throwable throwable = this.throwable;
+
+        if (throwable == null && this.argCount > 0) {
+            int last = this.argCount - 1;
+
+            if (this.getArgumentType(last) == ARG_OBJECT && this.getObjectArgument(last) instanceof Throwable
+                && MessageTemplate.of(this.template).getPlaceholderCount() <= last) {
+                throwable = (Throwable) this.getObjectArgument(last);
+            }
+        }
+
+        return throwable;
+    }
+
+    /**
+     * Returns the source location from which this {@code LogMessage} has been logged, or {@code null} if the location has not been captured.
+     *
+     * <p>Locations are only captured for messages logged at the {@link Logger.Builder#getLocationLevels() location levels} of the logger.</p>
+     *
+     * @return the source location of this {@code LogMessage}, or {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public LogLocation getLocation() {
+        return this.location;
+    }
+
+    /**
+     * Returns the {@link LogContext} that was current on the thread that logged this {@code LogMessage}.
+     *
+     * <p>Messages that have not been logged by a thread (e.g. messages that have been recovered from a {@link LogJournal}) have an
+     * {@link LogContext#empty() empty} context.</p>
+     *
+     * @return the context of this {@code LogMessage}
+     *
+     * @since 1.0.0.0
+     */
+    public LogContext getContext() {
+        return this.context;
+    }
+
+    /**
+     * Returns the fingerprint of the {@link Throwable} attached to this {@code LogMessage}, or {@code 0} if no {@code Throwable} has been attached.
+     *
+     * <p>The fingerprint is a hash of the types and stack frames of the throwable and its causes. Throwables thrown from the same location with the same
+     * cause chain have the same fingerprint regardless of their messages. Thus, the fingerprint may be used to recognize repeated stack traces without
+     * rendering them (see {@link StackTraceCache}). The fingerprint is computed once when this method is first called.</p>
+     *
+     * @return the fingerprint of the attached {@code Throwable}, or {@code 0}
+     *
+     * @since 1.0.0.0
+     */
+    public long getThrowableFingerprint() {
+        long fingerprint = this.throwableFingerprint;
+
+        if (fingerprint == 0L) {
+            Throwable throwable = this.getThrowable();
+            if (throwable != null) this.throwableFingerprint = fingerprint = Throwables.fingerprint(throwable);
+        }
+
+        return fingerprint;
+    }
+
+    // #########################################################################################################################################################
+    // # Fields ################################################################################################################################################
+    // #########################################################################################################################################################
+
+    /**
+     * The type of the value of a structured field.
+     *
+     * @see LogMessage#getFieldType(int)
+     *
+     * @since 1.0.0.0
+     */
+    public enum FieldType {
+        /**
+         * A {@code long} value.
+         *
+         * @see LogMessage#getLongField(int)
+         *
+         * @since 1.0.0.0
+         */
+        LONG,
+        /**
+         * A {@code double} value.
+         *
+         * @see LogMessage#getDoubleField(int)
+         *
+         * @since 1.0.0.0
+         */
+        DOUBLE,
+        /**
+         * A reference value.
+         *
+         * @see LogMessage#getObjectField(int)
+         *
+         * @since 1.0.0.0
+         */
+        OBJECT
+    }
+
+    /**
+     * Returns the number of structured fields attached to this {@code LogMessage}.
+     *
+     * <p>Fields are attached to a message using a {@link LogEventBuilder}. They may be accessed by index (from {@code 0} to {@code getFieldCount() - 1})
+     * or visited using {@link #forEachField(ILogFieldVisitor)}. Neither method copies the fields or boxes primitive values.</p>
+     *
+     * @return the number of structured fields attached to this {@code LogMessage}
+     *
+     * @since 1.0.0.0
+     */
+    public int getFieldCount() {
+        return this.fieldCount;
+    }
+
+    /**
+     * Returns the key of the field at the given index.
+     *
+     * @param index the index of the field
+     *
+     * @return the key of the field at the given index
+     *
+     * @throws IndexOutOfBoundsException if the given {@code index} is out of range
+     *
+     * @since 1.0.0.0
+     */
+    public String getFieldKey(int index) {
+        return this.fieldKeys[this.checkFieldIndex(index)];
+    }
+
+    /**
+     * Returns the type of the value of the field at the given index.
+     *
+     * @param index the index of the field
+     *
+     * @return the type of the value of the field at the given index
+     *
+     * @throws IndexOutOfBoundsException if the given {@code index} is out of range
+     *
+     * @since 1.0.0.0
+     */
+    public FieldType getFieldType(int index) {
+        switch (this.fieldTypes[this.checkFieldIndex(index)]) {
+            case ARG_LONG: return FieldType.LONG;
+            case ARG_DOUBLE: return FieldType.DOUBLE;
+            default: return FieldType.OBJECT;
+        }
+    }
+
+    /**
+     * Returns the value of the {@link FieldType#LONG long} field at the given index.
+     *
+     * @param index the index of the field
+     *
+     * @return the value of the field at the given index
+     *
+     * @throws IllegalStateException if the field at the given index is not a {@code long} field
+     * @throws IndexOutOfBoundsException if the given {@code index} is out of range
+     *
+     * @since 1.0.0.0
+     */
+    public long getLongField(int index) {
+        if (this.fieldTypes[this.checkFieldIndex(index)] != ARG_LONG) throw new IllegalStateException();
+
+        return this.fieldPrims[index];
+    }
+
+    /**
+     * Returns the value of the {@link FieldType#DOUBLE double} field at the given index.
+     *
+     * @param index the index of the field
+     *
+     * @return the value of the field at the given index
+     *
+     * @throws IllegalStateException if the field at the given index is not a {@code double} field
+     * @throws IndexOutOfBoundsException if the given {@code index} is out of range
+     *
+     * @since 1.0.0.0
+     */
+    public double getDoubleField(int index) {
+        if (this.fieldTypes[this.checkFieldIndex(index)] != ARG_DOUBLE) throw new IllegalStateException();
+
+        return Double.longBitsToDouble(this.fieldPrims[index]);
+    }
+
+    /**
+     * Returns the value of the {@link FieldType#OBJECT reference} field at the given index.
+     *
+     * @param index the index of the field
+     *
+     * @return the value of the field at the given index (may be {@code null})
+     *
+     * @throws IllegalStateException if the field at the given index is not a reference field
+     * @throws IndexOutOfBoundsException if the given {@code index} is out of range
+     *
+     * @since 1.0.0.0
+     */
+    public Object getObjectField(int index) {
+        if (this.fieldTypes[this.checkFieldIndex(index)] != ARG_OBJECT) throw new IllegalStateException();
+
+        return this.fieldRefs[index];
+    }
+
+    /**
+     * Passes all structured fields attached to this {@code LogMessage} to the given visitor in the order in which they have been attached.
+     *
+     * @param visitor the visitor
+     *
+     * @throws NullPointerException if the given {@code visitor} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public void forEachField(ILogFieldVisitor visitor) {
+        if (visitor == null) throw new NullPointerException();
+
+        for (int i = 0; i < this.fieldCount; i++) {
+            switch (this.fieldTypes[i]) {
+                case ARG_LONG: visitor.visit(this.fieldKeys[i], this.fieldPrims[i]); break;
+                case ARG_DOUBLE: visitor.visit(this.fieldKeys[i], Double.longBitsToDouble(this.fieldPrims[i])); break;
+                default: visitor.visit(this.fieldKeys[i], this.fieldRefs[i]);
+            }
+        }
+    }
+
+    /*
+     * Appends the value of the field at the given index to the given StringBuilder.
+     */
+    void appendField(StringBuilder sb, int index) {
+        switch (this.fieldTypes[index]) {
+            case ARG_LONG: sb.append(this.fieldPrims[index]); break;
+            case ARG_DOUBLE: sb.append(Double.longBitsToDouble(this.fieldPrims[index])); break;
+            default: sb.append(this.fieldRefs[index]);
+        }
+    }
+
+    private int checkFieldIndex(int index) {
+        if (index < 0 || index >= this.fieldCount) throw new IndexOutOfBoundsException();
+
+        return index;
+    }
+
+    /*
+     * Returns the template of this message, or null if the message has not been logged using a template.
+     */
+    String getTemplate() {
+        return this.template;
+    }
+
+    int getArgumentCount() {
+        return this.argCount;
+    }
+
+    byte getArgumentType(int index) {
+        if (this.args != null) return ARG_OBJECT;
+
+        return index == 0 ? this.argType0 : this.argType1;
+    }
+
+    long getLongArgument(int index) {
+        return index == 0 ? this.argPrim0 : this.argPrim1;
+    }
+
+    double getDoubleArgument(int index) {
+        return Double.longBitsToDouble(index == 0 ? this.argPrim0 : this.argPrim1);
+    }
+
+    char getCharArgument(int index) {
+        return (char) (index == 0 ? this.argPrim0 : this.argPrim1);
+    }
+
+    float getFloatArgument(int index) {
+        return Float.intBitsToFloat((int) (index == 0 ? this.argPrim0 : this.argPrim1));
+    }
+
+    Object getObjectArgument(int index) {
+        if (this.args != null) return this.args[index];
+
+        return index == 0 ? this.argRef0 : this.argRef1;
+    }
+
+    void appendArgument(StringBuilder sb, int index) {
+        switch (this.getArgumentType(index)) {
+            case ARG_LONG: sb.append(this.getLongArgument(index)); break;
+            case ARG_DOUBLE: sb.append(this.getDoubleArgument(index)); break;
+            case ARG_CHAR: sb.append(this.getCharArgument(index)); break;
+            case ARG_FLOAT: sb.append(this.getFloatArgument(index)); break;
+            default: sb.append(this.getObjectArgument(index));
+        }
     }
 
     /**
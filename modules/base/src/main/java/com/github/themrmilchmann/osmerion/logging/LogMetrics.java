@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+
+/**
+ * A live view of the metrics of a {@link Logger}.
+ *
+ * <p>Metrics are collected permanently. Counting a message and measuring its dispatch latency costs a single counter increment and a single timestamp on
+ * the logging thread.</p>
+ *
+ * <p>Some metrics are shared between all loggers that use the same {@link LogDispatcher} stripe. This is noted in the documentation of the respective
+ * methods.</p>
+ *
+ * @see Logger.Handle#getMetrics()
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class LogMetrics {
+
+    private final Logger logger;
+
+    LogMetrics(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Returns the number of messages that have been queued for dispatch by the logger.
+     *
+     * <p>Messages that have been rejected by a throttle or discarded because the dispatcher's queue was full are not counted.</p>
+     *
+     * @return the number of messages that have been queued for dispatch
+     *
+     * @since 1.0.0.0
+     */
+    public long getEnqueuedMessageCount() {
+        return this.logger.enqueuedMessages.sum();
+    }
+
+    /**
+     * Returns the number of messages logged at the given level that have been queued for dispatch by the logger.
+     *
+     * @param level the level
+     *
+     * @return the number of messages logged at the given level that have been queued for dispatch
+     *
+     * @throws NullPointerException if the given {@code level} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public long getEnqueuedMessageCount(LogLevel level) {
+        return this.logger.enqueuedMessages.sum(level);
+    }
+
+    /**
+     * Returns the number of messages that are currently queued for dispatch.
+     *
+     * <p>The queue is shared by all loggers that have been assigned to the same {@link LogDispatcher} stripe as the logger.</p>
+     *
+     * @return the number of messages that are currently queued for dispatch
+     *
+     * @since 1.0.0.0
+     */
+    public int getQueueDepth() {
+        return this.logger.stripe.getQueueDepth();
+    }
+
+    /**
+     * Returns a histogram of the time messages spend in the queue before they are dispatched.
+     *
+     * <p>The histogram covers all loggers that have been assigned to the same {@link LogDispatcher} stripe as the logger. The returned histogram is a
+     * snapshot taken at the time this method is called. Thus, resetting it does not affect the metrics of the stripe.</p>
+     *
+     * @return a histogram of the time messages spend in the queue
+     *
+     * @since 1.0.0.0
+     */
+    public LatencyHistogram getDispatchLatency() {
+        return this.logger.stripe.dispatchLatency.snapshot();
+    }
+
+    /**
+     * Returns a histogram of the time spent in the callbacks of the given listener, or {@code null} if the listener is not registered with the logger.
+     *
+     * <p>A single duration is recorded for each batch of messages passed to the listener. The returned histogram is a snapshot taken at the time this method
+     * is called.</p>
+     *
+     * @param listener the listener
+     *
+     * @return a histogram of the time spent in the callbacks of the given listener, or {@code null}
+     *
+     * @throws NullPointerException if the given {@code listener} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public LatencyHistogram getCallbackTime(ILogListener listener) {
+        if (listener == null) throw new NullPointerException();
+
+        ListenerRegistration registration = this.logger.getRegistration(listener);
+        return registration != null ? registration.callbackTime.snapshot() : null;
+    }
+
+}
\ No newline at end of file
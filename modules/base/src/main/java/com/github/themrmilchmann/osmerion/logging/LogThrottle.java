@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@code LogThrottle} limits the rate at which messages are accepted by a {@link Logger}.
+ *
+ * <p>Throttles are evaluated on the logging thread once a message has passed the {@link Logger#isEnabled(LogLevel) enablement check}, but before the message
+ * is created. Thus, a message that is rejected by a throttle neither allocates nor occupies space in the dispatcher's queue. A throttle may combine the
+ * following filters:</p>
+ *
+ * <ul>
+ * <li><b>Sampling</b> accepts (on average) one in {@code n} messages. Sampling is stateless and never contended.</li>
+ * <li><b>Rate limiting</b> accepts messages at a sustained rate of {@code permits} per {@code period} and allows bursts of up to a configurable number of
+ * messages. The limiter is implemented as a lock-free token bucket (using the generic cell rate algorithm).</li>
+ * </ul>
+ *
+ * <p>Messages that have been sampled out do not consume permits of the rate limiter.</p>
+ *
+ * <p>A {@code LogThrottle} itself is an immutable description. Each logger created with a throttle tracks its own state.</p>
+ *
+ * @see Logger.Builder#setThrottle(LogThrottle)
+ * @see Logger.Builder#setThrottle(LogLevel, LogThrottle)
+ * @see Logger.Handle#getThrottledMessageCount()
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class LogThrottle {
+
+    /**
+     * Returns a throttle that accepts messages at a sustained rate of the given number of permits per period.
+     *
+     * <p>By default, bursts of up to {@code permits} messages are accepted. (See {@link #withBurst(int)}.)</p>
+     *
+     * @param permits   the number of messages accepted per period
+     * @param period    the length of the period
+     * @param unit      the unit of the {@code period}
+     *
+     * @return a throttle that accepts messages at the given rate
+     *
+     * @throws IllegalArgumentException if the given {@code permits} or {@code period} is not positive
+     * @throws NullPointerException if the given {@code unit} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public static LogThrottle rateLimit(long permits, long period, TimeUnit unit) {
+        if (permits < 1 || period < 1) throw new IllegalArgumentException();
+
+        long emissionInterval = Math.max(unit.toNanos(period) / permits, 1L);
+        return new LogThrottle(emissionInterval, (int) Math.min(permits, Integer.MAX_VALUE), 1);
+    }
+
+    /**
+     * Returns a throttle that accepts (on average) one in {@code n} messages.
+     *
+     * @param n the sampling rate
+     *
+     * @return a throttle that accepts one in {@code n} messages
+     *
+     * @throws IllegalArgumentException if the given {@code n} is not positive
+     *
+     * @since 1.0.0.0
+     */
+    public static LogThrottle sample(int n) {
+        if (n < 1) throw new IllegalArgumentException();
+
+        return new LogThrottle(0L, 0, n);
+    }
+
+    private final long emissionInterval;
+    private final int burst;
+    private final int sampleRate;
+
+    private LogThrottle(long emissionInterval, int burst, int sampleRate) {
+        this.emissionInterval = emissionInterval;
+        this.burst = burst;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Returns a throttle that additionally accepts (on average) only one in {@code n} messages.
+     *
+     * @param n the sampling rate
+     *
+     * @return a throttle that additionally accepts one in {@code n} messages
+     *
+     * @throws IllegalArgumentException if the given {@code n} is not positive
+     *
+     * @since 1.0.0.0
+     */
+    public LogThrottle withSampling(int n) {
+        if (n < 1) throw new IllegalArgumentException();
+
+        return new LogThrottle(this.emissionInterval, this.burst, n);
+    }
+
+    /**
+     * Returns a throttle that accepts bursts of up to the given number of messages.
+     *
+     * <p>The burst allowance is the number of messages that are accepted at once after the logger has been idle for long enough.</p>
+     *
+     * @param value the maximum number of messages in a burst
+     *
+     * @return a throttle that accepts bursts of up to the given number of messages
+     *
+     * @throws IllegalArgumentException if the given {@code value} is not positive
+     * @throws IllegalStateException if this throttle does not limit the rate of messages
+     *
+     * @since 1.0.0.0
+     */
+    public LogThrottle withBurst(int value) {
+        if (value < 1) throw new IllegalArgumentException();
+        if (this.emissionInterval == 0L) throw new IllegalStateException();
+
+        return new LogThrottle(this.emissionInterval, value, this.sampleRate);
+    }
+
+    /**
+     * Returns the maximum number of messages in a burst, or {@code 0} if this throttle does not limit the rate of messages.
+     *
+     * @return the maximum number of messages in a burst, or {@code 0}
+     *
+     * @since 1.0.0.0
+     */
+    public int getBurst() {
+        return this.burst;
+    }
+
+    /**
+     * Returns the sampling rate {@code n} of this throttle. A value of {@code 1} indicates that messages are not sampled.
+     *
+     * @return the sampling rate of this throttle
+     *
+     * @since 1.0.0.0
+     */
+    public int getSampleRate() {
+        return this.sampleRate;
+    }
+
+    /**
+     * Creates the state of this throttle for a single logger.
+     *
+     * @return a new {@code Bucket}
+     */
+    Bucket newBucket() {
+        return new Bucket(this);
+    }
+
+    /*
+     * The state of a throttle for a single logger.
+     *
+     * The rate limiter tracks the theoretical arrival time (TAT) of the next message. A message is accepted if the TAT is no further in the future than the
+     * burst tolerance, in which case the TAT is advanced by the emission interval. Rejecting a message does not write to shared memory.
+     */
+    static final class Bucket {
+
+        private final long emissionInterval;
+        private final long tolerance;
+        private final int sampleRate;
+
+        private final AtomicLong tat;
+
+        private Bucket(LogThrottle throttle) {
+            this.emissionInterval = throttle.emissionInterval;
+            this.sampleRate = throttle.sampleRate;
+
+            long burst = Math.max(throttle.burst - 1, 0);
+            this.tolerance = (burst != 0 && this.emissionInterval > Long.MAX_VALUE / burst) ? Long.MAX_VALUE : this.emissionInterval * burst;
+
+            this.tat = new AtomicLong(System.nanoTime());
+        }
+
+        boolean tryAcquire() {
+            if (this.sampleRate > 1 && ThreadLocalRandom.current().nextInt(this.sampleRate) != 0) return false;
+            if (this.emissionInterval == 0L) return true;
+
+            long now = System.nanoTime();
+
+            while (true) {
+                long tat = this.tat.get();
+                long base = (tat - now > 0) ? tat : now;
+
+                if (base - now > this.tolerance) return false;
+                if (this.tat.compareAndSet(tat, base + this.emissionInterval)) return true;
+            }
+        }
+
+    }
+
+}
\ No newline at end of file
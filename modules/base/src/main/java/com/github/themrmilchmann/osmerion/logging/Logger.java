@@ -29,12 +29,21 @@
  */
 package com.github.themrmilchmann.osmerion.logging;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.SwitchPoint;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -47,6 +56,9 @@ import java.util.stream.Collectors;
  * <p>{@link ILogListener}s are guaranteed to be called in a thread-safe manner as long as they are not added to more than one logger. However, the thread from
  * which the the listeners are called may alter.</p>
  *
+ * <p>Logged messages are handed over to the dispatching threads of a {@link LogDispatcher}. The threads of a dispatcher are shared between all loggers using
+ * the dispatcher, but the messages of a single logger are always delivered in order.</p>
+ *
  * <p>A {@code Logger} may only be created by using a {@link Logger.Builder}.</p>
  *
  * @see Builder
@@ -64,8 +76,6 @@ public final class Logger implements ILogger {
     // # Logging ###############################################################################################################################################
     // #########################################################################################################################################################
 
-    private ExecutorService service = Executors.newSingleThreadScheduledExecutor();
-
     /**
      * {@inheritDoc}
      *
@@ -73,9 +83,8 @@ public final class Logger implements ILogger {
      */
     @Override
     public void log(LogLevel level, String message) {
-        if (this.isEnabled(level)) {
-            LogMessage logMessage = new LogMessage(this, level, message, null);
-            this.log(logMessage);
+        if (this.accept(level)) {
+            this.stripe.dispatch(this, level, message, null);
         }
     }
 
@@ -86,9 +95,8 @@ public final class Logger implements ILogger {
      */
     @Override
     public void log(LogLevel level, Supplier<String> messageSupplier) {
-        if (this.isEnabled(level)) {
-            LogMessage logMessage = new LogMessage(this, level, messageSupplier.get(), null);
-            this.log(logMessage);
+        if (this.accept(level)) {
+            this.stripe.dispatch(this, level, messageSupplier.get(), null);
         }
     }
 
@@ -99,9 +107,8 @@ public final class Logger implements ILogger {
      */
     @Override
     public void log(LogLevel level, Throwable t) {
-        if (this.isEnabled(level)) {
-            LogMessage logMessage = new LogMessage(this, level, null, t);
-            this.log(logMessage);
+        if (this.accept(level)) {
+            this.stripe.dispatch(this, level, null, t);
         }
     }
 
@@ -112,9 +119,8 @@ public final class Logger implements ILogger {
      */
     @Override
     public void log(LogLevel level, String message, Throwable t) {
-        if (this.isEnabled(level)) {
-            LogMessage logMessage = new LogMessage(this, level, message, t);
-            this.log(logMessage);
+        if (this.accept(level)) {
+            this.stripe.dispatch(this, level, message, t);
         }
     }
 
@@ -125,21 +131,481 @@ public final class Logger implements ILogger {
      */
     @Override
     public void log(LogLevel level, Supplier<String> messageSupplier, Throwable t) {
-        if (this.isEnabled(level)) {
-            LogMessage logMessage = new LogMessage(this, level, messageSupplier.get(), t);
-            this.log(logMessage);
+        if (this.accept(level)) {
+            this.stripe.dispatch(this, level, messageSupplier.get(), t);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, Object arg) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 1, LogMessage.ARG_OBJECT, 0L, arg, LogMessage.ARG_OBJECT, 0L, null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, long arg) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 1, LogMessage.ARG_LONG, arg, null, LogMessage.ARG_OBJECT, 0L, null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, double arg) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 1, LogMessage.ARG_DOUBLE, Double.doubleToRawLongBits(arg), null, LogMessage.ARG_OBJECT, 0L, null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, char arg) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 1, LogMessage.ARG_CHAR, arg, null, LogMessage.ARG_OBJECT, 0L, null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, float arg) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 1, LogMessage.ARG_FLOAT, Float.floatToRawIntBits(arg), null, LogMessage.ARG_OBJECT, 0L, null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, Object arg0, Object arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_OBJECT, 0L, arg0, LogMessage.ARG_OBJECT, 0L, arg1);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, long arg0, long arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_LONG, arg0, null, LogMessage.ARG_LONG, arg1, null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, long arg0, double arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_LONG, arg0, null, LogMessage.ARG_DOUBLE, Double.doubleToRawLongBits(arg1), null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, long arg0, char arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_LONG, arg0, null, LogMessage.ARG_CHAR, arg1, null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, long arg0, float arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_LONG, arg0, null, LogMessage.ARG_FLOAT, Float.floatToRawIntBits(arg1), null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, double arg0, long arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_DOUBLE, Double.doubleToRawLongBits(arg0), null, LogMessage.ARG_LONG, arg1, null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, double arg0, double arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_DOUBLE, Double.doubleToRawLongBits(arg0), null, LogMessage.ARG_DOUBLE, Double.doubleToRawLongBits(arg1), null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, double arg0, char arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_DOUBLE, Double.doubleToRawLongBits(arg0), null, LogMessage.ARG_CHAR, arg1, null);
         }
     }
 
-    private void log(LogMessage logMessage) {
-        this.service.submit(() -> this.listeners.forEach(listener -> listener.onLogged(logMessage)));
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, double arg0, float arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_DOUBLE, Double.doubleToRawLongBits(arg0), null, LogMessage.ARG_FLOAT, Float.floatToRawIntBits(arg1), null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, char arg0, long arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_CHAR, arg0, null, LogMessage.ARG_LONG, arg1, null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, char arg0, double arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_CHAR, arg0, null, LogMessage.ARG_DOUBLE, Double.doubleToRawLongBits(arg1), null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, char arg0, char arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_CHAR, arg0, null, LogMessage.ARG_CHAR, arg1, null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, char arg0, float arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_CHAR, arg0, null, LogMessage.ARG_FLOAT, Float.floatToRawIntBits(arg1), null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, float arg0, long arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_FLOAT, Float.floatToRawIntBits(arg0), null, LogMessage.ARG_LONG, arg1, null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, float arg0, double arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_FLOAT, Float.floatToRawIntBits(arg0), null, LogMessage.ARG_DOUBLE, Double.doubleToRawLongBits(arg1), null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, float arg0, char arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_FLOAT, Float.floatToRawIntBits(arg0), null, LogMessage.ARG_CHAR, arg1, null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, float arg0, float arg1) {
+        if (this.accept(level)) {
+            this.logTemplate(level, template, 2, LogMessage.ARG_FLOAT, Float.floatToRawIntBits(arg0), null, LogMessage.ARG_FLOAT, Float.floatToRawIntBits(arg1), null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Formatting is deferred to the dispatching thread.</p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void log(LogLevel level, String template, Object... args) {
+        if (this.accept(level)) {
+            /* The arguments are checked before a slot is claimed. */
+            Object[] arguments = (args != null) ? args : NO_ARGUMENTS;
+
+            long pos = this.stripe.claim(this, level);
+            if (pos < 0) return;
+
+            try {
+                this.stripe.prepare(pos, this, level, null, null).setArguments(template, arguments);
+            } catch (Throwable e) {
+                this.stripe.cancel(pos);
+                throw e;
+            }
+
+            this.stripe.publish(pos);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Builders are reused per thread. A new builder is only created if the builder of the current thread is still in use (e.g. if a field value is
+     * computed by a method that logs a structured message itself).</p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public LogEventBuilder at(LogLevel level) {
+        if (!this.accept(level)) return LogEventBuilder.DISABLED;
+
+        LogEventBuilder builder = EVENT_BUILDERS.get();
+
+        if (builder.logger != null) {
+            /*
+             * The builder of this thread is still in use. Either this chain is nested in another one (e.g. while the arguments of the outer chain are evaluated
+             * or while it is being logged), or a chain has been abandoned without logging. Since both are indistinguishable here, a new builder replaces the
+             * current one for this thread. Thus, an outer chain remains intact, and an abandoned chain does not cause an allocation on every later call.
+             */
+            builder = new LogEventBuilder();
+            EVENT_BUILDERS.set(builder);
+        }
+
+        builder.logger = this;
+        builder.level = level;
+
+        return builder;
+    }
+
+    void logEvent(LogEventBuilder builder, String message, Throwable t) {
+        long pos = this.stripe.claim(this, builder.level);
+        if (pos < 0) return;
+
+        try {
+            this.stripe.prepare(pos, this, builder.level, message, t).setFields(builder);
+        } catch (Throwable e) {
+            this.stripe.cancel(pos);
+            throw e;
+        }
+
+        this.stripe.publish(pos);
+    }
+
+    /*
+     * Returns whether a message logged at the given level is enabled, is of interest to at least one listener, and passes all throttles. This is checked
+     * before a message is created.
+     */
+    private boolean accept(LogLevel level) {
+        return this.isAccepted(level) && (this.levelThrottles == null || this.admit(level));
+    }
+
+    private boolean admit(LogLevel level) {
+        int index = level.getIndex();
+        LogThrottle.Bucket throttle = (index >= 0) ? this.levelThrottles[index] : this.unindexedThrottles.get(level);
+
+        if ((throttle != null && !throttle.tryAcquire()) || ((throttle = this.throttle) != null && !throttle.tryAcquire())) {
+            this.throttledMessages.increment(level);
+            return false;
+        }
+
+        return true;
+    }
+
+    private void logTemplate(LogLevel level, String template, int argCount, byte argType0, long argPrim0, Object argRef0, byte argType1, long argPrim1,
+                             Object argRef1) {
+        long pos = this.stripe.claim(this, level);
+        if (pos < 0) return;
+
+        try {
+            this.stripe.prepare(pos, this, level, null, null).setArguments(template, argCount, argType0, argPrim0, argRef0, argType1, argPrim1, argRef1);
+        } catch (Throwable e) {
+            /* A claimed slot must always be published. Otherwise, the stripe (or the thread-local buffer) is blocked forever. */
+            this.stripe.cancel(pos);
+            throw e;
+        }
+
+        this.stripe.publish(pos);
+    }
+
+    /*
+     * Delivers the given batch of messages to this logger's listeners.
+     *
+     * This method is only called by the dispatching thread.
+     */
+    void deliver(List<LogMessage> batch) {
+        if (this.coalescer != null) {
+            batch = this.coalescer.coalesce(batch, System.nanoTime());
+            if (this.coalescer.getDeadline() != Long.MAX_VALUE) this.stripe.scheduleExpiry(this);
+        }
+
+        this.notifyListeners(batch);
+    }
+
+    /*
+     * Closes the coalescing window of this logger if it has expired (or unconditionally if force is set) and passes the pending summary (if any) to the
+     * listeners. Returns the time at which the current window closes, or Long.MAX_VALUE if no summary is pending. This method must only be called by the
+     * dispatching thread.
+     */
+    long expireCoalescedMessages(long now, boolean force) {
+        LogMessage summary = this.coalescer.expire(now, force);
+        if (summary != null) this.notifyListeners(Collections.singletonList(summary));
+
+        return this.coalescer.getDeadline();
+    }
+
+    private void notifyListeners(List<LogMessage> batch) {
+        long filterMask = this.getEnabledLevels().filterMask;
+
+        for (ListenerRegistration registration : this.listeners) {
+            List<LogMessage> messages = this.select(batch, registration, registration.capture ? -1L : filterMask);
+            if (messages.isEmpty()) continue;
+
+            long start = System.nanoTime();
+
+            try {
+                registration.listener.onLoggedBatch(messages);
+            } catch (RuntimeException e) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            } finally {
+                registration.callbackTime.recordSingleWriter(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /*
+     * Returns the messages of the given batch that are passed to the given listener. These are the messages that pass the given filter mask and that the
+     * listener is interested in. If all messages are selected, the batch itself is returned.
+     */
+    private List<LogMessage> select(List<LogMessage> batch, ListenerRegistration registration, long filterMask) {
+        int size = batch.size();
+        int i = 0;
+
+        while (i < size && this.isSelected(batch.get(i).getLevel(), registration, filterMask)) i++;
+        if (i == size) return batch;
+
+        this.filteredBatch.clear();
+
+        for (int j = 0; j < size; j++) {
+            LogMessage logMessage = batch.get(j);
+            if (this.isSelected(logMessage.getLevel(), registration, filterMask)) this.filteredBatch.add(logMessage);
+        }
+
+        return this.filteredBatchView;
+    }
+
+    private boolean isSelected(LogLevel level, ListenerRegistration registration, long filterMask) {
+        long mask = level.getMask();
+        boolean passes = (mask != 0L) ? (filterMask & mask) != 0 : (filterMask == -1L || this.passesFilter(level));
+
+        return passes && registration.isInterested(level);
     }
 
     // #########################################################################################################################################################
     // # Listening #############################################################################################################################################
     // #########################################################################################################################################################
 
-    private final List<ILogListener> listeners = new ArrayList<>();
+    private static final ListenerRegistration[] NO_LISTENERS = new ListenerRegistration[0];
+
+    private static final VarHandle LISTENERS;
+
+    static {
+        try {
+            LISTENERS = MethodHandles.lookup().findVarHandle(Logger.class, "listeners", ListenerRegistration[].class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /*
+     * The registered listeners. The array is never modified once it has been published. Instead, modifications replace the array using a CAS. This allows
+     * the dispatching thread to iterate over a snapshot of the listeners without locking.
+     */
+    private volatile ListenerRegistration[] listeners = NO_LISTENERS;
+
+    /* A reusable buffer for the messages of a batch that are passed to a listener. Only accessed by the dispatching thread. */
+    private final List<LogMessage> filteredBatch = new ArrayList<>();
+    private final List<LogMessage> filteredBatchView = Collections.unmodifiableList(this.filteredBatch);
 
     /**
      * {@inheritDoc}
@@ -149,9 +615,69 @@ public final class Logger implements ILogger {
     @Override
     public void addListener(ILogListener listener) {
         if (listener == null) throw new NullPointerException();
-        if (this.listeners.contains(listener)) throw new IllegalArgumentException();
 
-        this.listeners.add(listener);
+        this.register(new ListenerRegistration(listener, false, -1L, Integer.MAX_VALUE));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Messages are only constructed if at least one listener is interested in their level.</p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void addListener(ILogListener listener, Collection<LogLevel> levels) {
+        if (listener == null || levels == null) throw new NullPointerException();
+
+        long levelMask = 0L;
+        List<LogLevel> unindexedLevels = new ArrayList<>();
+
+        for (LogLevel level : levels) {
+            if (level.getMask() != 0L) {
+                levelMask |= level.getMask();
+            } else {
+                unindexedLevels.add(level);
+            }
+        }
+
+        this.register(new ListenerRegistration(listener, false, levelMask, unindexedLevels, Integer.MIN_VALUE));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Messages are only constructed if at least one listener is interested in their level.</p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public void addListener(ILogListener listener, int severity) {
+        if (listener == null) throw new NullPointerException();
+
+        this.register(new ListenerRegistration(listener, false, 0L, severity));
+    }
+
+    /**
+     * Adds a capture listener to this logger.
+     *
+     * <p>Unlike regular listeners, a capture listener receives all messages logged at any of the logger's
+     * {@link Handle#addCaptureLevel(LogLevel) capture levels} regardless of the logger's severity filter (as well as all messages that pass the filter).
+     * This allows, for example, to record detailed messages in memory using a {@link FlightRecorderLogListener} without writing them to disk.</p>
+     *
+     * <p>A capture listener may be removed using {@link #removeListener(ILogListener)}.</p>
+     *
+     * @param listener the listener to be added
+     *
+     * @throws IllegalArgumentException if the given {@code listener} has already been added to this logger
+     * @throws NullPointerException if the given {@code listener} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public void addCaptureListener(ILogListener listener) {
+        if (listener == null) throw new NullPointerException();
+
+        this.register(new ListenerRegistration(listener, true, -1L, Integer.MAX_VALUE));
     }
 
     /**
@@ -162,22 +688,182 @@ public final class Logger implements ILogger {
     @Override
     public void removeListener(ILogListener listener) {
         if (listener == null) throw new NullPointerException();
-        if (!this.listeners.remove(listener)) throw new IllegalArgumentException();
+
+        ListenerRegistration[] current, updated;
+
+        do {
+            current = this.listeners;
+
+            int index = indexOf(current, listener);
+            if (index < 0) throw new IllegalArgumentException();
+
+            updated = new ListenerRegistration[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, updated.length - index);
+        } while (!LISTENERS.compareAndSet(this, current, updated));
+
+        this.invalidateConfig();
+    }
+
+    /**
+     * Replaces all listeners of this logger (including capture listeners) with the given listeners.
+     *
+     * <p>The listeners are replaced atomically. Thus, every message is either passed to the previous listeners or to the given listeners.</p>
+     *
+     * <p>Listeners that are already registered with this logger keep their registration (that is, capture listeners remain capture listeners and listeners
+     * keep the levels they are interested in). Other listeners are added as if by {@link #addListener(ILogListener)}.</p>
+     *
+     * @param listeners the new listeners
+     *
+     * @throws IllegalArgumentException if the given collection contains a listener more than once
+     * @throws NullPointerException if the given collection is or contains {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public void setListeners(Collection<? extends ILogListener> listeners) {
+        ListenerRegistration[] current, updated;
+
+        do {
+            current = this.listeners;
+            updated = new ListenerRegistration[listeners.size()];
+            int size = 0;
+
+            for (ILogListener listener : listeners) {
+                if (listener == null) throw new NullPointerException();
+                if (indexOf(updated, size, listener) >= 0) throw new IllegalArgumentException();
+
+                int index = indexOf(current, listener);
+                updated[size++] = (index >= 0) ? current[index] : new ListenerRegistration(listener, false, -1L, Integer.MAX_VALUE);
+            }
+
+            if (size != updated.length) updated = Arrays.copyOf(updated, size);
+        } while (!LISTENERS.compareAndSet(this, current, updated));
+
+        this.invalidateConfig();
+    }
+
+    /**
+     * Returns a snapshot of the listeners of this logger (including capture listeners).
+     *
+     * @return an unmodifiable snapshot of the listeners of this logger
+     *
+     * @since 1.0.0.0
+     */
+    public List<ILogListener> getListeners() {
+        ListenerRegistration[] current = this.listeners;
+        List<ILogListener> listeners = new ArrayList<>(current.length);
+
+        for (ListenerRegistration registration : current) listeners.add(registration.listener);
+
+        return Collections.unmodifiableList(listeners);
+    }
+
+    private void register(ListenerRegistration registration) {
+        ListenerRegistration[] current, updated;
+
+        do {
+            current = this.listeners;
+            if (indexOf(current, registration.listener) >= 0) throw new IllegalArgumentException();
+
+            updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = registration;
+        } while (!LISTENERS.compareAndSet(this, current, updated));
+
+        this.invalidateConfig();
+    }
+
+    ListenerRegistration getRegistration(ILogListener listener) {
+        ListenerRegistration[] current = this.listeners;
+        int index = indexOf(current, listener);
+
+        return index >= 0 ? current[index] : null;
+    }
+
+    private static int indexOf(ListenerRegistration[] registrations, ILogListener listener) {
+        return indexOf(registrations, registrations.length, listener);
+    }
+
+    private static int indexOf(ListenerRegistration[] registrations, int length, ILogListener listener) {
+        for (int i = 0; i < length; i++) {
+            if (registrations[i].listener.equals(listener)) return i;
+        }
+
+        return -1;
     }
 
     // #########################################################################################################################################################
     // # Configuration #########################################################################################################################################
     // #########################################################################################################################################################
 
+    private static final AtomicInteger IDS = new AtomicInteger();
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private static final ThreadLocal<LogEventBuilder> EVENT_BUILDERS = ThreadLocal.withInitial(LogEventBuilder::new);
+
+    private final int id = IDS.getAndIncrement();
+
     private final Logger parent;
+    private final String name;
     private final List<LogLevel> logLevels;
+    final LogDispatcher.Stripe stripe;
+    final LogClock clock;
+
+    /* The journal to which messages are appended before they are queued, or null. */
+    final LogJournal journal;
+
+    /* The coalescer that collapses repeated messages, or null if coalescing is disabled. */
+    private final MessageCoalescer coalescer;
 
     private volatile int severity;
     private volatile boolean useParentConfig;
 
-    private Logger(Logger parent, List<LogLevel> logLevels) {
+    /*
+     * A version stamp that is incremented whenever the configuration of this logger changes. The logger caches its effective configuration and revalidates
+     * it against this stamp. A logger that uses its parent's config additionally revalidates its cache against the effective configuration of its parent.
+     * Thus, a change only affects the logger itself and the descendants that use its config.
+     */
+    private volatile long configVersion;
+
+    /* A switch point that is invalidated whenever the configuration version of this logger changes. */
+    private volatile SwitchPoint configSwitchPoint = new SwitchPoint();
+
+    private volatile EnabledLevels enabledLevels = new EnabledLevels(-1L, null, 0L, 0L, 0L);
+
+    /* The levels at which messages are passed to capture listeners regardless of the severity filter. */
+    private final List<LogLevel> captureLevels = new CopyOnWriteArrayList<>();
+
+    /* The levels at which the locations of messages are captured. */
+    private final List<LogLevel> locationLevels = new CopyOnWriteArrayList<>();
+    volatile long locationMask;
+
+    private final AtomicReferenceArray<EnabledGuard> enabledGuards = new AtomicReferenceArray<>(LogLevel.MAX_LEVELS);
+
+    /*
+     * The throttles of this logger. If no throttle has been configured, levelThrottles is null. Otherwise, it is indexed by level index and contains the
+     * per-level throttles (if any). The throttles of levels that have not been assigned an index are kept in unindexedThrottles.
+     */
+    private final LogThrottle.Bucket throttle;
+    private final LogThrottle.Bucket[] levelThrottles;
+    private final Map<LogLevel, LogThrottle.Bucket> unindexedThrottles;
+    private final LevelCounters throttledMessages = new LevelCounters();
+
+    final LevelCounters enqueuedMessages = new LevelCounters();
+    private final LogMetrics metrics = new LogMetrics(this);
+
+    private Logger(Logger parent, String name, List<LogLevel> logLevels, LogDispatcher dispatcher, LogClock clock, LogJournal journal,
+                   long coalescingWindowNanos, LogThrottle.Bucket throttle, LogThrottle.Bucket[] levelThrottles,
+                   Map<LogLevel, LogThrottle.Bucket> unindexedThrottles) {
         this.parent = parent;
+        this.name = name;
         this.logLevels = logLevels;
+        this.stripe = dispatcher.stripeFor(this.id);
+        this.clock = clock;
+        this.journal = journal;
+        this.coalescer = (coalescingWindowNanos > 0) ? new MessageCoalescer(this, coalescingWindowNanos) : null;
+        this.throttle = throttle;
+        this.levelThrottles = levelThrottles;
+        this.unindexedThrottles = unindexedThrottles;
     }
 
     /**
@@ -190,6 +876,30 @@ public final class Logger implements ILogger {
         return Collections.unmodifiableList(this.logLevels);
     }
 
+    /**
+     * Returns the ID of this logger.
+     *
+     * <p>The ID is unique among all loggers created in this JVM.</p>
+     *
+     * @return the ID of this logger
+     *
+     * @since 1.0.0.0
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Returns the name of this logger, or {@code null} if no name has been configured.
+     *
+     * @return the name of this logger, or {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public String getName() {
+        return this.name;
+    }
+
     /**
      * Returns this loggers parent.
      *
@@ -201,6 +911,39 @@ public final class Logger implements ILogger {
         return this.parent;
     }
 
+    /**
+     * Returns the {@link LogDispatcher} used by this logger.
+     *
+     * @return the {@code LogDispatcher} used by this logger
+     *
+     * @since 1.0.0.0
+     */
+    public LogDispatcher getDispatcher() {
+        return this.stripe.dispatcher;
+    }
+
+    /**
+     * Returns the {@link LogClock} used to timestamp messages logged by this logger.
+     *
+     * @return the {@code LogClock} used by this logger
+     *
+     * @since 1.0.0.0
+     */
+    public LogClock getClock() {
+        return this.clock;
+    }
+
+    /**
+     * Returns the {@link LogJournal} to which messages logged by this logger are appended, or {@code null} if this logger does not use a journal.
+     *
+     * @return the {@code LogJournal} used by this logger, or {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public LogJournal getJournal() {
+        return this.journal;
+    }
+
     /**
      * Returns the numerical severity fo this {@link Logger}.
      *
@@ -210,18 +953,208 @@ public final class Logger implements ILogger {
      *
      * @since 1.0.0.0
      */
-    public int getSeverity() {
-        return this.severity;
+    public int getSeverity() {
+        return this.severity;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>A level is enabled if messages at the level pass the logger's severity filter, or if the level is a capture level. This only reflects the
+     * configuration of the logger. Whether any listener is interested in messages at the level is not taken into account. (However, messages that no
+     * listener is interested in are discarded before they are constructed.)</p>
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public boolean isEnabled(LogLevel level) {
+        long mask = level.getMask();
+        return (mask != 0L) ? (this.getEnabledLevels().configMask & mask) != 0 : this.passesFilter(level) || this.captureLevels.contains(level);
+    }
+
+    /*
+     * Returns whether the given level is enabled and at least one listener is interested in messages at the level.
+     */
+    private boolean isAccepted(LogLevel level) {
+        long mask = level.getMask();
+        return (mask != 0L) ? (this.getEnabledLevels().mask & mask) != 0 : this.isAcceptedUnindexed(level);
+    }
+
+    /*
+     * Returns whether the given level (that has not been assigned an index) is accepted. This mirrors resolveEnabledLevels without using bitmasks.
+     */
+    private boolean isAcceptedUnindexed(LogLevel level) {
+        boolean passes = this.passesFilter(level);
+        boolean captured = this.captureLevels.contains(level);
+
+        for (ListenerRegistration registration : this.listeners) {
+            if ((passes || (registration.capture && captured)) && registration.isInterested(level)) return true;
+        }
+
+        return false;
+    }
+
+    /*
+     * Returns whether messages at the given level (that has not been assigned an index) pass the severity filter of this logger.
+     */
+    private boolean passesFilter(LogLevel level) {
+        if (this.useParentConfig) return this.parent.passesFilter(level);
+
+        return this.severity >= level.getSeverity() && this.logLevels.contains(level);
+    }
+
+    /*
+     * Returns whether the locations of messages at the given level are captured.
+     */
+    boolean capturesLocation(LogLevel level) {
+        long mask = level.getMask();
+        return (mask != 0L) ? (this.locationMask & mask) != 0 : this.locationLevels.contains(level);
+    }
+
+    private EnabledLevels getEnabledLevels() {
+        EnabledLevels enabledLevels = this.enabledLevels;
+
+        if (enabledLevels.version != this.configVersion || (enabledLevels.parent != null && enabledLevels.parent != this.parent.getEnabledLevels())) {
+            enabledLevels = this.resolveEnabledLevels();
+        }
+
+        return enabledLevels;
+    }
+
+    private synchronized void updateLocationMask() {
+        long mask = 0L;
+        for (LogLevel level : this.locationLevels) mask |= level.getMask();
+
+        this.locationMask = mask;
+    }
+
+    private EnabledLevels resolveEnabledLevels() {
+        /* The version must be read before the configuration to ensure that a concurrent modification is picked up by the next call. */
+        long version = this.configVersion;
+        EnabledLevels parent = null;
+        long filterMask = 0L;
+
+        if (this.useParentConfig) {
+            parent = this.parent.getEnabledLevels();
+            filterMask = parent.filterMask;
+        } else {
+            int severity = this.severity;
+
+            for (LogLevel level : this.logLevels) {
+                if (severity >= level.getSeverity()) filterMask |= level.getMask();
+            }
+        }
+
+        long captureMask = 0L;
+        for (LogLevel level : this.captureLevels) captureMask |= level.getMask();
+
+        /* Only enable the levels at which at least one listener is interested in messages. */
+        long mask = 0L;
+
+        for (ListenerRegistration registration : this.listeners) {
+            long candidates = registration.capture ? (filterMask | captureMask) : filterMask;
+
+            for (long remaining = candidates & ~mask; remaining != 0L; remaining &= remaining - 1) {
+                int index = Long.numberOfTrailingZeros(remaining);
+                if (registration.isInterested(index, LogLevel.getRegisteredSeverity(index))) mask |= 1L << index;
+            }
+        }
+
+        EnabledLevels enabledLevels = new EnabledLevels(version, parent, mask, filterMask | captureMask, filterMask);
+        this.enabledLevels = enabledLevels;
+
+        return enabledLevels;
+    }
+
+    /**
+     * Returns a {@link MethodHandle} of type {@code ()boolean} that evaluates to whether the given {@link LogLevel} is enabled for this logger.
+     *
+     * <p>The returned handle is backed by a call site that is invalidated using a {@link SwitchPoint} whenever the configuration of this logger (or, if it
+     * {@link Builder#setUseParentConfig(boolean) uses its parent's config}, of the parent) changes. If the handle is stored in a {@code static final} field, the JIT compiler may treat its result as a constant. Thus, a disabled log statement that is guarded by
+     * such a handle is eliminated entirely in compiled code:</p>
+     *
+     * <pre>{@code
+     * private static final MethodHandle DEBUG_ENABLED = LOGGER.getEnabledGuard(DEBUG);
+     *
+     * if ((boolean) DEBUG_ENABLED.invokeExact()) LOGGER.log(DEBUG, "value: {}", value);
+     * }</pre>
+     *
+     * <p>Changing the configuration of a logger invalidates compiled code that depends on a guard of the logger or of a descendant that uses its config.
+     * Thus, guards should only be used if the configuration rarely changes.</p>
+     *
+     * @param level the level the configuration is to be checked for
+     * @return a {@code MethodHandle} that evaluates to whether the given {@code LogLevel} is enabled for this logger
+     *
+     * @throws NullPointerException if the given {@code level} is {@code null}
+     *
+     * @see #isEnabled(LogLevel)
+     *
+     * @since 1.0.0.0
+     */
+    public MethodHandle getEnabledGuard(LogLevel level) {
+        int index = level.getIndex();
+        if (index < 0) return new EnabledGuard(this, level).getInvoker();
+
+        EnabledGuard guard = this.enabledGuards.get(index);
+
+        if (guard == null) {
+            guard = new EnabledGuard(this, level);
+            if (!this.enabledGuards.compareAndSet(index, null, guard)) guard = this.enabledGuards.get(index);
+        }
+
+        return guard.getInvoker();
+    }
+
+    /*
+     * Returns the switch points that are invalidated when the effective configuration of this logger changes. That is, the switch point of this logger and,
+     * if it uses its parent's config, the switch points of the parent.
+     */
+    List<SwitchPoint> getConfigSwitchPoints() {
+        List<SwitchPoint> switchPoints = new ArrayList<>();
+
+        /* The switch point must be obtained before useParentConfig is read since changing the latter invalidates the former. */
+        for (Logger logger = this; logger != null; logger = logger.useParentConfig ? logger.parent : null) {
+            switchPoints.add(logger.configSwitchPoint);
+        }
+
+        return switchPoints;
     }
 
-    /**
-     * {@inheritDoc}
-     *
-     * @since 1.0.0.0
+    private synchronized void invalidateConfig() {
+        this.configVersion++;
+
+        SwitchPoint switchPoint = this.configSwitchPoint;
+        this.configSwitchPoint = new SwitchPoint();
+        SwitchPoint.invalidateAll(new SwitchPoint[] { switchPoint });
+    }
+
+    /*
+     * An immutable snapshot of the effective configuration of a logger.
      */
-    @Override
-    public boolean isEnabled(LogLevel level) {
-        return this.useParentConfig ? this.parent.isEnabled(level) : this.logLevels.contains(level) && this.severity >= level.getSeverity();
+    private static final class EnabledLevels {
+
+        private final long version;
+
+        /* The effective configuration of the parent this snapshot has been derived from, or null if the logger does not use its parent's config. */
+        private final EnabledLevels parent;
+
+        /* The levels at which messages are accepted (by any listener). */
+        private final long mask;
+
+        /* The levels that are enabled by the configuration of the logger (regardless of the listeners). */
+        private final long configMask;
+
+        /* The levels at which messages pass the severity filter (and are thus passed to regular listeners). */
+        private final long filterMask;
+
+        private EnabledLevels(long version, EnabledLevels parent, long mask, long configMask, long filterMask) {
+            this.version = version;
+            this.parent = parent;
+            this.mask = mask;
+            this.configMask = configMask;
+            this.filterMask = filterMask;
+        }
+
     }
 
     /**
@@ -232,11 +1165,21 @@ public final class Logger implements ILogger {
     public static final class Builder {
 
         private final List<LogLevel> logLevels = new ArrayList<>();
+        private final List<LogLevel> captureLevels = new ArrayList<>();
+        private final List<LogLevel> locationLevels = new ArrayList<>();
         private final Logger parent;
 
+        private String name;
         private int severity;
         private boolean useParentConfig;
 
+        private LogDispatcher dispatcher;
+        private LogClock clock = LogClock.system();
+        private LogJournal journal;
+        private long coalescingWindowNanos;
+        private LogThrottle throttle;
+        private final Map<LogLevel, LogThrottle> levelThrottles = new HashMap<>();
+
         /**
          * Create a new builder that creates orphan {@code Logger}s (Loggers without a parent).
          *
@@ -268,9 +1211,32 @@ public final class Logger implements ILogger {
          */
         public Handle build() {
             CopyOnWriteArrayList<LogLevel> logLevels = new CopyOnWriteArrayList<>(this.logLevels);
-            Logger logger = new Logger(this.parent, logLevels);
+            LogDispatcher dispatcher = this.dispatcher != null ? this.dispatcher : LogDispatcher.getDefault();
+            LogThrottle.Bucket[] levelThrottles = null;
+            Map<LogLevel, LogThrottle.Bucket> unindexedThrottles = Collections.emptyMap();
+
+            if (this.throttle != null || !this.levelThrottles.isEmpty()) {
+                levelThrottles = new LogThrottle.Bucket[LogLevel.MAX_LEVELS];
+
+                for (Map.Entry<LogLevel, LogThrottle> entry : this.levelThrottles.entrySet()) {
+                    int index = entry.getKey().getIndex();
+
+                    if (index >= 0) {
+                        levelThrottles[index] = entry.getValue().newBucket();
+                    } else {
+                        if (unindexedThrottles.isEmpty()) unindexedThrottles = new HashMap<>();
+                        unindexedThrottles.put(entry.getKey(), entry.getValue().newBucket());
+                    }
+                }
+            }
+
+            Logger logger = new Logger(this.parent, this.name, logLevels, dispatcher, this.clock, this.journal, this.coalescingWindowNanos,
+                this.throttle != null ? this.throttle.newBucket() : null, levelThrottles, unindexedThrottles);
             logger.severity = this.severity;
-            logger.useParentConfig = this.useParentConfig;
+            logger.useParentConfig = this.useParentConfig && this.parent != null;
+            logger.captureLevels.addAll(this.captureLevels);
+            logger.locationLevels.addAll(this.locationLevels);
+            logger.updateLocationMask();
 
             return new Handle(logger);
         }
@@ -290,6 +1256,48 @@ public final class Logger implements ILogger {
             return this.logLevels;
         }
 
+        /**
+         * Configures the name of loggers created by this builder.
+         *
+         * <p>The name is purely informational and may, for example, be rendered by a {@link PatternLayout}. Names are not required to be unique.</p>
+         *
+         * @param value the name, or {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public void setName(String value) {
+            this.name = value;
+        }
+
+        /**
+         * Returns a mutable {@link List} of {@link LogLevel}s at which messages are passed to capture listeners regardless of the severity filter.
+         *
+         * @return a mutable {@code List} of capture {@code LogLevel}s
+         *
+         * @see Logger#addCaptureListener(ILogListener)
+         *
+         * @since 1.0.0.0
+         */
+        public List<LogLevel> getCaptureLevels() {
+            return this.captureLevels;
+        }
+
+        /**
+         * Returns a mutable {@link List} of {@link LogLevel}s at which the {@link LogLocation source locations} of messages are captured.
+         *
+         * <p>Capturing the location of a message requires walking the stack of the logging thread. Thus, locations should only be captured for levels at which
+         * messages are logged rarely.</p>
+         *
+         * @return a mutable {@code List} of location {@code LogLevel}s
+         *
+         * @see LogMessage#getLocation()
+         *
+         * @since 1.0.0.0
+         */
+        public List<LogLevel> getLocationLevels() {
+            return this.locationLevels;
+        }
+
         /**
          * Configures the severity for this builder.
          *
@@ -314,6 +1322,117 @@ public final class Logger implements ILogger {
             this.useParentConfig = value;
         }
 
+        /**
+         * Configures the {@link LogDispatcher} used by loggers created by this builder.
+         *
+         * <p>If no dispatcher is configured, the {@link LogDispatcher#getDefault() default dispatcher} is used.</p>
+         *
+         * @param value the dispatcher, or {@code null} to use the default dispatcher
+         *
+         * @since 1.0.0.0
+         */
+        public void setDispatcher(LogDispatcher value) {
+            this.dispatcher = value;
+        }
+
+        /**
+         * Configures the {@link LogClock} used to timestamp messages logged by loggers created by this builder.
+         *
+         * <p>By default, the {@link LogClock#system() system clock} is used.</p>
+         *
+         * @param value the clock
+         *
+         * @throws NullPointerException if the given {@code value} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public void setClock(LogClock value) {
+            if (value == null) throw new NullPointerException();
+
+            this.clock = value;
+        }
+
+        /**
+         * Configures a {@link LogJournal} to which messages logged by loggers created by this builder are appended before they are queued for dispatch.
+         *
+         * <p>Messages are appended to the journal on the logging thread and marked as consumed once they have been passed to the listeners. Thus, messages
+         * that are still queued when the JVM crashes may be {@link LogJournal#recover(ILogListener) recovered} when the journal is opened again.</p>
+         *
+         * <p>By default, no journal is used.</p>
+         *
+         * @param value the journal, or {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public void setJournal(LogJournal value) {
+            this.journal = value;
+        }
+
+        /**
+         * Configures the window in which consecutive repetitions of a message are collapsed into a single summary message.
+         *
+         * <p>Messages are considered to be repetitions if they have the same level, the same message component and the same
+         * {@link LogMessage#getThrowableFingerprint() throwable fingerprint}. The first occurrence of a message is passed to the listeners and opens a window.
+         * Repetitions within the window are suppressed. Once a different message is logged or the window closes, a summary message
+         * ({@code "Last message repeated N times"}) is passed to the listeners instead. The summary is logged at the level of the repeated message and carries
+         * the number of suppressed repetitions in the {@code long} field {@code "repeated"}.</p>
+         *
+         * <p>Repetitions are detected on the dispatching thread. Thus, coalescing does not reduce the cost of logging a message, but the cost of passing it to
+         * the listeners.</p>
+         *
+         * <p>By default, coalescing is disabled.</p>
+         *
+         * @param window the length of the window, or {@code 0} to disable coalescing
+         * @param unit the unit of the given {@code window}
+         *
+         * @throws IllegalArgumentException if the given {@code window} is negative
+         * @throws NullPointerException if the given {@code unit} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public void setCoalescingWindow(long window, TimeUnit unit) {
+            if (unit == null) throw new NullPointerException();
+            if (window < 0) throw new IllegalArgumentException();
+
+            this.coalescingWindowNanos = unit.toNanos(window);
+        }
+
+        /**
+         * Configures a {@link LogThrottle} that applies to all messages logged by loggers created by this builder.
+         *
+         * <p>Each logger created by this builder tracks the state of the throttle separately. If a throttle has also been configured for the level of a
+         * message, a message must pass both throttles.</p>
+         *
+         * @param value the throttle, or {@code null} to disable throttling
+         *
+         * @since 1.0.0.0
+         */
+        public void setThrottle(LogThrottle value) {
+            this.throttle = value;
+        }
+
+        /**
+         * Configures a {@link LogThrottle} that applies to messages logged at the given level by loggers created by this builder.
+         *
+         * <p>Each logger created by this builder tracks the state of the throttle separately.</p>
+         *
+         * @param level the level to which the throttle applies
+         * @param value the throttle, or {@code null} to disable throttling for the given level
+         *
+         * @throws NullPointerException if the given {@code level} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public void setThrottle(LogLevel level, LogThrottle value) {
+            if (level == null) throw new NullPointerException();
+
+            if (value != null) {
+                this.levelThrottles.put(level, value);
+            } else {
+                this.levelThrottles.remove(level);
+            }
+        }
+
     }
 
     /**
@@ -344,10 +1463,196 @@ public final class Logger implements ILogger {
             return this.logger;
         }
 
+        /**
+         * Returns the {@link LogDispatcher} used by the managed logger.
+         *
+         * <p>The dispatcher may be shared with other loggers. Thus, {@link LogDispatcher#close() closing} it affects all loggers using it.</p>
+         *
+         * @return the {@code LogDispatcher} used by the managed logger
+         *
+         * @since 1.0.0.0
+         */
+        public LogDispatcher getDispatcher() {
+            return this.logger.getDispatcher();
+        }
+
+        // #####################################################################################################################################################
+        // # Lifecycle #########################################################################################################################################
+        // #####################################################################################################################################################
+
+        /**
+         * Blocks until all messages that have been logged by the managed logger before this method was called have been delivered.
+         *
+         * <p>This method must not be called by the dispatching thread of the managed logger (i.e. from a listener callback) since that thread cannot deliver
+         * messages while it is waiting.</p>
+         *
+         * @throws IllegalStateException if the current thread is the dispatching thread of the managed logger
+         * @throws InterruptedException if the current thread is interrupted while waiting
+         *
+         * @since 1.0.0.0
+         */
+        public void flush() throws InterruptedException {
+            this.logger.stripe.flush(Long.MAX_VALUE);
+        }
+
+        /**
+         * Blocks until all messages that have been logged by the managed logger before this method was called have been delivered, or the timeout expires.
+         *
+         * <p>This method must not be called by the dispatching thread of the managed logger (i.e. from a listener callback) since that thread cannot deliver
+         * messages while it is waiting.</p>
+         *
+         * @param timeout the maximum time to wait
+         * @param unit the unit of the {@code timeout}
+         * @return {@code true} if all messages have been delivered, or {@code false} if the timeout expired
+         *
+         * @throws IllegalStateException if the current thread is the dispatching thread of the managed logger
+         * @throws InterruptedException if the current thread is interrupted while waiting
+         * @throws NullPointerException if the given {@code unit} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+            return this.logger.stripe.flush(LogDispatcher.deadline(timeout, unit));
+        }
+
         // #####################################################################################################################################################
         // # Configuration #####################################################################################################################################
         // #####################################################################################################################################################
 
+        /**
+         * Adds a {@link LogLevel} to the capture levels of the logger.
+         *
+         * <p>Messages logged at a capture level are passed to the logger's {@link Logger#addCaptureListener(ILogListener) capture listeners} regardless of
+         * the logger's severity filter.</p>
+         *
+         * @param level the level to be added
+         *
+         * @throws IllegalArgumentException if the given {@code level} is already a capture level of the logger
+         * @throws NullPointerException if the given {@code level} is {@code null}
+         *
+         * @see Builder#getCaptureLevels()
+         *
+         * @since 1.0.0.0
+         */
+        public void addCaptureLevel(LogLevel level) {
+            if (level == null) throw new NullPointerException();
+            if (this.logger.captureLevels.contains(level)) throw new IllegalArgumentException();
+
+            this.logger.captureLevels.add(level);
+            this.logger.invalidateConfig();
+        }
+
+        /**
+         * Removes a {@link LogLevel} from the capture levels of the logger.
+         *
+         * @param level the level to be removed
+         *
+         * @throws IllegalArgumentException if the given {@code level} is not a capture level of the logger
+         * @throws NullPointerException if the given {@code level} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public void removeCaptureLevel(LogLevel level) {
+            if (level == null) throw new NullPointerException();
+            if (!this.logger.captureLevels.remove(level)) throw new IllegalArgumentException();
+            this.logger.invalidateConfig();
+        }
+
+        /**
+         * Returns the capture levels of the logger.
+         *
+         * @return an unmodifiable view of the capture levels of the logger
+         *
+         * @see Builder#getCaptureLevels()
+         *
+         * @since 1.0.0.0
+         */
+        public List<LogLevel> getCaptureLevels() {
+            return Collections.unmodifiableList(this.logger.captureLevels);
+        }
+
+        /**
+         * Adds a {@link LogLevel} to the levels at which the logger captures the {@link LogLocation source locations} of messages.
+         *
+         * @param level the level to be added
+         *
+         * @throws IllegalArgumentException if the logger already captures locations at the given {@code level}
+         * @throws NullPointerException if the given {@code level} is {@code null}
+         *
+         * @see Builder#getLocationLevels()
+         *
+         * @since 1.0.0.0
+         */
+        public void addLocationLevel(LogLevel level) {
+            if (level == null) throw new NullPointerException();
+            if (this.logger.locationLevels.contains(level)) throw new IllegalArgumentException();
+
+            this.logger.locationLevels.add(level);
+            this.logger.updateLocationMask();
+        }
+
+        /**
+         * Removes a {@link LogLevel} from the levels at which the logger captures the {@link LogLocation source locations} of messages.
+         *
+         * @param level the level to be removed
+         *
+         * @throws IllegalArgumentException if the logger does not capture locations at the given {@code level}
+         * @throws NullPointerException if the given {@code level} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public void removeLocationLevel(LogLevel level) {
+            if (level == null) throw new NullPointerException();
+            if (!this.logger.locationLevels.remove(level)) throw new IllegalArgumentException();
+
+            this.logger.updateLocationMask();
+        }
+
+        /**
+         * Returns the levels at which the logger captures the {@link LogLocation source locations} of messages.
+         *
+         * @return an unmodifiable view of the location levels of the logger
+         *
+         * @see Builder#getLocationLevels()
+         *
+         * @since 1.0.0.0
+         */
+        public List<LogLevel> getLocationLevels() {
+            return Collections.unmodifiableList(this.logger.locationLevels);
+        }
+
+        /**
+         * Adds a capture listener to the logger.
+         *
+         * @param listener the listener to be added
+         *
+         * @throws IllegalArgumentException if the given {@code listener} has already been added to the logger
+         * @throws NullPointerException if the given {@code listener} is {@code null}
+         *
+         * @see Logger#addCaptureListener(ILogListener)
+         *
+         * @since 1.0.0.0
+         */
+        public void addCaptureListener(ILogListener listener) {
+            this.logger.addCaptureListener(listener);
+        }
+
+        /**
+         * Replaces all listeners of the logger (including capture listeners) with the given listeners.
+         *
+         * @param listeners the new listeners
+         *
+         * @throws IllegalArgumentException if the given collection contains a listener more than once
+         * @throws NullPointerException if the given collection is or contains {@code null}
+         *
+         * @see Logger#setListeners(Collection)
+         *
+         * @since 1.0.0.0
+         */
+        public void setListeners(Collection<? extends ILogListener> listeners) {
+            this.logger.setListeners(listeners);
+        }
+
         /**
          * Adds an {@link LogLevel} to this logger's list of accepted levels.
          *
@@ -368,6 +1673,7 @@ public final class Logger implements ILogger {
             if (this.logger.logLevels.contains(level)) throw new IllegalArgumentException();
 
             this.logger.logLevels.add(level);
+            this.logger.invalidateConfig();
         }
 
         /**
@@ -388,6 +1694,7 @@ public final class Logger implements ILogger {
         public void removeLogLevel(LogLevel level) {
             if (level == null) throw new NullPointerException();
             if (!this.logger.logLevels.remove(level)) throw new IllegalArgumentException();
+            this.logger.invalidateConfig();
         }
 
         /**
@@ -401,6 +1708,7 @@ public final class Logger implements ILogger {
          */
         public List<LogLevel> setSeverity(int value) {
             this.logger.severity = value;
+            this.logger.invalidateConfig();
 
             return this.logger.logLevels.stream().filter(this.logger::isEnabled).collect(Collectors.toList());
         }
@@ -416,6 +1724,61 @@ public final class Logger implements ILogger {
          */
         public void setUseParentConfig(boolean value) {
             this.logger.useParentConfig = value && this.logger.parent != null;
+            this.logger.invalidateConfig();
+        }
+
+        /**
+         * Returns a live view of the metrics of the logger.
+         *
+         * @return the metrics of the logger
+         *
+         * @since 1.0.0.0
+         */
+        public LogMetrics getMetrics() {
+            return this.logger.metrics;
+        }
+
+        /**
+         * Returns the number of messages that have been rejected by the {@link LogThrottle}s of the logger.
+         *
+         * @return the number of messages that have been rejected by the throttles of the logger
+         *
+         * @see Builder#setThrottle(LogThrottle)
+         *
+         * @since 1.0.0.0
+         */
+        public long getThrottledMessageCount() {
+            return this.logger.throttledMessages.sum();
+        }
+
+        /**
+         * Returns the number of messages logged at the given level that have been rejected by the {@link LogThrottle}s of the logger.
+         *
+         * @param level the level
+         *
+         * @return the number of messages logged at the given level that have been rejected by the throttles of the logger
+         *
+         * @throws NullPointerException if the given {@code level} is {@code null}
+         *
+         * @see Builder#setThrottle(LogLevel, LogThrottle)
+         *
+         * @since 1.0.0.0
+         */
+        public long getThrottledMessageCount(LogLevel level) {
+            return this.logger.throttledMessages.sum(level);
+        }
+
+        /**
+         * Returns the number of repeated messages that have been collapsed into summary messages by the logger.
+         *
+         * @return the number of repeated messages that have been collapsed
+         *
+         * @see Builder#setCoalescingWindow(long, TimeUnit)
+         *
+         * @since 1.0.0.0
+         */
+        public long getCoalescedMessageCount() {
+            return this.logger.coalescer != null ? this.logger.coalescer.coalescedMessages.sum() : 0L;
         }
 
     }
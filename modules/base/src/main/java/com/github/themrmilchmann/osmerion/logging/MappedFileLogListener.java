@@ -0,0 +1,493 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link ILogListener} that writes formatted {@link LogMessage}s to a memory-mapped file.
+ *
+ * <p>Messages are rendered by a {@link Builder#setLayout(PatternLayout) configurable layout} into a reusable buffer and encoded as UTF-8 directly into a
+ * mapped region of the log file. The file is mapped in large chunks. Thus, writing a message usually neither allocates nor requires a system call. Once the
+ * listener is {@link #close() closed} (or the file is rolled over), the file is truncated to the length of the data actually written.</p>
+ *
+ * <p>The file starts with a header line ({@code #end=<hex>}) that records the end of the data written so far. The header is updated after every message
+ * (or batch of messages) that has been written. If the file has not been closed properly (e.g. because the JVM crashed), the remainder of the last mapped
+ * region is discarded according to the header when the file is opened again. An existing file that does not start with such a header is rejected.</p>
+ *
+ * <p>Mapped regions are unmapped as soon as they are no longer needed. (This requires the {@code jdk.unsupported} module. If it is not available, mapped
+ * regions are released by the garbage collector instead. Some platforms do not permit truncating or renaming a file while a region is still mapped.)</p>
+ *
+ * <p>The log file may be rolled over once it exceeds a {@link Builder#setMaxFileSize(long) configured size} or a
+ * {@link Builder#setRollInterval(long, TimeUnit) configured time} has passed since the first message has been written to it. When a file is rolled over, it is renamed by appending
+ * the next unused index ({@code .1}, {@code .2}, ...) to its name and a new file is created.</p>
+ *
+ * <p>Data written to the mapped region is handed over to the operating system immediately. It survives a crash of the JVM, but not necessarily a crash of
+ * the operating system unless {@link #flush()} is called.</p>
+ *
+ * <p>This listener is thread-safe.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class MappedFileLogListener implements ILogListener, AutoCloseable {
+
+    /*
+     * A handle to sun.misc.Unsafe#invokeCleaner(ByteBuffer) (in the jdk.unsupported module) bound to the Unsafe instance, or null if it is not available.
+     * Unmapping a region explicitly is required to truncate or rename the file on some platforms and avoids keeping regions mapped until they are garbage
+     * collected.
+     */
+    private static final MethodHandle INVOKE_CLEANER;
+
+    static {
+        MethodHandle invokeCleaner = null;
+
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+
+            invokeCleaner = MethodHandles.lookup()
+                .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            /* Fall back to releasing mapped regions using the garbage collector. */
+        }
+
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /* The header line of a log file is HEADER_PREFIX followed by the end of the data (as 16 hexadecimal digits) and a line separator. */
+    private static final byte[] HEADER_PREFIX = { '#', 'e', 'n', 'd', '=' };
+    private static final int HEADER_SIZE = HEADER_PREFIX.length + 17;
+
+    private final Path file;
+    private final int chunkSize;
+    private final long maxFileSize;
+    private final long rollIntervalMillis;
+    private final PatternLayout layout;
+
+    /* The stack traces that have already been written to the current file (and may thus be referred to by the layout). */
+    private final StackTraceCache stackTraces = new StackTraceCache();
+
+    private final StringBuilder stringBuilder = new StringBuilder(256);
+    private byte[] bytes = new byte[1024];
+
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private MappedByteBuffer buffer;
+
+    /* The end of the data written to the file (including the header). */
+    private long size;
+    private long nextRollTime;
+
+    private MappedFileLogListener(Builder builder) throws IOException {
+        this.file = builder.file;
+        this.chunkSize = builder.chunkSize;
+        this.maxFileSize = builder.maxFileSize;
+        this.rollIntervalMillis = builder.rollIntervalMillis;
+        this.layout = builder.layout;
+
+        this.open();
+    }
+
+    /**
+     * Returns the path of the file that is currently written to.
+     *
+     * @return the path of the file that is currently written to
+     *
+     * @since 1.0.0.0
+     */
+    public Path getFile() {
+        return this.file;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws IllegalStateException if this listener has been closed
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public synchronized void onLogged(LogMessage logMessage) {
+        this.write(logMessage);
+        this.writeHeader();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws IllegalStateException if this listener has been closed
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public synchronized void onLoggedBatch(List<LogMessage> logMessages) {
+        for (int i = 0, size = logMessages.size(); i < size; i++) this.write(logMessages.get(i));
+        this.writeHeader();
+    }
+
+    /**
+     * Forces all data written so far to be written to the storage device.
+     *
+     * @throws IllegalStateException if this listener has been closed
+     *
+     * @since 1.0.0.0
+     */
+    public synchronized void flush() {
+        if (this.channel == null) throw new IllegalStateException();
+
+        if (this.buffer != null) this.buffer.force();
+        this.header.force();
+    }
+
+    /**
+     * Closes this listener and truncates the log file to the length of the data actually written.
+     *
+     * <p>Calling this method on a closed listener has no effect.</p>
+     *
+     * @throws IOException if an I/O error occurs
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.channel == null) return;
+
+        MappedByteBuffer header = this.header, buffer = this.buffer;
+        this.header = null;
+        this.buffer = null;
+
+        try {
+            writeHeader(header, this.size);
+            unmap(header);
+            unmap(buffer);
+            this.channel.truncate(this.size);
+        } finally {
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+
+    private void write(LogMessage logMessage) {
+        if (this.channel == null) throw new IllegalStateException();
+
+        int length = this.render(logMessage);
+
+        try {
+            /*
+             * The roll interval is measured from the construction time of the first message written to the file. Thus, rolling is based on the clock of the
+             * logger that created the messages.
+             */
+            long time = logMessage.getConstructionTime();
+            if (this.nextRollTime == Long.MIN_VALUE) this.nextRollTime = time + this.rollIntervalMillis;
+
+            if (this.size > HEADER_SIZE && (time >= this.nextRollTime || (this.maxFileSize > 0 && this.size + length > this.maxFileSize))) {
+                this.roll();
+                if (this.nextRollTime == Long.MIN_VALUE) this.nextRollTime = time + this.rollIntervalMillis;
+
+                /* The message is rendered again since it may refer to a stack trace that has only been written to the previous file. */
+                length = this.render(logMessage);
+            }
+
+            if (this.buffer == null || this.buffer.remaining() < length) this.map(length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        this.buffer.put(this.bytes, 0, length);
+        this.size += length;
+    }
+
+    /*
+     * Renders the given message into the byte buffer and returns its length in bytes.
+     */
+    private int render(LogMessage logMessage) {
+        StringBuilder stringBuilder = this.stringBuilder;
+        stringBuilder.setLength(0);
+        this.layout.formatTo(logMessage, stringBuilder, this.stackTraces);
+
+        int maxLength = stringBuilder.length() * Utf8.MAX_BYTES_PER_CHAR;
+        if (this.bytes.length < maxLength) this.bytes = new byte[Math.max(maxLength, this.bytes.length * 2)];
+
+        return Utf8.encode(stringBuilder, 0, stringBuilder.length(), this.bytes, 0);
+    }
+
+    private void open() throws IOException {
+        FileChannel channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            long size = (channel.size() == 0) ? HEADER_SIZE : readHeader(channel);
+
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            for (int i = 0; i < HEADER_PREFIX.length; i++) this.header.put(i, HEADER_PREFIX[i]);
+            this.header.put(HEADER_SIZE - 1, (byte) '\n');
+            writeHeader(this.header, size);
+
+            this.channel = channel;
+            this.size = size;
+        } catch (IOException | RuntimeException | Error e) {
+            unmap(this.header);
+            this.header = null;
+
+            channel.close();
+            throw e;
+        }
+
+        this.nextRollTime = this.rollIntervalMillis > 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        this.map(0);
+    }
+
+    /*
+     * Returns the end of the data in the given file according to its header. If the file has not been closed properly, it ends with the remainder of the
+     * last mapped region which is discarded.
+     */
+    private static long readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) break;
+        }
+
+        if (header.hasRemaining() || header.get(HEADER_SIZE - 1) != '\n') throw new IOException("Not a log file");
+
+        for (int i = 0; i < HEADER_PREFIX.length; i++) {
+            if (header.get(i) != HEADER_PREFIX[i]) throw new IOException("Not a log file");
+        }
+
+        long size = 0L;
+
+        for (int i = HEADER_PREFIX.length; i < HEADER_SIZE - 1; i++) {
+            int digit = Character.digit(header.get(i), 16);
+            if (digit < 0) throw new IOException("Not a log file");
+
+            size = (size << 4) | digit;
+        }
+
+        if (size < HEADER_SIZE || size > channel.size()) throw new IOException("Corrupt log file");
+
+        return size;
+    }
+
+    /*
+     * Records the end of the data written so far in the header of the file.
+     */
+    private void writeHeader() {
+        writeHeader(this.header, this.size);
+    }
+
+    private static void writeHeader(MappedByteBuffer header, long size) {
+        for (int i = HEADER_SIZE - 2; i >= HEADER_PREFIX.length; i--, size >>>= 4) header.put(i, (byte) Character.forDigit((int) size & 0xF, 16));
+    }
+
+    private void map(int minLength) throws IOException {
+        MappedByteBuffer buffer = this.buffer;
+        this.buffer = null;
+
+        unmap(buffer);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, this.size, Math.max(this.chunkSize, minLength));
+    }
+
+    /*
+     * Returns whether mapped regions are unmapped explicitly.
+     */
+    static boolean isUnmappingSupported() {
+        return INVOKE_CLEANER != null;
+    }
+
+    /*
+     * Unmaps the given region immediately if supported. The region must not be accessed afterwards.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (buffer == null || INVOKE_CLEANER == null) return;
+
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        }
+    }
+
+    private void roll() throws IOException {
+        this.close();
+
+        String name = this.file.getFileName().toString();
+        Path target;
+        int index = 1;
+
+        while (Files.exists(target = this.file.resolveSibling(name + "." + index))) index++;
+
+        Files.move(this.file, target);
+        this.stackTraces.clear();
+        this.open();
+    }
+
+    /**
+     * A factory class for {@link MappedFileLogListener}s.
+     *
+     * @since 1.0.0.0
+     */
+    public static final class Builder {
+
+        private final Path file;
+
+        private int chunkSize = 16 * 1024 * 1024;
+        private long maxFileSize;
+        private long rollIntervalMillis;
+        private PatternLayout layout = PatternLayout.getDefault();
+
+        /**
+         * Creates a new builder for listeners writing to the given file.
+         *
+         * @param file the path of the log file
+         *
+         * @throws NullPointerException if the given {@code file} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public Builder(Path file) {
+            if (file == null) throw new NullPointerException();
+
+            this.file = file;
+        }
+
+        /**
+         * Creates a new {@link MappedFileLogListener} and opens its log file.
+         *
+         * <p>If the log file already exists, new messages are appended to it.</p>
+         *
+         * @return the newly initialized {@code MappedFileLogListener}
+         *
+         * @throws IOException if an I/O error occurs
+         *
+         * @since 1.0.0.0
+         */
+        public MappedFileLogListener build() throws IOException {
+            return new MappedFileLogListener(this);
+        }
+
+        // #####################################################################################################################################################
+        // # Configuration #####################################################################################################################################
+        // #####################################################################################################################################################
+
+        /**
+         * Configures the size of the regions in which the log file is mapped.
+         *
+         * <p>The default chunk size is 16 MiB.</p>
+         *
+         * @param value the new chunk size in bytes
+         *
+         * @throws IllegalArgumentException if the given {@code value} is not positive
+         *
+         * @since 1.0.0.0
+         */
+        public void setChunkSize(int value) {
+            if (value < 1) throw new IllegalArgumentException();
+
+            this.chunkSize = value;
+        }
+
+        /**
+         * Configures the size at which the log file is rolled over.
+         *
+         * <p>By default, the log file is not rolled over based on its size.</p>
+         *
+         * @param value the maximum size of a log file in bytes, or {@code 0} to disable size-based rolling
+         *
+         * @throws IllegalArgumentException if the given {@code value} is negative
+         *
+         * @since 1.0.0.0
+         */
+        public void setMaxFileSize(long value) {
+            if (value < 0) throw new IllegalArgumentException();
+
+            this.maxFileSize = value;
+        }
+
+        /**
+         * Configures the time after which the log file is rolled over.
+         *
+         * <p>The log file is rolled over once a message is written that has been constructed after the interval has passed since the construction of the
+         * first message written to the file. (Thus, the interval is measured using the {@link LogClock} of the logger that created the messages.) By default,
+         * the log file is not rolled over based on time.</p>
+         *
+         * @param value the roll interval, or {@code 0} to disable time-based rolling
+         * @param unit the unit of the {@code value}
+         *
+         * @throws IllegalArgumentException if the given {@code value} is negative
+         * @throws NullPointerException if the given {@code unit} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public void setRollInterval(long value, TimeUnit unit) {
+            if (value < 0) throw new IllegalArgumentException();
+
+            this.rollIntervalMillis = unit.toMillis(value);
+        }
+
+        /**
+         * Configures the layout used to render messages.
+         *
+         * <p>The layout is responsible for terminating each message with a line separator (e.g. by using {@code %n}). By default, the
+         * {@link PatternLayout#getDefault() default layout} is used.</p>
+         *
+         * @param value the layout
+         *
+         * @throws NullPointerException if the given {@code value} is {@code null}
+         *
+         * @since 1.0.0.0
+         */
+        public void setLayout(PatternLayout value) {
+            if (value == null) throw new NullPointerException();
+
+            this.layout = value;
+        }
+
+    }
+
+}
\ No newline at end of file
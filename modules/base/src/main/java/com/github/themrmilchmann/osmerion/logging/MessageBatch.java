@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A reusable, unmodifiable view of a range of consecutive messages in a {@link RingBuffer}.
+ *
+ * <p>The range may optionally be mapped through a permutation of the slots to deliver the messages in a different order than they have been queued in.</p>
+ *
+ * <p>A batch is only valid until the dispatching thread moves on to the next batch.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+final class MessageBatch extends AbstractList<LogMessage> implements RandomAccess {
+
+    private final RingBuffer buffer;
+
+    private int[] order;
+    private int offset;
+    private int size;
+
+    MessageBatch(RingBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Points this view to the given range of published slots.
+     *
+     * @param offset the offset of the first slot from the next slot to be consumed
+     * @param size the number of slots
+     */
+    void reset(int offset, int size) {
+        this.reset(null, offset, size);
+    }
+
+    /**
+     * Points this view to the given range of the given permutation of published slots.
+     *
+     * @param order the offsets of the slots from the next slot to be consumed, or {@code null} to use the slots in order
+     * @param offset the index of the first slot in the permutation
+     * @param size the number of slots
+     */
+    void reset(int[] order, int offset, int size) {
+        this.order = order;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    @Override
+    public LogMessage get(int index) {
+        if (index < 0 || index >= this.size) throw new IndexOutOfBoundsException();
+
+        int i = this.offset + index;
+        return this.buffer.peek(this.order != null ? this.order[i] : i).message;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+}
\ No newline at end of file
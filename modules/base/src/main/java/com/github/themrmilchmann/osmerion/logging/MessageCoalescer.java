@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collapses consecutive repetitions of a message into a single summary message.
+ *
+ * <p>Two messages are considered to be equal if they have the same level, the same message component and the same
+ * {@link LogMessage#getThrowableFingerprint() throwable fingerprint}. The first occurrence of a message is passed on and opens a window. Repetitions of the
+ * message within that window are suppressed and counted. Once a different message arrives or the window closes, a summary is passed on that reports the
+ * number of suppressed repetitions.</p>
+ *
+ * <p>A coalescer is confined to the dispatching thread of its logger.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+final class MessageCoalescer {
+
+    private static final String[] SUMMARY_FIELD_KEYS = { "repeated" };
+    private static final byte[] SUMMARY_FIELD_TYPES = { LogMessage.ARG_LONG };
+    private static final Object[] SUMMARY_FIELD_REFS = new Object[1];
+
+    private final Logger logger;
+    private final long windowNanos;
+
+    final LongAdder coalescedMessages = new LongAdder();
+
+    private final List<LogMessage> coalesced = new ArrayList<>();
+    private final List<LogMessage> coalescedView = Collections.unmodifiableList(this.coalesced);
+
+    /* The key of the message that opened the current window. The level is null if no window is open. */
+    private LogLevel level;
+    private String message;
+    private long fingerprint;
+
+    /* The time at which the current window has been opened in terms of System.nanoTime(). */
+    private long windowStart;
+
+    private long repeated;
+    private long lastTimeNanos;
+    private long lastSequence;
+
+    MessageCoalescer(Logger logger, long windowNanos) {
+        this.logger = logger;
+        this.windowNanos = windowNanos;
+    }
+
+    /**
+     * Coalesces the messages of the given batch.
+     *
+     * @param batch the batch
+     * @param now the current time in terms of {@link System#nanoTime()}
+     *
+     * @return the messages to be passed to the listeners. If no message has been suppressed and no summary has been emitted, the batch itself is returned.
+     */
+    List<LogMessage> coalesce(List<LogMessage> batch, long now) {
+        boolean copy = false;
+
+        for (int i = 0, size = batch.size(); i < size; i++) {
+            LogMessage logMessage = batch.get(i);
+
+            if (this.isRepetition(logMessage, now)) {
+                if (!copy) {
+                    this.coalesced.clear();
+                    this.coalesced.addAll(batch.subList(0, i));
+                    copy = true;
+                }
+
+                this.repeated++;
+                this.lastTimeNanos = logMessage.getConstructionTimeNanos();
+                this.lastSequence = logMessage.getSequence();
+                continue;
+            }
+
+            if (this.repeated > 0) {
+                if (!copy) {
+                    this.coalesced.clear();
+                    this.coalesced.addAll(batch.subList(0, i));
+                    copy = true;
+                }
+
+                this.coalesced.add(this.summarize());
+            }
+
+            if (copy) this.coalesced.add(logMessage);
+
+            this.level = logMessage.getLevel();
+            this.message = logMessage.getMessage();
+            this.fingerprint = logMessage.getThrowableFingerprint();
+            this.windowStart = now;
+        }
+
+        return copy ? this.coalescedView : batch;
+    }
+
+    /**
+     * Returns the time at which the current window closes in terms of {@link System#nanoTime()}, or {@link Long#MAX_VALUE} if no summary is pending.
+     *
+     * @return the time at which the current window closes, or {@code Long.MAX_VALUE}
+     */
+    long getDeadline() {
+        return (this.repeated > 0) ? this.windowStart + this.windowNanos : Long.MAX_VALUE;
+    }
+
+    /**
+     * Closes the current window if it has expired (or unconditionally if {@code force} is set) and returns the pending summary.
+     *
+     * @param now the current time in terms of {@link System#nanoTime()}
+     * @param force whether the window should be closed regardless of the current time
+     *
+     * @return the pending summary, or {@code null} if the window has not been closed or no summary is pending
+     */
+    LogMessage expire(long now, boolean force) {
+        if (this.level == null || (!force && now - this.windowStart < this.windowNanos)) return null;
+
+        LogMessage summary = (this.repeated > 0) ? this.summarize() : null;
+        this.level = null;
+        this.message = null;
+
+        return summary;
+    }
+
+    private boolean isRepetition(LogMessage logMessage, long now) {
+        return logMessage.getLevel().equals(this.level)
+            && now - this.windowStart < this.windowNanos
+            && logMessage.getThrowableFingerprint() == this.fingerprint
+            && (this.message == null ? logMessage.getMessage() == null : this.message.equals(logMessage.getMessage()));
+    }
+
+    private LogMessage summarize() {
+        long repeated = this.repeated;
+        this.repeated = 0;
+        this.coalescedMessages.add(repeated);
+
+        LogMessage summary = new LogMessage(false);
+        summary.set(this.logger, this.level, "Last message repeated " + repeated + " times", null, this.lastTimeNanos, this.lastSequence);
+        summary.setFields(SUMMARY_FIELD_KEYS, SUMMARY_FIELD_TYPES, new long[] { repeated }, SUMMARY_FIELD_REFS, 1);
+
+        return summary;
+    }
+
+}
\ No newline at end of file
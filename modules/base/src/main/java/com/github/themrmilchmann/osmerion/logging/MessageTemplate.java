@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.Arrays;
+
+/**
+ * A parsed message template.
+ *
+ * <p>A message template is a {@code String} in which every occurrence of {@code {}} is a placeholder for an argument. A placeholder may be escaped by
+ * preceding it with a backslash ({@code \{}}). To render a backslash in front of a placeholder, the backslash must be escaped ({@code \\{}}).</p>
+ *
+ * <p>Parsed templates are cached by the identity of their source. Since templates are usually {@code String} literals (which are interned), a template is
+ * parsed only once in most cases. The cache is a lock-free, direct-mapped table. Thus, a cache hit neither locks nor allocates.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+final class MessageTemplate {
+
+    private static final String PLACEHOLDER = "{}";
+
+    private static final int CACHE_SIZE = 1024;
+    private static final MessageTemplate[] CACHE = new MessageTemplate[CACHE_SIZE];
+
+    /**
+     * Returns the parsed representation of the given template.
+     *
+     * @param source the template
+     * @return the parsed representation of the given template
+     */
+    static MessageTemplate of(String source) {
+        int index = System.identityHashCode(source) & (CACHE_SIZE - 1);
+        MessageTemplate template = CACHE[index];
+
+        /*
+         * The cache is intentionally racy. Templates are immutable and safely published through their final fields, thus a concurrent update may at worst
+         * cause a template to be parsed once more.
+         */
+        if (template == null || template.source != source) CACHE[index] = template = new MessageTemplate(source);
+
+        return template;
+    }
+
+    private final String source;
+
+    /* The bounds of the literal segments. A placeholder follows the i-th segment if placeholders[i] is set. */
+    private final int[] starts, ends;
+    private final boolean[] placeholders;
+    private final int placeholderCount;
+
+    private MessageTemplate(String source) {
+        int[] starts = new int[8], ends = new int[8];
+        boolean[] placeholders = new boolean[8];
+        int segments = 0, placeholderCount = 0;
+
+        int segmentStart = 0, from = 0, index;
+
+        while ((index = source.indexOf(PLACEHOLDER, from)) >= 0) {
+            boolean escaped = index > 0 && source.charAt(index - 1) == '\\';
+            boolean escapedEscape = escaped && index > 1 && source.charAt(index - 2) == '\\';
+
+            if (segments + 1 >= starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+                ends = Arrays.copyOf(ends, ends.length * 2);
+                placeholders = Arrays.copyOf(placeholders, placeholders.length * 2);
+            }
+
+            starts[segments] = segmentStart;
+            from = index + PLACEHOLDER.length();
+
+            if (escaped && !escapedEscape) {
+                /* Drop the backslash and keep the placeholder as part of the next literal segment. */
+                ends[segments++] = index - 1;
+                segmentStart = index;
+            } else {
+                ends[segments] = escapedEscape ? index - 1 : index;
+                placeholders[segments++] = true;
+                placeholderCount++;
+                segmentStart = from;
+            }
+        }
+
+        if (segments >= starts.length) {
+            starts = Arrays.copyOf(starts, segments + 1);
+            ends = Arrays.copyOf(ends, segments + 1);
+            placeholders = Arrays.copyOf(placeholders, segments + 1);
+        }
+
+        starts[segments] = segmentStart;
+        ends[segments++] = source.length();
+
+        this.source = source;
+        this.starts = Arrays.copyOf(starts, segments);
+        this.ends = Arrays.copyOf(ends, segments);
+        this.placeholders = Arrays.copyOf(placeholders, segments);
+        this.placeholderCount = placeholderCount;
+    }
+
+    /**
+     * Returns the number of placeholders in this template.
+     *
+     * @return the number of placeholders in this template
+     */
+    int getPlaceholderCount() {
+        return this.placeholderCount;
+    }
+
+    /**
+     * Appends this template to the given {@code StringBuilder} using the arguments of the given message.
+     *
+     * <p>Placeholders for which no argument is available are rendered as is.</p>
+     *
+     * @param sb the {@code StringBuilder} to append to
+     * @param logMessage the message holding the arguments
+     */
+    void formatTo(StringBuilder sb, LogMessage logMessage) {
+        int argCount = logMessage.getArgumentCount();
+        int arg = 0;
+
+        for (int i = 0; i < this.starts.length; i++) {
+            sb.append(this.source, this.starts[i], this.ends[i]);
+
+            if (this.placeholders[i]) {
+                if (arg < argCount) {
+                    logMessage.appendArgument(sb, arg++);
+                } else {
+                    sb.append(PLACEHOLDER);
+                }
+            }
+        }
+    }
+
+}
\ No newline at end of file
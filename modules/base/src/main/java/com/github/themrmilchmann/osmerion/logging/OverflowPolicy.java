@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+/**
+ * An {@code OverflowPolicy} defines how a logging thread behaves if a {@link LogMessage} cannot be queued for dispatch because the queue is full.
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class OverflowPolicy {
+
+    private static final OverflowPolicy BLOCK = new OverflowPolicy(Integer.MAX_VALUE);
+    private static final OverflowPolicy DROP_NEWEST = new OverflowPolicy(Integer.MIN_VALUE);
+
+    /**
+     * Returns a policy that blocks the logging thread until space becomes available.
+     *
+     * <p>No messages are lost when using this policy.</p>
+     *
+     * @return a policy that blocks the logging thread until space becomes available
+     *
+     * @since 1.0.0.0
+     */
+    public static OverflowPolicy block() {
+        return BLOCK;
+    }
+
+    /**
+     * Returns a policy that discards the message that could not be queued.
+     *
+     * <p>The logging thread is never blocked when using this policy.</p>
+     *
+     * @return a policy that discards the message that could not be queued
+     *
+     * @since 1.0.0.0
+     */
+    public static OverflowPolicy dropNewest() {
+        return DROP_NEWEST;
+    }
+
+    /**
+     * Returns a policy that discards messages logged at a level less severe than the given one and blocks otherwise.
+     *
+     * <p>A {@link LogLevel} is considered less severe than the given {@code level} if its numerical severity is greater than the numerical severity of the
+     * given {@code level}. (This matches the semantics of {@link Logger#getSeverity()}.)</p>
+     *
+     * @param level the least severe level for which the logging thread is blocked
+     * @return a policy that discards messages logged at a level less severe than the given one
+     *
+     * @throws NullPointerException if the given {@code level} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public static OverflowPolicy dropBelow(LogLevel level) {
+        if (level == null) throw new NullPointerException();
+
+        return new OverflowPolicy(level.getSeverity());
+    }
+
+    private final int threshold;
+
+    private OverflowPolicy(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns whether a logging thread should block if a message logged at the given {@code level} cannot be queued.
+     *
+     * @param level the level of the message
+     * @return whether the logging thread should block
+     */
+    boolean isBlocking(LogLevel level) {
+        return level.getSeverity() <= this.threshold;
+    }
+
+}
\ No newline at end of file
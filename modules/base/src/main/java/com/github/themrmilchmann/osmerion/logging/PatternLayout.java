@@ -0,0 +1,512 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A layout that renders {@link LogMessage}s according to a pattern.
+ *
+ * <p>A pattern is compiled once into an array of specialized field writers. Rendering a message simply invokes each writer in turn to append its field to a
+ * reusable {@code StringBuilder}. Thus, rendering a message does not allocate unless a field requires it (e.g. a message that has not been formatted yet).
+ * </p>
+ *
+ * <p>A pattern consists of literal text and conversion tokens. A conversion token starts with a {@code %} character followed by an optional minimum width
+ * and the name of the conversion. A negative width (e.g. {@code %-5level}) pads the field with trailing spaces, a positive width pads the field with leading
+ * spaces. The following conversions are supported:</p>
+ *
+ * <table>
+ * <caption>Supported conversions</caption>
+ * <tr><th>Conversion</th><th>Description</th></tr>
+ * <tr><td>{@code %d} or {@code %d{ISO}}</td><td>The construction time of the message in ISO-8601 format in UTC (e.g. {@code 2017-01-01T12:00:00.000Z})</td></tr>
+ * <tr><td>{@code %d{pattern}}</td><td>The construction time of the message formatted by a {@link DateTimeFormatter} with the given pattern in the system
+ * default time-zone</td></tr>
+ * <tr><td>{@code %seq}</td><td>The {@link LogMessage#getSequence() sequence number} of the message</td></tr>
+ * <tr><td>{@code %level}</td><td>The name of the message's {@link LogLevel}</td></tr>
+ * <tr><td>{@code %severity}</td><td>The numerical severity of the message's {@code LogLevel}</td></tr>
+ * <tr><td>{@code %logger}</td><td>The {@link Logger#getName() name} of the logger that created the message, or its {@link Logger#getId() ID} if it has no
+ * name</td></tr>
+ * <tr><td>{@code %loc}</td><td>The {@link LogMessage#getLocation() source location} of the message (e.g. {@code com.example.Foo.bar(Foo.java:42)}), or nothing
+ * if the location has not been captured</td></tr>
+ * <tr><td>{@code %msg}</td><td>The message component of the message</td></tr>
+ * <tr><td>{@code %fields}</td><td>The structured fields of the message as {@code {key=value, ...}} preceded by a space, or nothing if the message has no
+ * fields</td></tr>
+ * <tr><td>{@code %ctx}</td><td>The {@link LogMessage#getContext() context} of the message as {@code {key=value, ...}} preceded by a space, or nothing if the
+ * context is empty</td></tr>
+ * <tr><td>{@code %ex}</td><td>A line separator followed by the stack trace of the throwable attached to the message, if any</td></tr>
+ * <tr><td>{@code %ex{ref}}</td><td>Like {@code %ex}, but the stack trace is prefixed with a reference ({@code [#<fingerprint>]}) the first time it is
+ * rendered. Subsequent throwables with the same {@link LogMessage#getThrowableFingerprint() fingerprint} are rendered as a single line followed by the
+ * reference instead. Recently rendered fingerprints are tracked in the {@link StackTraceCache} that is
+ * {@link #formatTo(LogMessage, StringBuilder, StackTraceCache) passed by the caller}. Without a cache, every stack trace is rendered in full.</td></tr>
+ * <tr><td>{@code %n}</td><td>A line separator ({@code \n})</td></tr>
+ * <tr><td>{@code %%}</td><td>A literal {@code %} character</td></tr>
+ * </table>
+ *
+ * <p>Formatted timestamps are cached. Consecutive messages created within the same millisecond (or, for ISO-8601 timestamps, within the same second) reuse
+ * the previously formatted timestamp.</p>
+ *
+ * <p>Instances of this class are immutable and thread-safe. (State that depends on previously rendered messages, such as the stack traces referred to by
+ * {@code %ex{ref}}, is owned by the caller.)</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class PatternLayout {
+
+    /**
+     * The pattern used by the {@link #getDefault() default layout}.
+     *
+     * @since 1.0.0.0
+     */
+    public static final String DEFAULT_PATTERN = "%d [%level] %msg%fields%ex%n";
+
+    private static final PatternLayout DEFAULT = compile(DEFAULT_PATTERN);
+
+    /**
+     * Returns a layout that uses the {@link #DEFAULT_PATTERN default pattern}.
+     *
+     * @return a layout that uses the default pattern
+     *
+     * @since 1.0.0.0
+     */
+    public static PatternLayout getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Compiles the given pattern into a layout.
+     *
+     * @param pattern the pattern to compile
+     *
+     * @return the compiled layout
+     *
+     * @throws IllegalArgumentException if the given pattern is malformed or contains an unknown conversion
+     * @throws NullPointerException if the given {@code pattern} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public static PatternLayout compile(String pattern) {
+        if (pattern == null) throw new NullPointerException();
+
+        List<FieldWriter> writers = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int length = pattern.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = pattern.charAt(i++);
+
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+
+            if (i == length) throw new IllegalArgumentException();
+
+            if (pattern.charAt(i) == '%') {
+                literal.append('%');
+                i++;
+                continue;
+            }
+
+            boolean leftAlign = false;
+            int width = 0;
+
+            if (pattern.charAt(i) == '-') {
+                leftAlign = true;
+                i++;
+            }
+
+            while (i < length && Character.isDigit(pattern.charAt(i))) width = width * 10 + (pattern.charAt(i++) - '0');
+
+            int nameStart = i;
+            while (i < length && Character.isLetter(pattern.charAt(i))) i++;
+            if (nameStart == i) throw new IllegalArgumentException();
+
+            String name = pattern.substring(nameStart, i);
+            String option = null;
+
+            if (i < length && pattern.charAt(i) == '{') {
+                int optionEnd = pattern.indexOf('}', i);
+                if (optionEnd < 0) throw new IllegalArgumentException();
+
+                option = pattern.substring(i + 1, optionEnd);
+                i = optionEnd + 1;
+            }
+
+            if (literal.length() > 0) {
+                writers.add(literalWriter(literal.toString()));
+                literal.setLength(0);
+            }
+
+            FieldWriter writer = fieldWriter(name, option);
+            writers.add(width > 0 ? paddedWriter(writer, width, leftAlign) : writer);
+        }
+
+        if (literal.length() > 0) writers.add(literalWriter(literal.toString()));
+
+        return new PatternLayout(pattern, writers.toArray(new FieldWriter[0]));
+    }
+
+    private final String pattern;
+    private final FieldWriter[] writers;
+
+    private PatternLayout(String pattern, FieldWriter[] writers) {
+        this.pattern = pattern;
+        this.writers = writers;
+    }
+
+    /**
+     * Returns the pattern this layout has been compiled from.
+     *
+     * @return the pattern this layout has been compiled from
+     *
+     * @since 1.0.0.0
+     */
+    public String getPattern() {
+        return this.pattern;
+    }
+
+    /**
+     * Renders the given message according to this layout.
+     *
+     * <p>Prefer {@link #formatTo(LogMessage, StringBuilder)} with a reusable {@code StringBuilder} in performance-sensitive code.</p>
+     *
+     * @param logMessage the message to render
+     *
+     * @return the rendered message
+     *
+     * @throws NullPointerException if the given {@code logMessage} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public String format(LogMessage logMessage) {
+        StringBuilder stringBuilder = new StringBuilder(128);
+        this.formatTo(logMessage, stringBuilder);
+
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Renders the given message according to this layout and appends the result to the given {@code StringBuilder}.
+     *
+     * @param logMessage    the message to render
+     * @param stringBuilder the {@code StringBuilder} to append to
+     *
+     * @throws NullPointerException if any of the given parameters is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public void formatTo(LogMessage logMessage, StringBuilder stringBuilder) {
+        if (logMessage == null || stringBuilder == null) throw new NullPointerException();
+
+        this.formatTo(logMessage, stringBuilder, null);
+    }
+
+    /**
+     * Renders the given message according to this layout and appends the result to the given {@code StringBuilder}.
+     *
+     * <p>The given {@code StackTraceCache} is used to render {@code %ex{ref}} conversions. It tracks the stack traces that have already been rendered (e.g. to
+     * the same file), and should thus be owned by the caller and be {@link StackTraceCache#clear() cleared} whenever previously rendered stack traces are no
+     * longer available to the reader (e.g. when a file is rolled over).</p>
+     *
+     * @param logMessage    the message to render
+     * @param stringBuilder the {@code StringBuilder} to append to
+     * @param stackTraces   the cache of stack traces that have already been rendered, or {@code null} to render every stack trace in full
+     *
+     * @throws NullPointerException if the given {@code logMessage} or {@code stringBuilder} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public void formatTo(LogMessage logMessage, StringBuilder stringBuilder, StackTraceCache stackTraces) {
+        if (logMessage == null || stringBuilder == null) throw new NullPointerException();
+
+        for (FieldWriter writer : this.writers) writer.write(logMessage, stringBuilder, stackTraces);
+    }
+
+    @Override
+    public String toString() {
+        return this.pattern;
+    }
+
+    // #########################################################################################################################################################
+    // # Field writers #########################################################################################################################################
+    // #########################################################################################################################################################
+
+    @FunctionalInterface
+    private interface FieldWriter {
+
+        void write(LogMessage logMessage, StringBuilder stringBuilder, StackTraceCache stackTraces);
+
+    }
+
+    private static FieldWriter fieldWriter(String name, String option) {
+        switch (name) {
+            case "d":
+            case "date":
+                return option == null || "ISO".equals(option) ? new IsoDateWriter() : new DateWriter(DateTimeFormatter.ofPattern(option));
+            case "seq":
+                return (logMessage, sb, traces) -> sb.append(logMessage.getSequence());
+            case "level":
+                return (logMessage, sb, traces) -> sb.append(logMessage.getLevel().getName());
+            case "severity":
+                return (logMessage, sb, traces) -> sb.append(logMessage.getLevel().getSeverity());
+            case "logger":
+                return (logMessage, sb, traces) -> writeLogger(logMessage, sb);
+            case "loc":
+                return (logMessage, sb, traces) -> {
+                    LogLocation location = logMessage.getLocation();
+                    if (location != null) sb.append(location);
+                };
+            case "msg":
+                return (logMessage, sb, traces) -> {
+                    if (logMessage.hasMessage()) logMessage.appendMessage(sb);
+                };
+            case "fields":
+                return (logMessage, sb, traces) -> writeFields(logMessage, sb);
+            case "ctx":
+                return (logMessage, sb, traces) -> writeContext(logMessage, sb);
+            case "ex":
+                if (option == null) return (logMessage, sb, traces) -> writeThrowable(logMessage, sb);
+                if ("ref".equals(option)) return PatternLayout::writeThrowableReference;
+
+                throw new IllegalArgumentException();
+            case "n":
+                return (logMessage, sb, traces) -> sb.append('\n');
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    private static FieldWriter literalWriter(String literal) {
+        return (logMessage, sb, traces) -> sb.append(literal);
+    }
+
+    private static FieldWriter paddedWriter(FieldWriter writer, int width, boolean leftAlign) {
+        return (logMessage, sb, traces) -> {
+            int start = sb.length();
+            writer.write(logMessage, sb, traces);
+
+            int padding = width - (sb.length() - start);
+            if (padding <= 0) return;
+
+            if (leftAlign) {
+                for (int i = 0; i < padding; i++) sb.append(' ');
+            } else {
+                sb.setLength(sb.length() + padding);
+
+                for (int i = sb.length() - 1; i >= start + padding; i--) sb.setCharAt(i, sb.charAt(i - padding));
+                for (int i = start; i < start + padding; i++) sb.setCharAt(i, ' ');
+            }
+        };
+    }
+
+    private static void writeLogger(LogMessage logMessage, StringBuilder sb) {
+        ILogger logger = logMessage.getLogger();
+
+        if (logger instanceof Logger) {
+            String name = ((Logger) logger).getName();
+
+            if (name != null) {
+                sb.append(name);
+            } else {
+                sb.append(((Logger) logger).getId());
+            }
+        }
+    }
+
+    private static void writeFields(LogMessage logMessage, StringBuilder sb) {
+        int count = logMessage.getFieldCount();
+        if (count == 0) return;
+
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? " {" : ", ").append(logMessage.getFieldKey(i)).append('=');
+            logMessage.appendField(sb, i);
+        }
+
+        sb.append('}');
+    }
+
+    private static void writeContext(LogMessage logMessage, StringBuilder sb) {
+        LogContext context = logMessage.getContext();
+
+        int count = context.getFieldCount();
+        if (count == 0) return;
+
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? " {" : ", ").append(context.getFieldKey(i)).append('=');
+            context.appendField(sb, i);
+        }
+
+        sb.append('}');
+    }
+
+    private static void writeThrowable(LogMessage logMessage, StringBuilder sb) {
+        Throwable throwable = logMessage.getThrowable();
+        if (throwable == null) return;
+
+        sb.append('\n');
+        appendTrimmed(sb, Throwables.render(throwable));
+    }
+
+    /*
+     * Appends the given text without trailing line separators.
+     */
+    private static void appendTrimmed(StringBuilder sb, String text) {
+        int end = text.length();
+        while (end > 0 && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')) end--;
+
+        sb.append(text, 0, end);
+    }
+
+    private static void appendReference(StringBuilder sb, long fingerprint) {
+        sb.append("[#");
+        for (int shift = 60; shift >= 0; shift -= 4) sb.append(Character.forDigit((int) (fingerprint >>> shift) & 0xF, 16));
+        sb.append(']');
+    }
+
+    /*
+     * Appends the given value as zero-padded decimal number with the given number of digits.
+     */
+    private static void appendPadded(StringBuilder sb, int value, int digits) {
+        for (int divisor = digits == 4 ? 1000 : digits == 3 ? 100 : 10; divisor > 0; divisor /= 10) sb.append((char) ('0' + (value / divisor) % 10));
+    }
+
+    /*
+     * Renders each distinct stack trace in full only once (per cache) and refers to it on subsequent occurrences.
+     */
+    private static void writeThrowableReference(LogMessage logMessage, StringBuilder sb, StackTraceCache stackTraces) {
+        long fingerprint = logMessage.getThrowableFingerprint();
+        if (fingerprint == 0L) return;
+
+        sb.append('\n');
+
+        if (stackTraces != null && stackTraces.get(fingerprint) != null) {
+            sb.append(logMessage.getThrowable()).append(' ');
+            appendReference(sb, fingerprint);
+        } else {
+            appendReference(sb, fingerprint);
+            sb.append(' ');
+            appendTrimmed(sb, stackTraces != null ? stackTraces.render(logMessage) : Throwables.render(logMessage.getThrowable()));
+        }
+    }
+
+    /*
+     * Renders timestamps in ISO-8601 format in UTC. The part of the timestamp up to (and including) the seconds is cached and only the milliseconds are
+     * rendered per message.
+     */
+    private static final class IsoDateWriter implements FieldWriter {
+
+        private volatile CachedTimestamp cache = new CachedTimestamp(Long.MIN_VALUE, "");
+
+        @Override
+        public void write(LogMessage logMessage, StringBuilder sb, StackTraceCache stackTraces) {
+            long millis = logMessage.getConstructionTime();
+            long second = Math.floorDiv(millis, 1000L);
+
+            CachedTimestamp cache = this.cache;
+
+            if (cache.key != second) {
+                LocalDateTime dateTime = LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+                StringBuilder prefix = new StringBuilder(20);
+
+                int year = dateTime.getYear();
+
+                if (year >= 0 && year <= 9999) {
+                    appendPadded(prefix, year, 4);
+                } else {
+                    prefix.append(year);
+                }
+
+                prefix.append('-');
+                appendPadded(prefix, dateTime.getMonthValue(), 2);
+                prefix.append('-');
+                appendPadded(prefix, dateTime.getDayOfMonth(), 2);
+                prefix.append('T');
+                appendPadded(prefix, dateTime.getHour(), 2);
+                prefix.append(':');
+                appendPadded(prefix, dateTime.getMinute(), 2);
+                prefix.append(':');
+                appendPadded(prefix, dateTime.getSecond(), 2);
+                prefix.append('.');
+
+                this.cache = cache = new CachedTimestamp(second, prefix.toString());
+            }
+
+            sb.append(cache.text);
+            appendPadded(sb, (int) Math.floorMod(millis, 1000L), 3);
+            sb.append('Z');
+        }
+
+    }
+
+    /*
+     * Renders timestamps using a DateTimeFormatter. The most recently rendered timestamp is cached.
+     */
+    private static final class DateWriter implements FieldWriter {
+
+        private final DateTimeFormatter formatter;
+        private volatile CachedTimestamp cache = new CachedTimestamp(Long.MIN_VALUE, "");
+
+        private DateWriter(DateTimeFormatter formatter) {
+            this.formatter = formatter.withZone(ZoneId.systemDefault());
+        }
+
+        @Override
+        public void write(LogMessage logMessage, StringBuilder sb, StackTraceCache stackTraces) {
+            long millis = logMessage.getConstructionTime();
+            CachedTimestamp cache = this.cache;
+
+            if (cache.key != millis) this.cache = cache = new CachedTimestamp(millis, this.formatter.format(Instant.ofEpochMilli(millis)));
+
+            sb.append(cache.text);
+        }
+
+    }
+
+    private static final class CachedTimestamp {
+
+        private final long key;
+        private final String text;
+
+        private CachedTimestamp(long key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+
+    }
+
+}
\ No newline at end of file
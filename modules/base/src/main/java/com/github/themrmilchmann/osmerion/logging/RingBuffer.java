@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, preallocated, lock-free multi-producer single-consumer queue.
+ *
+ * <p>Each slot carries a sequence number which is used to hand the slot over between the producers and the consumer. A producer claims a position by
+ * advancing the tail using a CAS operation, fills the slot, and publishes it by storing the next sequence number. The consumer processes slots in order and
+ * returns them to the producers by storing the sequence number of the next lap.</p>
+ *
+ * <p>In garbage-free mode, every slot owns a preallocated {@link LogMessage} that is reinitialized by the producers and reused once the consumer released the
+ * slot.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+final class RingBuffer {
+
+    private static final VarHandle TAIL, HEAD, CONSUMER_WAITING, SEQUENCE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TAIL = lookup.findVarHandle(RingBuffer.class, "tail", long.class);
+            HEAD = lookup.findVarHandle(RingBuffer.class, "head", long.class);
+            CONSUMER_WAITING = lookup.findVarHandle(RingBuffer.class, "consumerWaiting", boolean.class);
+            SEQUENCE = lookup.findVarHandle(Slot.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+
+    private final WaitStrategy waitStrategy;
+    private volatile Thread consumer;
+
+    @SuppressWarnings("unused")
+    private volatile long tail;
+
+    @SuppressWarnings("unused")
+    private volatile boolean consumerWaiting;
+
+    /* Only written by the consumer. */
+    private volatile long head;
+
+    private volatile boolean closed;
+
+    RingBuffer(int capacity, WaitStrategy waitStrategy, boolean garbageFree) {
+        /* With a single slot, the sequence of a published slot equals the sequence of the slot when it is free for the next lap. */
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) throw new IllegalArgumentException();
+
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+        this.waitStrategy = waitStrategy;
+
+        for (int i = 0; i < capacity; i++) this.slots[i] = new Slot(i, garbageFree ? new LogMessage(true) : null);
+    }
+
+    /**
+     * Returns the capacity of this buffer.
+     *
+     * @return the capacity of this buffer
+     */
+    int capacity() {
+        return this.slots.length;
+    }
+
+    /**
+     * Returns whether this buffer operates in garbage-free mode.
+     *
+     * @return whether this buffer operates in garbage-free mode
+     */
+    boolean isGarbageFree() {
+        return this.slots[0].pooled != null;
+    }
+
+    /**
+     * Stops accepting new messages.
+     *
+     * <p>Messages that have been queued before the buffer has been closed may still be consumed.</p>
+     */
+    void close() {
+        this.closed = true;
+        this.signal(true);
+    }
+
+    /**
+     * Returns whether this buffer has been closed.
+     *
+     * @return whether this buffer has been closed
+     */
+    boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Returns the number of positions that have been claimed by producers so far.
+     *
+     * @return the number of positions that have been claimed by producers
+     */
+    long producerPosition() {
+        return (long) TAIL.getVolatile(this);
+    }
+
+    /**
+     * Returns the number of slots that have been processed and released by the consumer so far.
+     *
+     * @return the number of slots that have been released by the consumer
+     */
+    long consumerPosition() {
+        return (long) HEAD.getAcquire(this);
+    }
+
+    // #########################################################################################################################################################
+    // # Producers #############################################################################################################################################
+    // #########################################################################################################################################################
+
+    /**
+     * Attempts to claim the next position.
+     *
+     * <p>Once a position has been claimed, the producer must fill the respective {@link #slot(long) slot} and {@link #publish(long) publish} it.</p>
+     *
+     * @param block whether to wait for space to become available if the buffer is full
+     * @return the claimed position, or {@code -1} if no position could be claimed
+     */
+    long claim(boolean block) {
+        return this.claim(1, block);
+    }
+
+    /**
+     * Attempts to claim the given number of consecutive positions.
+     *
+     * <p>Since the consumer releases slots in order, the positions are available once the slot of the last position is available. Once the positions have
+     * been claimed, the producer must fill and publish all of them.</p>
+     *
+     * @param count the number of positions to claim (must be positive and not greater than the capacity)
+     * @param block whether to wait for space to become available if the buffer is full
+     * @return the first claimed position, or {@code -1} if no positions could be claimed
+     */
+    long claim(int count, boolean block) {
+        int iteration = 0;
+        long pos = (long) TAIL.getVolatile(this);
+
+        while (!this.closed) {
+            long last = pos + count - 1;
+            Slot slot = this.slots[(int) last & this.mask];
+            long dif = (long) SEQUENCE.getAcquire(slot) - last;
+
+            if (dif == 0) {
+                if (TAIL.compareAndSet(this, pos, pos + count)) return pos;
+            } else if (dif < 0) {
+                if (!block) return -1;
+
+                this.signal(false);
+                this.waitStrategy.idle(iteration++, Long.MAX_VALUE);
+            }
+
+            pos = (long) TAIL.getVolatile(this);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the slot at the given position.
+     *
+     * @param pos the position
+     * @return the slot at the given position
+     */
+    Slot slot(long pos) {
+        return this.slots[(int) pos & this.mask];
+    }
+
+    /**
+     * Publishes the slot at the given claimed position to the consumer.
+     *
+     * @param pos the claimed position
+     */
+    void publish(long pos) {
+        SEQUENCE.setRelease(this.slots[(int) pos & this.mask], pos + 1);
+        this.signal(false);
+    }
+
+    private void signal(boolean force) {
+        if (force || (boolean) CONSUMER_WAITING.getVolatile(this)) {
+            Thread consumer = this.consumer;
+            if (consumer != null) LockSupport.unpark(consumer);
+        }
+    }
+
+    // #########################################################################################################################################################
+    // # Consumer ##############################################################################################################################################
+    // #########################################################################################################################################################
+
+    /**
+     * Registers the given thread as the consumer of this buffer.
+     *
+     * @param consumer the consumer thread
+     */
+    void setConsumer(Thread consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Returns the next published slot or {@code null} if no slot is available.
+     *
+     * <p>This method must only be called by the consumer.</p>
+     *
+     * @return the next published slot or {@code null}
+     */
+    Slot peek() {
+        return this.peek(0);
+    }
+
+    /**
+     * Returns the published slot at the given offset from the next slot to be consumed or {@code null} if that slot is not available.
+     *
+     * <p>This method must only be called by the consumer.</p>
+     *
+     * @param offset the offset from the next slot to be consumed (must be less than the capacity)
+     * @return the published slot at the given offset or {@code null}
+     */
+    Slot peek(int offset) {
+        long pos = (long) HEAD.get(this) + offset;
+        Slot slot = this.slots[(int) pos & this.mask];
+
+        return (long) SEQUENCE.getAcquire(slot) == pos + 1 ? slot : null;
+    }
+
+    /**
+     * Returns the slot obtained by {@link #peek()} to the producers.
+     *
+     * <p>This method must only be called by the consumer.</p>
+     *
+     * @param slot the slot to be released
+     */
+    void release(Slot slot) {
+        slot.logger = null;
+        slot.journalPosition = -1L;
+        slot.location = null;
+
+        if (slot.pooled != null) {
+            slot.pooled.clear();
+        } else {
+            slot.message = null;
+        }
+
+        long head = (long) HEAD.get(this);
+        SEQUENCE.setRelease(slot, head + this.slots.length);
+        HEAD.setRelease(this, head + 1);
+    }
+
+    /**
+     * Waits until a slot is available and returns it or returns {@code null} if the buffer has been closed and no slot is available.
+     *
+     * <p>This method must only be called by the consumer.</p>
+     *
+     * @return the next published slot or {@code null}
+     */
+    Slot await() {
+        return this.await(0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Waits until the slot at the given offset from the next slot to be consumed is available and returns it, or returns {@code null} if the deadline has
+     * passed or the buffer has been closed and no such slot will become available.
+     *
+     * <p>This method must only be called by the consumer.</p>
+     *
+     * @param offset the offset from the next slot to be consumed (must be less than the capacity)
+     * @param deadline the deadline in terms of {@link System#nanoTime()}, or {@link Long#MAX_VALUE} to wait indefinitely
+     * @return the published slot at the given offset or {@code null}
+     */
+    Slot await(int offset, long deadline) {
+        int iteration = 0;
+        Slot slot;
+
+        while ((slot = this.peek(offset)) == null) {
+            if (this.closed && this.producerPosition() == (long) HEAD.get(this) + offset) return null;
+
+            long remaining = Long.MAX_VALUE;
+            if (deadline != Long.MAX_VALUE && (remaining = deadline - System.nanoTime()) <= 0) return null;
+
+            if (this.waitStrategy.isParking(iteration)) {
+                CONSUMER_WAITING.setVolatile(this, true);
+
+                if ((slot = this.peek(offset)) != null) {
+                    CONSUMER_WAITING.setVolatile(this, false);
+                    return slot;
+                }
+
+                this.waitStrategy.idle(iteration++, remaining);
+                CONSUMER_WAITING.setVolatile(this, false);
+            } else {
+                this.waitStrategy.idle(iteration++, remaining);
+            }
+        }
+
+        return slot;
+    }
+
+    /**
+     * A slot of a {@link RingBuffer}.
+     *
+     * @since 1.0.0.0
+     */
+    static final class Slot {
+
+        /* Package-private for VarHandle access. */
+        volatile long sequence;
+
+        /* The preallocated message of this slot in garbage-free mode, or null. */
+        final LogMessage pooled;
+
+        Logger logger;
+        LogMessage message;
+
+        /* The time at which the message has been queued in terms of System.nanoTime(). */
+        long enqueueTime;
+
+        /* The position of the message in the logger's journal, or -1 if the message has not been journaled. */
+        long journalPosition = -1L;
+
+        /* The location captured before the slot has been claimed, or null. */
+        LogLocation location;
+
+        /*
+         * Whether the message starts a run of messages that have been published together by a single thread. Messages within a run are ordered and must not
+         * be reordered when the messages of a batch are merged by timestamp.
+         */
+        boolean runStart;
+
+        private Slot(long sequence, LogMessage pooled) {
+            this.sequence = sequence;
+            this.pooled = pooled;
+            this.message = pooled;
+        }
+
+    }
+
+}
\ No newline at end of file
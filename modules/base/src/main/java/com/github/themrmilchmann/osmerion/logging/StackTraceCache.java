@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of rendered stack traces keyed by {@link LogMessage#getThrowableFingerprint() throwable fingerprints}.
+ *
+ * <p>When the same failure is logged repeatedly, rendering its stack trace over and over again is expensive. Listeners may use a {@code StackTraceCache} to
+ * render each distinct stack trace once and to recognize repeated stack traces (e.g. to emit a short reference instead of the full stack trace).</p>
+ *
+ * <p>The cache retains the most recently used stack traces up to its capacity. Since fingerprints do not include the messages of throwables, a cached stack
+ * trace shows the messages of the first throwable that has been rendered for a fingerprint.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @see PatternLayout
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class StackTraceCache {
+
+    /**
+     * The default capacity of a {@code StackTraceCache}.
+     *
+     * @since 1.0.0.0
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int capacity;
+    private final LinkedHashMap<Long, String> traces;
+
+    /**
+     * Creates a new cache with the {@link #DEFAULT_CAPACITY default capacity}.
+     *
+     * @since 1.0.0.0
+     */
+    public StackTraceCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new cache with the given capacity.
+     *
+     * @param capacity the maximum number of stack traces retained by the cache
+     *
+     * @throws IllegalArgumentException if the given {@code capacity} is not positive
+     *
+     * @since 1.0.0.0
+     */
+    public StackTraceCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException();
+
+        this.capacity = capacity;
+        this.traces = new LinkedHashMap<Long, String>(Math.min(capacity, 64), 0.75F, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return this.size() > StackTraceCache.this.capacity;
+            }
+
+        };
+    }
+
+    /**
+     * Returns the maximum number of stack traces retained by this cache.
+     *
+     * @return the maximum number of stack traces retained by this cache
+     *
+     * @since 1.0.0.0
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns the cached stack trace for the given fingerprint, or {@code null} if no stack trace has been cached for the fingerprint.
+     *
+     * @param fingerprint the fingerprint
+     *
+     * @return the cached stack trace, or {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public synchronized String get(long fingerprint) {
+        return this.traces.get(fingerprint);
+    }
+
+    /**
+     * Returns the rendered stack trace of the {@link Throwable} attached to the given {@code LogMessage}, or {@code null} if no {@code Throwable} has been
+     * attached.
+     *
+     * <p>If the stack trace has not been cached yet, it is rendered (as by {@link Throwable#printStackTrace()}) and added to this cache.</p>
+     *
+     * @param logMessage the message
+     *
+     * @return the rendered stack trace, or {@code null}
+     *
+     * @throws NullPointerException if the given {@code logMessage} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public String render(LogMessage logMessage) {
+        long fingerprint = logMessage.getThrowableFingerprint();
+        if (fingerprint == 0L) return null;
+
+        String trace = this.get(fingerprint);
+
+        if (trace == null) {
+            /* Render outside the lock. Concurrently rendering the same trace twice is harmless. */
+            trace = Throwables.render(logMessage.getThrowable());
+
+            synchronized (this) {
+                String existing = this.traces.putIfAbsent(fingerprint, trace);
+                if (existing != null) trace = existing;
+            }
+        }
+
+        return trace;
+    }
+
+    /**
+     * Returns the number of stack traces currently retained by this cache.
+     *
+     * @return the number of stack traces currently retained by this cache
+     *
+     * @since 1.0.0.0
+     */
+    public synchronized int size() {
+        return this.traces.size();
+    }
+
+    /**
+     * Removes all stack traces from this cache.
+     *
+     * @since 1.0.0.0
+     */
+    public synchronized void clear() {
+        this.traces.clear();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link LogClock} that is controlled explicitly.
+ *
+ * <p>The time of this clock only changes when {@link #setTime(long, TimeUnit)} or {@link #advance(long, TimeUnit)} is called. This makes the timestamps of
+ * logged messages deterministic, which is useful for testing.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public final class TestLogClock implements LogClock {
+
+    private final AtomicLong nanos;
+
+    /**
+     * Creates a new clock set to the epoch ({@code 1970-01-01T00:00:00Z}).
+     *
+     * @since 1.0.0.0
+     */
+    public TestLogClock() {
+        this(0L);
+    }
+
+    /**
+     * Creates a new clock set to the given time.
+     *
+     * @param millis the initial time in milliseconds since the epoch
+     *
+     * @since 1.0.0.0
+     */
+    public TestLogClock(long millis) {
+        this.nanos = new AtomicLong(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public long currentTimeMillis() {
+        return Math.floorDiv(this.nanos.get(), 1_000_000L);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.0.0.0
+     */
+    @Override
+    public long currentTimeNanos() {
+        return this.nanos.get();
+    }
+
+    /**
+     * Sets the time of this clock.
+     *
+     * @param value the new time since the epoch
+     * @param unit  the unit of the {@code value}
+     *
+     * @throws NullPointerException if the given {@code unit} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public void setTime(long value, TimeUnit unit) {
+        this.nanos.set(unit.toNanos(value));
+    }
+
+    /**
+     * Advances the time of this clock by the given duration.
+     *
+     * @param value the duration
+     * @param unit  the unit of the {@code value}
+     *
+     * @return the new time of this clock in nanoseconds since the epoch
+     *
+     * @throws NullPointerException if the given {@code unit} is {@code null}
+     *
+     * @since 1.0.0.0
+     */
+    public long advance(long value, TimeUnit unit) {
+        return this.nanos.addAndGet(unit.toNanos(value));
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Utilities for {@link Throwable}s attached to {@link LogMessage}s.
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+final class Throwables {
+
+    /* The maximum number of throwables of a cause chain that are fingerprinted and encoded. */
+    static final int MAX_CAUSES = 32;
+
+    private Throwables() {}
+
+    /**
+     * Computes a fingerprint of the given {@code Throwable}.
+     *
+     * <p>The fingerprint is a hash of the types and stack frames of the throwable and its causes. Throwables thrown from the same location with the same cause
+     * chain have the same fingerprint regardless of their messages. The fingerprint is never {@code 0}.</p>
+     *
+     * @param t the throwable
+     * @return the fingerprint of the given throwable
+     */
+    static long fingerprint(Throwable t) {
+        long h = 0xCBF29CE484222325L;
+
+        for (int depth = 0; t != null && depth < MAX_CAUSES; t = t.getCause(), depth++) {
+            h = mix(h, t.getClass().getName().hashCode());
+
+            for (StackTraceElement element : t.getStackTrace()) {
+                h = mix(h, element.getClassName().hashCode());
+                h = mix(h, element.getMethodName().hashCode());
+                h = mix(h, element.getLineNumber());
+            }
+
+            /* Separate the frames of a throwable from those of its cause. */
+            h = mix(h, -1);
+        }
+
+        return h != 0 ? h : 1;
+    }
+
+    private static long mix(long h, int value) {
+        h = (h ^ value) * 0x100000001B3L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Renders the stack trace of the given {@code Throwable} as printed by {@link Throwable#printStackTrace()}.
+     *
+     * @param t the throwable
+     * @return the rendered stack trace
+     */
+    static String render(Throwable t) {
+        StringWriter writer = new StringWriter(1024);
+        t.printStackTrace(new PrintWriter(writer));
+
+        return writer.toString();
+    }
+
+    /**
+     * Returns the number of throwables in the cause chain of the given {@code Throwable} (including the throwable itself) that are covered by its
+     * {@link #fingerprint(Throwable) fingerprint}.
+     *
+     * @param t the throwable
+     * @return the number of throwables covered by the fingerprint of the given throwable
+     */
+    static int depth(Throwable t) {
+        int depth = 0;
+        for (; t != null && depth < MAX_CAUSES; t = t.getCause()) depth++;
+
+        return depth;
+    }
+
+    /**
+     * Renders the suppressed throwables of the given {@code Throwable} as printed by {@link Throwable#printStackTrace()}, or returns {@code null} if the
+     * throwable has no suppressed throwables.
+     *
+     * @param t the throwable
+     * @return the rendered suppressed throwables, or {@code null}
+     */
+    static String renderSuppressed(Throwable t) {
+        Throwable[] suppressed = t.getSuppressed();
+        if (suppressed.length == 0) return null;
+
+        StringBuilder sb = new StringBuilder(256);
+        StackTraceElement[] trace = t.getStackTrace();
+
+        for (Throwable s : suppressed) renderEnclosed(sb, s, trace, "Suppressed: ", "\t", 0);
+
+        return sb.toString();
+    }
+
+    /*
+     * Mirrors Throwable#printEnclosedStackTrace. Circular references are not detected but cut off after MAX_CAUSES levels.
+     */
+    private static void renderEnclosed(StringBuilder sb, Throwable t, StackTraceElement[] enclosing, String caption, String prefix, int depth) {
+        if (depth == MAX_CAUSES) return;
+
+        String separator = System.lineSeparator();
+        StackTraceElement[] trace = t.getStackTrace();
+
+        int m = trace.length - 1;
+        int n = enclosing.length - 1;
+
+        while (m >= 0 && n >= 0 && trace[m].equals(enclosing[n])) {
+            m--;
+            n--;
+        }
+
+        sb.append(prefix).append(caption).append(t).append(separator);
+        for (int i = 0; i <= m; i++) sb.append(prefix).append("\tat ").append(trace[i]).append(separator);
+        if (m < trace.length - 1) sb.append(prefix).append("\t... ").append(trace.length - 1 - m).append(" more").append(separator);
+
+        for (Throwable s : t.getSuppressed()) renderEnclosed(sb, s, trace, "Suppressed: ", prefix + "\t", depth + 1);
+
+        Throwable cause = t.getCause();
+        if (cause != null) renderEnclosed(sb, cause, trace, "Caused by: ", prefix, depth + 1);
+    }
+
+    /**
+     * Assembles a stack trace as printed by {@link Throwable#printStackTrace()} from its components.
+     *
+     * <p>Frames that a cause has in common with the throwable it caused are collapsed into a {@code "... n more"} line.</p>
+     *
+     * @param headers the {@link Throwable#toString() string representations} of the throwables of the cause chain
+     * @param suppressed the {@link #renderSuppressed(Throwable) rendered suppressed throwables} of the throwables of the cause chain (elements may be
+     *                   {@code null})
+     * @param frames the stack frames of the throwables of the cause chain
+     * @return the rendered stack trace
+     */
+    static String render(String[] headers, String[] suppressed, String[][] frames) {
+        String separator = System.lineSeparator();
+        StringBuilder sb = new StringBuilder(1024);
+        String[] enclosing = null;
+
+        for (int depth = 0; depth < headers.length; depth++) {
+            String[] trace = depth < frames.length ? frames[depth] : new String[0];
+
+            int m = trace.length - 1;
+
+            if (enclosing != null) {
+                int n = enclosing.length - 1;
+
+                while (m >= 0 && n >= 0 && trace[m].equals(enclosing[n])) {
+                    m--;
+                    n--;
+                }
+
+                sb.append("Caused by: ");
+            }
+
+            sb.append(headers[depth]).append(separator);
+            for (int i = 0; i <= m; i++) sb.append("\tat ").append(trace[i]).append(separator);
+            if (m < trace.length - 1) sb.append("\t... ").append(trace.length - 1 - m).append(" more").append(separator);
+            if (suppressed[depth] != null) sb.append(suppressed[depth]);
+
+            enclosing = trace;
+        }
+
+        return sb.toString();
+    }
+
+}
\ No newline at end of file
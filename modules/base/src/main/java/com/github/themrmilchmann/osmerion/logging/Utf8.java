@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+/**
+ * Allocation-free UTF-8 encoding of character sequences.
+ *
+ * <p>Unlike {@link String#getBytes(java.nio.charset.Charset)}, these utilities encode into caller-provided buffers and thus may be used to encode messages
+ * into reusable buffers. Unpaired surrogates are encoded as {@code '?'}.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+final class Utf8 {
+
+    /**
+     * The maximum number of bytes required to encode a single UTF-16 code unit.
+     */
+    static final int MAX_BYTES_PER_CHAR = 3;
+
+    private Utf8() {}
+
+    /**
+     * Encodes the given range of the given {@code CharSequence} into the given array.
+     *
+     * <p>The array must have room for at least {@code (end - start) * MAX_BYTES_PER_CHAR} bytes after the given offset.</p>
+     *
+     * @param src the characters to be encoded
+     * @param start the index of the first character to be encoded
+     * @param end the index after the last character to be encoded
+     * @param dst the array to encode into
+     * @param offset the index in the array at which the first byte is written
+     * @return the index after the last byte that has been written
+     */
+    static int encode(CharSequence src, int start, int end, byte[] dst, int offset) {
+        int i = start;
+
+        /* Fast path for ASCII */
+        while (i < end) {
+            char c = src.charAt(i);
+            if (c >= 0x80) break;
+
+            dst[offset++] = (byte) c;
+            i++;
+        }
+
+        while (i < end) {
+            char c = src.charAt(i++);
+
+            if (c < 0x80) {
+                dst[offset++] = (byte) c;
+            } else if (c < 0x800) {
+                dst[offset++] = (byte) (0xC0 | (c >> 6));
+                dst[offset++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                char low;
+
+                if (Character.isHighSurrogate(c) && i < end && Character.isLowSurrogate(low = src.charAt(i))) {
+                    int cp = Character.toCodePoint(c, low);
+                    i++;
+
+                    dst[offset++] = (byte) (0xF0 | (cp >> 18));
+                    dst[offset++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    dst[offset++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    dst[offset++] = (byte) (0x80 | (cp & 0x3F));
+                } else {
+                    dst[offset++] = '?';
+                }
+            } else {
+                dst[offset++] = (byte) (0xE0 | (c >> 12));
+                dst[offset++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                dst[offset++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        return offset;
+    }
+
+}
\ No newline at end of file
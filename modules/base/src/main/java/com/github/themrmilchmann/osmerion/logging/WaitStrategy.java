@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@code WaitStrategy} defines how the thread delivering {@link LogMessage}s to {@link ILogListener}s waits for new messages to become available.
+ *
+ * <p>The strategies trade latency for CPU usage. {@link #SPIN} offers the lowest latency at the cost of permanently occupying a core, while {@link #PARK}
+ * releases the core entirely while no messages are available.</p>
+ *
+ * <p>The same strategy is also used by logging threads that are blocked because the buffer of the dispatcher is full (see
+ * {@link OverflowPolicy#block()}). Thus, with {@link #SPIN} or {@link #YIELD}, a blocked logging thread occupies a core until space becomes available. With
+ * {@link #PARK}, a blocked logging thread is not signalled by the dispatching thread. Instead, it parks for up to a millisecond at a time and checks for space
+ * in between.</p>
+ *
+ * @author Leon Linhart
+ * @since 1.0.0.0
+ */
+public enum WaitStrategy {
+
+    /**
+     * Busy-spins while waiting for messages.
+     *
+     * @since 1.0.0.0
+     */
+    SPIN {
+
+        @Override
+        void idle(int iteration, long maxNanos) {
+            Thread.onSpinWait();
+        }
+
+    },
+
+    /**
+     * Busy-spins for a short while and yields the thread afterwards.
+     *
+     * @since 1.0.0.0
+     */
+    YIELD {
+
+        @Override
+        void idle(int iteration, long maxNanos) {
+            if (iteration < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+
+    },
+
+    /**
+     * Busy-spins for a short while and parks the thread afterwards until it is signalled by a producer.
+     *
+     * @since 1.0.0.0
+     */
+    PARK {
+
+        @Override
+        void idle(int iteration, long maxNanos) {
+            if (iteration < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(Math.min(PARK_NANOS, maxNanos));
+            }
+        }
+
+        @Override
+        boolean isParking(int iteration) {
+            return iteration >= SPIN_TRIES;
+        }
+
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = 1_000_000L;
+
+    /**
+     * Waits once.
+     *
+     * <p>For parking strategies, this method may return early if the waiting thread is unparked.</p>
+     *
+     * @param iteration the number of times this method has been called since the last time the awaited condition has been checked successfully
+     * @param maxNanos an upper bound for the time to wait
+     */
+    abstract void idle(int iteration, long maxNanos);
+
+    /**
+     * Returns whether the next call to {@link #idle(int, long)} parks the waiting thread in which case producers must signal it once new messages become available.
+     *
+     * @param iteration the number of times {@code idle} has been called since the last time the awaited condition has been checked successfully
+     * @return whether the next call to {@code idle} parks the waiting thread
+     */
+    boolean isParking(int iteration) {
+        return false;
+    }
+
+}
\ No newline at end of file
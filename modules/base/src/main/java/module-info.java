@@ -45,6 +45,7 @@
 module com.github.themrmilchmann.osmerion.base {
 
     requires com.github.themrmilchmann.osmerion.internal.annotation;
+    requires jdk.unsupported;
 
     exports com.github.themrmilchmann.osmerion.bean.binding;
     exports com.github.themrmilchmann.osmerion.bean.property;
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class BatchDeliveryTest {
+
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+
+    @Test(timeOut = 30_000)
+    public void testBatchesAreBoundedAndPerLogger() throws Exception {
+        LogDispatcher.Builder dispatcherBuilder = new LogDispatcher.Builder();
+        dispatcherBuilder.setStripes(1);
+        dispatcherBuilder.setMaxBatchSize(4);
+
+        try (LogDispatcher dispatcher = dispatcherBuilder.build()) {
+            Logger a = newLogger(dispatcher), b = newLogger(dispatcher);
+            CountDownLatch blocked = new CountDownLatch(1), release = new CountDownLatch(1);
+            List<List<String>> batchesA = Collections.synchronizedList(new ArrayList<>()), batchesB = Collections.synchronizedList(new ArrayList<>());
+
+            a.addListener(new BatchRecorder(batchesA, blocked, release));
+            b.addListener(new BatchRecorder(batchesB, blocked, release));
+
+            try {
+                a.log(INFO, "block");
+                blocked.await();
+
+                /* The messages are queued while the dispatching thread is blocked. Thus, they are delivered in as few batches as possible. */
+                for (int i = 0; i < 6; i++) a.log(INFO, "a" + i);
+                for (int i = 0; i < 2; i++) b.log(INFO, "b" + i);
+                a.log(INFO, "a6");
+            } finally {
+                release.countDown();
+            }
+
+            assertTrue(dispatcher.flush(10, TimeUnit.SECONDS));
+
+            assertEquals(batchesA, List.of(List.of("block"), List.of("a0", "a1", "a2", "a3"), List.of("a4", "a5"), List.of("a6")));
+            assertEquals(batchesB, List.of(List.of("b0", "b1")));
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testLinger() throws Exception {
+        LogDispatcher.Builder dispatcherBuilder = new LogDispatcher.Builder();
+        dispatcherBuilder.setStripes(1);
+        dispatcherBuilder.setMaxBatchSize(3);
+        dispatcherBuilder.setMaxLinger(10, TimeUnit.SECONDS);
+
+        try (LogDispatcher dispatcher = dispatcherBuilder.build()) {
+            Logger logger = newLogger(dispatcher);
+            List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+            logger.addListener(new BatchRecorder(batches, new CountDownLatch(1), new CountDownLatch(0)));
+
+            /* The dispatching thread lingers until the batch is full. */
+            for (int i = 0; i < 3; i++) {
+                logger.log(INFO, Integer.toString(i));
+                Thread.sleep(50L);
+            }
+
+            assertTrue(dispatcher.flush(10, TimeUnit.SECONDS));
+            assertEquals(batches, List.of(List.of("0", "1", "2")));
+        }
+    }
+
+    @Test
+    public void testDefaultBatchDelivery() {
+        List<String> messages = new ArrayList<>();
+        ILogListener listener = message -> messages.add(message.getMessage());
+
+        listener.onLoggedBatch(List.of(message("a"), message("b")));
+        assertEquals(messages, List.of("a", "b"));
+    }
+
+    private static LogMessage message(String text) {
+        LogMessage logMessage = new LogMessage(false);
+        logMessage.set(null, INFO, text, null, 0L, 0L);
+
+        return logMessage;
+    }
+
+    private static Logger newLogger(LogDispatcher dispatcher) {
+        Logger.Builder builder = new Logger.Builder();
+        builder.getLogLevels().add(INFO);
+        builder.setSeverity(INFO.getSeverity());
+        builder.setDispatcher(dispatcher);
+
+        return builder.build().getLogger();
+    }
+
+    private static final class BatchRecorder implements ILogListener {
+
+        private final List<List<String>> batches;
+        private final CountDownLatch blocked, release;
+
+        private BatchRecorder(List<List<String>> batches, CountDownLatch blocked, CountDownLatch release) {
+            this.batches = batches;
+            this.blocked = blocked;
+            this.release = release;
+        }
+
+        @Override
+        public void onLogged(LogMessage logMessage) {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void onLoggedBatch(List<LogMessage> logMessages) {
+            List<String> batch = new ArrayList<>();
+            for (LogMessage logMessage : logMessages) batch.add(logMessage.getMessage());
+
+            this.batches.add(batch);
+
+            try {
+                logMessages.clear();
+                throw new AssertionError();
+            } catch (UnsupportedOperationException e) {
+                /* Batches are unmodifiable. */
+            }
+
+            if (batch.contains("block")) {
+                this.blocked.countDown();
+
+                try {
+                    this.release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class BinaryLogEncoderTest {
+
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+    private static final LogLevel WARN = new LogLevel("WARN", 2);
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Exception cause = new IllegalArgumentException("cause");
+        Exception throwable = new IllegalStateException("failure", cause);
+        throwable.addSuppressed(new IOException("suppressed"));
+
+        List<LogMessage> logged = new ArrayList<>();
+
+        byte[] bytes = encode(logger -> {
+            logger.addListener(message -> logged.add(message.copy()));
+
+            logger.log(INFO, "plain");
+            logger.log(WARN, "long {}, double {}, object {}, null {}", 42L, 1.5D, "string", null);
+            logger.at(INFO).with("long", 7L).with("double", 0.25D).with("object", "value").log("fields");
+            logger.log(WARN, "throwable", throwable);
+        });
+
+        try (BinaryLogDecoder decoder = decoder(bytes)) {
+            for (LogMessage message : logged) {
+                assertTrue(decoder.next());
+
+                assertEquals(decoder.getLevelName(), message.getLevel().getName());
+                assertEquals(decoder.getLevelSeverity(), message.getLevel().getSeverity());
+                assertEquals(decoder.getTimestampNanos(), message.getConstructionTimeNanos());
+                assertEquals(decoder.getTimestamp(), message.getConstructionTime());
+                assertEquals(decoder.getSequence(), message.getSequence());
+                assertEquals(decoder.getLoggerId(), ((Logger) message.getLogger()).getId());
+                assertEquals(decoder.getMessage(), message.getMessage());
+            }
+
+            assertFalse(decoder.next());
+        }
+
+        try (BinaryLogDecoder decoder = decoder(bytes)) {
+            assertTrue(decoder.next());
+            assertEquals(decoder.getMessage(), "plain");
+            assertEquals(decoder.getFieldCount(), 0);
+            assertNull(decoder.getThrowable());
+
+            assertTrue(decoder.next());
+            assertEquals(decoder.getMessage(), "long 42, double 1.5, object string, null null");
+
+            assertTrue(decoder.next());
+            assertEquals(decoder.getMessage(), "fields");
+            assertEquals(decoder.getFieldCount(), 3);
+            assertEquals(decoder.getFieldKey(0), "long");
+            assertEquals(decoder.getFieldValue(0), 7L);
+            assertEquals(decoder.getFieldKey(1), "double");
+            assertEquals(decoder.getFieldValue(1), 0.25D);
+            assertEquals(decoder.getFieldKey(2), "object");
+            assertEquals(decoder.getFieldValue(2), "value");
+
+            assertTrue(decoder.next());
+            assertEquals(decoder.getThrowableFingerprint(), logged.get(3).getThrowableFingerprint());
+            assertNotEquals(decoder.getThrowableFingerprint(), 0L);
+            assertEquals(decoder.getThrowable(), render(throwable));
+
+            assertFalse(decoder.next());
+        }
+    }
+
+    @Test
+    public void testDefinitionsAreReused() throws Exception {
+        Exception first = new IllegalStateException("first");
+        Exception second = new IllegalStateException("second");
+        second.setStackTrace(first.getStackTrace());
+
+        int dynamic = 5000;
+
+        byte[] bytes = encode(logger -> {
+            for (int i = 0; i < 3; i++) logger.log(INFO, "value {}", i);
+
+            logger.log(INFO, "first", first);
+            logger.log(INFO, "second", second);
+
+            /* Templates that are not interned exceed the number of remembered definitions. */
+            for (int i = 0; i < dynamic; i++) logger.log(INFO, new String("dynamic {}"), i);
+        });
+
+        try (BinaryLogDecoder decoder = decoder(bytes)) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(decoder.next());
+                assertEquals(decoder.getMessage(), "value " + i);
+            }
+
+            assertTrue(decoder.next());
+            long fingerprint = decoder.getThrowableFingerprint();
+            assertEquals(decoder.getThrowable(), render(first));
+
+            /* Throwables with the same frames share their definition, but not their messages. */
+            assertTrue(decoder.next());
+            assertEquals(decoder.getThrowableFingerprint(), fingerprint);
+            assertEquals(decoder.getThrowable(), render(second));
+
+            for (int i = 0; i < dynamic; i++) {
+                assertTrue(decoder.next());
+                assertEquals(decoder.getMessage(), "dynamic " + i);
+            }
+
+            assertFalse(decoder.next());
+        }
+    }
+
+    @Test
+    public void testTruncatedRecordIsIgnored() throws Exception {
+        byte[] bytes = encode(logger -> {
+            logger.log(INFO, "first");
+            logger.log(INFO, "second");
+        });
+
+        try (BinaryLogDecoder decoder = decoder(Arrays.copyOf(bytes, bytes.length - 1))) {
+            assertTrue(decoder.next());
+            assertEquals(decoder.getMessage(), "first");
+            assertFalse(decoder.next());
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testCorruptRecordIsRejected() throws Exception {
+        byte[] bytes = encode(logger -> logger.log(INFO, "message"));
+        bytes[bytes.length - 1] ^= 0x01;
+
+        try (BinaryLogDecoder decoder = decoder(bytes)) {
+            decoder.next();
+        }
+    }
+
+    private static byte[] encode(LoggerAction action) throws Exception {
+        LogDispatcher.Builder dispatcherBuilder = new LogDispatcher.Builder();
+        dispatcherBuilder.setStripes(1);
+
+        try (LogDispatcher dispatcher = dispatcherBuilder.build()) {
+            Logger.Builder builder = new Logger.Builder();
+            builder.getLogLevels().add(INFO);
+            builder.getLogLevels().add(WARN);
+            builder.setSeverity(INFO.getSeverity());
+            builder.setDispatcher(dispatcher);
+
+            Logger.Handle handle = builder.build();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            try (BinaryLogEncoder encoder = new BinaryLogEncoder(Channels.newChannel(out))) {
+                handle.getLogger().addListener(encoder);
+                action.run(handle.getLogger());
+                handle.flush();
+            }
+
+            return out.toByteArray();
+        }
+    }
+
+    private static BinaryLogDecoder decoder(byte[] bytes) throws IOException {
+        return new BinaryLogDecoder(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    private static String render(Throwable t) {
+        StringWriter writer = new StringWriter();
+        t.printStackTrace(new PrintWriter(writer));
+
+        return writer.toString();
+    }
+
+    private interface LoggerAction {
+
+        void run(Logger logger) throws Exception;
+
+    }
+
+}
\ No newline at end of file
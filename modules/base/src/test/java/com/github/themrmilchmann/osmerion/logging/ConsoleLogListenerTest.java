@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class ConsoleLogListenerTest {
+
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+
+    private static final String ASCII = "plain ascii";
+    private static final String MIXED;
+
+    static {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 25; i++) sb.append("\u00E9\u20AC\uD83D\uDE00x");
+
+        MIXED = sb.toString();
+    }
+
+    @Test
+    public void testUtf8() {
+        char[] alphabet = { 'a', '\u00E9', '\u20AC', '\uD83D', '\uDE00', '\uFFFF', '\0' };
+        Random random = new Random(42L);
+
+        for (int i = 0; i < 1000; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = random.nextInt(32); j > 0; j--) sb.append(alphabet[random.nextInt(alphabet.length)]);
+
+            String s = sb.toString();
+            byte[] bytes = new byte[s.length() * Utf8.MAX_BYTES_PER_CHAR + 1];
+            int length = Utf8.encode(s, 0, s.length(), bytes, 1);
+
+            /* Unpaired surrogates are replaced by '?' just like by the JDK's encoder. */
+            assertEquals(new String(bytes, 1, length - 1, StandardCharsets.UTF_8), new String(s.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8), s);
+            assertEquals(length - 1, s.getBytes(StandardCharsets.UTF_8).length, s);
+        }
+    }
+
+    @Test
+    public void testConfiguration() {
+        ConsoleLogListener.Builder builder = new ConsoleLogListener.Builder();
+        expectThrows(IllegalArgumentException.class, () -> builder.setBufferSize(15));
+        expectThrows(NullPointerException.class, () -> builder.setLayout(null));
+
+        builder.setStandardError(true);
+        ConsoleLogListener listener = builder.build();
+        assertTrue(listener.isStandardError());
+
+        listener.close();
+        listener.close();
+        expectThrows(IllegalStateException.class, () -> listener.onLogged(PatternLayoutTest.message("a", null)));
+    }
+
+    @Test(timeOut = 60_000)
+    public void testOutput() throws Exception {
+        Path out = Files.createTempFile("console", ".out");
+        Path err = Files.createTempFile("console", ".err");
+
+        try {
+            Process process = new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                Child.class.getName()
+            ).redirectOutput(out.toFile()).redirectError(err.toFile()).start();
+
+            assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+            assertEquals(process.exitValue(), 0, new String(Files.readAllBytes(err), StandardCharsets.UTF_8));
+
+            String separator = System.lineSeparator();
+
+            /* Messages that do not fit into the buffer are written in chunks without splitting characters. */
+            String expected = ASCII + separator + MIXED + separator + MIXED + separator + ASCII + separator;
+            assertEquals(new String(Files.readAllBytes(out), StandardCharsets.UTF_8), expected);
+            assertEquals(new String(Files.readAllBytes(err), StandardCharsets.UTF_8), "[INFO] " + ASCII + separator);
+        } finally {
+            Files.deleteIfExists(out);
+            Files.deleteIfExists(err);
+        }
+    }
+
+    /*
+     * Writes messages to the standard streams of a separate process so that the output can be verified.
+     */
+    public static final class Child {
+
+        public static void main(String[] args) {
+            ConsoleLogListener.Builder builder = new ConsoleLogListener.Builder();
+            builder.setBufferSize(16);
+            builder.setLayout(PatternLayout.compile("%msg%n"));
+
+            try (ConsoleLogListener listener = builder.build()) {
+                listener.onLogged(PatternLayoutTest.message(ASCII, null));
+                listener.onLoggedBatch(List.of(
+                    PatternLayoutTest.message(MIXED, null),
+                    PatternLayoutTest.message(MIXED, null),
+                    PatternLayoutTest.message(ASCII, null)
+                ));
+            }
+
+            builder.setStandardError(true);
+            builder.setLayout(PatternLayout.compile("[%level] %msg%n"));
+
+            try (ConsoleLogListener listener = builder.build()) {
+                listener.onLogged(PatternLayoutTest.message(ASCII, null));
+            }
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.SwitchPoint;
+import org.testng.annotations.Test;
+
+import static com.github.themrmilchmann.osmerion.logging.LoggerEnablementTest.*;
+import static org.testng.Assert.*;
+
+public final class EnabledGuardTest {
+
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+    private static final LogLevel DEBUG = new LogLevel("DEBUG", 5);
+
+    @Test
+    public void testGuardFollowsConfiguration() throws Throwable {
+        try (LogDispatcher dispatcher = newDispatcher()) {
+            Logger.Handle handle = newLogger(dispatcher, null, INFO.getSeverity(), false);
+            Logger logger = handle.getLogger();
+            logger.addListener(message -> {});
+
+            MethodHandle info = logger.getEnabledGuard(INFO), debug = logger.getEnabledGuard(DEBUG);
+
+            assertTrue((boolean) info.invokeExact());
+            assertFalse((boolean) debug.invokeExact());
+
+            handle.setSeverity(DEBUG.getSeverity());
+            assertTrue((boolean) debug.invokeExact());
+
+            handle.removeLogLevel(INFO);
+            assertFalse((boolean) info.invokeExact());
+        }
+    }
+
+    @Test
+    public void testInvalidationIsScopedToDescendants() throws Throwable {
+        try (LogDispatcher dispatcher = newDispatcher()) {
+            Logger.Handle root = newLogger(dispatcher, null, INFO.getSeverity(), false);
+            Logger.Handle inheriting = newLogger(dispatcher, root.getLogger(), INFO.getSeverity(), true);
+            Logger.Handle independent = newLogger(dispatcher, root.getLogger(), INFO.getSeverity(), false);
+
+            for (Logger.Handle handle : new Logger.Handle[] { root, inheriting, independent }) handle.getLogger().addListener(message -> {});
+
+            MethodHandle inherited = inheriting.getLogger().getEnabledGuard(DEBUG);
+            assertFalse((boolean) inherited.invokeExact());
+
+            SwitchPoint rootSwitchPoint = root.getLogger().getConfigSwitchPoints().get(0);
+            SwitchPoint independentSwitchPoint = independent.getLogger().getConfigSwitchPoints().get(0);
+            assertEquals(inheriting.getLogger().getConfigSwitchPoints().size(), 2);
+
+            /* Changing a logger does not invalidate the guards of its ancestors or siblings. */
+            inheriting.setSeverity(DEBUG.getSeverity());
+            assertFalse(rootSwitchPoint.hasBeenInvalidated());
+            assertFalse(independentSwitchPoint.hasBeenInvalidated());
+            assertFalse((boolean) inherited.invokeExact());
+
+            /* Changing a logger invalidates the guards of the descendants that use its config. */
+            root.setSeverity(DEBUG.getSeverity());
+            assertTrue(rootSwitchPoint.hasBeenInvalidated());
+            assertFalse(independentSwitchPoint.hasBeenInvalidated());
+            assertTrue((boolean) inherited.invokeExact());
+
+            inheriting.setUseParentConfig(false);
+            root.setSeverity(INFO.getSeverity());
+            assertTrue((boolean) inherited.invokeExact());
+        }
+    }
+
+}
\ No newline at end of file
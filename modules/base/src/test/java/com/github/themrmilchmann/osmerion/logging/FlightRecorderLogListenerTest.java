@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class FlightRecorderLogListenerTest {
+
+    private static final LogLevel ERROR = new LogLevel("ERROR", 1);
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+    private static final LogLevel DEBUG = new LogLevel("DEBUG", 5);
+
+    @Test
+    public void testConfiguration() {
+        expectThrows(NullPointerException.class, () -> new FlightRecorderLogListener.Builder(null));
+
+        FlightRecorderLogListener.Builder builder = new FlightRecorderLogListener.Builder(message -> {});
+        expectThrows(IllegalArgumentException.class, () -> builder.setCapacity(0));
+        expectThrows(IllegalArgumentException.class, () -> builder.setCapacity(6));
+
+        builder.setCapacity(8);
+
+        try (FlightRecorderLogListener recorder = builder.build()) {
+            assertEquals(recorder.getCapacity(), 8);
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testDump() {
+        List<String> dumped = Collections.synchronizedList(new ArrayList<>());
+
+        FlightRecorderLogListener.Builder builder = new FlightRecorderLogListener.Builder(message -> dumped.add(message.getMessage()));
+        builder.setCapacity(4);
+
+        try (FlightRecorderLogListener recorder = builder.build()) {
+            for (int i = 0; i < 6; i++) recorder.onLogged(message(INFO, "m" + i));
+
+            /* Only the most recent messages are retained, and nothing is passed on before the recorder is dumped. */
+            assertTrue(dumped.isEmpty());
+            recorder.dump();
+
+            /* Dumped messages are removed from the recorder. */
+            recorder.dump();
+
+            recorder.onLogged(message(INFO, "m6"));
+            recorder.dump();
+        }
+
+        assertEquals(dumped, List.of("m2", "m3", "m4", "m5", "m6"));
+    }
+
+    @Test(timeOut = 30_000)
+    public void testCloseDiscardsRecordedMessages() {
+        List<String> dumped = Collections.synchronizedList(new ArrayList<>());
+
+        try (FlightRecorderLogListener recorder = new FlightRecorderLogListener.Builder(message -> dumped.add(message.getMessage())).build()) {
+            recorder.onLogged(message(INFO, "m0"));
+        }
+
+        assertTrue(dumped.isEmpty());
+    }
+
+    @Test(timeOut = 30_000)
+    public void testTrigger() {
+        List<String> dumped = Collections.synchronizedList(new ArrayList<>());
+
+        FlightRecorderLogListener.Builder builder = new FlightRecorderLogListener.Builder(message -> dumped.add(message.getMessage()));
+        builder.setTriggerLevel(INFO);
+
+        try (FlightRecorderLogListener recorder = builder.build()) {
+            recorder.onLogged(message(DEBUG, "d0"));
+            recorder.onLogged(message(DEBUG, "d1"));
+            recorder.onLogged(message(INFO, "i0"));
+
+            /* A trigger within a batch dumps the whole batch. */
+            recorder.onLoggedBatch(List.of(message(DEBUG, "d2"), message(ERROR, "e0"), message(DEBUG, "d3")));
+
+            /* Messages below the trigger level are retained until the next dump. */
+            recorder.onLogged(message(DEBUG, "d4"));
+        }
+
+        assertEquals(dumped, List.of("d0", "d1", "i0", "d2", "e0", "d3"));
+    }
+
+    @Test(timeOut = 30_000)
+    public void testCaptureLevels() throws Exception {
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        List<String> dumped = Collections.synchronizedList(new ArrayList<>());
+
+        FlightRecorderLogListener.Builder builder = new FlightRecorderLogListener.Builder(message -> dumped.add(message.getMessage()));
+        builder.setTriggerLevel(ERROR);
+
+        try (LogDispatcher dispatcher = LoggerEnablementTest.newDispatcher(); FlightRecorderLogListener recorder = builder.build()) {
+            Logger.Handle handle = LoggerEnablementTest.newLogger(dispatcher, null, ERROR.getSeverity(), false);
+            Logger logger = handle.getLogger();
+
+            logger.addListener(message -> delivered.add(message.getMessage()));
+            logger.addCaptureListener(recorder);
+
+            assertFalse(logger.isEnabled(DEBUG));
+            handle.addCaptureLevel(DEBUG);
+            assertTrue(logger.isEnabled(DEBUG));
+
+            logger.log(DEBUG, "debug");
+            logger.log(INFO, "info");
+            logger.log(ERROR, "error");
+
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+        }
+
+        /* Captured messages are only passed to capture listeners. */
+        assertEquals(delivered, List.of("error"));
+        assertEquals(dumped, List.of("debug", "error"));
+    }
+
+    private static LogMessage message(LogLevel level, String text) {
+        LogMessage logMessage = new LogMessage(false);
+        logMessage.set(null, level, text, null, 0L, 0L);
+
+        return logMessage;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class GarbageFreeLoggingTest {
+
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+
+    @Test(timeOut = 30_000)
+    public void testMessagesAreRecycled() throws Exception {
+        try (LogDispatcher dispatcher = newDispatcher(true)) {
+            Logger.Handle handle = newLogger(dispatcher);
+            Set<LogMessage> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<LogMessage> copies = new ArrayList<>();
+
+            handle.getLogger().addListener(message -> {
+                assertTrue(message.isPooled());
+
+                instances.add(message);
+                copies.add(message.copy());
+            });
+
+            for (int i = 0; i < 64; i++) handle.getLogger().log(INFO, "{} {}", i, "x");
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+
+            /* At most one message per slot of the buffer is ever created. */
+            assertTrue(instances.size() <= 8, "instances: " + instances.size());
+
+            /* Copies outlive the recycled messages. */
+            assertEquals(copies.size(), 64);
+
+            for (int i = 0; i < copies.size(); i++) {
+                LogMessage copy = copies.get(i);
+
+                assertFalse(copy.isPooled());
+                assertSame(copy.copy(), copy);
+                assertSame(copy.getLevel(), INFO);
+                assertEquals(copy.getMessage(), i + " x");
+            }
+
+            /* Recycled messages do not retain references to the data of previous messages. */
+            for (LogMessage instance : instances) assertNull(instance.getLogger());
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testRegularMessagesAreNotRecycled() throws Exception {
+        try (LogDispatcher dispatcher = newDispatcher(false)) {
+            Logger.Handle handle = newLogger(dispatcher);
+            List<LogMessage> messages = Collections.synchronizedList(new ArrayList<>());
+
+            handle.getLogger().addListener(messages::add);
+
+            for (int i = 0; i < 16; i++) handle.getLogger().log(INFO, "{}", i);
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+
+            for (int i = 0; i < messages.size(); i++) {
+                assertFalse(messages.get(i).isPooled());
+                assertSame(messages.get(i).copy(), messages.get(i));
+                assertEquals(messages.get(i).getMessage(), Integer.toString(i));
+            }
+        }
+    }
+
+    private static LogDispatcher newDispatcher(boolean garbageFree) {
+        LogDispatcher.Builder builder = new LogDispatcher.Builder();
+        builder.setStripes(1);
+        builder.setBufferSize(8);
+        builder.setGarbageFree(garbageFree);
+
+        return builder.build();
+    }
+
+    private static Logger.Handle newLogger(LogDispatcher dispatcher) {
+        Logger.Builder builder = new Logger.Builder();
+        builder.getLogLevels().add(INFO);
+        builder.setSeverity(INFO.getSeverity());
+        builder.setDispatcher(dispatcher);
+
+        return builder.build();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class IsolatedLogListenerTest {
+
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+
+    @Test
+    public void testConfiguration() {
+        expectThrows(NullPointerException.class, () -> new IsolatedLogListener.Builder(null));
+
+        IsolatedLogListener.Builder builder = new IsolatedLogListener.Builder(message -> {});
+        expectThrows(IllegalArgumentException.class, () -> builder.setBufferSize(1));
+        expectThrows(IllegalArgumentException.class, () -> builder.setBufferSize(12));
+        expectThrows(IllegalArgumentException.class, () -> builder.setMaxBatchSize(0));
+        expectThrows(NullPointerException.class, () -> builder.setWaitStrategy(null));
+        expectThrows(NullPointerException.class, () -> builder.setOverflowPolicy(null));
+    }
+
+    @Test(timeOut = 30_000)
+    public void testDelivery() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<Thread> thread = new AtomicReference<>();
+
+        ILogListener target = message -> {
+            thread.set(Thread.currentThread());
+            received.add(message.getMessage());
+        };
+
+        try (IsolatedLogListener listener = new IsolatedLogListener.Builder(target).build()) {
+            assertSame(listener.getTarget(), target);
+
+            /* Messages are copied. Thus, the passed messages may be reused immediately. */
+            LogMessage logMessage = new LogMessage(false);
+
+            for (int i = 0; i < 100; i++) {
+                logMessage.set(null, INFO, "m" + i, null, 0L, i);
+                listener.onLogged(logMessage);
+            }
+
+            listener.flush();
+
+            assertNotSame(thread.get(), Thread.currentThread());
+            assertEquals(received.size(), 100);
+            for (int i = 0; i < 100; i++) assertEquals(received.get(i), "m" + i);
+
+            assertEquals(listener.getQueueDepth(), 0);
+            assertEquals(listener.getDroppedMessageCount(), 0L);
+            assertEquals(listener.getLag().getCount(), 100L);
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testOverflow() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        IsolatedLogListener.Builder builder = new IsolatedLogListener.Builder(message -> {
+            blocked.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            received.add(message.getMessage());
+        });
+        builder.setBufferSize(2);
+        builder.setMaxBatchSize(1);
+
+        try (IsolatedLogListener listener = builder.build()) {
+            try {
+                listener.onLogged(message("m0"));
+                assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+                /* A slow target listener does not stall the caller. Messages that do not fit into the queue are discarded. */
+                for (int i = 1; i < 5; i++) listener.onLogged(message("m" + i));
+
+                assertEquals(listener.getQueueDepth(), 2);
+                assertEquals(listener.getDroppedMessageCount(), 3L);
+            } finally {
+                release.countDown();
+            }
+
+            listener.flush();
+            assertEquals(received, List.of("m0", "m1"));
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testBlockingOverflowPolicy() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+
+        IsolatedLogListener.Builder builder = new IsolatedLogListener.Builder(message -> {
+            try {
+                Thread.sleep(1L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            received.add(message.getMessage());
+        });
+        builder.setBufferSize(2);
+        builder.setOverflowPolicy(OverflowPolicy.block());
+
+        try (IsolatedLogListener listener = builder.build()) {
+            for (int i = 0; i < 20; i++) listener.onLogged(message("m" + i));
+            listener.flush();
+
+            assertEquals(received.size(), 20);
+            assertEquals(listener.getDroppedMessageCount(), 0L);
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testClose() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<Object> fromTarget = new AtomicReference<>();
+        IsolatedLogListener[] self = new IsolatedLogListener[1];
+        CountDownLatch queued = new CountDownLatch(1);
+
+        IsolatedLogListener listener = new IsolatedLogListener.Builder(message -> {
+            received.add(message.getMessage());
+
+            if ("close".equals(message.getMessage())) {
+                try {
+                    queued.await();
+                    self[0].flush();
+                } catch (IllegalStateException | InterruptedException e) {
+                    fromTarget.set(e);
+                }
+
+                /* The listener's thread does not wait for itself. */
+                fromTarget.set(List.of(fromTarget.get(), self[0].close(10, TimeUnit.SECONDS)));
+            }
+        }).build();
+        self[0] = listener;
+
+        listener.onLogged(message("m0"));
+        listener.onLogged(message("close"));
+        listener.onLogged(message("m1"));
+        queued.countDown();
+
+        /* Close waits for all queued messages to be passed to the target listener. */
+        assertTrue(listener.close(10, TimeUnit.SECONDS));
+        assertTrue(listener.isClosed());
+        assertEquals(received, List.of("m0", "close", "m1"));
+
+        List<?> result = (List<?>) fromTarget.get();
+        assertTrue(result.get(0) instanceof IllegalStateException);
+        assertEquals(result.get(1), false);
+
+        /* Messages passed to a closed listener are discarded. */
+        listener.onLogged(message("m2"));
+        assertEquals(listener.getDroppedMessageCount(), 1L);
+        assertTrue(listener.close(10, TimeUnit.SECONDS));
+        assertEquals(received.size(), 3);
+    }
+
+    private static LogMessage message(String text) {
+        LogMessage logMessage = new LogMessage(false);
+        logMessage.set(null, INFO, text, null, 0L, 0L);
+
+        return logMessage;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.Test;
+
+import static com.github.themrmilchmann.osmerion.logging.LoggerEnablementTest.*;
+import static org.testng.Assert.*;
+
+public final class ListenerInterestTest {
+
+    private static final LogLevel ERROR = new LogLevel("ERROR", 1);
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+    private static final LogLevel DEBUG = new LogLevel("DEBUG", 5);
+
+    @Test
+    public void testEnablementDoesNotDependOnListeners() throws Exception {
+        try (LogDispatcher dispatcher = newDispatcher()) {
+            Logger.Handle handle = newLogger(dispatcher, null, INFO.getSeverity(), false);
+            Logger logger = handle.getLogger();
+
+            assertTrue(logger.isEnabled(INFO));
+            assertFalse(logger.isEnabled(DEBUG));
+            assertEquals(handle.setSeverity(DEBUG.getSeverity()), List.of(ERROR, INFO, DEBUG));
+
+            logger.addListener(message -> {}, List.of(ERROR));
+            assertTrue(logger.isEnabled(DEBUG));
+        }
+    }
+
+    @Test
+    public void testMessagesWithoutInterestedListenersAreNotConstructed() throws Exception {
+        try (LogDispatcher dispatcher = newDispatcher()) {
+            Logger.Handle handle = newLogger(dispatcher, null, DEBUG.getSeverity(), false);
+            Logger logger = handle.getLogger();
+            AtomicInteger constructed = new AtomicInteger();
+
+            logger.log(INFO, () -> "a" + constructed.incrementAndGet());
+            assertEquals(constructed.get(), 0);
+
+            List<String> errors = Collections.synchronizedList(new ArrayList<>());
+            List<String> severe = Collections.synchronizedList(new ArrayList<>());
+            List<String> all = Collections.synchronizedList(new ArrayList<>());
+            logger.addListener(message -> errors.add(message.getMessage()), List.of(ERROR));
+            logger.addListener(message -> severe.add(message.getMessage()), INFO.getSeverity());
+
+            logger.log(DEBUG, () -> "b" + constructed.incrementAndGet());
+            assertEquals(constructed.get(), 0);
+
+            logger.log(ERROR, "c");
+            logger.log(INFO, "d");
+
+            /* Listeners are resolved when a message is delivered. */
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+            logger.addListener(message -> all.add(message.getMessage()));
+            logger.log(DEBUG, "e");
+
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+            assertEquals(errors, List.of("c"));
+            assertEquals(severe, List.of("c", "d"));
+            assertEquals(all, List.of("e"));
+            assertEquals(handle.getMetrics().getEnqueuedMessageCount(), 3L);
+        }
+    }
+
+}
\ No newline at end of file
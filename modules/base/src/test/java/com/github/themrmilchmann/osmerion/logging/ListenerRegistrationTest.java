@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class ListenerRegistrationTest {
+
+    private static final LogLevel ERROR = new LogLevel("ERROR", 1);
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+    private static final LogLevel DEBUG = new LogLevel("DEBUG", 5);
+
+    @Test(timeOut = 30_000)
+    public void testRegistration() {
+        try (LogDispatcher dispatcher = LoggerEnablementTest.newDispatcher()) {
+            Logger logger = LoggerEnablementTest.newLogger(dispatcher, null, INFO.getSeverity(), false).getLogger();
+
+            ILogListener a = message -> {};
+            ILogListener b = message -> {};
+            ILogListener c = message -> {};
+
+            logger.addListener(a);
+            logger.addListener(b, List.of(ERROR));
+            logger.addCaptureListener(c);
+            assertEquals(logger.getListeners(), List.of(a, b, c));
+
+            expectThrows(IllegalArgumentException.class, () -> logger.addListener(a));
+            expectThrows(IllegalArgumentException.class, () -> logger.addListener(b, INFO.getSeverity()));
+            expectThrows(IllegalArgumentException.class, () -> logger.addCaptureListener(c));
+            expectThrows(NullPointerException.class, () -> logger.addListener(null));
+
+            List<ILogListener> snapshot = logger.getListeners();
+            expectThrows(UnsupportedOperationException.class, () -> snapshot.add(a));
+
+            logger.removeListener(b);
+            assertEquals(logger.getListeners(), List.of(a, c));
+            assertEquals(snapshot, List.of(a, b, c));
+
+            expectThrows(IllegalArgumentException.class, () -> logger.removeListener(b));
+            expectThrows(NullPointerException.class, () -> logger.removeListener(null));
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testSetListeners() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+
+        ILogListener errors = message -> received.add("errors:" + message.getMessage());
+        ILogListener capture = message -> received.add("capture:" + message.getMessage());
+        ILogListener added = message -> received.add("added:" + message.getMessage());
+        ILogListener removed = message -> received.add("removed:" + message.getMessage());
+
+        try (LogDispatcher dispatcher = LoggerEnablementTest.newDispatcher()) {
+            Logger.Handle handle = LoggerEnablementTest.newLogger(dispatcher, null, INFO.getSeverity(), false);
+            Logger logger = handle.getLogger();
+            handle.addCaptureLevel(DEBUG);
+
+            logger.addListener(errors, List.of(ERROR));
+            logger.addCaptureListener(capture);
+            logger.addListener(removed);
+
+            /* Invalid arguments leave the listeners unchanged. */
+            expectThrows(IllegalArgumentException.class, () -> logger.setListeners(List.of(added, errors, added)));
+            expectThrows(NullPointerException.class, () -> logger.setListeners(Arrays.asList(added, null)));
+            assertEquals(logger.getListeners(), List.of(errors, capture, removed));
+
+            logger.setListeners(List.of(added, capture, errors));
+            assertEquals(logger.getListeners(), List.of(added, capture, errors));
+
+            logger.log(DEBUG, "debug");
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+            logger.log(ERROR, "error");
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+
+            /* Retained listeners keep their registration. */
+            assertEquals(received, List.of("capture:debug", "added:error", "capture:error", "errors:error"));
+
+            logger.setListeners(Collections.emptyList());
+            assertTrue(logger.getListeners().isEmpty());
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testConcurrentModification() throws Exception {
+        int threads = 4, perThread = 100;
+
+        try (LogDispatcher dispatcher = LoggerEnablementTest.newDispatcher()) {
+            Logger.Handle handle = LoggerEnablementTest.newLogger(dispatcher, null, INFO.getSeverity(), false);
+            Logger logger = handle.getLogger();
+
+            AtomicInteger received = new AtomicInteger();
+            List<List<ILogListener>> listeners = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                List<ILogListener> list = new ArrayList<>();
+                for (int j = 0; j < perThread; j++) list.add(message -> received.incrementAndGet());
+
+                listeners.add(list);
+            }
+
+            CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+            List<Thread> workers = new ArrayList<>();
+
+            for (List<ILogListener> list : listeners) {
+                Thread worker = new Thread(() -> {
+                    try {
+                        barrier.await();
+                        for (ILogListener listener : list) logger.addListener(listener);
+                        barrier.await();
+                        for (ILogListener listener : list) logger.removeListener(listener);
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                });
+
+                worker.start();
+                workers.add(worker);
+            }
+
+            barrier.await();
+            for (int i = 0; i < 100; i++) logger.log(INFO, "info");
+            barrier.await();
+
+            for (Thread worker : workers) worker.join();
+            assertTrue(logger.getListeners().isEmpty());
+
+            /* Every message is passed to the listeners registered at the time the message is dispatched. */
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+            assertTrue(received.get() <= 100 * threads * perThread);
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testModificationDuringDispatch() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+
+        try (LogDispatcher dispatcher = LoggerEnablementTest.newDispatcher()) {
+            Logger.Handle handle = LoggerEnablementTest.newLogger(dispatcher, null, INFO.getSeverity(), false);
+            Logger logger = handle.getLogger();
+
+            ILogListener late = message -> received.add("late:" + message.getMessage());
+            logger.addListener(new ILogListener() {
+
+                @Override
+                public void onLogged(LogMessage message) {
+                    received.add("self:" + message.getMessage());
+
+                    logger.removeListener(this);
+                    logger.addListener(late);
+                }
+
+            });
+
+            logger.log(INFO, "first");
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+
+            logger.log(INFO, "second");
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(received, List.of("self:first", "late:second"));
+    }
+
+}
\ No newline at end of file
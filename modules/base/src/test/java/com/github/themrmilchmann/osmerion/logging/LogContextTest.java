@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class LogContextTest {
+
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+
+    @AfterMethod
+    public void clearContext() {
+        LogContext.clear();
+    }
+
+    @Test
+    public void testEntries() {
+        LogContext empty = LogContext.empty();
+        assertTrue(empty.isEmpty());
+        assertEquals(empty.toString(), "{}");
+
+        LogContext context = empty.with("l", 1L).with("d", 0.5D).with("o", "x");
+        assertTrue(empty.isEmpty());
+        assertEquals(context.getFieldCount(), 3);
+        assertEquals(context.toString(), "{l=1, d=0.5, o=x}");
+
+        assertEquals(context.indexOf("d"), 1);
+        assertEquals(context.indexOf("missing"), -1);
+        assertEquals(context.getFieldKey(0), "l");
+        assertEquals(context.getFieldType(0), LogMessage.FieldType.LONG);
+        assertEquals(context.getLongField(0), 1L);
+        assertEquals(context.getFieldType(1), LogMessage.FieldType.DOUBLE);
+        assertEquals(context.getDoubleField(1), 0.5D);
+        assertEquals(context.getFieldType(2), LogMessage.FieldType.OBJECT);
+        assertEquals(context.getObjectField(2), "x");
+
+        expectThrows(IllegalStateException.class, () -> context.getObjectField(0));
+        expectThrows(IndexOutOfBoundsException.class, () -> context.getFieldKey(3));
+        expectThrows(NullPointerException.class, () -> context.with(null, 1L));
+        expectThrows(NullPointerException.class, () -> context.indexOf(null));
+
+        /* Contexts are immutable. Replacing an entry retains its position. */
+        LogContext replaced = context.with("l", "y");
+        assertEquals(replaced.toString(), "{l=y, d=0.5, o=x}");
+        assertEquals(context.toString(), "{l=1, d=0.5, o=x}");
+
+        assertEquals(context.without("d").toString(), "{l=1, o=x}");
+        assertSame(context.without("missing"), context);
+        assertSame(empty.with("a", 1L).without("a"), empty);
+
+        List<String> visited = new ArrayList<>();
+        context.forEachField(new ILogFieldVisitor() {
+
+            @Override
+            public void visit(String key, long value) {
+                visited.add(key + ":long");
+            }
+
+            @Override
+            public void visit(String key, double value) {
+                visited.add(key + ":double");
+            }
+
+            @Override
+            public void visit(String key, Object value) {
+                visited.add(key + ":object");
+            }
+
+        });
+
+        assertEquals(visited, List.of("l:long", "d:double", "o:object"));
+    }
+
+    @Test
+    public void testCurrentContext() throws Exception {
+        assertSame(LogContext.current(), LogContext.empty());
+
+        LogContext.put("a", 1L);
+        LogContext.put("b", 2.0D);
+        LogContext.put("a", "replaced");
+        assertEquals(LogContext.current().toString(), "{a=replaced, b=2.0}");
+
+        /* where() does not modify the current context. */
+        LogContext derived = LogContext.where("c", 3L);
+        assertEquals(derived.toString(), "{a=replaced, b=2.0, c=3}");
+        assertEquals(LogContext.current().toString(), "{a=replaced, b=2.0}");
+
+        /* Every thread has a context of its own. */
+        AtomicReference<LogContext> other = new AtomicReference<>();
+        Thread thread = new Thread(() -> other.set(LogContext.current()));
+        thread.start();
+        thread.join();
+        assertSame(other.get(), LogContext.empty());
+
+        LogContext.remove("a");
+        assertEquals(LogContext.current().toString(), "{b=2.0}");
+
+        LogContext.clear();
+        assertSame(LogContext.current(), LogContext.empty());
+    }
+
+    @Test
+    public void testBinding() throws Exception {
+        LogContext.put("outer", 1L);
+        LogContext outer = LogContext.current();
+        LogContext inner = LogContext.where("inner", 2L);
+
+        AtomicReference<LogContext> bound = new AtomicReference<>();
+        inner.run(() -> bound.set(LogContext.current()));
+        assertSame(bound.get(), inner);
+        assertSame(LogContext.current(), outer);
+
+        assertEquals(inner.call(() -> LogContext.current().toString()), "{outer=1, inner=2}");
+        assertSame(LogContext.current(), outer);
+
+        /* The previous context is restored if the task fails. */
+        expectThrows(IllegalStateException.class, () -> inner.run(() -> {
+            throw new IllegalStateException();
+        }));
+        assertSame(LogContext.current(), outer);
+
+        expectThrows(NullPointerException.class, () -> inner.run(null));
+        expectThrows(NullPointerException.class, () -> inner.call(null));
+
+        /* Contexts may be passed on to other threads. */
+        Thread thread = new Thread(() -> inner.run(() -> bound.set(LogContext.current())));
+        thread.start();
+        thread.join();
+        assertSame(bound.get(), inner);
+    }
+
+    @Test(timeOut = 30_000)
+    public void testMessagesCaptureContext() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        PatternLayout layout = PatternLayout.compile("%msg%ctx");
+
+        try (LogDispatcher dispatcher = LoggerEnablementTest.newDispatcher()) {
+            Logger.Handle handle = LoggerEnablementTest.newLogger(dispatcher, null, INFO.getSeverity(), false);
+            Logger logger = handle.getLogger();
+            logger.addListener(message -> received.add(layout.format(message)));
+
+            logger.log(INFO, "none");
+
+            LogContext.put("request", 42L);
+            logger.log(INFO, "put");
+
+            LogContext.where("user", "alice").run(() -> logger.at(INFO).with("field", 1L).log("bound"));
+
+            /* The context is captured when the message is logged. */
+            LogContext.remove("request");
+            logger.log(INFO, "removed");
+
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(received, List.of("none", "put {request=42}", "bound {request=42, user=alice}", "removed"));
+    }
+
+}
\ No newline at end of file
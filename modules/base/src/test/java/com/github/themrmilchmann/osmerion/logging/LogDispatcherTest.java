@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class LogDispatcherTest {
+
+    private static final LogLevel ERROR = new LogLevel("ERROR", 1);
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+
+    @Test(timeOut = 30_000)
+    public void testStripesAreSharedAndPreserveOrder() throws Exception {
+        LogDispatcher.Builder dispatcherBuilder = new LogDispatcher.Builder();
+        dispatcherBuilder.setStripes(2);
+        dispatcherBuilder.setBufferSize(64);
+
+        try (LogDispatcher dispatcher = dispatcherBuilder.build()) {
+            assertEquals(dispatcher.getStripeCount(), 2);
+
+            int loggerCount = 8, messageCount = 1000;
+            Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+            List<List<String>> received = new ArrayList<>();
+            List<Thread> producers = new ArrayList<>();
+
+            for (int i = 0; i < loggerCount; i++) {
+                Logger logger = newLogger(dispatcher).getLogger();
+                List<String> messages = Collections.synchronizedList(new ArrayList<>());
+
+                logger.addListener(message -> {
+                    threads.add(Thread.currentThread());
+                    messages.add(message.getMessage());
+                });
+
+                received.add(messages);
+                producers.add(new Thread(() -> {
+                    for (int j = 0; j < messageCount; j++) logger.log(INFO, Integer.toString(j));
+                }));
+            }
+
+            for (Thread producer : producers) producer.start();
+            for (Thread producer : producers) producer.join();
+
+            assertTrue(dispatcher.flush(10, TimeUnit.SECONDS));
+            assertEquals(dispatcher.getQueueDepth(), 0);
+            assertTrue(threads.size() <= 2);
+
+            for (List<String> messages : received) {
+                assertEquals(messages.size(), messageCount);
+                for (int j = 0; j < messageCount; j++) assertEquals(messages.get(j), Integer.toString(j));
+            }
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testOverflowPolicy() throws Exception {
+        LogDispatcher.Builder dispatcherBuilder = new LogDispatcher.Builder();
+        dispatcherBuilder.setStripes(1);
+        dispatcherBuilder.setBufferSize(4);
+        dispatcherBuilder.setOverflowPolicy(OverflowPolicy.dropBelow(ERROR));
+
+        try (LogDispatcher dispatcher = dispatcherBuilder.build()) {
+            Logger logger = newLogger(dispatcher).getLogger();
+            CountDownLatch blocked = new CountDownLatch(1), release = new CountDownLatch(1);
+            List<String> messages = Collections.synchronizedList(new ArrayList<>());
+
+            logger.addListener(message -> {
+                messages.add(message.getMessage());
+
+                if ("block".equals(message.getMessage())) {
+                    blocked.countDown();
+                    awaitUninterruptibly(release);
+                }
+            });
+
+            Thread producer = new Thread(() -> logger.log(ERROR, "error"));
+
+            try {
+                logger.log(INFO, "block");
+                blocked.await();
+
+                /*
+                 * The dispatching thread is blocked (and the slot of the message that is being delivered has not been released yet). Thus, the buffer fills
+                 * up and less severe messages are dropped.
+                 */
+                for (int i = 0; i < 8; i++) logger.log(INFO, "info");
+                assertEquals(dispatcher.getDroppedMessageCount(), 5L);
+
+                /* The logging thread blocks until space becomes available. */
+                producer.start();
+                producer.join(100L);
+                assertTrue(producer.isAlive());
+            } finally {
+                release.countDown();
+            }
+
+            producer.join();
+
+            assertTrue(dispatcher.flush(10, TimeUnit.SECONDS));
+            assertEquals(messages, List.of("block", "info", "info", "info", "error"));
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testFlushFromDispatchingThreadIsRejected() throws Exception {
+        try (LogDispatcher dispatcher = newDispatcher()) {
+            Logger logger = newLogger(dispatcher).getLogger();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+
+            logger.addListener(message -> {
+                try {
+                    dispatcher.flush();
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+
+            logger.log(INFO, "a");
+
+            assertTrue(dispatcher.flush(10, TimeUnit.SECONDS));
+            assertTrue(failure.get() instanceof IllegalStateException);
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testMessagesQueuedAfterCloseAreDiscarded() throws Exception {
+        LogDispatcher dispatcher = newDispatcher();
+        Logger logger = newLogger(dispatcher).getLogger();
+        List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        logger.addListener(message -> messages.add(message.getMessage()));
+
+        logger.log(INFO, "a");
+        assertTrue(dispatcher.close(10, TimeUnit.SECONDS));
+        assertTrue(dispatcher.isClosed());
+
+        logger.log(INFO, "b");
+
+        assertEquals(messages, List.of("a"));
+        assertEquals(dispatcher.getDroppedMessageCount(), 1L);
+    }
+
+    private static LogDispatcher newDispatcher() {
+        LogDispatcher.Builder builder = new LogDispatcher.Builder();
+        builder.setStripes(1);
+
+        return builder.build();
+    }
+
+    private static Logger.Handle newLogger(LogDispatcher dispatcher) {
+        Logger.Builder builder = new Logger.Builder();
+        builder.getLogLevels().add(ERROR);
+        builder.getLogLevels().add(INFO);
+        builder.setSeverity(INFO.getSeverity());
+        builder.setDispatcher(dispatcher);
+
+        return builder.build();
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class LogJournalTest {
+
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+    private static final LogLevel WARN = new LogLevel("WARN", 2);
+
+    /* See the layout of the journal file in LogJournal. */
+    private static final int HEADER_SIZE = 64;
+    private static final int HEAD_OFFSET = 16;
+    private static final int RECORD_HEADER_SIZE = 16;
+
+    private Path directory;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        this.directory = Files.createTempDirectory("journal");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) Files.delete(file);
+        }
+
+        Files.delete(this.directory);
+    }
+
+    @Test
+    public void testRecoverUndeliveredMessages() throws Exception {
+        Exception throwable = new IllegalStateException("failure", new IllegalArgumentException("cause"));
+
+        Path image = this.crash(logger -> {
+            logger.log(INFO, "plain");
+            logger.at(WARN).with("long", 7L).with("double", 0.5D).with("object", "value").log("fields");
+            logger.log(INFO, "throwable {}", 1L, throwable);
+        });
+
+        List<LogMessage> recovered = new ArrayList<>();
+
+        try (LogJournal journal = new LogJournal.Builder(image).build()) {
+            assertEquals(journal.recover(recovered::add), 3);
+
+            /* Recovered messages are marked as consumed. */
+            assertEquals(journal.recover(message -> fail()), 0);
+        }
+
+        assertEquals(recovered.get(0).getMessage(), "plain");
+        assertEquals(recovered.get(0).getLevel().getName(), INFO.getName());
+        assertEquals(recovered.get(0).getLevel().getSeverity(), INFO.getSeverity());
+        assertNull(recovered.get(0).getLogger());
+
+        LogMessage fields = recovered.get(1);
+        assertEquals(fields.getMessage(), "fields");
+        assertEquals(fields.getLevel().getName(), WARN.getName());
+        assertEquals(fields.getFieldCount(), 3);
+        assertEquals(fields.getFieldKey(0), "long");
+        assertEquals(fields.getLongField(0), 7L);
+        assertEquals(fields.getFieldKey(1), "double");
+        assertEquals(fields.getDoubleField(1), 0.5D);
+        assertEquals(fields.getFieldKey(2), "object");
+        assertEquals(fields.getObjectField(2), "value");
+
+        LogMessage failure = recovered.get(2);
+        assertEquals(failure.getMessage(), "throwable 1");
+        assertNotNull(failure.getThrowable());
+        assertEquals(render(failure.getThrowable()), render(throwable));
+
+        /* Levels with the same name and severity are resolved to the same instance. */
+        assertSame(recovered.get(0).getLevel(), failure.getLevel());
+
+        for (int i = 0; i < recovered.size(); i++) assertEquals(recovered.get(i).getSequence(), i);
+
+        /* The consumed state is stored in the journal file itself. */
+        try (LogJournal journal = new LogJournal.Builder(image).build()) {
+            assertEquals(journal.recover(message -> fail()), 0);
+        }
+    }
+
+    @Test
+    public void testDeliveredMessagesAreNotRecovered() throws Exception {
+        Path file = this.directory.resolve("journal.bin");
+
+        try (LogJournal journal = journal(file); LogDispatcher dispatcher = dispatcher()) {
+            Logger.Handle handle = logger(journal, dispatcher);
+            handle.getLogger().addListener(message -> {});
+
+            for (int i = 0; i < 1000; i++) handle.getLogger().log(INFO, "message {}", i);
+            handle.flush();
+        }
+
+        try (LogJournal journal = new LogJournal.Builder(file).build()) {
+            assertEquals(journal.recover(message -> fail()), 0);
+        }
+    }
+
+    @Test
+    public void testCorruptRecordIsDiscarded() throws Exception {
+        Path image = this.crash(logger -> {
+            logger.log(INFO, "first");
+            logger.log(INFO, "second");
+            logger.log(INFO, "third");
+        });
+
+        /* Damage the payload of the first record. Its checksum does not match anymore. */
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, HEADER_SIZE + RECORD_HEADER_SIZE);
+            b.put(0, (byte) (b.get(0) ^ 0x01));
+            b.rewind();
+            channel.write(b, HEADER_SIZE + RECORD_HEADER_SIZE);
+        }
+
+        List<String> recovered = new ArrayList<>();
+
+        try (LogJournal journal = new LogJournal.Builder(image).build()) {
+            assertEquals(journal.recover(message -> recovered.add(message.getMessage())), 2);
+        }
+
+        assertEquals(recovered, List.of("second", "third"));
+    }
+
+    @Test
+    public void testIncompleteRecordIsDiscarded() throws Exception {
+        Path image = this.crash(logger -> {
+            logger.log(INFO, "first");
+            logger.log(INFO, "second");
+        });
+
+        /* Simulate a record that has been claimed, but not written before the crash. */
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(8);
+            channel.read(b, HEAD_OFFSET);
+            b.putLong(0, b.getLong(0) + 64);
+            b.rewind();
+            channel.write(b, HEAD_OFFSET);
+        }
+
+        List<String> recovered = new ArrayList<>();
+
+        try (LogJournal journal = new LogJournal.Builder(image).build()) {
+            assertEquals(journal.recover(message -> recovered.add(message.getMessage())), 2);
+        }
+
+        assertEquals(recovered, List.of("first", "second"));
+
+        /* The write position has been reset. Thus, messages appended after the repair are recoverable. */
+        Path second = this.crash(image, logger -> logger.log(INFO, "third"));
+        recovered.clear();
+
+        try (LogJournal journal = new LogJournal.Builder(second).build()) {
+            assertEquals(journal.recover(message -> recovered.add(message.getMessage())), 1);
+        }
+
+        assertEquals(recovered, List.of("third"));
+    }
+
+    /*
+     * Logs messages to a new journal while the listener is blocked and returns a copy of the journal file that has been taken before any message has been
+     * consumed. The copy is equivalent to the journal of a crashed process.
+     */
+    private Path crash(LoggerAction action) throws Exception {
+        return this.crash(this.directory.resolve("journal.bin"), action);
+    }
+
+    private Path crash(Path file, LoggerAction action) throws Exception {
+        Path image = Files.createTempFile(this.directory, "image", ".bin");
+        CountDownLatch latch = new CountDownLatch(1);
+
+        try (LogJournal journal = journal(file); LogDispatcher dispatcher = dispatcher()) {
+            Logger.Handle handle = logger(journal, dispatcher);
+
+            handle.getLogger().addListener(message -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            try {
+                action.run(handle.getLogger());
+
+                /* Messages are appended to the journal on the logging thread. */
+                Files.copy(file, image, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                latch.countDown();
+            }
+        }
+
+        return image;
+    }
+
+    private static LogJournal journal(Path file) throws IOException {
+        LogJournal.Builder builder = new LogJournal.Builder(file);
+        builder.setCapacity(64 * 1024);
+
+        return builder.build();
+    }
+
+    private static LogDispatcher dispatcher() {
+        LogDispatcher.Builder builder = new LogDispatcher.Builder();
+        builder.setStripes(1);
+
+        return builder.build();
+    }
+
+    private static Logger.Handle logger(LogJournal journal, LogDispatcher dispatcher) {
+        Logger.Builder builder = new Logger.Builder();
+        builder.getLogLevels().add(INFO);
+        builder.getLogLevels().add(WARN);
+        builder.setSeverity(INFO.getSeverity());
+        builder.setDispatcher(dispatcher);
+        builder.setJournal(journal);
+
+        return builder.build();
+    }
+
+    private static String render(Throwable t) {
+        StringWriter writer = new StringWriter();
+        t.printStackTrace(new PrintWriter(writer));
+
+        return writer.toString();
+    }
+
+    private interface LoggerAction {
+
+        void run(Logger logger) throws Exception;
+
+    }
+
+}
\ No newline at end of file
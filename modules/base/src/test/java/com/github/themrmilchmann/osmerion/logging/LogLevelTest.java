@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class LogLevelTest {
+
+    @Test
+    public void testEquality() {
+        LogLevel a = new LogLevel("EQUALITY", 2), b = new LogLevel("EQUALITY", 2);
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a.getIndex(), b.getIndex());
+        assertNotEquals(a, new LogLevel("EQUALITY", 3));
+        assertNotEquals(a, new LogLevel("OTHER", 2));
+        assertEquals(new LogLevel(null, 1), new LogLevel(null, 1));
+    }
+
+    @Test
+    public void testEqualIndexedLevelsAreTreatedAlike() throws Exception {
+        LogLevel configured = new LogLevel("INDEXED", 2), logged = new LogLevel("INDEXED", 2);
+        assertNotEquals(configured.getIndex(), -1);
+
+        this.verifyTreatedAlike(configured, logged);
+    }
+
+    /* Exhausting the registry must not affect the other tests that depend on indexed levels. */
+    @Test(dependsOnMethods = "testEqualIndexedLevelsAreTreatedAlike")
+    public void testEqualUnindexedLevelsAreTreatedAlike() throws Exception {
+        /* Exhaust the registry. */
+        for (int i = 0; i < LogLevel.MAX_LEVELS; i++) new LogLevel("FILLER_" + i, 0);
+
+        LogLevel configured = new LogLevel("UNINDEXED", 2), logged = new LogLevel("UNINDEXED", 2);
+        assertEquals(configured.getIndex(), -1);
+
+        this.verifyTreatedAlike(configured, logged);
+    }
+
+    private void verifyTreatedAlike(LogLevel configured, LogLevel logged) throws Exception {
+        LogDispatcher.Builder dispatcherBuilder = new LogDispatcher.Builder();
+        dispatcherBuilder.setStripes(1);
+
+        try (LogDispatcher dispatcher = dispatcherBuilder.build()) {
+            Logger.Builder builder = new Logger.Builder();
+            builder.getLogLevels().add(configured);
+            builder.setSeverity(configured.getSeverity());
+            builder.setDispatcher(dispatcher);
+
+            Logger.Handle handle = builder.build();
+            Logger logger = handle.getLogger();
+
+            List<String> all = Collections.synchronizedList(new ArrayList<>());
+            List<String> filtered = Collections.synchronizedList(new ArrayList<>());
+            logger.addListener(message -> all.add(message.getMessage()));
+            logger.addListener(message -> filtered.add(message.getMessage()), List.of(configured));
+
+            assertTrue(logger.isEnabled(logged));
+            logger.log(logged, "a");
+
+            expectThrows(IllegalArgumentException.class, () -> handle.addLogLevel(logged));
+            handle.removeLogLevel(logged);
+            assertFalse(logger.isEnabled(configured));
+            logger.log(configured, "b");
+
+            handle.addLogLevel(logged);
+            assertTrue(logger.isEnabled(configured));
+            logger.log(configured, "c");
+
+            handle.addCaptureLevel(configured);
+            expectThrows(IllegalArgumentException.class, () -> handle.addCaptureLevel(logged));
+            handle.addLocationLevel(configured);
+            expectThrows(IllegalArgumentException.class, () -> handle.addLocationLevel(logged));
+
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+            assertEquals(all, List.of("a", "c"));
+            assertEquals(filtered, List.of("a", "c"));
+        }
+    }
+
+}
\ No newline at end of file
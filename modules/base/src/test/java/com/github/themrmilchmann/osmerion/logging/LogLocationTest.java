@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import com.github.themrmilchmann.osmerion.logging.locations.LocationCaller;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class LogLocationTest {
+
+    private static final LogLevel ERROR = new LogLevel("ERROR", 1);
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+
+    @Test(timeOut = 30_000)
+    public void testLocations() throws Exception {
+        List<LogMessage> received = capture(logger -> {
+            LocationCaller.logTwice(logger, INFO);
+            LocationCaller.logTwice(logger, INFO);
+            LocationCaller.log(logger, ERROR, "error");
+        });
+
+        assertEquals(received.size(), 5);
+
+        LogLocation first = received.get(0).getLocation(), second = received.get(1).getLocation();
+        assertEquals(first.getClassName(), LocationCaller.class.getName());
+        assertEquals(first.getMethodName(), "logTwice");
+        assertEquals(first.getFileName(), "LocationCaller.java");
+        assertTrue(first.getLineNumber() > 0);
+        assertEquals(second.getLineNumber(), first.getLineNumber() + 1);
+        assertEquals(first.toString(), LocationCaller.class.getName() + ".logTwice(LocationCaller.java:" + first.getLineNumber() + ")");
+
+        /* Locations are resolved once per call site. */
+        assertSame(received.get(2).getLocation(), first);
+        assertSame(received.get(3).getLocation(), second);
+
+        /* Locations are only captured at location levels. */
+        assertNull(received.get(4).getLocation());
+    }
+
+    @Test(timeOut = 30_000)
+    public void testOverloadedMethods() throws Exception {
+        List<LogMessage> received = capture(logger -> {
+            LocationCaller.overloaded(logger, INFO);
+            LocationCaller.overloaded(logger, INFO, "message");
+            LocationCaller.overloaded(logger, INFO);
+        });
+
+        /* Call sites in overloaded methods cannot be told apart by method name and bytecode index, but are still resolved correctly. */
+        LogLocation first = received.get(0).getLocation(), second = received.get(1).getLocation();
+        assertEquals(first.getMethodName(), "overloaded");
+        assertEquals(second.getMethodName(), "overloaded");
+        assertEquals(second.getLineNumber(), first.getLineNumber() + 4);
+        assertEquals(received.get(2).getLocation().toString(), first.toString());
+    }
+
+    @Test(timeOut = 30_000)
+    public void testLocationLevels() throws Exception {
+        try (LogDispatcher dispatcher = LoggerEnablementTest.newDispatcher()) {
+            Logger.Handle handle = LoggerEnablementTest.newLogger(dispatcher, null, INFO.getSeverity(), false);
+
+            List<LogLocation> locations = Collections.synchronizedList(new ArrayList<>());
+            handle.getLogger().addListener(message -> locations.add(message.getLocation()));
+
+            handle.addLocationLevel(INFO);
+            assertEquals(handle.getLocationLevels(), List.of(INFO));
+            expectThrows(IllegalArgumentException.class, () -> handle.addLocationLevel(new LogLevel("INFO", 3)));
+            expectThrows(UnsupportedOperationException.class, () -> handle.getLocationLevels().clear());
+
+            LocationCaller.log(handle.getLogger(), INFO, "captured");
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+
+            handle.removeLocationLevel(INFO);
+            expectThrows(IllegalArgumentException.class, () -> handle.removeLocationLevel(INFO));
+
+            LocationCaller.log(handle.getLogger(), INFO, "not captured");
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+
+            assertEquals(locations.size(), 2);
+            assertEquals(locations.get(0).getMethodName(), "log");
+            assertNull(locations.get(1));
+        }
+    }
+
+    private static List<LogMessage> capture(Consumer<ILogger> action) throws Exception {
+        List<LogMessage> received = Collections.synchronizedList(new ArrayList<>());
+
+        try (LogDispatcher dispatcher = LoggerEnablementTest.newDispatcher()) {
+            Logger.Builder builder = new Logger.Builder();
+            builder.getLogLevels().add(ERROR);
+            builder.getLogLevels().add(INFO);
+            builder.getLocationLevels().add(INFO);
+            builder.setSeverity(INFO.getSeverity());
+            builder.setDispatcher(dispatcher);
+
+            Logger.Handle handle = builder.build();
+            handle.getLogger().addListener(message -> {
+                LogMessage copy = new LogMessage(false);
+                copy.set(message, message.getSequence());
+
+                received.add(copy);
+            });
+
+            action.accept(handle.getLogger());
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+        }
+
+        return received;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class LogMetricsTest {
+
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(histogram.getCount(), 0L);
+        assertEquals(histogram.getValueAtPercentile(50.0D, TimeUnit.NANOSECONDS), 0L);
+        assertEquals(histogram.getMeanNanos(), 0.0D);
+
+        for (long i = 1; i <= 10; i++) histogram.record(i);
+        histogram.record(-5L);
+
+        /* Small values are counted exactly and negative values are recorded as 0. */
+        assertEquals(histogram.getCount(), 11L);
+        assertEquals(histogram.getTotal(TimeUnit.NANOSECONDS), 55L);
+        assertEquals(histogram.getMax(TimeUnit.NANOSECONDS), 10L);
+        assertEquals(histogram.getMeanNanos(), 5.0D);
+        assertEquals(histogram.getValueAtPercentile(0.0D, TimeUnit.NANOSECONDS), 0L);
+        assertEquals(histogram.getValueAtPercentile(50.0D, TimeUnit.NANOSECONDS), 5L);
+        assertEquals(histogram.getValueAtPercentile(100.0D, TimeUnit.NANOSECONDS), 10L);
+
+        expectThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(-1.0D, TimeUnit.NANOSECONDS));
+        expectThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(100.5D, TimeUnit.NANOSECONDS));
+        expectThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(Double.NaN, TimeUnit.NANOSECONDS));
+
+        histogram.reset();
+        assertEquals(histogram.getCount(), 0L);
+        assertEquals(histogram.getMax(TimeUnit.NANOSECONDS), 0L);
+    }
+
+    @Test
+    public void testHistogramPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long value = TimeUnit.MILLISECONDS.toNanos(3);
+
+        for (int i = 0; i < 99; i++) histogram.record(value);
+        histogram.record(TimeUnit.SECONDS.toNanos(1));
+
+        /* Percentiles are reported as bucket upper bounds which are at most 1/16 above the recorded value. */
+        long p50 = histogram.getValueAtPercentile(50.0D, TimeUnit.NANOSECONDS);
+        assertTrue(p50 >= value && p50 <= value + value / LatencyHistogram.SUB_BUCKETS, "p50: " + p50);
+
+        assertEquals(histogram.getValueAtPercentile(99.0D, TimeUnit.NANOSECONDS), p50);
+        assertEquals(histogram.getValueAtPercentile(100.0D, TimeUnit.MILLISECONDS), 1000L);
+        assertEquals(histogram.getMax(TimeUnit.SECONDS), 1L);
+
+        for (long v = 0; v < 1L << 40; v = v * 3 + 1) {
+            int index = LatencyHistogram.indexOf(v);
+            assertTrue(LatencyHistogram.highestValueOf(index) >= v);
+            if (index > 0) assertTrue(LatencyHistogram.highestValueOf(index - 1) < v);
+        }
+
+        assertEquals(LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(Long.MAX_VALUE)), Long.MAX_VALUE);
+    }
+
+    @Test(timeOut = 30_000)
+    public void testPipelineMetrics() throws Exception {
+        LogLevel info = new LogLevel("INFO", 3);
+        LogLevel debug = new LogLevel("DEBUG", 5);
+
+        LogDispatcher.Builder dispatcherBuilder = new LogDispatcher.Builder();
+        dispatcherBuilder.setStripes(1);
+
+        try (LogDispatcher dispatcher = dispatcherBuilder.build()) {
+            Logger.Builder builder = new Logger.Builder();
+            builder.getLogLevels().add(info);
+            builder.getLogLevels().add(debug);
+            builder.setSeverity(debug.getSeverity());
+            builder.setDispatcher(dispatcher);
+
+            Logger.Handle handle = builder.build();
+            Logger logger = handle.getLogger();
+            LogMetrics metrics = handle.getMetrics();
+
+            CountDownLatch blocked = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+
+            ILogListener slow = message -> {
+                blocked.countDown();
+
+                try {
+                    release.await();
+                    Thread.sleep(2L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+
+            ILogListener unregistered = message -> {};
+            logger.addListener(slow);
+
+            try {
+                logger.log(info, "first");
+                assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+                for (int i = 0; i < 3; i++) logger.log(info, "info");
+                for (int i = 0; i < 5; i++) logger.log(debug, "debug");
+
+                /* The message that is being delivered occupies its slot until its batch has been delivered. */
+                assertEquals(metrics.getQueueDepth(), 9);
+            } finally {
+                release.countDown();
+            }
+
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+            assertEquals(metrics.getQueueDepth(), 0);
+
+            assertEquals(metrics.getEnqueuedMessageCount(), 9L);
+            assertEquals(metrics.getEnqueuedMessageCount(info), 4L);
+            assertEquals(metrics.getEnqueuedMessageCount(debug), 5L);
+            assertEquals(metrics.getEnqueuedMessageCount(new LogLevel("INFO", 3)), 4L);
+
+            LatencyHistogram dispatchLatency = metrics.getDispatchLatency();
+            assertEquals(dispatchLatency.getCount(), 9L);
+            assertEquals(dispatcher.getDispatchLatency().getCount(), 9L);
+
+            /* The callback time is recorded once per batch. */
+            LatencyHistogram callbackTime = metrics.getCallbackTime(slow);
+            assertTrue(callbackTime.getCount() >= 2L && callbackTime.getCount() <= 9L, "count: " + callbackTime.getCount());
+            assertTrue(callbackTime.getMax(TimeUnit.MILLISECONDS) >= 2L);
+
+            assertNull(metrics.getCallbackTime(unregistered));
+            expectThrows(NullPointerException.class, () -> metrics.getCallbackTime(null));
+
+            /* Histograms are snapshots. */
+            callbackTime.reset();
+            assertNotEquals(metrics.getCallbackTime(slow).getCount(), 0L);
+            dispatchLatency.reset();
+            assertEquals(metrics.getDispatchLatency().getCount(), 9L);
+        }
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class LogThrottleTest {
+
+    private static final LogLevel ERROR = new LogLevel("ERROR", 1);
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+
+    @Test
+    public void testConfiguration() {
+        LogThrottle throttle = LogThrottle.rateLimit(10, 1, TimeUnit.SECONDS);
+        assertEquals(throttle.getBurst(), 10);
+        assertEquals(throttle.getSampleRate(), 1);
+
+        throttle = throttle.withBurst(3).withSampling(2);
+        assertEquals(throttle.getBurst(), 3);
+        assertEquals(throttle.getSampleRate(), 2);
+
+        assertEquals(LogThrottle.sample(4).getBurst(), 0);
+        assertEquals(LogThrottle.sample(4).getSampleRate(), 4);
+
+        expectThrows(IllegalArgumentException.class, () -> LogThrottle.rateLimit(0, 1, TimeUnit.SECONDS));
+        expectThrows(IllegalArgumentException.class, () -> LogThrottle.rateLimit(1, 0, TimeUnit.SECONDS));
+        expectThrows(IllegalArgumentException.class, () -> LogThrottle.sample(0));
+        expectThrows(IllegalArgumentException.class, () -> LogThrottle.sample(1).withSampling(0));
+        expectThrows(IllegalArgumentException.class, () -> LogThrottle.rateLimit(1, 1, TimeUnit.SECONDS).withBurst(0));
+        expectThrows(IllegalStateException.class, () -> LogThrottle.sample(2).withBurst(2));
+    }
+
+    @Test(timeOut = 30_000)
+    public void testRateLimit() throws Exception {
+        AtomicLong delivered = new AtomicLong();
+
+        Logger.Builder builder = newBuilder();
+        builder.setThrottle(LogThrottle.rateLimit(5, 1, TimeUnit.HOURS));
+        builder.setThrottle(ERROR, LogThrottle.rateLimit(1, 1, TimeUnit.HOURS).withBurst(2));
+
+        try (LogDispatcher dispatcher = newDispatcher()) {
+            builder.setDispatcher(dispatcher);
+            Logger.Handle handle = builder.build();
+            handle.getLogger().addListener(message -> delivered.incrementAndGet());
+
+            AtomicInteger constructed = new AtomicInteger();
+            for (int i = 0; i < 20; i++) handle.getLogger().log(INFO, () -> "info " + constructed.incrementAndGet());
+
+            /* Messages at a throttled level must pass both throttles. */
+            for (int i = 0; i < 4; i++) handle.getLogger().log(ERROR, "error");
+
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+
+            /* Rejected messages are never constructed. */
+            assertEquals(constructed.get(), 5);
+            assertEquals(delivered.get(), 5L);
+            assertEquals(handle.getThrottledMessageCount(), 19L);
+            assertEquals(handle.getThrottledMessageCount(INFO), 15L);
+            assertEquals(handle.getThrottledMessageCount(ERROR), 4L);
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testThrottleStateIsPerLogger() throws Exception {
+        Logger.Builder builder = newBuilder();
+        builder.setThrottle(INFO, LogThrottle.rateLimit(2, 1, TimeUnit.HOURS));
+
+        try (LogDispatcher dispatcher = newDispatcher()) {
+            builder.setDispatcher(dispatcher);
+
+            for (int i = 0; i < 2; i++) {
+                Logger.Handle handle = builder.build();
+                AtomicLong delivered = new AtomicLong();
+                handle.getLogger().addListener(message -> delivered.incrementAndGet());
+
+                for (int j = 0; j < 4; j++) handle.getLogger().log(INFO, "info");
+                handle.getLogger().log(ERROR, "error");
+
+                assertTrue(handle.flush(10, TimeUnit.SECONDS));
+                assertEquals(delivered.get(), 3L);
+            }
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testSampling() throws Exception {
+        AtomicLong delivered = new AtomicLong();
+
+        Logger.Builder builder = newBuilder();
+        builder.setThrottle(LogThrottle.sample(4));
+
+        try (LogDispatcher dispatcher = newDispatcher()) {
+            builder.setDispatcher(dispatcher);
+            Logger.Handle handle = builder.build();
+            handle.getLogger().addListener(message -> delivered.incrementAndGet());
+
+            for (int i = 0; i < 4000; i++) handle.getLogger().log(INFO, "info");
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+
+            /* The expected value is 1000 with a standard deviation of about 27. */
+            assertTrue(delivered.get() > 800L && delivered.get() < 1200L, "delivered: " + delivered.get());
+            assertEquals(handle.getThrottledMessageCount(), 4000L - delivered.get());
+        }
+    }
+
+    private static LogDispatcher newDispatcher() {
+        LogDispatcher.Builder builder = new LogDispatcher.Builder();
+        builder.setStripes(1);
+
+        return builder.build();
+    }
+
+    private static Logger.Builder newBuilder() {
+        Logger.Builder builder = new Logger.Builder();
+        builder.getLogLevels().add(ERROR);
+        builder.getLogLevels().add(INFO);
+        builder.setSeverity(INFO.getSeverity());
+
+        return builder;
+    }
+
+}
\ No newline at end of file
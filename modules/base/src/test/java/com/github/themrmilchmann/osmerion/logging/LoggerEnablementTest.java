@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class LoggerEnablementTest {
+
+    private static final LogLevel ERROR = new LogLevel("ERROR", 1);
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+    private static final LogLevel DEBUG = new LogLevel("DEBUG", 5);
+
+    @Test
+    public void testSeverityAndLevels() throws Exception {
+        try (LogDispatcher dispatcher = newDispatcher()) {
+            Logger.Handle handle = newLogger(dispatcher, null, INFO.getSeverity(), false);
+            Logger logger = handle.getLogger();
+
+            List<String> messages = Collections.synchronizedList(new ArrayList<>());
+            logger.addListener(message -> messages.add(message.getMessage()));
+
+            assertTrue(logger.isEnabled(ERROR));
+            assertTrue(logger.isEnabled(INFO));
+            assertFalse(logger.isEnabled(DEBUG));
+
+            logger.log(INFO, "a");
+            logger.log(DEBUG, "b");
+
+            assertEquals(handle.setSeverity(DEBUG.getSeverity()), List.of(ERROR, INFO, DEBUG));
+            logger.log(DEBUG, "c");
+
+            handle.removeLogLevel(INFO);
+            assertFalse(logger.isEnabled(INFO));
+            logger.log(INFO, "d");
+
+            handle.addLogLevel(INFO);
+            assertTrue(logger.isEnabled(INFO));
+            logger.log(INFO, "e");
+
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+            assertEquals(messages, List.of("a", "c", "e"));
+        }
+    }
+
+    @Test
+    public void testUseParentConfig() throws Exception {
+        try (LogDispatcher dispatcher = newDispatcher()) {
+            Logger.Handle root = newLogger(dispatcher, null, INFO.getSeverity(), false);
+            Logger.Handle inheriting = newLogger(dispatcher, root.getLogger(), ERROR.getSeverity(), true);
+            Logger.Handle grandchild = newLogger(dispatcher, inheriting.getLogger(), ERROR.getSeverity(), true);
+            Logger.Handle independent = newLogger(dispatcher, root.getLogger(), ERROR.getSeverity(), false);
+
+            for (Logger.Handle handle : List.of(root, inheriting, grandchild, independent)) handle.getLogger().addListener(message -> {});
+
+            assertTrue(grandchild.getLogger().isEnabled(INFO));
+            assertFalse(independent.getLogger().isEnabled(INFO));
+
+            root.setSeverity(ERROR.getSeverity());
+            assertFalse(inheriting.getLogger().isEnabled(INFO));
+            assertFalse(grandchild.getLogger().isEnabled(INFO));
+            assertTrue(grandchild.getLogger().isEnabled(ERROR));
+
+            root.setSeverity(DEBUG.getSeverity());
+            assertTrue(grandchild.getLogger().isEnabled(DEBUG));
+            assertFalse(independent.getLogger().isEnabled(DEBUG));
+
+            /* Changing the configuration of a descendant does not affect its ancestors. */
+            independent.setSeverity(DEBUG.getSeverity());
+            assertTrue(independent.getLogger().isEnabled(DEBUG));
+            inheriting.setUseParentConfig(false);
+            assertFalse(inheriting.getLogger().isEnabled(INFO));
+            assertFalse(grandchild.getLogger().isEnabled(INFO));
+            assertTrue(root.getLogger().isEnabled(DEBUG));
+
+            inheriting.setUseParentConfig(true);
+            assertTrue(grandchild.getLogger().isEnabled(DEBUG));
+        }
+    }
+
+    static LogDispatcher newDispatcher() {
+        LogDispatcher.Builder builder = new LogDispatcher.Builder();
+        builder.setStripes(1);
+
+        return builder.build();
+    }
+
+    static Logger.Handle newLogger(LogDispatcher dispatcher, Logger parent, int severity, boolean useParentConfig) {
+        Logger.Builder builder = new Logger.Builder(parent);
+        builder.getLogLevels().add(ERROR);
+        builder.getLogLevels().add(INFO);
+        builder.getLogLevels().add(DEBUG);
+        builder.setSeverity(severity);
+        builder.setUseParentConfig(useParentConfig);
+        builder.setDispatcher(dispatcher);
+
+        return builder.build();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.testng.annotations.Test;
+
+import static com.github.themrmilchmann.osmerion.logging.PatternLayoutTest.*;
+import static org.testng.Assert.*;
+
+public final class MappedFileLogListenerTest {
+
+    @Test
+    public void testUnmappingIsSupported() {
+        assertTrue(MappedFileLogListener.isUnmappingSupported());
+    }
+
+    @Test
+    public void testCloseTruncatesTheFile() throws IOException {
+        Path directory = Files.createTempDirectory("log");
+        Path file = directory.resolve("log.txt");
+
+        try {
+            try (MappedFileLogListener listener = newListener(file, 0L)) {
+                listener.onLogged(message("a", null));
+                listener.onLoggedBatch(List.of(message("b", null), message("c", null)));
+            }
+
+            assertEquals(read(file), "#end=000000000000001c\na\nb\nc\n");
+
+            /* The file is appended to when it is opened again. */
+            try (MappedFileLogListener listener = newListener(file, 0L)) {
+                listener.onLogged(message("d", null));
+            }
+
+            assertEquals(read(file), "#end=000000000000001e\na\nb\nc\nd\n");
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testRecoveryPreservesTrailingNulCharacters() throws IOException {
+        Path directory = Files.createTempDirectory("log");
+        Path file = directory.resolve("log.txt");
+
+        MappedFileLogListener.Builder builder = new MappedFileLogListener.Builder(file);
+        builder.setLayout(PatternLayout.compile("%msg"));
+
+        MappedFileLogListener crashed = builder.build();
+
+        try {
+            /* The listener is not closed. Thus, the file still contains the zero-filled remainder of the mapped region. */
+            crashed.onLogged(message("a\0\0", null));
+            assertTrue(Files.size(file) > 25L);
+
+            try (MappedFileLogListener listener = builder.build()) {
+                listener.onLogged(message("b", null));
+            }
+
+            assertEquals(read(file), "#end=000000000000001a\na\0\0b");
+        } finally {
+            crashed.close();
+
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testForeignFilesAreRejected() throws IOException {
+        Path directory = Files.createTempDirectory("log");
+        Path file = directory.resolve("log.txt");
+
+        try {
+            Files.write(file, "not a log file\n".getBytes(StandardCharsets.UTF_8));
+            expectThrows(IOException.class, () -> newListener(file, 0L));
+
+            assertEquals(read(file), "not a log file\n");
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testRollOver() throws IOException {
+        Path directory = Files.createTempDirectory("log");
+        Path file = directory.resolve("log.txt");
+        Path rolled = directory.resolve("log.txt.1");
+
+        try {
+            try (MappedFileLogListener listener = newListener(file, 26L)) {
+                listener.onLoggedBatch(List.of(message("a", null), message("b", null), message("c", null)));
+            }
+
+            assertEquals(read(rolled), "#end=000000000000001a\na\nb\n");
+            assertEquals(read(file), "#end=0000000000000018\nc\n");
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(rolled);
+            Files.delete(directory);
+        }
+    }
+
+    private static MappedFileLogListener newListener(Path file, long maxFileSize) throws IOException {
+        MappedFileLogListener.Builder builder = new MappedFileLogListener.Builder(file);
+        builder.setChunkSize(4096);
+        builder.setMaxFileSize(maxFileSize);
+        builder.setLayout(PatternLayout.compile("%msg%n"));
+
+        return builder.build();
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+}
\ No newline at end of file
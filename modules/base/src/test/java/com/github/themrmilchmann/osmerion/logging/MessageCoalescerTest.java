@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class MessageCoalescerTest {
+
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+    private static final LogLevel WARN = new LogLevel("WARN", 2);
+
+    private static final long WINDOW = 1_000L;
+
+    @Test
+    public void testCoalesce() {
+        MessageCoalescer coalescer = new MessageCoalescer(null, WINDOW);
+
+        List<LogMessage> batch = List.of(message(INFO, "a"), message(INFO, "b"));
+        assertSame(coalescer.coalesce(batch, 0L), batch);
+        assertEquals(coalescer.getDeadline(), Long.MAX_VALUE);
+
+        /* Equal levels are treated alike even if they are distinct instances. */
+        List<LogMessage> coalesced = coalescer.coalesce(List.of(message(INFO, "b"), message(new LogLevel("INFO", 3), "b"), message(INFO, "c")), 10L);
+        assertEquals(render(coalesced), List.of("INFO:Last message repeated 2 times", "INFO:c"));
+        assertEquals(coalesced.get(0).getFieldKey(0), "repeated");
+        assertEquals(coalesced.get(0).getLongField(0), 2L);
+
+        /* Messages that differ in level or message are not repetitions. */
+        assertEquals(render(coalescer.coalesce(List.of(message(WARN, "c"), message(WARN, null), message(WARN, null)), 20L)), List.of("WARN:c", "WARN:null"));
+        assertEquals(coalescer.getDeadline(), 20L + WINDOW);
+
+        /* Repetitions are only counted once they have been collapsed into a summary. */
+        assertEquals(coalescer.coalescedMessages.sum(), 2L);
+        coalescer.expire(20L, true);
+        assertEquals(coalescer.coalescedMessages.sum(), 3L);
+    }
+
+    @Test
+    public void testThrowableFingerprints() {
+        MessageCoalescer coalescer = new MessageCoalescer(null, WINDOW);
+        Throwable[] throwables = new Throwable[2];
+
+        for (int i = 0; i < throwables.length; i++) throwables[i] = new IllegalStateException();
+        Throwable other = new IllegalArgumentException();
+
+        List<LogMessage> batch = List.of(message(INFO, "a", throwables[0]), message(INFO, "a", throwables[1]), message(INFO, "a", other));
+        assertEquals(render(coalescer.coalesce(batch, 0L)), List.of("INFO:a", "INFO:Last message repeated 1 times", "INFO:a"));
+    }
+
+    @Test
+    public void testExpiry() {
+        MessageCoalescer coalescer = new MessageCoalescer(null, WINDOW);
+
+        /* Nothing is pending without repetitions. */
+        coalescer.coalesce(List.of(message(INFO, "a")), 0L);
+        assertNull(coalescer.expire(WINDOW, false));
+
+        coalescer.coalesce(List.of(message(INFO, "a"), message(INFO, "a")), 2 * WINDOW);
+        assertEquals(coalescer.getDeadline(), 3 * WINDOW);
+
+        assertNull(coalescer.expire(3 * WINDOW - 1, false));
+        assertEquals(render(List.of(coalescer.expire(3 * WINDOW, false))), List.of("INFO:Last message repeated 1 times"));
+        assertEquals(coalescer.getDeadline(), Long.MAX_VALUE);
+
+        /* A message after the window has been closed opens a new window. */
+        assertEquals(render(coalescer.coalesce(List.of(message(INFO, "a"), message(INFO, "a")), 3 * WINDOW)), List.of("INFO:a"));
+        assertEquals(render(List.of(coalescer.expire(3 * WINDOW, true))), List.of("INFO:Last message repeated 1 times"));
+        assertNull(coalescer.expire(4 * WINDOW, true));
+
+        /* Repetitions after the end of the window are passed on. */
+        coalescer.coalesce(List.of(message(INFO, "b")), 5 * WINDOW);
+        assertEquals(render(coalescer.coalesce(List.of(message(INFO, "b")), 6 * WINDOW)), List.of("INFO:b"));
+    }
+
+    @Test(timeOut = 30_000)
+    public void testCoalescingLogger() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+
+        LogDispatcher dispatcher = LoggerEnablementTest.newDispatcher();
+
+        try {
+            Logger.Handle handle = newLogger(dispatcher, 1, TimeUnit.HOURS);
+            handle.getLogger().addListener(message -> received.add(message.getMessage()));
+
+            for (int i = 0; i < 5; i++) handle.getLogger().log(INFO, "x");
+            handle.getLogger().log(INFO, "y");
+            handle.getLogger().log(INFO, "y");
+
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+            assertEquals(received, List.of("x", "Last message repeated 4 times", "y"));
+            assertEquals(handle.getCoalescedMessageCount(), 4L);
+        } finally {
+            dispatcher.close();
+        }
+
+        /* Pending summaries are passed on when the dispatcher is closed. */
+        assertEquals(received, List.of("x", "Last message repeated 4 times", "y", "Last message repeated 1 times"));
+    }
+
+    @Test(timeOut = 30_000)
+    public void testWindowExpiry() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+
+        try (LogDispatcher dispatcher = LoggerEnablementTest.newDispatcher()) {
+            Logger.Handle handle = newLogger(dispatcher, 50, TimeUnit.MILLISECONDS);
+            handle.getLogger().addListener(message -> received.add(message.getMessage()));
+
+            for (int i = 0; i < 3; i++) handle.getLogger().log(INFO, "x");
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+
+            /* The summary is passed on once the window closes, even if no further message is logged. */
+            while (received.size() < 2) Thread.sleep(10L);
+            assertEquals(received, List.of("x", "Last message repeated 2 times"));
+        }
+    }
+
+    @Test
+    public void testConfiguration() {
+        Logger.Builder builder = new Logger.Builder();
+        expectThrows(IllegalArgumentException.class, () -> builder.setCoalescingWindow(-1, TimeUnit.SECONDS));
+        expectThrows(NullPointerException.class, () -> builder.setCoalescingWindow(1, null));
+    }
+
+    private static Logger.Handle newLogger(LogDispatcher dispatcher, long window, TimeUnit unit) {
+        Logger.Builder builder = new Logger.Builder();
+        builder.getLogLevels().add(INFO);
+        builder.setSeverity(INFO.getSeverity());
+        builder.setCoalescingWindow(window, unit);
+        builder.setDispatcher(dispatcher);
+
+        return builder.build();
+    }
+
+    private static LogMessage message(LogLevel level, String text) {
+        return message(level, text, null);
+    }
+
+    private static LogMessage message(LogLevel level, String text, Throwable t) {
+        LogMessage logMessage = new LogMessage(false);
+        logMessage.set(null, level, text, t, 0L, 0L);
+
+        return logMessage;
+    }
+
+    private static List<String> render(List<LogMessage> messages) {
+        List<String> rendered = new ArrayList<>();
+        for (LogMessage message : messages) rendered.add(message.getLevel().getName() + ":" + message.getMessage());
+
+        return rendered;
+    }
+
+}
\ No newline at end of file
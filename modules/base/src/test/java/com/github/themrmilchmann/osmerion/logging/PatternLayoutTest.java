@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class PatternLayoutTest {
+
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+
+    /* 2017-01-01T12:00:00.123Z */
+    private static final long TIME_NANOS = 1483272000123L * 1_000_000L;
+
+    @Test
+    public void testConversions() {
+        LogDispatcher.Builder dispatcherBuilder = new LogDispatcher.Builder();
+        dispatcherBuilder.setStripes(1);
+
+        try (LogDispatcher dispatcher = dispatcherBuilder.build()) {
+            Logger.Builder builder = new Logger.Builder();
+            builder.setName("test");
+            builder.setDispatcher(dispatcher);
+            Logger logger = builder.build().getLogger();
+
+            LogMessage logMessage = new LogMessage(false);
+            logMessage.set(logger, INFO, "hello", null, TIME_NANOS, 42L);
+            logMessage.setFields(new String[] { "count", "name" }, new byte[] { LogMessage.ARG_LONG, LogMessage.ARG_OBJECT }, new long[] { 7L, 0L },
+                new Object[] { null, "x" }, 2);
+
+            PatternLayout layout = PatternLayout.compile("%d %seq [%-5level|%5severity] %logger: %msg%fields%ctx%ex%n");
+            assertEquals(layout.format(logMessage), "2017-01-01T12:00:00.123Z 42 [INFO |    3] test: hello {count=7, name=x}\n");
+
+            StringBuilder sb = new StringBuilder("> ");
+            layout.formatTo(logMessage, sb);
+            assertEquals(sb.toString(), "> " + layout.format(logMessage));
+
+            String date = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault()).format(Instant.ofEpochMilli(1483272000123L));
+            assertEquals(PatternLayout.compile("%d{yyyy-MM-dd HH:mm:ss.SSS}").format(logMessage), date);
+            assertEquals(PatternLayout.compile("%d{ISO}").format(logMessage), "2017-01-01T12:00:00.123Z");
+            assertEquals(PatternLayout.compile("100%% %logger %loc").format(message("a", null)), "100%  ");
+
+            String stackTrace = PatternLayout.compile("%msg%ex").format(message("a", new IllegalStateException("b")));
+            assertTrue(stackTrace.startsWith("a\njava.lang.IllegalStateException: b\n\tat "));
+            assertFalse(stackTrace.endsWith("\n"));
+        }
+    }
+
+    @Test
+    public void testPattern() {
+        PatternLayout layout = PatternLayout.compile("%msg%n");
+
+        assertEquals(layout.getPattern(), "%msg%n");
+        assertEquals(layout.toString(), "%msg%n");
+        assertEquals(PatternLayout.getDefault().getPattern(), PatternLayout.DEFAULT_PATTERN);
+    }
+
+    @Test
+    public void testMalformedPatterns() {
+        for (String pattern : new String[] { "%", "%5", "%unknown", "%ex{unknown}", "%d{yyyy", "%-" }) {
+            expectThrows(IllegalArgumentException.class, () -> PatternLayout.compile(pattern));
+        }
+
+        expectThrows(NullPointerException.class, () -> PatternLayout.compile(null));
+        expectThrows(NullPointerException.class, () -> PatternLayout.getDefault().formatTo(null, new StringBuilder()));
+    }
+
+    @Test
+    public void testThrowableReferences() {
+        PatternLayout layout = PatternLayout.compile("%msg%ex{ref}");
+        StackTraceCache stackTraces = new StackTraceCache();
+
+        /* Both throwables are created at the same location and thus share their fingerprint. */
+        LogMessage[] messages = new LogMessage[2];
+        for (int i = 0; i < messages.length; i++) messages[i] = message(i == 0 ? "a" : "b", new IllegalStateException(i == 0 ? "first" : "second"));
+
+        LogMessage first = messages[0], second = messages[1];
+        assertEquals(first.getThrowableFingerprint(), second.getThrowableFingerprint());
+
+        StringBuilder sb = new StringBuilder();
+        layout.formatTo(first, sb, stackTraces);
+        String full = sb.toString();
+        assertTrue(full.startsWith("a\n[#"));
+        assertTrue(full.contains("\tat "));
+
+        sb.setLength(0);
+        layout.formatTo(second, sb, stackTraces);
+        String reference = sb.toString();
+        assertFalse(reference.contains("\tat "));
+        assertTrue(reference.startsWith("b\njava.lang.IllegalStateException: second [#"));
+        assertTrue(reference.endsWith(full.substring(2, full.indexOf(']') + 1)));
+
+        /* The layout itself is stateless. Without a cache (or with a fresh one), every stack trace is rendered in full. */
+        assertTrue(layout.format(second).contains("\tat "));
+        assertTrue(layout.format(second).contains("\tat "));
+
+        sb.setLength(0);
+        layout.formatTo(second, sb, new StackTraceCache());
+        assertTrue(sb.toString().contains("\tat "));
+
+        stackTraces.clear();
+        sb.setLength(0);
+        layout.formatTo(second, sb, stackTraces);
+        assertTrue(sb.toString().contains("\tat "));
+    }
+
+    static LogMessage message(String text, Throwable t) {
+        LogMessage logMessage = new LogMessage(false);
+        logMessage.set(null, INFO, text, t, 0L, 0L);
+
+        return logMessage;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class RingBufferTest {
+
+    private static final LogLevel LEVEL = new LogLevel("TEST", 0);
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCapacityOfOneIsRejected() {
+        new RingBuffer(1, WaitStrategy.PARK, false);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCapacityNotPowerOfTwoIsRejected() {
+        new RingBuffer(6, WaitStrategy.PARK, false);
+    }
+
+    @Test
+    public void testSlotsAreConsumedInClaimOrder() {
+        RingBuffer buffer = new RingBuffer(4, WaitStrategy.PARK, false);
+
+        long first = buffer.claim(false);
+        long second = buffer.claim(false);
+        assertEquals(first, 0L);
+        assertEquals(second, 1L);
+
+        /* A slot published out of order is not visible until all slots before it have been published. */
+        put(buffer, second, 1L);
+        assertNull(buffer.peek());
+        assertNotNull(buffer.peek(1));
+
+        put(buffer, first, 0L);
+        assertEquals(take(buffer), 0L);
+        assertEquals(take(buffer), 1L);
+        assertNull(buffer.peek());
+        assertEquals(buffer.consumerPosition(), 2L);
+    }
+
+    @Test
+    public void testClaimFailsWhileFull() {
+        RingBuffer buffer = new RingBuffer(2, WaitStrategy.PARK, false);
+
+        put(buffer, buffer.claim(false), 0L);
+        put(buffer, buffer.claim(false), 1L);
+
+        /* The published slots must not be handed out again before they have been consumed. */
+        assertEquals(buffer.claim(false), -1L);
+
+        assertEquals(take(buffer), 0L);
+        long pos = buffer.claim(false);
+        assertEquals(pos, 2L);
+        assertEquals(buffer.claim(false), -1L);
+
+        put(buffer, pos, 2L);
+        assertEquals(take(buffer), 1L);
+        assertEquals(take(buffer), 2L);
+    }
+
+    @Test
+    public void testClaimBatch() {
+        RingBuffer buffer = new RingBuffer(4, WaitStrategy.PARK, false);
+
+        put(buffer, buffer.claim(false), 0L);
+        assertEquals(buffer.claim(4, false), -1L);
+
+        long pos = buffer.claim(3, false);
+        assertEquals(pos, 1L);
+        for (int i = 0; i < 3; i++) put(buffer, pos + i, pos + i);
+
+        for (long i = 0; i < 4; i++) assertEquals(take(buffer), i);
+    }
+
+    @Test
+    public void testClosedBufferIsDrained() {
+        RingBuffer buffer = new RingBuffer(4, WaitStrategy.PARK, false);
+
+        put(buffer, buffer.claim(false), 0L);
+        buffer.close();
+
+        assertTrue(buffer.isClosed());
+        assertEquals(buffer.claim(true), -1L);
+        assertNotNull(buffer.await());
+        assertEquals(take(buffer), 0L);
+        assertNull(buffer.await());
+    }
+
+    @Test
+    public void testGarbageFreeSlotsAreReused() {
+        RingBuffer buffer = new RingBuffer(2, WaitStrategy.PARK, true);
+        assertTrue(buffer.isGarbageFree());
+
+        long pos = buffer.claim(false);
+        LogMessage pooled = buffer.slot(pos).message;
+        assertNotNull(pooled);
+        assertTrue(pooled.isPooled());
+
+        pooled.set(null, LEVEL, "message", null, 0L, 0L);
+        buffer.publish(pos);
+        buffer.release(buffer.peek());
+
+        for (int i = 0; i < 2; i++) {
+            pos = buffer.claim(false);
+            buffer.publish(pos);
+            buffer.release(buffer.peek());
+        }
+
+        assertSame(buffer.slot(pos).message, buffer.slot(pos).pooled);
+        assertNull(pooled.getMessage());
+    }
+
+    @Test(timeOut = 30_000)
+    public void testConcurrentProducersAreConsumedInOrder() throws Exception {
+        int producers = 4, count = 50_000;
+
+        RingBuffer buffer = new RingBuffer(8, WaitStrategy.PARK, false);
+        buffer.setConsumer(Thread.currentThread());
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int p = 0; p < producers; p++) {
+                long base = (long) p * count;
+
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    for (int i = 0; i < count; i++) {
+                        long pos = buffer.claim(true);
+                        assertNotEquals(pos, -1L);
+
+                        put(buffer, pos, base + i);
+                    }
+
+                    return null;
+                }));
+            }
+
+            /* The values of a single producer are consumed in the order in which they have been published, and no value is lost or duplicated. */
+            long[] last = new long[producers];
+            for (int p = 0; p < producers; p++) last[p] = (long) p * count - 1;
+
+            for (int i = 0; i < producers * count; i++) {
+                assertNotNull(buffer.await());
+
+                long value = take(buffer);
+                int producer = (int) (value / count);
+
+                assertEquals(value, last[producer] + 1);
+                last[producer] = value;
+            }
+
+            for (Future<?> future : futures) future.get();
+
+            assertNull(buffer.peek());
+            assertEquals(buffer.consumerPosition(), (long) producers * count);
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void put(RingBuffer buffer, long pos, long value) {
+        LogMessage message = new LogMessage(false);
+        message.set(null, LEVEL, null, null, 0L, value);
+
+        RingBuffer.Slot slot = buffer.slot(pos);
+        slot.message = message;
+        buffer.publish(pos);
+    }
+
+    private static long take(RingBuffer buffer) {
+        RingBuffer.Slot slot = buffer.peek();
+        assertNotNull(slot);
+
+        long value = slot.message.getSequence();
+        buffer.release(slot);
+
+        return value;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class StructuredLoggingTest {
+
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+    private static final LogLevel DEBUG = new LogLevel("DEBUG", 5);
+
+    private static final PatternLayout LAYOUT = PatternLayout.compile("%msg%fields");
+
+    @Test
+    public void testFieldAccess() {
+        LogMessage logMessage = PatternLayoutTest.message("a", null);
+        logMessage.setFields(
+            new String[] { "l", "d", "o" },
+            new byte[] { LogMessage.ARG_LONG, LogMessage.ARG_DOUBLE, LogMessage.ARG_OBJECT },
+            new long[] { 42L, Double.doubleToRawLongBits(0.5D), 0L },
+            new Object[] { null, null, "x" },
+            3
+        );
+
+        assertEquals(logMessage.getFieldCount(), 3);
+        assertEquals(logMessage.getFieldKey(0), "l");
+        assertEquals(logMessage.getFieldType(0), LogMessage.FieldType.LONG);
+        assertEquals(logMessage.getLongField(0), 42L);
+        assertEquals(logMessage.getFieldType(1), LogMessage.FieldType.DOUBLE);
+        assertEquals(logMessage.getDoubleField(1), 0.5D);
+        assertEquals(logMessage.getFieldType(2), LogMessage.FieldType.OBJECT);
+        assertEquals(logMessage.getObjectField(2), "x");
+
+        expectThrows(IllegalStateException.class, () -> logMessage.getDoubleField(0));
+        expectThrows(IllegalStateException.class, () -> logMessage.getObjectField(1));
+        expectThrows(IllegalStateException.class, () -> logMessage.getLongField(2));
+        expectThrows(IndexOutOfBoundsException.class, () -> logMessage.getFieldKey(3));
+        expectThrows(IndexOutOfBoundsException.class, () -> logMessage.getFieldType(-1));
+        expectThrows(NullPointerException.class, () -> logMessage.forEachField(null));
+
+        List<String> visited = new ArrayList<>();
+        logMessage.forEachField(new ILogFieldVisitor() {
+
+            @Override
+            public void visit(String key, long value) {
+                visited.add(key + ":long:" + value);
+            }
+
+            @Override
+            public void visit(String key, double value) {
+                visited.add(key + ":double:" + value);
+            }
+
+            @Override
+            public void visit(String key, Object value) {
+                visited.add(key + ":object:" + value);
+            }
+
+        });
+
+        assertEquals(visited, List.of("l:long:42", "d:double:0.5", "o:object:x"));
+        assertEquals(LAYOUT.format(logMessage), "a {l=42, d=0.5, o=x}");
+    }
+
+    @Test(timeOut = 30_000)
+    public void testEventBuilder() throws Exception {
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+
+        try (LogDispatcher dispatcher = LoggerEnablementTest.newDispatcher()) {
+            Logger.Handle handle = LoggerEnablementTest.newLogger(dispatcher, null, INFO.getSeverity(), false);
+            Logger logger = handle.getLogger();
+            logger.addListener(message -> delivered.add(LAYOUT.format(message)));
+
+            logger.at(INFO)
+                .with("long", 1L)
+                .with("double", 2.5D)
+                .with("char", 'c')
+                .with("float", 1.5F)
+                .with("null", (Object) null)
+                .log("message");
+
+            /* Builders grow beyond their initial capacity. */
+            LogEventBuilder builder = logger.at(INFO);
+            for (int i = 0; i < 20; i++) builder.with("k" + i, i);
+            builder.log();
+
+            logger.at(INFO).log("plain", new IllegalStateException());
+            logger.at(INFO).with("after", 0L).log("reused");
+
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+        }
+
+        StringBuilder many = new StringBuilder(" {");
+        for (int i = 0; i < 20; i++) many.append(i == 0 ? "" : ", ").append("k").append(i).append("=").append(i);
+        many.append("}");
+
+        assertEquals(delivered, List.of(
+            "message {long=1, double=2.5, char=c, float=1.5, null=null}",
+            many.toString(),
+            "plain",
+            "reused {after=0}"
+        ));
+    }
+
+    @Test(timeOut = 30_000)
+    public void testCharAndFloatFieldsAreNotWidened() throws Exception {
+        List<Object> values = Collections.synchronizedList(new ArrayList<>());
+
+        try (LogDispatcher dispatcher = LoggerEnablementTest.newDispatcher()) {
+            Logger.Handle handle = LoggerEnablementTest.newLogger(dispatcher, null, INFO.getSeverity(), false);
+            handle.getLogger().addListener(message -> {
+                for (int i = 0; i < message.getFieldCount(); i++) values.add(message.getObjectField(i));
+            });
+
+            handle.getLogger().at(INFO).with("char", 'c').with("float", 0.1F).log();
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(values, List.of('c', 0.1F));
+    }
+
+    @Test(timeOut = 30_000)
+    public void testDisabledAndNestedChains() throws Exception {
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+
+        try (LogDispatcher dispatcher = LoggerEnablementTest.newDispatcher()) {
+            Logger.Handle handle = LoggerEnablementTest.newLogger(dispatcher, null, INFO.getSeverity(), false);
+            Logger logger = handle.getLogger();
+            logger.addListener(message -> delivered.add(LAYOUT.format(message)));
+
+            /* Disabled levels get a builder that ignores everything (including invalid keys). */
+            LogEventBuilder disabled = logger.at(DEBUG);
+            assertSame(disabled.with(null, 1L), disabled);
+            disabled.log("disabled");
+
+            expectThrows(NullPointerException.class, () -> logger.at(INFO).with(null, 1L));
+
+            /* The chain above has been abandoned. Later chains are not affected by its fields. */
+            logger.at(INFO).with("a", 1L).log("first");
+
+            /* A chain started while another one is still being built leaves the outer chain intact. */
+            LogEventBuilder outer = logger.at(INFO).with("outer", 1L);
+            logger.at(INFO).with("inner", 2L).log("inner");
+            outer.with("outer2", 3L).log("outer");
+
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(delivered, List.of("first {a=1}", "inner {inner=2}", "outer {outer=1, outer2=3}"));
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class TemplateLoggingTest {
+
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+
+    /*
+     * Calls with mixed primitive and reference arguments must resolve to a single overload. Thus, this test primarily verifies that these calls compile.
+     */
+    @Test
+    public void testOverloadResolution() throws Exception {
+        List<String> messages = this.log(false, false, null, logger -> {
+            logger.log(INFO, "{} {}", 1, true);
+            logger.log(INFO, "{} {}", true, 1);
+            logger.log(INFO, "{} {}", (short) 3, true);
+            logger.log(INFO, "{} {}", (byte) 4, 'c');
+            logger.log(INFO, "{} {}", 'c', true);
+            logger.log(INFO, "{} {}", "s", 1L);
+            logger.log(INFO, "{} {}", 1, "s");
+            logger.log(INFO, "{} {}", null, 1);
+            logger.log(INFO, "{}", true);
+            logger.log(INFO, "{}", (short) 7);
+        });
+
+        assertEquals(messages, List.of("1 true", "true 1", "3 true", "4 c", "c true", "s 1", "1 s", "null 1", "true", "7"));
+    }
+
+    @Test
+    public void testPrimitiveArguments() throws Exception {
+        List<String> types = Collections.synchronizedList(new ArrayList<>());
+
+        List<String> messages = this.log(false, false, null, logger -> {
+            logger.addListener(message -> {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < message.getArgumentCount(); i++) sb.append(message.getArgumentType(i));
+
+                types.add(sb.toString());
+            });
+
+            logger.log(INFO, "{}", 'c');
+            logger.log(INFO, "{}", 0.1F);
+            logger.log(INFO, "{}", 1);
+            logger.log(INFO, "{}", 0.1D);
+            logger.log(INFO, "{} {}", 'c', 1);
+            logger.log(INFO, "{} {}", 0.1F, 'x');
+            logger.log(INFO, "{} {}", 1, 2.5D);
+            logger.log(INFO, "{} {}", 2.5D, 0.1F);
+        });
+
+        assertEquals(messages, List.of("c", "0.1", "1", "0.1", "c 1", "0.1 x", "1 2.5", "2.5 0.1"));
+
+        /* char and float arguments are neither boxed nor widened. */
+        String c = String.valueOf(LogMessage.ARG_CHAR), f = String.valueOf(LogMessage.ARG_FLOAT);
+        String l = String.valueOf(LogMessage.ARG_LONG), d = String.valueOf(LogMessage.ARG_DOUBLE);
+
+        assertEquals(types.subList(0, 8), List.of(c, f, l, d, c + l, f + c, l + d, d + f));
+    }
+
+    @DataProvider
+    public Object[][] modes() {
+        return new Object[][] {
+            { false, false },
+            { true, false },
+            { false, true },
+            { true, true }
+        };
+    }
+
+    @Test(dataProvider = "modes", timeOut = 30_000)
+    public void testNullArgumentArray(boolean threadLocal, boolean journaled) throws Exception {
+        List<String> messages = this.log(threadLocal, journaled, null, logger -> {
+            logger.log(INFO, "a {}", (Object[]) null);
+            logger.log(INFO, "b");
+        });
+
+        assertEquals(messages, List.of("a {}", "b"));
+    }
+
+    @Test(dataProvider = "modes", timeOut = 30_000)
+    public void testFailureWhilePreparingDoesNotBlockTheStripe(boolean threadLocal, boolean journaled) throws Exception {
+        AtomicBoolean fail = new AtomicBoolean();
+
+        LogClock clock = () -> {
+            if (fail.getAndSet(false)) throw new IllegalStateException();
+            return System.currentTimeMillis();
+        };
+
+        List<String> messages = this.log(threadLocal, journaled, clock, logger -> {
+            logger.log(INFO, "a");
+
+            fail.set(true);
+            expectThrows(IllegalStateException.class, () -> logger.log(INFO, "b {}", 1L));
+            fail.set(true);
+            expectThrows(IllegalStateException.class, () -> logger.log(INFO, "c {} {} {}", 1, 2, 3));
+            fail.set(true);
+            expectThrows(IllegalStateException.class, () -> logger.at(INFO).with("key", 1L).log("d"));
+
+            logger.log(INFO, "e");
+        });
+
+        assertEquals(messages, List.of("a", "e"));
+    }
+
+    private List<String> log(boolean threadLocal, boolean journaled, LogClock clock, LoggerAction action) throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        Path file = directory.resolve("journal.bin");
+
+        LogDispatcher.Builder dispatcherBuilder = new LogDispatcher.Builder();
+        dispatcherBuilder.setStripes(1);
+        dispatcherBuilder.setBufferSize(4);
+        if (threadLocal) dispatcherBuilder.setThreadLocalBufferSize(4);
+
+        try (LogDispatcher dispatcher = dispatcherBuilder.build(); LogJournal journal = journaled ? new LogJournal.Builder(file).build() : null) {
+            Logger.Builder builder = new Logger.Builder();
+            builder.getLogLevels().add(INFO);
+            builder.setSeverity(INFO.getSeverity());
+            builder.setDispatcher(dispatcher);
+            builder.setJournal(journal);
+            if (clock != null) builder.setClock(clock);
+
+            Logger.Handle handle = builder.build();
+            List<String> messages = Collections.synchronizedList(new ArrayList<>());
+            handle.getLogger().addListener(message -> messages.add(message.getMessage()));
+
+            /* Exceed the capacity of the ring buffer to make sure that no slot has been leaked. */
+            action.run(handle.getLogger());
+            for (int i = 0; i < 8; i++) handle.getLogger().log(INFO, "fill");
+
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+            messages.removeIf("fill"::equals);
+
+            return new ArrayList<>(messages);
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    private interface LoggerAction {
+
+        void run(Logger logger) throws IOException;
+
+    }
+
+}
\ No newline at end of file
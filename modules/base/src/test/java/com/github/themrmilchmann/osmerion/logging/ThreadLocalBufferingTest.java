@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public final class ThreadLocalBufferingTest {
+
+    private static final LogLevel ERROR = new LogLevel("ERROR", 1);
+    private static final LogLevel INFO = new LogLevel("INFO", 3);
+
+    @Test
+    public void testConfiguration() {
+        LogDispatcher.Builder builder = new LogDispatcher.Builder();
+        expectThrows(IllegalArgumentException.class, () -> builder.setThreadLocalBufferSize(-1));
+        expectThrows(IllegalArgumentException.class, () -> builder.setThreadLocalFlushInterval(0, TimeUnit.SECONDS));
+        expectThrows(NullPointerException.class, () -> builder.setThreadLocalFlushInterval(1, null));
+    }
+
+    @Test(timeOut = 30_000)
+    public void testFlushTriggers() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+
+        LogDispatcher.Builder dispatcherBuilder = new LogDispatcher.Builder();
+        dispatcherBuilder.setStripes(1);
+        dispatcherBuilder.setThreadLocalBufferSize(4);
+        dispatcherBuilder.setThreadLocalFlushInterval(1, TimeUnit.HOURS);
+        dispatcherBuilder.setThreadLocalFlushSeverity(ERROR.getSeverity());
+
+        try (LogDispatcher dispatcher = dispatcherBuilder.build()) {
+            Logger.Handle handle = newLogger(dispatcher, new TestLogClock());
+            Logger logger = handle.getLogger();
+            logger.addListener(message -> received.add(message.getMessage()));
+
+            logger.log(INFO, "a");
+            logger.log(INFO, "b");
+
+            /* Messages remain in the buffer of the logging thread until it is flushed. */
+            Thread.sleep(50L);
+            assertTrue(received.isEmpty());
+            assertEquals(handle.getMetrics().getQueueDepth(), 0);
+
+            /* Severe messages cause an immediate flush. */
+            logger.log(ERROR, "c");
+            while (received.size() < 3) Thread.sleep(1L);
+            assertEquals(received, List.of("a", "b", "c"));
+
+            /* A full buffer is flushed. */
+            for (String s : List.of("d", "e", "f")) logger.log(INFO, s);
+            Thread.sleep(50L);
+            assertEquals(received.size(), 3);
+
+            logger.log(INFO, "g");
+            while (received.size() < 7) Thread.sleep(1L);
+
+            /* Flushing the logger flushes the buffers of all threads. */
+            logger.log(INFO, "h");
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+            assertEquals(received, List.of("a", "b", "c", "d", "e", "f", "g", "h"));
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testFlushInterval() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+
+        LogDispatcher.Builder dispatcherBuilder = new LogDispatcher.Builder();
+        dispatcherBuilder.setStripes(1);
+        dispatcherBuilder.setThreadLocalBufferSize(64);
+        dispatcherBuilder.setThreadLocalFlushInterval(20, TimeUnit.MILLISECONDS);
+
+        try (LogDispatcher dispatcher = dispatcherBuilder.build()) {
+            Logger logger = newLogger(dispatcher, new TestLogClock()).getLogger();
+            logger.addListener(message -> received.add(message.getMessage()));
+
+            /* Buffers of threads that stopped logging are flushed by the dispatching thread. */
+            Thread thread = new Thread(() -> logger.log(INFO, "a"));
+            thread.start();
+            thread.join();
+
+            while (received.isEmpty()) Thread.sleep(1L);
+            assertEquals(received, List.of("a"));
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testMergeByTimestamp() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+
+        LogDispatcher.Builder dispatcherBuilder = new LogDispatcher.Builder();
+        dispatcherBuilder.setStripes(1);
+        dispatcherBuilder.setThreadLocalBufferSize(2);
+        dispatcherBuilder.setThreadLocalFlushInterval(1, TimeUnit.HOURS);
+        dispatcherBuilder.setThreadLocalFlushSeverity(ERROR.getSeverity());
+
+        try (LogDispatcher dispatcher = dispatcherBuilder.build()) {
+            TestLogClock clock = new TestLogClock();
+            Logger.Handle handle = newLogger(dispatcher, clock);
+            Logger logger = handle.getLogger();
+
+            CountDownLatch blocked = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+
+            logger.addListener(message -> {
+                if (message.getLevel().equals(ERROR)) {
+                    blocked.countDown();
+
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                received.add(message.getMessage());
+                sequences.add(message.getSequence());
+            });
+
+            try {
+                /* Block the dispatching thread so that the buffers of both threads are delivered in a single batch. */
+                logger.log(ERROR, "blocker");
+                assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+                logFrom(logger, clock, "a1", 10L, "a2", 30L);
+                logFrom(logger, clock, "b1", 20L, "b2", 40L);
+            } finally {
+                release.countDown();
+            }
+
+            assertTrue(handle.flush(10, TimeUnit.SECONDS));
+        }
+
+        /* Messages of different threads are merged by timestamp, and sequence numbers increase in delivery order. */
+        assertEquals(received, List.of("blocker", "a1", "b1", "a2", "b2"));
+
+        for (int i = 1; i < sequences.size(); i++) assertTrue(sequences.get(i) > sequences.get(i - 1), sequences.toString());
+    }
+
+    private static void logFrom(Logger logger, TestLogClock clock, String first, long firstTime, String second, long secondTime) throws Exception {
+        Thread thread = new Thread(() -> {
+            clock.setTime(firstTime, TimeUnit.MILLISECONDS);
+            logger.log(INFO, first);
+            clock.setTime(secondTime, TimeUnit.MILLISECONDS);
+            logger.log(INFO, second);
+        });
+
+        thread.start();
+        thread.join();
+    }
+
+    private static Logger.Handle newLogger(LogDispatcher dispatcher, LogClock clock) {
+        Logger.Builder builder = new Logger.Builder();
+        builder.getLogLevels().add(ERROR);
+        builder.getLogLevels().add(INFO);
+        builder.setSeverity(INFO.getSeverity());
+        builder.setClock(clock);
+        builder.setDispatcher(dispatcher);
+
+        return builder.build();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2017 Leon Linhart,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ *
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ *  Neither the name of the copyright holder nor the names of its
+ *   contributors may be used to endorse or promote products derived from
+ *   this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.themrmilchmann.osmerion.logging.locations;
+
+import com.github.themrmilchmann.osmerion.logging.ILogger;
+import com.github.themrmilchmann.osmerion.logging.LogLevel;
+
+/*
+ * Call sites for location tests. Frames of the logging package are skipped when locations are captured. Hence, the call sites must reside in a different
+ * package.
+ */
+public final class LocationCaller {
+
+    public static void log(ILogger logger, LogLevel level, String message) {
+        logger.log(level, message);
+    }
+
+    public static void logTwice(ILogger logger, LogLevel level) {
+        logger.log(level, "first");
+        logger.log(level, "second");
+    }
+
+    public static void overloaded(ILogger logger, LogLevel level) {
+        logger.log(level, "overloaded");
+    }
+
+    public static void overloaded(ILogger logger, LogLevel level, String message) {
+        logger.log(level, message);
+    }
+
+    private LocationCaller() {}
+
+}
\ No newline at end of file